@@ -0,0 +1,137 @@
+package es.kuiko.api_comunidades.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import es.kuiko.api_comunidades.dto.gasolineras.Estacion;
+import es.kuiko.api_comunidades.dto.gasolineras.GasolineraDTOin;
+import es.kuiko.api_comunidades.dto.gasolineras.GasolineraWrapperApiResponseIn;
+import es.kuiko.api_comunidades.dto.gasolineras.GasolineraWrapperApiResponseOut;
+import es.kuiko.api_comunidades.mapper.GasolineraJsonEncoder;
+import es.kuiko.api_comunidades.mapper.GasolineraMapper;
+import es.kuiko.api_comunidades.service.estaciones.AlmacenEstaciones;
+import es.kuiko.api_comunidades.service.estaciones.SnapshotNacional;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks de la ruta de una petición de gasolineras por provincia: deserializar la respuesta de la
+ * API, mapearla a los DTO de salida y serializar la respuesta.
+ *
+ * <p>El parámetro {@code payload} es el número de estaciones de la respuesta generada (de una provincia
+ * pequeña a Madrid) o la ruta de una respuesta real grabada. Cada benchmark procesa la provincia completa
+ * por operación; {@link GasolinerasBenchmarkRunner} normaliza el rendimiento y la asignación de memoria
+ * por estación.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+public class GasolinerasBenchmark {
+
+    @Param({"60", "600", "2400"})
+    public String payload;
+
+    private ObjectMapper objectMapper;
+    private GasolineraMapper gasolineraMapper;
+    private GasolineraJsonEncoder gasolineraJsonEncoder;
+
+    private byte[] cuerpo;
+    private GasolineraWrapperApiResponseIn respuestaIn;
+    private GasolineraWrapperApiResponseOut respuestaOut;
+    private SnapshotNacional snapshot;
+    private String codigoProvincia;
+
+    @Setup
+    public void setUp() throws IOException {
+        // Misma configuración de Jackson que la aplicación (no falla con los campos de la API que no se usan)
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        gasolineraMapper = new GasolineraMapper();
+        gasolineraJsonEncoder = new GasolineraJsonEncoder(objectMapper);
+
+        cuerpo = PayloadsGasolineras.cargar(payload);
+        respuestaIn = objectMapper.readValue(cuerpo, GasolineraWrapperApiResponseIn.class);
+        respuestaOut = gasolineraMapper.mapToGasolineraWrapperApiResponseOut(respuestaIn);
+
+        List<Estacion> estaciones = new ArrayList<>(respuestaIn.getListaEESSPrecio().size());
+        for (GasolineraDTOin gasolinera : respuestaIn.getListaEESSPrecio()) {
+            estaciones.add(gasolineraMapper.mapToEstacion(gasolinera));
+        }
+        snapshot = new SnapshotNacional(respuestaIn.getFecha(), respuestaIn.getNota(), Instant.now(),
+                AlmacenEstaciones.construir(estaciones));
+        codigoProvincia = estaciones.isEmpty() ? "28" : estaciones.get(0).idProvincia();
+    }
+
+    /**
+     * Deserialización con Jackson de la respuesta de la API.
+     */
+    @Benchmark
+    public GasolineraWrapperApiResponseIn deserializar() throws IOException {
+        return objectMapper.readValue(cuerpo, GasolineraWrapperApiResponseIn.class);
+    }
+
+    /**
+     * Mapeo de la respuesta completa con {@code mapToGasolineraWrapperApiResponseOut}.
+     */
+    @Benchmark
+    public GasolineraWrapperApiResponseOut mapearRespuesta() {
+        return gasolineraMapper.mapToGasolineraWrapperApiResponseOut(respuestaIn);
+    }
+
+    /**
+     * Mapeo estación a estación con {@code mapToGasolineraDTOout}, sin construir la lista de salida.
+     */
+    @Benchmark
+    public void mapearGasolineras(Blackhole blackhole) {
+        for (GasolineraDTOin gasolinera : respuestaIn.getListaEESSPrecio()) {
+            blackhole.consume(gasolineraMapper.mapToGasolineraDTOout(gasolinera));
+        }
+    }
+
+    /**
+     * Serialización con Jackson de la respuesta de salida.
+     */
+    @Benchmark
+    public byte[] serializar() throws IOException {
+        return objectMapper.writeValueAsBytes(respuestaOut);
+    }
+
+    /**
+     * Serialización desde el almacén de la instantánea con los valores de diccionario ya codificados,
+     * como referencia frente a {@link #serializar()}.
+     */
+    @Benchmark
+    public byte[] serializarDesdeAlmacen() {
+        return gasolineraJsonEncoder.encodeProvincia(snapshot, codigoProvincia);
+    }
+
+    /**
+     * Número de estaciones de la respuesta indicada por el parámetro {@code payload}.
+     *
+     * @param payload Valor del parámetro.
+     * @return Número de estaciones.
+     * @throws IOException Si no se puede leer la respuesta grabada.
+     */
+    static int contarEstaciones(String payload) throws IOException {
+        return Jackson2ObjectMapperBuilder.json().build()
+                .readValue(PayloadsGasolineras.cargar(payload), GasolineraWrapperApiResponseIn.class)
+                .getListaEESSPrecio().size();
+    }
+}
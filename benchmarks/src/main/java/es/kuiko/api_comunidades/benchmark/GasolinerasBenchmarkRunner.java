@@ -0,0 +1,87 @@
+package es.kuiko.api_comunidades.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Punto de entrada del jar de benchmarks.
+ *
+ * <p>Acepta las mismas opciones que el lanzador de JMH (por ejemplo {@code -p payload=60,/ruta/28.json}
+ * o un filtro de benchmarks), añade siempre el perfilador de GC y, al terminar, muestra para cada
+ * benchmark el rendimiento en estaciones por segundo y los bytes asignados por estación, que permiten
+ * comparar provincias de distinto tamaño. Los benchmarks sin parámetro {@code payload} (por ejemplo
+ * {@code ReferenciaTerritorialBenchmark}) se muestran aparte, con los bytes asignados por operación.</p>
+ */
+public final class GasolinerasBenchmarkRunner {
+
+    private GasolinerasBenchmarkRunner() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions opciones = new CommandLineOptions(args);
+        OptionsBuilder builder = new OptionsBuilder();
+        builder.parent(opciones);
+        if (opciones.getIncludes().isEmpty()) {
+            builder.include(GasolinerasBenchmark.class.getSimpleName());
+        }
+        builder.addProfiler(GCProfiler.class);
+        Collection<RunResult> resultados = new Runner(builder.build()).run();
+
+        Map<String, Integer> estacionesPorPayload = new HashMap<>();
+        List<RunResult> sinPayload = new ArrayList<>();
+        System.out.println();
+        System.out.printf(Locale.ROOT, "%-28s %12s %10s %16s %14s%n", "Benchmark", "payload", "estaciones", "estaciones/s", "B/estación");
+        for (RunResult resultado : resultados) {
+            String payload = resultado.getParams().getParam("payload");
+            if (payload == null) {
+                sinPayload.add(resultado);
+                continue;
+            }
+            int estaciones = estacionesPorPayload.computeIfAbsent(payload, GasolinerasBenchmarkRunner::contarEstaciones);
+            String benchmark = resultado.getParams().getBenchmark();
+            double operaciones = resultado.getPrimaryResult().getScore();
+            Result asignacion = resultado.getSecondaryResults().get("gc.alloc.rate.norm");
+            System.out.printf(Locale.ROOT, "%-28s %12s %10d %16.0f %14s%n",
+                    benchmark.substring(benchmark.lastIndexOf('.') + 1),
+                    payload.length() > 12 ? "…" + payload.substring(payload.length() - 11) : payload,
+                    estaciones,
+                    operaciones * estaciones,
+                    asignacion == null || estaciones == 0 ? "-" : String.format(Locale.ROOT, "%.1f", asignacion.getScore() / estaciones));
+        }
+
+        if (!sinPayload.isEmpty()) {
+            System.out.println();
+            System.out.printf(Locale.ROOT, "%-28s %16s %10s %10s%n", "Benchmark", "resultado", "unidad", "B/op");
+            for (RunResult resultado : sinPayload) {
+                String benchmark = resultado.getParams().getBenchmark();
+                Result asignacion = resultado.getSecondaryResults().get("gc.alloc.rate.norm");
+                System.out.printf(Locale.ROOT, "%-28s %16.2f %10s %10s%n",
+                        benchmark.substring(benchmark.lastIndexOf('.') + 1),
+                        resultado.getPrimaryResult().getScore(),
+                        resultado.getPrimaryResult().getScoreUnit(),
+                        asignacion == null ? "-" : String.format(Locale.ROOT, "%.1f", asignacion.getScore()));
+            }
+        }
+    }
+
+    private static int contarEstaciones(String payload) {
+        try {
+            return GasolinerasBenchmark.contarEstaciones(payload);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
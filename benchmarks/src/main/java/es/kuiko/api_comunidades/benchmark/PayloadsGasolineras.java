@@ -0,0 +1,117 @@
+package es.kuiko.api_comunidades.benchmark;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.SplittableRandom;
+
+/**
+ * Cuerpos de respuesta de {@code FiltroProvincia/} usados por los benchmarks.
+ *
+ * <p>Un parámetro numérico genera una respuesta con ese número de estaciones, con el mismo formato
+ * que publica la API (todos sus campos, decimales con coma, precios vacíos y valores de diccionario
+ * repetidos). La generación es determinista, de modo que dos ejecuciones miden exactamente los mismos
+ * bytes. Cualquier otro valor se interpreta como la ruta de una respuesta real grabada de la API.</p>
+ */
+final class PayloadsGasolineras {
+
+    private static final String[] ROTULOS = {"REPSOL", "CEPSA", "GALP", "BP", "SHELL", "PLENOIL", "BALLENOIL",
+            "PETROPRIX", "CARREFOUR", "ALCAMPO", "AVIA", "Q8", "DISA", "MEROIL", "GASEXPRESS"};
+    private static final String[] HORARIOS = {"L-D: 24H", "L-D: 06:00-22:00", "L-V: 07:00-22:00; S-D: 08:00-15:00",
+            "L-S: 07:00-23:00", "L-D: 07:00-21:30"};
+    private static final String[] VIAS = {"CALLE", "AVENIDA", "CARRETERA", "PASEO", "POLÍGONO", "RONDA"};
+    private static final String[] NOMBRES_VIA = {"MAYOR", "DE ANDALUCÍA", "N-IV KM. 12,5", "DE LA CONSTITUCIÓN",
+            "REAL", "DEL PUERTO", "DE CASTILLA", "SAN JOSÉ", "A-3 KM 22", "DE LOS OLMOS"};
+
+    private PayloadsGasolineras() {
+    }
+
+    /**
+     * Obtiene el cuerpo de respuesta indicado por el parámetro del benchmark.
+     *
+     * @param payload Número de estaciones a generar, o ruta de una respuesta grabada.
+     * @return Cuerpo JSON en UTF-8.
+     * @throws IOException Si no se puede leer la respuesta grabada.
+     */
+    static byte[] cargar(String payload) throws IOException {
+        if (payload.chars().allMatch(Character::isDigit)) {
+            return generar(Integer.parseInt(payload)).getBytes(StandardCharsets.UTF_8);
+        }
+        return Files.readAllBytes(Path.of(payload));
+    }
+
+    /**
+     * Genera una respuesta de provincia con el número de estaciones indicado.
+     *
+     * @param estaciones Número de estaciones.
+     * @return Cuerpo JSON.
+     */
+    static String generar(int estaciones) {
+        SplittableRandom random = new SplittableRandom(estaciones);
+        int municipios = Math.max(1, estaciones / 8);
+        StringBuilder json = new StringBuilder(estaciones * 1200);
+        json.append("{\"Fecha\":\"18/10/2026 8:00:00\",\"ListaEESSPrecio\":[");
+        for (int i = 0; i < estaciones; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            String municipio = "MUNICIPIO " + random.nextInt(municipios);
+            json.append('{');
+            campo(json, "C.P.", String.format(Locale.ROOT, "%05d", 28000 + random.nextInt(999))).append(',');
+            campo(json, "Dirección", VIAS[random.nextInt(VIAS.length)] + " " + NOMBRES_VIA[random.nextInt(NOMBRES_VIA.length)]
+                    + ", " + (1 + random.nextInt(200))).append(',');
+            campo(json, "Horario", HORARIOS[random.nextInt(HORARIOS.length)]).append(',');
+            campo(json, "Latitud", coordenada(40 + random.nextDouble())).append(',');
+            campo(json, "Localidad", municipio).append(',');
+            campo(json, "Longitud (WGS84)", coordenada(-4 + random.nextDouble())).append(',');
+            campo(json, "Margen", random.nextBoolean() ? "D" : "I").append(',');
+            campo(json, "Municipio", municipio).append(',');
+            campo(json, "Precio Biodiesel", "").append(',');
+            campo(json, "Precio Bioetanol", "").append(',');
+            campo(json, "Precio Gas Natural Comprimido", precio(random, 0.05, 1.1)).append(',');
+            campo(json, "Precio Gas Natural Licuado", precio(random, 0.03, 1.0)).append(',');
+            campo(json, "Precio Gases licuados del petróleo", precio(random, 0.2, 0.9)).append(',');
+            campo(json, "Precio Gasoleo A", precio(random, 0.97, 1.4)).append(',');
+            campo(json, "Precio Gasoleo B", precio(random, 0.3, 1.1)).append(',');
+            campo(json, "Precio Gasoleo Premium", precio(random, 0.6, 1.5)).append(',');
+            campo(json, "Precio Gasolina 95 E10", precio(random, 0.05, 1.5)).append(',');
+            campo(json, "Precio Gasolina 95 E5", precio(random, 0.95, 1.5)).append(',');
+            campo(json, "Precio Gasolina 95 E5 Premium", precio(random, 0.2, 1.6)).append(',');
+            campo(json, "Precio Gasolina 98 E10", precio(random, 0.02, 1.6)).append(',');
+            campo(json, "Precio Gasolina 98 E5", precio(random, 0.6, 1.65)).append(',');
+            campo(json, "Precio Hidrogeno", "").append(',');
+            campo(json, "Provincia", "MADRID").append(',');
+            campo(json, "Remisión", "dm").append(',');
+            campo(json, "Rótulo", ROTULOS[random.nextInt(ROTULOS.length)]).append(',');
+            campo(json, "Tipo Venta", "P").append(',');
+            campo(json, "% BioEtanol", "0,0").append(',');
+            campo(json, "% Éster metílico", "0,0").append(',');
+            campo(json, "IDEESS", String.valueOf(1000 + i)).append(',');
+            campo(json, "IDMunicipio", String.valueOf(4000 + random.nextInt(municipios))).append(',');
+            campo(json, "IDProvincia", "28").append(',');
+            campo(json, "IDCCAA", "13");
+            json.append('}');
+        }
+        json.append("],\"Nota\":\"Archivo de todas las estaciones de servicio. La actualización de precios se realiza cada media hora.\",")
+                .append("\"ResultadoConsulta\":\"OK\"}");
+        return json.toString();
+    }
+
+    private static StringBuilder campo(StringBuilder json, String nombre, String valor) {
+        return json.append('"').append(nombre).append("\":\"").append(valor).append('"');
+    }
+
+    private static String coordenada(double grados) {
+        return String.format(Locale.ROOT, "%.6f", grados).replace('.', ',');
+    }
+
+    // Precio con la probabilidad indicada de publicarse, con tres decimales y coma como separador
+    private static String precio(SplittableRandom random, double probabilidad, double base) {
+        if (random.nextDouble() >= probabilidad) {
+            return "";
+        }
+        return String.format(Locale.ROOT, "%.3f", base + random.nextDouble() * 0.3).replace('.', ',');
+    }
+}
@@ -0,0 +1,126 @@
+package es.kuiko.api_comunidades.benchmark;
+
+import es.kuiko.api_comunidades.model.ComunidadAutonoma;
+import es.kuiko.api_comunidades.model.Provincia;
+import es.kuiko.api_comunidades.service.referencia.CodigosTerritoriales;
+import es.kuiko.api_comunidades.service.referencia.TablaComunidades;
+import es.kuiko.api_comunidades.service.referencia.TablaProvincias;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks de las búsquedas y validaciones de códigos de provincia y de Comunidad Autónoma.
+ *
+ * <p>Cada operación busca o valida un único código, recorriendo en orden los 52 códigos de provincia y
+ * los 19 de comunidad. Con el perfilador de GC que añade {@link GasolinerasBenchmarkRunner}, la columna
+ * de bytes por operación debe ser 0 en todos salvo en la validación con expresión regular, que se mide
+ * como referencia de la implementación anterior.</p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+public class ReferenciaTerritorialBenchmark {
+
+    private static final String[] CODIGOS_CA = {
+            "PV", "CM", "CV", "AN", "CL", "EX", "IB", "CT", "GA", "AR",
+            "LR", "MD", "MU", "NA", "AS", "IC", "CN", "CE", "ME"
+    };
+
+    private TablaProvincias tablaProvincias;
+    private TablaComunidades tablaComunidades;
+    private String[] codigosProvinciaTexto;
+    private int siguienteProvincia;
+    private int siguienteComunidad;
+
+    @Setup
+    public void setUp() {
+        List<ComunidadAutonoma> comunidades = new ArrayList<>();
+        for (String codigo : CODIGOS_CA) {
+            comunidades.add(new ComunidadAutonoma(codigo, "Comunidad " + codigo));
+        }
+        List<Provincia> provincias = new ArrayList<>();
+        codigosProvinciaTexto = new String[CodigosTerritoriales.MAX_PROVINCIA];
+        for (int codigo = 1; codigo <= CodigosTerritoriales.MAX_PROVINCIA; codigo++) {
+            provincias.add(new Provincia(codigo, "Provincia " + codigo, comunidades.get(codigo % comunidades.size())));
+            // Mitad con cero inicial ("08") y mitad sin él ("8"), como llegan en las rutas
+            codigosProvinciaTexto[codigo - 1] = codigo % 2 == 0 ? CodigosTerritoriales.normalizarCodigo(codigo) : Integer.toString(codigo);
+        }
+        tablaProvincias = TablaProvincias.construir(provincias);
+        tablaComunidades = TablaComunidades.construir(comunidades);
+    }
+
+    private int siguienteProvincia() {
+        int codigo = siguienteProvincia + 1;
+        siguienteProvincia = codigo == CodigosTerritoriales.MAX_PROVINCIA ? 0 : codigo;
+        return codigo;
+    }
+
+    private String siguienteComunidad() {
+        String codigo = CODIGOS_CA[siguienteComunidad];
+        siguienteComunidad = siguienteComunidad + 1 == CODIGOS_CA.length ? 0 : siguienteComunidad + 1;
+        return codigo;
+    }
+
+    /**
+     * Búsqueda de una provincia por código en el array denso.
+     */
+    @Benchmark
+    public Provincia buscarProvincia() {
+        return tablaProvincias.get(siguienteProvincia());
+    }
+
+    /**
+     * Búsqueda de una comunidad por código en la tabla con hash perfecto.
+     */
+    @Benchmark
+    public ComunidadAutonoma buscarComunidad() {
+        return tablaComunidades.get(siguienteComunidad());
+    }
+
+    /**
+     * Interpretación de un código de provincia recibido como texto (ruta de gasolineras).
+     */
+    @Benchmark
+    public int parsearCodigoProvincia() {
+        return CodigosTerritoriales.codigoProvincia(codigosProvinciaTexto[siguienteProvincia() - 1]);
+    }
+
+    /**
+     * Normalización de un código de provincia al formato de dos cifras de la API.
+     */
+    @Benchmark
+    public String normalizarCodigoProvincia() {
+        return CodigosTerritoriales.normalizarCodigo(CodigosTerritoriales.parsearCodigo(codigosProvinciaTexto[siguienteProvincia() - 1]));
+    }
+
+    /**
+     * Validación de un código de comunidad carácter a carácter.
+     */
+    @Benchmark
+    public boolean validarCodigoCa() {
+        return CodigosTerritoriales.esAlfanumerico(siguienteComunidad());
+    }
+
+    /**
+     * Validación de un código de comunidad con {@code String.matches}, como referencia.
+     */
+    @Benchmark
+    public boolean validarCodigoCaRegex() {
+        return siguienteComunidad().matches("[A-Za-z0-9]+");
+    }
+}
@@ -0,0 +1,227 @@
+package es.kuiko.api_comunidades.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Propiedades del cliente HTTP de la API de terceros ({@code api.cliente-http.*}): pool de conexiones
+ * de Reactor Netty, precalentamiento, reanudación de sesiones TLS y HTTP/2.
+ */
+@ConfigurationProperties(prefix = "api.cliente-http")
+public class ClienteHttpProperties {
+
+    /**
+     * Pool de conexiones.
+     */
+    private final Pool pool = new Pool();
+
+    /**
+     * Sesiones TLS.
+     */
+    private final Tls tls = new Tls();
+
+    /**
+     * Resolver DNS, cargar las clases de Netty, preparar el contexto TLS y abrir {@code conexionesIniciales}
+     * conexiones con la API al arrancar, en lugar de en la primera petición.
+     */
+    private boolean precalentar = true;
+
+    /**
+     * Conexiones que se abren con la API al arrancar cuando {@code precalentar} está activo.
+     */
+    private int conexionesIniciales = 2;
+
+    /**
+     * Negociar HTTP/2 (ALPN) con la API, manteniendo HTTP/1.1 como alternativa.
+     */
+    private boolean http2 = false;
+
+    /**
+     * Tiempo máximo para establecer la conexión TCP.
+     */
+    private Duration timeoutConexion = Duration.ofSeconds(5);
+
+    public Pool getPool() {
+        return pool;
+    }
+
+    public Tls getTls() {
+        return tls;
+    }
+
+    public boolean isPrecalentar() {
+        return precalentar;
+    }
+
+    public void setPrecalentar(boolean precalentar) {
+        this.precalentar = precalentar;
+    }
+
+    public int getConexionesIniciales() {
+        return conexionesIniciales;
+    }
+
+    public void setConexionesIniciales(int conexionesIniciales) {
+        this.conexionesIniciales = conexionesIniciales;
+    }
+
+    public boolean isHttp2() {
+        return http2;
+    }
+
+    public void setHttp2(boolean http2) {
+        this.http2 = http2;
+    }
+
+    public Duration getTimeoutConexion() {
+        return timeoutConexion;
+    }
+
+    public void setTimeoutConexion(Duration timeoutConexion) {
+        this.timeoutConexion = timeoutConexion;
+    }
+
+    /**
+     * Configuración del {@code ConnectionProvider} de Reactor Netty.
+     */
+    public static class Pool {
+
+        /**
+         * Conexiones simultáneas máximas por servidor.
+         */
+        private int maxConexiones = 50;
+
+        /**
+         * Peticiones que pueden esperar una conexión libre; las siguientes se rechazan.
+         */
+        private int maxPendientes = 200;
+
+        /**
+         * Tiempo máximo de espera por una conexión libre.
+         */
+        private Duration timeoutAdquisicion = Duration.ofSeconds(2);
+
+        /**
+         * Tiempo que una conexión puede estar inactiva antes de cerrarse (menor que el keep-alive del servidor).
+         */
+        private Duration maxInactividad = Duration.ofSeconds(20);
+
+        /**
+         * Vida máxima de una conexión, para repartir la carga si cambian las IP del servidor.
+         */
+        private Duration maxVida = Duration.ofMinutes(5);
+
+        /**
+         * Intervalo de la limpieza en segundo plano de conexiones inactivas o caducadas.
+         */
+        private Duration intervaloLimpieza = Duration.ofSeconds(30);
+
+        /**
+         * Registrar periódicamente las métricas del pool (conexiones activas, inactivas y peticiones en espera).
+         */
+        private boolean metricas = true;
+
+        public int getMaxConexiones() {
+            return maxConexiones;
+        }
+
+        public void setMaxConexiones(int maxConexiones) {
+            this.maxConexiones = maxConexiones;
+        }
+
+        public int getMaxPendientes() {
+            return maxPendientes;
+        }
+
+        public void setMaxPendientes(int maxPendientes) {
+            this.maxPendientes = maxPendientes;
+        }
+
+        public Duration getTimeoutAdquisicion() {
+            return timeoutAdquisicion;
+        }
+
+        public void setTimeoutAdquisicion(Duration timeoutAdquisicion) {
+            this.timeoutAdquisicion = timeoutAdquisicion;
+        }
+
+        public Duration getMaxInactividad() {
+            return maxInactividad;
+        }
+
+        public void setMaxInactividad(Duration maxInactividad) {
+            this.maxInactividad = maxInactividad;
+        }
+
+        public Duration getMaxVida() {
+            return maxVida;
+        }
+
+        public void setMaxVida(Duration maxVida) {
+            this.maxVida = maxVida;
+        }
+
+        public Duration getIntervaloLimpieza() {
+            return intervaloLimpieza;
+        }
+
+        public void setIntervaloLimpieza(Duration intervaloLimpieza) {
+            this.intervaloLimpieza = intervaloLimpieza;
+        }
+
+        public boolean isMetricas() {
+            return metricas;
+        }
+
+        public void setMetricas(boolean metricas) {
+            this.metricas = metricas;
+        }
+    }
+
+    /**
+     * Caché de sesiones TLS del cliente, que permite reanudar sesiones (handshake abreviado) al abrir
+     * nuevas conexiones con el mismo servidor.
+     */
+    public static class Tls {
+
+        /**
+         * Número máximo de sesiones TLS en caché.
+         */
+        private long sesionesCache = 1024;
+
+        /**
+         * Tiempo durante el que se puede reanudar una sesión TLS.
+         */
+        private Duration sesionTimeout = Duration.ofHours(1);
+
+        /**
+         * Tiempo máximo del handshake TLS.
+         */
+        private Duration timeoutHandshake = Duration.ofSeconds(5);
+
+        public long getSesionesCache() {
+            return sesionesCache;
+        }
+
+        public void setSesionesCache(long sesionesCache) {
+            this.sesionesCache = sesionesCache;
+        }
+
+        public Duration getSesionTimeout() {
+            return sesionTimeout;
+        }
+
+        public void setSesionTimeout(Duration sesionTimeout) {
+            this.sesionTimeout = sesionTimeout;
+        }
+
+        public Duration getTimeoutHandshake() {
+            return timeoutHandshake;
+        }
+
+        public void setTimeoutHandshake(Duration timeoutHandshake) {
+            this.timeoutHandshake = timeoutHandshake;
+        }
+    }
+}
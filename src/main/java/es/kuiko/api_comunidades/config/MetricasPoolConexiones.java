@@ -0,0 +1,53 @@
+package es.kuiko.api_comunidades.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.netty.resources.ConnectionPoolMetrics;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.net.SocketAddress;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registro de las métricas del pool de conexiones hacia la API de terceros.
+ *
+ * <p>Reactor Netty entrega a este registrador las métricas de cada pool (uno por servidor remoto) en
+ * cuanto se crea, sin necesidad de Micrometer. Periódicamente se registran las conexiones abiertas,
+ * activas e inactivas y las peticiones que esperan una conexión libre.</p>
+ */
+@Component
+public class MetricasPoolConexiones implements ConnectionProvider.MeterRegistrar {
+
+    private static final Logger log = LoggerFactory.getLogger(MetricasPoolConexiones.class);
+
+    private final Map<String, ConnectionPoolMetrics> pools = new ConcurrentHashMap<>();
+
+    @Override
+    public void registerMetrics(String poolName, String id, SocketAddress remoteAddress, ConnectionPoolMetrics metrics) {
+        pools.put(poolName + " " + remoteAddress, metrics);
+    }
+
+    /**
+     * Métricas del pool de cada servidor remoto, por nombre del pool y dirección.
+     *
+     * @return Vista de solo lectura de las métricas registradas.
+     */
+    public Map<String, ConnectionPoolMetrics> getPools() {
+        return Map.copyOf(pools);
+    }
+
+    /**
+     * Registra periódicamente el estado de cada pool.
+     */
+    @Scheduled(fixedRateString = "${gasolineras.upstream.metricas-intervalo:PT5M}",
+               initialDelayString = "${gasolineras.upstream.metricas-intervalo:PT5M}")
+    public void registrarMetricas() {
+        pools.forEach((pool, metricas) -> log.info(
+                "Pool {}: {} conexiones abiertas (máx. {}), {} activas, {} inactivas, {} peticiones en espera (máx. {})",
+                pool, metricas.allocatedSize(), metricas.maxAllocatedSize(), metricas.acquiredSize(), metricas.idleSize(),
+                metricas.pendingAcquireSize(), metricas.maxPendingAcquireSize()));
+    }
+}
@@ -0,0 +1,13 @@
+package es.kuiko.api_comunidades.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Configuración que habilita la ejecución de tareas programadas ({@code @Scheduled}),
+ * utilizadas para la ingesta periódica de los datos de gasolineras.
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
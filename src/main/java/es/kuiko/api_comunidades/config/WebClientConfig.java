@@ -1,46 +1,91 @@
 package es.kuiko.api_comunidades.config;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.util.unit.DataSize;
 import org.springframework.web.reactive.function.client.WebClient;
-import io.netty.handler.ssl.SslContext;
+import io.netty.channel.ChannelOption;
 import io.netty.handler.ssl.SslContextBuilder;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.Http11SslContextSpec;
+import reactor.netty.http.Http2SslContextSpec;
+import reactor.netty.http.HttpProtocol;
 import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
 import reactor.netty.tcp.SslProvider;
 
 import java.security.KeyStore;
 import javax.net.ssl.TrustManagerFactory;
 import java.io.InputStream;
+import java.time.Duration;
 import java.security.cert.Certificate;
 import java.security.cert.CertificateFactory;
+import java.util.function.Consumer;
 
 /**
  * Configuración de WebClient para realizar solicitudes HTTP seguras
  * a un servidor externo utilizando un certificado SSL personalizado.
  * Esta configuración permite que la aplicación se conecte de manera
  * segura a un servidor que requiere autenticación SSL.
+ *
+ * <p>El pool de conexiones, la caché de sesiones TLS, HTTP/2 y el precalentamiento se configuran
+ * con {@link ClienteHttpProperties} ({@code api.cliente-http.*}).</p>
  */
 @Configuration
+@EnableConfigurationProperties(ClienteHttpProperties.class)
 public class WebClientConfig {
 
+    private static final Logger log = LoggerFactory.getLogger(WebClientConfig.class);
+
     // Inyecta la URL base desde el archivo de configuración
     @Value("${api.base-url}")
     private String baseUrl;
 
+    // Tamaño máximo de respuesta que se puede decodificar en memoria (el documento nacional ocupa varios MB)
+    @Value("${api.max-in-memory-size:32MB}")
+    private DataSize maxInMemorySize;
+
+    /**
+     * Crea el pool de conexiones hacia la API de terceros. Se cierra al detener la aplicación.
+     *
+     * @param propiedades Propiedades del cliente HTTP.
+     * @param metricasPoolConexiones Registrador de las métricas del pool.
+     * @return Pool de conexiones configurado.
+     */
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider conexionesApi(ClienteHttpProperties propiedades, MetricasPoolConexiones metricasPoolConexiones) {
+        ClienteHttpProperties.Pool pool = propiedades.getPool();
+        return ConnectionProvider.builder("api-gasolineras")
+                .maxConnections(pool.getMaxConexiones())
+                .pendingAcquireMaxCount(pool.getMaxPendientes())
+                .pendingAcquireTimeout(pool.getTimeoutAdquisicion())
+                .maxIdleTime(pool.getMaxInactividad())
+                .maxLifeTime(pool.getMaxVida())
+                .evictInBackground(pool.getIntervaloLimpieza())
+                .metrics(pool.isMetricas(), () -> metricasPoolConexiones)
+                .build();
+    }
+
     /**
      * Crea y configura un bean de WebClient con un certificado SSL personalizado.
      * El WebClient se utiliza para realizar solicitudes a la API de precios de carburantes.
      *
+     * @param propiedades Propiedades del cliente HTTP.
+     * @param conexionesApi Pool de conexiones hacia la API de terceros.
      * @return WebClient configurado para conexiones SSL seguras.
      * @throws Exception si ocurre algún error al cargar el certificado o configurar SSL.
      */
     @Bean
     @Primary
-    public WebClient webClient() throws Exception {
+    public WebClient webClient(ClienteHttpProperties propiedades, ConnectionProvider conexionesApi) throws Exception {
         // Cargar el certificado desde el directorio resources/certs
         CertificateFactory cf = CertificateFactory.getInstance("X.509");
         Certificate cert;
@@ -57,20 +102,80 @@ public class WebClientConfig {
         TrustManagerFactory tmf = TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
         tmf.init(keyStore);
 
-        // Crear el contexto SSL que utiliza el TrustManagerFactory configurado
-        SslContext sslContext = SslContextBuilder
-                .forClient()
-                .trustManager(tmf)
-                .build();
+        // Contexto SSL único para todas las conexiones, con caché de sesiones: las conexiones nuevas con el
+        // mismo servidor reanudan la sesión en lugar de repetir el handshake completo
+        ClienteHttpProperties.Tls tls = propiedades.getTls();
+        SslProvider.ProtocolSslContextSpec sslContextSpec = contextoSsl(propiedades, tmf);
 
-        // Configurar HttpClient con el contexto SSL personalizado
-        HttpClient httpClient = HttpClient.create()
-            .secure(sslContextSpec -> sslContextSpec.sslContext(sslContext));
+        // Configurar HttpClient con el pool, el contexto SSL personalizado y compresión negociada
+        // (Accept-Encoding: gzip, descomprimiendo la respuesta de forma transparente)
+        HttpClient httpClient = HttpClient.create(conexionesApi)
+            .secure(spec -> spec.sslContext(sslContextSpec).handshakeTimeout(tls.getTimeoutHandshake()))
+            .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) propiedades.getTimeoutConexion().toMillis())
+            .compress(true);
+        if (propiedades.isHttp2()) {
+            httpClient = httpClient.protocol(HttpProtocol.H2, HttpProtocol.HTTP11);
+        }
+        if (propiedades.isPrecalentar()) {
+            // Event loop, resolver DNS y contexto TLS listos antes de la primera petición
+            httpClient.warmup().block();
+            // El warmup no abre conexiones: se abren aquí, sin bloquear el arranque, para dejarlas en el pool
+            Duration timeoutPrecalentamiento = propiedades.getTimeoutConexion().plus(tls.getTimeoutHandshake()).multipliedBy(2);
+            abrirConexiones(httpClient, baseUrl, propiedades.getConexionesIniciales(), timeoutPrecalentamiento)
+                    .subscribe(abiertas -> log.info("Precalentamiento: {} de {} conexiones abiertas con la API de terceros",
+                            abiertas, propiedades.getConexionesIniciales()));
+        }
 
         // Crear y devolver el WebClient configurado para realizar solicitudes seguras
         return WebClient.builder()
                         .clientConnector(new ReactorClientHttpConnector(httpClient))
                         .baseUrl(baseUrl)  // Utilizar la URL inyectada desde el archivo de configuración
+                        .codecs(codecs -> codecs.defaultCodecs().maxInMemorySize((int) maxInMemorySize.toBytes()))
                         .build();
     }
+
+    /**
+     * Construye el contexto SSL del cliente con el certificado de confianza y la caché de sesiones TLS,
+     * que permite a las conexiones nuevas con el mismo servidor reanudar la sesión en lugar de repetir el
+     * handshake completo. Con HTTP/2 el contexto anuncia {@code h2} por ALPN.
+     *
+     * @param propiedades Propiedades del cliente HTTP.
+     * @param tmf TrustManagerFactory con el certificado del servidor.
+     * @return Contexto SSL para HTTP/2 o para HTTP/1.1.
+     */
+    static SslProvider.ProtocolSslContextSpec contextoSsl(ClienteHttpProperties propiedades, TrustManagerFactory tmf) {
+        ClienteHttpProperties.Tls tls = propiedades.getTls();
+        Consumer<SslContextBuilder> configuracionSsl = builder -> builder
+                .trustManager(tmf)
+                .sessionCacheSize(tls.getSesionesCache())
+                .sessionTimeout(tls.getSesionTimeout().toSeconds());
+        return propiedades.isHttp2()
+                ? Http2SslContextSpec.forClient().configure(configuracionSsl)
+                : Http11SslContextSpec.forClient().configure(configuracionSsl);
+    }
+
+    /**
+     * Abre conexiones con el servidor lanzando a la vez peticiones {@code HEAD} a la URL indicada. Al ser
+     * simultáneas, cada una adquiere su propia conexión del pool (salvo con HTTP/2, que puede multiplexarlas
+     * en una sola), y al terminar la conexión vuelve al pool lista para reutilizarse, hasta que se cierre por
+     * {@code max-inactividad}. El código de estado no importa: solo se busca establecer la conexión.
+     *
+     * @param httpClient Cliente HTTP con el pool de conexiones.
+     * @param url URL del servidor.
+     * @param conexiones Número de conexiones a abrir.
+     * @param timeout Tiempo máximo para abrir cada conexión y recibir la respuesta.
+     * @return Un Mono con el número de conexiones abiertas; los fallos se registran y no se propagan.
+     */
+    static Mono<Long> abrirConexiones(HttpClient httpClient, String url, int conexiones, Duration timeout) {
+        return Flux.range(0, conexiones)
+                // Se consume la respuesta completa: con response() la conexión se cerraría en lugar de volver al pool
+                .flatMap(i -> httpClient.head().uri(url)
+                        .responseSingle((respuesta, cuerpo) -> cuerpo.asByteArray().then(Mono.just(respuesta.status())))
+                        .timeout(timeout)
+                        .onErrorResume(e -> {
+                            log.warn("Precalentamiento: no se pudo abrir una conexión con {}: {}", url, e.getMessage());
+                            return Mono.empty();
+                        }), Math.max(conexiones, 1))
+                .count();
+    }
 }
@@ -1,11 +1,14 @@
 package es.kuiko.api_comunidades.controller;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import es.kuiko.api_comunidades.dto.ComunidadAutonomaCountProvinciasDTO;
+import es.kuiko.api_comunidades.dto.gasolineras.EstadisticasComunidadDTO;
 import es.kuiko.api_comunidades.model.ComunidadAutonoma;
 import es.kuiko.api_comunidades.service.ComunidadAutonomaService;
+import es.kuiko.api_comunidades.service.cache.RespuestaCodificada;
 import jakarta.validation.Valid;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -25,23 +28,33 @@ public class ComunidadAutonomaController {
     }
     
     @Operation(summary = "Obtener todas las Comunidades Autónomas", 
-               description = "Devuelve una lista de todas las Comunidades Autónomas registradas.")
+               description = "Devuelve una lista de todas las Comunidades Autónomas registradas. La respuesta incluye "
+                       + "ETag y Last-Modified; con If-None-Match o If-Modified-Since vigentes se responde 304, y si el "
+                       + "cliente acepta gzip el cuerpo se envía comprimido.")
     @GetMapping("/")
-    public ResponseEntity<List<ComunidadAutonoma>> getAll() {
-        List<ComunidadAutonoma> comunidades = comunidadAutonomaService.getAll();
-        return ResponseEntity.ok(comunidades);
+    public ResponseEntity<byte[]> getAll(@RequestHeader HttpHeaders cabeceras) {
+        return RespuestaCondicional.responder(comunidadAutonomaService.getAllCodificado(), cabeceras);
     }
 
     @Operation(summary = "Obtener una Comunidad Autónoma por código", 
-               description = "Devuelve los detalles de la Comunidad Autónoma que coincide con el código especificado.")
+               description = "Devuelve los detalles de la Comunidad Autónoma que coincide con el código especificado, "
+                       + "con las mismas cabeceras de validación (ETag, Last-Modified) que la lista.")
     @GetMapping("/{caCode}")
-    public ResponseEntity<?> getByCode(@PathVariable("caCode") String caCode) {
-        Optional<ComunidadAutonoma> comunidad = comunidadAutonomaService.getById(caCode);
+    public ResponseEntity<?> getByCode(@PathVariable("caCode") String caCode, @RequestHeader HttpHeaders cabeceras) {
+        Optional<RespuestaCodificada> comunidad = comunidadAutonomaService.getByIdCodificado(caCode);
         return comunidad.isPresent() 
-                ? ResponseEntity.ok(comunidad.get())
+                ? RespuestaCondicional.responder(comunidad.get(), cabeceras)
                 : ResponseEntity.status(HttpStatus.NOT_FOUND).body("Comunidad Autónoma no encontrada");
     }
     
+    @Operation(summary = "Obtener la cantidad de provincias de todas las Comunidades Autónomas", 
+               description = "Devuelve el número de provincias de cada Comunidad Autónoma, ordenado por código, en una "
+                       + "sola petición. Admite las mismas cabeceras de validación (ETag, Last-Modified) que la lista.")
+    @GetMapping("/cantidad-provincias")
+    public ResponseEntity<byte[]> getCantidadProvincias(@RequestHeader HttpHeaders cabeceras) {
+        return RespuestaCondicional.responder(comunidadAutonomaService.getCantidadProvinciasCodificado(), cabeceras);
+    }
+
     @Operation(summary = "Obtener la cantidad de provincias de una Comunidad Autónoma", 
                description = "Devuelve el número de provincias asociadas a la Comunidad Autónoma especificada.")
     @GetMapping("/{codigoCa}/cantidad-provincias")
@@ -51,6 +64,22 @@ public class ComunidadAutonomaController {
                   .orElse(ResponseEntity.notFound().build());
     }
 
+    @Operation(summary = "Obtener las estadísticas de precio de una Comunidad Autónoma", 
+               description = "Devuelve el mínimo, máximo, media y mediana de cada combustible en la Comunidad Autónoma y en cada una de sus provincias.")
+    @GetMapping("/{codigoCa}/estadisticas-precios")
+    public ResponseEntity<EstadisticasComunidadDTO> getEstadisticasPrecios(@PathVariable String codigoCa) {
+        Optional<EstadisticasComunidadDTO> dto = comunidadAutonomaService.getEstadisticasPrecios(codigoCa);
+        return dto.map(ResponseEntity::ok)
+                  .orElse(ResponseEntity.notFound().build());
+    }
+
+    @Operation(summary = "Obtener las estadísticas de precio de todas las Comunidades Autónomas", 
+               description = "Devuelve las estadísticas de precio por combustible de todas las Comunidades Autónomas y sus provincias.")
+    @GetMapping("/estadisticas-precios")
+    public ResponseEntity<List<EstadisticasComunidadDTO>> getEstadisticasPrecios() {
+        return ResponseEntity.ok(comunidadAutonomaService.getEstadisticasPrecios());
+    }
+
     @Operation(summary = "Crear una nueva Comunidad Autónoma", 
                description = "Permite registrar una nueva Comunidad Autónoma en el sistema.")
     @PostMapping("/")
@@ -1,16 +1,36 @@
 package es.kuiko.api_comunidades.controller;
 
-import es.kuiko.api_comunidades.dto.gasolineras.GasolineraWrapperApiResponseOut;
+import es.kuiko.api_comunidades.dto.gasolineras.GasolineraCercanaDTO;
+import es.kuiko.api_comunidades.dto.gasolineras.GasolineraDTOout;
+import es.kuiko.api_comunidades.dto.gasolineras.GasolineraPrecioDTO;
+import es.kuiko.api_comunidades.dto.gasolineras.HistoricoProvinciaDTO;
+import es.kuiko.api_comunidades.exception.GlobalExceptionHandler;
+import es.kuiko.api_comunidades.exception.ProvinciaNoDisponibleException;
 import es.kuiko.api_comunidades.service.GasolineraService;
+import es.kuiko.api_comunidades.service.cache.RespuestaCodificada;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
 @RestController
 @RequestMapping("/api-kuiko")
 @Tag(name = "Gasolineras", description = "Operaciones relacionadas con la información de gasolineras")
@@ -18,18 +38,227 @@ public class GasolineraController {
 
     private final GasolineraService gasolineraService;
 
+    @Value("${gasolineras.snapshot.max-edad:PT1H}")
+    private Duration maxEdad;
+
     public GasolineraController(GasolineraService gasolineraService) {
         this.gasolineraService = gasolineraService;
     }
 
     @Operation(
         summary = "Obtener gasolineras por provincia",
-        description = "Devuelve una lista de gasolineras para la provincia especificada mediante su código."
+        description = "Devuelve una lista de gasolineras para la provincia especificada mediante su código. "
+                + "La respuesta incluye un ETag; si el cliente envía If-None-Match con el ETag vigente se responde 304. "
+                + "Si el cliente acepta gzip, el cuerpo se envía comprimido. Las respuestas servidas desde la instantánea "
+                + "nacional incluyen la cabecera Age y, si superan la antigüedad máxima configurada (por ejemplo, tras un "
+                + "reinicio sin acceso a la API), la cabecera Warning: 110."
     )
     @GetMapping("/gasolineras/{provinceCode}")
-    public Mono<ResponseEntity<GasolineraWrapperApiResponseOut>> getGasolinerasPorProvincia(@PathVariable String provinceCode) {
-        return gasolineraService.getGasolinerasPorProvincia(provinceCode)
-                .map(response -> ResponseEntity.ok().body(response))
+    public Mono<ResponseEntity<byte[]>> getGasolinerasPorProvincia(
+            @PathVariable String provinceCode,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        return gasolineraService.getGasolinerasCodificadas(provinceCode)
+                .map(respuesta -> buildRespuestaCodificada(respuesta, ifNoneMatch, acceptEncoding))
                 .onErrorResume(error -> Mono.just(ResponseEntity.status(500).body(null))); // Manejo de error si es necesario
     }
+
+    @Operation(
+        summary = "Obtener gasolineras por provincia en streaming",
+        description = "Variante en streaming (application/x-ndjson o text/event-stream) que escribe cada gasolinera "
+                + "en cuanto está mapeada, en lugar de devolverlas en una única lista. Incluye las cabeceras Age y "
+                + "Warning: 110 igual que la respuesta completa."
+    )
+    @GetMapping(value = "/gasolineras/{provinceCode}",
+                produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.TEXT_EVENT_STREAM_VALUE})
+    public ResponseEntity<Flux<GasolineraDTOout>> streamGasolinerasPorProvincia(@PathVariable String provinceCode) {
+        Flux<GasolineraDTOout> gasolineras = gasolineraService.streamGasolinerasPorProvincia(provinceCode);
+        return buildRespuestaConAntiguedad(gasolineras, gasolineraService.getVerificadoInstantanea(List.of(provinceCode)));
+    }
+
+    @Operation(
+        summary = "Obtener gasolineras de varias provincias",
+        description = "Devuelve en una sola respuesta las gasolineras de las provincias indicadas (por ejemplo, "
+                + "provincias=28,08,46). Las provincias se consultan en paralelo y sus gasolineras se devuelven en el orden "
+                + "pedido. Si la API de terceros falla para alguna de las provincias se responde 502 indicando cuál. Si todas "
+                + "las provincias se sirven desde la instantánea nacional se incluyen las cabeceras Age y Warning: 110."
+    )
+    @GetMapping("/gasolineras")
+    public ResponseEntity<Flux<GasolineraDTOout>> getGasolinerasPorProvincias(@RequestParam List<String> provincias) {
+        Flux<GasolineraDTOout> gasolineras = gasolineraService.getGasolinerasPorProvincias(provincias);
+        return buildRespuestaConAntiguedad(gasolineras, gasolineraService.getVerificadoInstantanea(provincias));
+    }
+
+    @Operation(
+        summary = "Obtener gasolineras de varias provincias en streaming",
+        description = "Variante en streaming (application/x-ndjson o text/event-stream) de /gasolineras?provincias=. "
+                + "La respuesta empieza con 200 antes de conocer el resultado de todas las provincias, así que un fallo de la "
+                + "API de terceros no puede responderse con 502: el flujo termina con un último elemento con los mismos campos "
+                + "que el cuerpo del 502 (error, provincia y detalles) en lugar de una gasolinera."
+    )
+    @GetMapping(value = "/gasolineras",
+                produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.TEXT_EVENT_STREAM_VALUE})
+    public ResponseEntity<Flux<Object>> streamGasolinerasPorProvincias(@RequestParam List<String> provincias) {
+        Flux<GasolineraDTOout> gasolineras = gasolineraService.getGasolinerasPorProvincias(provincias);
+        return buildRespuestaConAntiguedad(conErrorAlFinal(gasolineras), gasolineraService.getVerificadoInstantanea(provincias));
+    }
+
+    @Operation(
+        summary = "Obtener gasolineras de una Comunidad Autónoma",
+        description = "Devuelve en una sola respuesta las gasolineras de todas las provincias de la Comunidad Autónoma "
+                + "especificada, consultándolas en paralelo. Responde 502 si falla alguna provincia, igual que "
+                + "/gasolineras?provincias=, también en las cabeceras Age y Warning: 110."
+    )
+    @GetMapping("/comunidades-autonomas/{caCode}/gasolineras")
+    public ResponseEntity<Flux<GasolineraDTOout>> getGasolinerasPorComunidad(@PathVariable String caCode) {
+        Flux<GasolineraDTOout> gasolineras = gasolineraService.getGasolinerasPorComunidad(caCode);
+        return buildRespuestaConAntiguedad(gasolineras, gasolineraService.getVerificadoInstantaneaComunidad(caCode));
+    }
+
+    @Operation(
+        summary = "Obtener gasolineras de una Comunidad Autónoma en streaming",
+        description = "Variante en streaming (application/x-ndjson o text/event-stream). Si falla alguna provincia, el "
+                + "flujo termina con un elemento de error (error, provincia y detalles) en lugar de responder 502, igual "
+                + "que la variante en streaming de /gasolineras?provincias=."
+    )
+    @GetMapping(value = "/comunidades-autonomas/{caCode}/gasolineras",
+                produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.TEXT_EVENT_STREAM_VALUE})
+    public ResponseEntity<Flux<Object>> streamGasolinerasPorComunidad(@PathVariable String caCode) {
+        Flux<GasolineraDTOout> gasolineras = gasolineraService.getGasolinerasPorComunidad(caCode);
+        return buildRespuestaConAntiguedad(conErrorAlFinal(gasolineras), gasolineraService.getVerificadoInstantaneaComunidad(caCode));
+    }
+
+    @Operation(
+        summary = "Obtener gasolineras cercanas",
+        description = "Devuelve las gasolineras situadas a menos de radioKm kilómetros del punto (lat, lon), sin tener en "
+                + "cuenta los límites provinciales. Si se indica combustible, solo se incluyen las que lo venden y se muestra "
+                + "su precio. Con orden=precio se devuelven las más baratas del radio; por defecto, las más cercanas."
+    )
+    @GetMapping("/gasolineras/cercanas")
+    public Mono<ResponseEntity<List<GasolineraCercanaDTO>>> getGasolinerasCercanas(
+            @RequestParam double lat,
+            @RequestParam double lon,
+            @RequestParam(defaultValue = "5") double radioKm,
+            @RequestParam(required = false) String combustible,
+            @RequestParam(defaultValue = "distancia") String orden,
+            @RequestParam(defaultValue = "10") int limite) {
+        return gasolineraService.getGasolinerasCercanas(lat, lon, radioKm, combustible, orden, limite)
+                .map(ResponseEntity::ok);
+    }
+
+    @Operation(
+        summary = "Buscar gasolineras por texto",
+        description = "Busca gasolineras cuyo rótulo, dirección, municipio o localidad contengan todas las palabras de q, "
+                + "sin distinguir mayúsculas ni tildes. Cada palabra se trata como prefijo (autocompletado). Opcionalmente "
+                + "se puede limitar a una provincia."
+    )
+    @GetMapping("/gasolineras/buscar")
+    public Mono<ResponseEntity<List<GasolineraDTOout>>> buscarGasolineras(
+            @RequestParam String q,
+            @RequestParam(required = false) String provincia,
+            @RequestParam(defaultValue = "10") int limite) {
+        return gasolineraService.buscarGasolineras(q, provincia, limite)
+                .map(ResponseEntity::ok);
+    }
+
+    @Operation(
+        summary = "Obtener las gasolineras más baratas de España",
+        description = "Devuelve las N gasolineras con el precio más bajo del combustible indicado en toda España."
+    )
+    @GetMapping("/gasolineras/baratas")
+    public Mono<ResponseEntity<List<GasolineraPrecioDTO>>> getMasBaratas(
+            @RequestParam String combustible,
+            @RequestParam(defaultValue = "10") int limite) {
+        return gasolineraService.getMasBaratas(combustible, limite)
+                .map(ResponseEntity::ok);
+    }
+
+    @Operation(
+        summary = "Obtener las gasolineras más baratas de una provincia",
+        description = "Devuelve las N gasolineras con el precio más bajo del combustible indicado en la provincia especificada."
+    )
+    @GetMapping("/gasolineras/{provinceCode}/baratas")
+    public Mono<ResponseEntity<List<GasolineraPrecioDTO>>> getMasBaratasPorProvincia(
+            @PathVariable String provinceCode,
+            @RequestParam String combustible,
+            @RequestParam(defaultValue = "10") int limite) {
+        return gasolineraService.getMasBaratasPorProvincia(provinceCode, combustible, limite)
+                .map(ResponseEntity::ok);
+    }
+
+    @Operation(
+        summary = "Obtener el histórico de precios de una provincia",
+        description = "Devuelve, para cada gasolinera de la provincia, los precios vigentes el día 'desde' y cada cambio de "
+                + "precio hasta el día 'hasta' (ambos inclusive, formato yyyy-MM-dd). Por defecto, la última semana."
+    )
+    @GetMapping("/gasolineras/{provinceCode}/historico")
+    public Mono<ResponseEntity<HistoricoProvinciaDTO>> getHistoricoPorProvincia(
+            @PathVariable String provinceCode,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta) {
+        return gasolineraService.getHistoricoPorProvincia(provinceCode, desde, hasta)
+                .map(ResponseEntity::ok);
+    }
+
+    @Operation(
+        summary = "Obtener las gasolineras más baratas de una Comunidad Autónoma",
+        description = "Devuelve las N gasolineras con el precio más bajo del combustible indicado entre todas las provincias "
+                + "de la Comunidad Autónoma especificada."
+    )
+    @GetMapping("/comunidades-autonomas/{codigoCa}/gasolineras/baratas")
+    public Mono<ResponseEntity<List<GasolineraPrecioDTO>>> getMasBaratasPorComunidad(
+            @PathVariable String codigoCa,
+            @RequestParam String combustible,
+            @RequestParam(defaultValue = "10") int limite) {
+        return gasolineraService.getMasBaratasPorComunidad(codigoCa, combustible, limite)
+                .map(ResponseEntity::ok);
+    }
+
+    // Antigüedad de los datos (Age) y aviso de datos obsoletos (Warning 110) si se supera la máxima configurada
+    private void indicarAntiguedad(ResponseEntity.BodyBuilder builder, Instant obtenido) {
+        if (obtenido == null) {
+            return;
+        }
+        Duration edad = Duration.between(obtenido, Instant.now());
+        builder.header(HttpHeaders.AGE, String.valueOf(Math.max(0, edad.toSeconds())));
+        if (edad.compareTo(maxEdad) > 0) {
+            builder.header(HttpHeaders.WARNING, "110 - \"Response is Stale\"");
+        }
+    }
+
+    // Las cabeceras de un flujo se envían antes que las gasolineras: la antigüedad se calcula al recibir la petición
+    private <T> ResponseEntity<Flux<T>> buildRespuestaConAntiguedad(Flux<T> cuerpo, Optional<Instant> verificado) {
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok();
+        indicarAntiguedad(builder, verificado.orElse(null));
+        return builder.body(cuerpo);
+    }
+
+    // Un flujo ya comenzado no puede cambiar de estado: el fallo de una provincia se envía como último elemento
+    private static Flux<Object> conErrorAlFinal(Flux<GasolineraDTOout> gasolineras) {
+        return gasolineras.cast(Object.class)
+                .onErrorResume(ProvinciaNoDisponibleException.class,
+                        error -> Flux.just(GlobalExceptionHandler.detallesProvinciaNoDisponible(error)));
+    }
+
+    // Construye la respuesta con los bytes ya serializados, su ETag y la compresión negociada
+    private ResponseEntity<byte[]> buildRespuestaCodificada(RespuestaCodificada respuesta, String ifNoneMatch, String acceptEncoding) {
+        boolean gzip = acceptEncoding != null && acceptEncoding.toLowerCase().contains("gzip");
+        String etag = gzip ? respuesta.getEtagGzip() : respuesta.getEtag();
+        if (respuesta.coincideCon(ifNoneMatch)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(etag)
+                    .varyBy(HttpHeaders.ACCEPT_ENCODING)
+                    .build();
+        }
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .eTag(etag)
+                .varyBy(HttpHeaders.ACCEPT_ENCODING);
+        indicarAntiguedad(builder, respuesta.getObtenido());
+        if (gzip) {
+            builder.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+            return builder.body(respuesta.getGzip());
+        }
+        return builder.body(respuesta.getJson());
+    }
 }
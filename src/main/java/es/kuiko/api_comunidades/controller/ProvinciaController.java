@@ -1,5 +1,6 @@
 package es.kuiko.api_comunidades.controller;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -7,11 +8,12 @@ import es.kuiko.api_comunidades.dto.ProvinciaDTO;
 import es.kuiko.api_comunidades.dto.ProvinciaInfoComunidadDTO;
 import es.kuiko.api_comunidades.model.Provincia;
 import es.kuiko.api_comunidades.service.ProvinciaService;
+import es.kuiko.api_comunidades.service.cache.RespuestaCodificada;
+import es.kuiko.api_comunidades.service.referencia.CodigosTerritoriales;
 import jakarta.validation.Valid;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 
-import java.util.List;
 import java.util.Optional;
 
 @RestController
@@ -26,21 +28,24 @@ public class ProvinciaController {
     }
     
     @Operation(summary = "Obtener todas las provincias", 
-               description = "Devuelve una lista de todas las provincias registradas.")
+               description = "Devuelve una lista de todas las provincias registradas. La respuesta incluye ETag y "
+                       + "Last-Modified; con If-None-Match o If-Modified-Since vigentes se responde 304, y si el cliente "
+                       + "acepta gzip el cuerpo se envía comprimido.")
     @GetMapping("/")
-    public ResponseEntity<List<Provincia>> getAll() {
-        List<Provincia> provincias = provinciaService.getAll();
-        return ResponseEntity.ok(provincias);
+    public ResponseEntity<byte[]> getAll(@RequestHeader HttpHeaders cabeceras) {
+        return RespuestaCondicional.responder(provinciaService.getAllCodificado(), cabeceras);
     }
 
     @Operation(summary = "Obtener una provincia por código", 
-               description = "Devuelve los detalles de la provincia que coincide con el código especificado.")
+               description = "Devuelve los detalles de la provincia que coincide con el código especificado, con las "
+                       + "mismas cabeceras de validación (ETag, Last-Modified) que la lista.")
     @GetMapping("/{codigoProvincia}")
-    public ResponseEntity<?> getByCodigo(@PathVariable("codigoProvincia") Integer codigoProvincia) {
-        validateCodigoProvincia(codigoProvincia);
-        Optional<Provincia> provincia = provinciaService.getById(codigoProvincia);
+    public ResponseEntity<?> getByCodigo(@PathVariable("codigoProvincia") Integer codigoProvincia,
+                                         @RequestHeader HttpHeaders cabeceras) {
+        CodigosTerritoriales.validarCodigoProvincia(codigoProvincia);
+        Optional<RespuestaCodificada> provincia = provinciaService.getByIdCodificado(codigoProvincia);
         return provincia.isPresent() 
-                ? ResponseEntity.ok(provincia.get()) 
+                ? RespuestaCondicional.responder(provincia.get(), cabeceras)
                 : ResponseEntity.status(HttpStatus.NOT_FOUND).body("Provincia no encontrada");
     }
     
@@ -66,7 +71,7 @@ public class ProvinciaController {
     public ResponseEntity<?> update(
             @PathVariable("codigoProvincia") Integer codigoProvincia, 
             @Valid @RequestBody ProvinciaDTO provinciaDTOActualizada) {
-        validateCodigoProvincia(codigoProvincia);
+        CodigosTerritoriales.validarCodigoProvincia(codigoProvincia);
         Provincia updated = provinciaService.update(codigoProvincia, provinciaDTOActualizada);
         return ResponseEntity.ok(updated);
     }
@@ -75,7 +80,7 @@ public class ProvinciaController {
                description = "Elimina la provincia especificada por su código.")
     @DeleteMapping("/{codigoProvincia}")
     public ResponseEntity<?> delete(@PathVariable("codigoProvincia") Integer codigoProvincia) {
-        validateCodigoProvincia(codigoProvincia);
+        CodigosTerritoriales.validarCodigoProvincia(codigoProvincia);
         try {
             provinciaService.delete(codigoProvincia);
             return ResponseEntity.noContent().build();  // 204 No Content si se elimina exitosamente
@@ -83,11 +88,4 @@ public class ProvinciaController {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Provincia no encontrada");
         }
     }
-    
-    // Método de validación para el código de provincia
-    private void validateCodigoProvincia(Integer codigoProvincia) {
-        if (codigoProvincia == null || codigoProvincia < 1) {
-            throw new IllegalArgumentException("El código de la Provincia no puede ser nulo y debe ser un número positivo");
-        }
-    }
 }
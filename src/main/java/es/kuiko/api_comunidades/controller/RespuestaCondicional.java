@@ -0,0 +1,85 @@
+package es.kuiko.api_comunidades.controller;
+
+import es.kuiko.api_comunidades.service.cache.RespuestaCodificada;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+import java.time.Instant;
+
+/**
+ * Respuestas HTTP de los endpoints de datos de referencia a partir de un JSON ya serializado.
+ *
+ * <p>Envía el ETag de la versión y {@code Last-Modified}, responde 304 si el cliente ya tiene esa versión
+ * ({@code If-None-Match}, o {@code If-Modified-Since} si no hay ETag) y elige el cuerpo en claro o con
+ * gzip según {@code Accept-Encoding}.</p>
+ *
+ * <p>Se envía {@code Cache-Control: no-cache, public}: las cachés intermedias pueden guardar la respuesta,
+ * pero deben revalidarla en cada uso. Al fijar la cabecera, Spring Security no añade su {@code no-store}
+ * por defecto.</p>
+ */
+final class RespuestaCondicional {
+
+    private static final CacheControl REVALIDAR = CacheControl.noCache().cachePublic();
+
+    private RespuestaCondicional() {
+    }
+
+    /**
+     * Construye la respuesta para una petición con las cabeceras indicadas.
+     *
+     * @param respuesta JSON codificado; su instante de obtención se envía como {@code Last-Modified}.
+     * @param cabeceras Cabeceras de la petición.
+     * @return 200 con el cuerpo, o 304 sin cuerpo.
+     */
+    static ResponseEntity<byte[]> responder(RespuestaCodificada respuesta, HttpHeaders cabeceras) {
+        String acceptEncoding = cabeceras.getFirst(HttpHeaders.ACCEPT_ENCODING);
+        boolean gzip = acceptEncoding != null && acceptEncoding.toLowerCase().contains("gzip");
+        String etag = gzip ? respuesta.getEtagGzip() : respuesta.getEtag();
+        Instant modificado = respuesta.getObtenido();
+
+        if (noModificada(respuesta, modificado, cabeceras)) {
+            ResponseEntity.HeadersBuilder<?> builder = ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(etag)
+                    .cacheControl(REVALIDAR)
+                    .varyBy(HttpHeaders.ACCEPT_ENCODING);
+            if (modificado != null) {
+                builder.lastModified(modificado);
+            }
+            return builder.build();
+        }
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .eTag(etag)
+                .cacheControl(REVALIDAR)
+                .varyBy(HttpHeaders.ACCEPT_ENCODING);
+        if (modificado != null) {
+            builder.lastModified(modificado);
+        }
+        if (gzip) {
+            builder.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+            return builder.body(respuesta.getGzip());
+        }
+        return builder.body(respuesta.getJson());
+    }
+
+    // If-None-Match tiene prioridad; If-Modified-Since solo se tiene en cuenta si el cliente no envía ETag
+    private static boolean noModificada(RespuestaCodificada respuesta, Instant modificado, HttpHeaders cabeceras) {
+        String ifNoneMatch = cabeceras.getFirst(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch != null) {
+            return respuesta.coincideCon(ifNoneMatch);
+        }
+        if (modificado == null) {
+            return false;
+        }
+        long ifModifiedSince;
+        try {
+            ifModifiedSince = cabeceras.getIfModifiedSince();
+        } catch (IllegalArgumentException e) {
+            return false;  // Fecha mal formada: se ignora la cabecera
+        }
+        return ifModifiedSince >= 0 && modificado.toEpochMilli() <= ifModifiedSince;
+    }
+}
@@ -0,0 +1,116 @@
+package es.kuiko.api_comunidades.dto.gasolineras;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Representación compacta e inmutable de una estación de servicio, obtenida una sola vez al
+ * ingerir los datos de la API.
+ *
+ * <p>Los precios se guardan en coma fija (décimas de céntimo, ver {@link PrecioCombustible}) en un
+ * array indexado por el ordinal de {@link TipoCombustible}, y las coordenadas en millonésimas de grado,
+ * la precisión con la que las publica la API.</p>
+ *
+ * @param rotulo Nombre o rótulo de la estación.
+ * @param direccion Dirección de la estación.
+ * @param horario Horario de apertura.
+ * @param localidad Localidad de la estación.
+ * @param municipio Municipio de la estación.
+ * @param provincia Nombre de la provincia.
+ * @param idProvincia Identificador de la provincia según la API ("28").
+ * @param latitudE6 Latitud en millonésimas de grado, o {@link #SIN_COORDENADA}.
+ * @param longitudE6 Longitud WGS84 en millonésimas de grado, o {@link #SIN_COORDENADA}.
+ * @param precios Precios por variante de combustible en décimas de céntimo.
+ */
+public record Estacion(
+        String rotulo,
+        String direccion,
+        String horario,
+        String localidad,
+        String municipio,
+        String provincia,
+        String idProvincia,
+        int latitudE6,
+        int longitudE6,
+        int[] precios) {
+
+    /**
+     * Valor que indica que la estación no publica coordenadas.
+     */
+    public static final int SIN_COORDENADA = Integer.MIN_VALUE;
+
+    public Estacion {
+        if (precios.length != TipoCombustible.count()) {
+            throw new IllegalArgumentException("Se esperaban " + TipoCombustible.count() + " precios");
+        }
+        precios = precios.clone();
+    }
+
+    /**
+     * Obtiene el precio de una variante de combustible.
+     *
+     * @param tipo Variante de combustible.
+     * @return Precio en décimas de céntimo, o {@link PrecioCombustible#SIN_PRECIO}.
+     */
+    public int precio(TipoCombustible tipo) {
+        return precios[tipo.ordinal()];
+    }
+
+    /**
+     * Devuelve una copia de los precios, para preservar la inmutabilidad del registro.
+     *
+     * @return Copia del array de precios.
+     */
+    @Override
+    public int[] precios() {
+        return precios.clone();
+    }
+
+    /**
+     * Indica si la estación publica coordenadas.
+     *
+     * @return true si latitud y longitud están disponibles.
+     */
+    public boolean tieneCoordenadas() {
+        return latitudE6 != SIN_COORDENADA && longitudE6 != SIN_COORDENADA;
+    }
+
+    public double latitud() {
+        return latitudE6 / 1_000_000.0;
+    }
+
+    public double longitud() {
+        return longitudE6 / 1_000_000.0;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Estacion otra)) {
+            return false;
+        }
+        return latitudE6 == otra.latitudE6 && longitudE6 == otra.longitudE6
+                && Objects.equals(rotulo, otra.rotulo)
+                && Objects.equals(direccion, otra.direccion)
+                && Objects.equals(horario, otra.horario)
+                && Objects.equals(localidad, otra.localidad)
+                && Objects.equals(municipio, otra.municipio)
+                && Objects.equals(provincia, otra.provincia)
+                && Objects.equals(idProvincia, otra.idProvincia)
+                && Arrays.equals(precios, otra.precios);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Objects.hash(rotulo, direccion, horario, localidad, municipio, provincia, idProvincia,
+                latitudE6, longitudE6) + Arrays.hashCode(precios);
+    }
+
+    @Override
+    public String toString() {
+        return "Estacion[rotulo=" + rotulo + ", municipio=" + municipio + ", idProvincia=" + idProvincia
+                + ", precios=" + Arrays.toString(precios) + "]";
+    }
+}
@@ -0,0 +1,115 @@
+package es.kuiko.api_comunidades.dto.gasolineras;
+
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+/**
+ * DTO para representar las estadísticas de precio de un combustible en un ámbito (provincia o Comunidad Autónoma).
+ * Los precios se expresan con el formato de la API ("1,459"); la media se redondea a la décima de céntimo.
+ */
+@JsonPropertyOrder({"combustible", "estaciones", "minimo", "maximo", "media", "mediana"})
+public class EstadisticasCombustibleDTO {
+
+    /**
+     * Descripción del combustible.
+     */
+    private String combustible;
+
+    /**
+     * Número de gasolineras con precio para el combustible.
+     */
+    private int estaciones;
+
+    /**
+     * Precio mínimo.
+     */
+    private String minimo;
+
+    /**
+     * Precio máximo.
+     */
+    private String maximo;
+
+    /**
+     * Precio medio.
+     */
+    private String media;
+
+    /**
+     * Mediana de los precios.
+     */
+    private String mediana;
+
+    /**
+     * Constructor por defecto.
+     */
+    public EstadisticasCombustibleDTO() {
+    }
+
+    /**
+     * Constructor para inicializar todos los campos de EstadisticasCombustibleDTO.
+     *
+     * @param combustible Descripción del combustible.
+     * @param estaciones Número de gasolineras con precio.
+     * @param minimo Precio mínimo.
+     * @param maximo Precio máximo.
+     * @param media Precio medio.
+     * @param mediana Mediana de los precios.
+     */
+    public EstadisticasCombustibleDTO(String combustible, int estaciones, String minimo, String maximo,
+                                      String media, String mediana) {
+        this.combustible = combustible;
+        this.estaciones = estaciones;
+        this.minimo = minimo;
+        this.maximo = maximo;
+        this.media = media;
+        this.mediana = mediana;
+    }
+
+    public String getCombustible() {
+        return combustible;
+    }
+
+    public void setCombustible(String combustible) {
+        this.combustible = combustible;
+    }
+
+    public int getEstaciones() {
+        return estaciones;
+    }
+
+    public void setEstaciones(int estaciones) {
+        this.estaciones = estaciones;
+    }
+
+    public String getMinimo() {
+        return minimo;
+    }
+
+    public void setMinimo(String minimo) {
+        this.minimo = minimo;
+    }
+
+    public String getMaximo() {
+        return maximo;
+    }
+
+    public void setMaximo(String maximo) {
+        this.maximo = maximo;
+    }
+
+    public String getMedia() {
+        return media;
+    }
+
+    public void setMedia(String media) {
+        this.media = media;
+    }
+
+    public String getMediana() {
+        return mediana;
+    }
+
+    public void setMediana(String mediana) {
+        this.mediana = mediana;
+    }
+}
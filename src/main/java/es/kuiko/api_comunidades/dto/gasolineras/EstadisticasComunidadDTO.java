@@ -0,0 +1,103 @@
+package es.kuiko.api_comunidades.dto.gasolineras;
+
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+import java.util.List;
+
+/**
+ * DTO para representar las estadísticas de precio por combustible de una Comunidad Autónoma,
+ * junto con las de cada una de sus provincias. Incluye la {@code Fecha} de los datos de la API
+ * a partir de los que se calcularon.
+ */
+@JsonPropertyOrder({"codigoCa", "nombreCa", "fecha", "combustibles", "provincias"})
+public class EstadisticasComunidadDTO {
+
+    /**
+     * Código de la Comunidad Autónoma.
+     */
+    private String codigoCa;
+
+    /**
+     * Nombre de la Comunidad Autónoma.
+     */
+    private String nombreCa;
+
+    /**
+     * Fecha de los datos de la API.
+     */
+    private String fecha;
+
+    /**
+     * Estadísticas de cada combustible sobre todas las gasolineras de la comunidad.
+     */
+    private List<EstadisticasCombustibleDTO> combustibles;
+
+    /**
+     * Estadísticas de cada provincia de la comunidad.
+     */
+    private List<EstadisticasProvinciaDTO> provincias;
+
+    /**
+     * Constructor por defecto.
+     */
+    public EstadisticasComunidadDTO() {
+    }
+
+    /**
+     * Constructor para inicializar todos los campos de EstadisticasComunidadDTO.
+     *
+     * @param codigoCa Código de la Comunidad Autónoma.
+     * @param nombreCa Nombre de la Comunidad Autónoma.
+     * @param fecha Fecha de los datos de la API.
+     * @param combustibles Estadísticas por combustible de la comunidad.
+     * @param provincias Estadísticas de cada provincia.
+     */
+    public EstadisticasComunidadDTO(String codigoCa, String nombreCa, String fecha,
+                                    List<EstadisticasCombustibleDTO> combustibles, List<EstadisticasProvinciaDTO> provincias) {
+        this.codigoCa = codigoCa;
+        this.nombreCa = nombreCa;
+        this.fecha = fecha;
+        this.combustibles = combustibles;
+        this.provincias = provincias;
+    }
+
+    public String getCodigoCa() {
+        return codigoCa;
+    }
+
+    public void setCodigoCa(String codigoCa) {
+        this.codigoCa = codigoCa;
+    }
+
+    public String getNombreCa() {
+        return nombreCa;
+    }
+
+    public void setNombreCa(String nombreCa) {
+        this.nombreCa = nombreCa;
+    }
+
+    public String getFecha() {
+        return fecha;
+    }
+
+    public void setFecha(String fecha) {
+        this.fecha = fecha;
+    }
+
+    public List<EstadisticasCombustibleDTO> getCombustibles() {
+        return combustibles;
+    }
+
+    public void setCombustibles(List<EstadisticasCombustibleDTO> combustibles) {
+        this.combustibles = combustibles;
+    }
+
+    public List<EstadisticasProvinciaDTO> getProvincias() {
+        return provincias;
+    }
+
+    public void setProvincias(List<EstadisticasProvinciaDTO> provincias) {
+        this.provincias = provincias;
+    }
+}
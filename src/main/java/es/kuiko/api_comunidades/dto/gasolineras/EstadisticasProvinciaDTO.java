@@ -0,0 +1,70 @@
+package es.kuiko.api_comunidades.dto.gasolineras;
+
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+import java.util.List;
+
+/**
+ * DTO para representar las estadísticas de precio por combustible de una provincia.
+ */
+@JsonPropertyOrder({"codigoProvincia", "nombreProvincia", "combustibles"})
+public class EstadisticasProvinciaDTO {
+
+    /**
+     * Código de la provincia.
+     */
+    private Integer codigoProvincia;
+
+    /**
+     * Nombre de la provincia.
+     */
+    private String nombreProvincia;
+
+    /**
+     * Estadísticas de cada combustible con al menos una gasolinera con precio.
+     */
+    private List<EstadisticasCombustibleDTO> combustibles;
+
+    /**
+     * Constructor por defecto.
+     */
+    public EstadisticasProvinciaDTO() {
+    }
+
+    /**
+     * Constructor para inicializar todos los campos de EstadisticasProvinciaDTO.
+     *
+     * @param codigoProvincia Código de la provincia.
+     * @param nombreProvincia Nombre de la provincia.
+     * @param combustibles Estadísticas por combustible.
+     */
+    public EstadisticasProvinciaDTO(Integer codigoProvincia, String nombreProvincia, List<EstadisticasCombustibleDTO> combustibles) {
+        this.codigoProvincia = codigoProvincia;
+        this.nombreProvincia = nombreProvincia;
+        this.combustibles = combustibles;
+    }
+
+    public Integer getCodigoProvincia() {
+        return codigoProvincia;
+    }
+
+    public void setCodigoProvincia(Integer codigoProvincia) {
+        this.codigoProvincia = codigoProvincia;
+    }
+
+    public String getNombreProvincia() {
+        return nombreProvincia;
+    }
+
+    public void setNombreProvincia(String nombreProvincia) {
+        this.nombreProvincia = nombreProvincia;
+    }
+
+    public List<EstadisticasCombustibleDTO> getCombustibles() {
+        return combustibles;
+    }
+
+    public void setCombustibles(List<EstadisticasCombustibleDTO> combustibles) {
+        this.combustibles = combustibles;
+    }
+}
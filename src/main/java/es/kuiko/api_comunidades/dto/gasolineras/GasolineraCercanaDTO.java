@@ -0,0 +1,87 @@
+package es.kuiko.api_comunidades.dto.gasolineras;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+/**
+ * DTO para representar una gasolinera devuelta por una búsqueda por proximidad.
+ * Contiene la distancia al punto de búsqueda, el precio del combustible solicitado (si se indicó)
+ * y los datos completos de la gasolinera.
+ */
+@JsonPropertyOrder({"distanciaKm", "combustible", "precio", "gasolinera"})
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class GasolineraCercanaDTO {
+
+    /**
+     * Distancia en kilómetros desde el punto de búsqueda, redondeada a metros.
+     */
+    private double distanciaKm;
+
+    /**
+     * Descripción del combustible solicitado, o null si no se filtró por combustible.
+     */
+    private String combustible;
+
+    /**
+     * Precio del combustible solicitado con el formato de la API ("1,459"), o null si no se filtró por combustible.
+     */
+    private String precio;
+
+    /**
+     * Datos de la gasolinera.
+     */
+    private GasolineraDTOout gasolinera;
+
+    /**
+     * Constructor por defecto.
+     */
+    public GasolineraCercanaDTO() {
+    }
+
+    /**
+     * Constructor para inicializar todos los campos de GasolineraCercanaDTO.
+     *
+     * @param distanciaKm Distancia en kilómetros desde el punto de búsqueda.
+     * @param combustible Descripción del combustible solicitado.
+     * @param precio Precio del combustible solicitado.
+     * @param gasolinera Datos de la gasolinera.
+     */
+    public GasolineraCercanaDTO(double distanciaKm, String combustible, String precio, GasolineraDTOout gasolinera) {
+        this.distanciaKm = distanciaKm;
+        this.combustible = combustible;
+        this.precio = precio;
+        this.gasolinera = gasolinera;
+    }
+
+    public double getDistanciaKm() {
+        return distanciaKm;
+    }
+
+    public void setDistanciaKm(double distanciaKm) {
+        this.distanciaKm = distanciaKm;
+    }
+
+    public String getCombustible() {
+        return combustible;
+    }
+
+    public void setCombustible(String combustible) {
+        this.combustible = combustible;
+    }
+
+    public String getPrecio() {
+        return precio;
+    }
+
+    public void setPrecio(String precio) {
+        this.precio = precio;
+    }
+
+    public GasolineraDTOout getGasolinera() {
+        return gasolinera;
+    }
+
+    public void setGasolinera(GasolineraDTOout gasolinera) {
+        this.gasolinera = gasolinera;
+    }
+}
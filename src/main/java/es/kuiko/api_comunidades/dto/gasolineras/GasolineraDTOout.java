@@ -100,6 +100,34 @@ public class GasolineraDTOout {
     @JsonProperty("Precio GLP")
     private String precioGLP;
 
+    /**
+     * Constructor vacío para GasolineraDTOout.
+     */
+    public GasolineraDTOout() {
+    }
+
+    /**
+     * Constructor de copia. Crea una nueva gasolinera con los mismos valores que la indicada.
+     *
+     * @param otra Gasolinera a copiar.
+     */
+    public GasolineraDTOout(GasolineraDTOout otra) {
+        this.rotulo = otra.rotulo;
+        this.direccion = otra.direccion;
+        this.horario = otra.horario;
+        this.localidad = otra.localidad;
+        this.municipio = otra.municipio;
+        this.provincia = otra.provincia;
+        this.idProvincia = otra.idProvincia;
+        this.latitud = otra.latitud;
+        this.longitud = otra.longitud;
+        this.precioGasolina95 = otra.precioGasolina95;
+        this.precioGasolina98 = otra.precioGasolina98;
+        this.precioGasoleoA = otra.precioGasoleoA;
+        this.precioGNC = otra.precioGNC;
+        this.precioGLP = otra.precioGLP;
+    }
+
     // Getters y setters de todas las propiedades
 
     public String getRotulo() {
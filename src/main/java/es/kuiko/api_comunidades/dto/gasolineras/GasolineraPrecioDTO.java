@@ -0,0 +1,69 @@
+package es.kuiko.api_comunidades.dto.gasolineras;
+
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+/**
+ * DTO para representar una gasolinera en un ranking de precios de un combustible.
+ * Contiene la descripción del combustible, su precio en la gasolinera y los datos de la gasolinera.
+ */
+@JsonPropertyOrder({"combustible", "precio", "gasolinera"})
+public class GasolineraPrecioDTO {
+
+    /**
+     * Descripción del combustible consultado.
+     */
+    private String combustible;
+
+    /**
+     * Precio del combustible con el formato de la API ("1,459").
+     */
+    private String precio;
+
+    /**
+     * Datos de la gasolinera.
+     */
+    private GasolineraDTOout gasolinera;
+
+    /**
+     * Constructor por defecto.
+     */
+    public GasolineraPrecioDTO() {
+    }
+
+    /**
+     * Constructor para inicializar todos los campos de GasolineraPrecioDTO.
+     *
+     * @param combustible Descripción del combustible consultado.
+     * @param precio Precio del combustible.
+     * @param gasolinera Datos de la gasolinera.
+     */
+    public GasolineraPrecioDTO(String combustible, String precio, GasolineraDTOout gasolinera) {
+        this.combustible = combustible;
+        this.precio = precio;
+        this.gasolinera = gasolinera;
+    }
+
+    public String getCombustible() {
+        return combustible;
+    }
+
+    public void setCombustible(String combustible) {
+        this.combustible = combustible;
+    }
+
+    public String getPrecio() {
+        return precio;
+    }
+
+    public void setPrecio(String precio) {
+        this.precio = precio;
+    }
+
+    public GasolineraDTOout getGasolinera() {
+        return gasolinera;
+    }
+
+    public void setGasolinera(GasolineraDTOout gasolinera) {
+        this.gasolinera = gasolinera;
+    }
+}
@@ -2,6 +2,7 @@ package es.kuiko.api_comunidades.dto.gasolineras;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -67,6 +68,22 @@ public class GasolineraWrapperApiResponseOut {
         this.resultadoConsulta = resultadoConsulta;
     }
 
+    /**
+     * Constructor de copia. Copia los campos de cabecera y pie y cada una de las gasolineras,
+     * de forma que la nueva instancia pueda modificarse sin afectar a la original.
+     *
+     * @param otra Respuesta a copiar.
+     */
+    public GasolineraWrapperApiResponseOut(GasolineraWrapperApiResponseOut otra) {
+        this.fecha = otra.fecha;
+        this.nota = otra.nota;
+        this.resultadoConsulta = otra.resultadoConsulta;
+        if (otra.listaEESSPrecio != null) {
+            this.listaEESSPrecio = new ArrayList<>(otra.listaEESSPrecio.size());
+            otra.listaEESSPrecio.forEach(gasolinera -> this.listaEESSPrecio.add(new GasolineraDTOout(gasolinera)));
+        }
+    }
+
     /**
      * Obtiene la fecha de la consulta realizada.
      *
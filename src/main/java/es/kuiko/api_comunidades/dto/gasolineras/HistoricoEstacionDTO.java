@@ -0,0 +1,86 @@
+package es.kuiko.api_comunidades.dto.gasolineras;
+
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+import java.util.List;
+
+/**
+ * DTO para representar la serie histórica de precios de una gasolinera.
+ * Contiene los datos que identifican la gasolinera y un punto por cada cambio de precio.
+ */
+@JsonPropertyOrder({"rotulo", "direccion", "municipio", "precios"})
+public class HistoricoEstacionDTO {
+
+    /**
+     * Nombre o rótulo de la gasolinera.
+     */
+    private String rotulo;
+
+    /**
+     * Dirección de la gasolinera.
+     */
+    private String direccion;
+
+    /**
+     * Municipio donde se encuentra la gasolinera.
+     */
+    private String municipio;
+
+    /**
+     * Precios de la gasolinera, en orden cronológico.
+     */
+    private List<PrecioHistoricoDTO> precios;
+
+    /**
+     * Constructor por defecto.
+     */
+    public HistoricoEstacionDTO() {
+    }
+
+    /**
+     * Constructor para inicializar todos los campos de HistoricoEstacionDTO.
+     *
+     * @param rotulo Nombre o rótulo de la gasolinera.
+     * @param direccion Dirección de la gasolinera.
+     * @param municipio Municipio de la gasolinera.
+     * @param precios Precios de la gasolinera en orden cronológico.
+     */
+    public HistoricoEstacionDTO(String rotulo, String direccion, String municipio, List<PrecioHistoricoDTO> precios) {
+        this.rotulo = rotulo;
+        this.direccion = direccion;
+        this.municipio = municipio;
+        this.precios = precios;
+    }
+
+    public String getRotulo() {
+        return rotulo;
+    }
+
+    public void setRotulo(String rotulo) {
+        this.rotulo = rotulo;
+    }
+
+    public String getDireccion() {
+        return direccion;
+    }
+
+    public void setDireccion(String direccion) {
+        this.direccion = direccion;
+    }
+
+    public String getMunicipio() {
+        return municipio;
+    }
+
+    public void setMunicipio(String municipio) {
+        this.municipio = municipio;
+    }
+
+    public List<PrecioHistoricoDTO> getPrecios() {
+        return precios;
+    }
+
+    public void setPrecios(List<PrecioHistoricoDTO> precios) {
+        this.precios = precios;
+    }
+}
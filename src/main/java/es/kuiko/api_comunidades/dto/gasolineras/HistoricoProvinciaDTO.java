@@ -0,0 +1,85 @@
+package es.kuiko.api_comunidades.dto.gasolineras;
+
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+import java.util.List;
+
+/**
+ * DTO para representar el histórico de precios de las gasolineras de una provincia en un rango de fechas.
+ */
+@JsonPropertyOrder({"idProvincia", "desde", "hasta", "estaciones"})
+public class HistoricoProvinciaDTO {
+
+    /**
+     * Identificador de la provincia ("28").
+     */
+    private String idProvincia;
+
+    /**
+     * Primer día del rango consultado (ISO-8601).
+     */
+    private String desde;
+
+    /**
+     * Último día del rango consultado (ISO-8601), inclusive.
+     */
+    private String hasta;
+
+    /**
+     * Series de precios de las gasolineras de la provincia.
+     */
+    private List<HistoricoEstacionDTO> estaciones;
+
+    /**
+     * Constructor por defecto.
+     */
+    public HistoricoProvinciaDTO() {
+    }
+
+    /**
+     * Constructor para inicializar todos los campos de HistoricoProvinciaDTO.
+     *
+     * @param idProvincia Identificador de la provincia.
+     * @param desde Primer día del rango consultado.
+     * @param hasta Último día del rango consultado.
+     * @param estaciones Series de precios de las gasolineras de la provincia.
+     */
+    public HistoricoProvinciaDTO(String idProvincia, String desde, String hasta, List<HistoricoEstacionDTO> estaciones) {
+        this.idProvincia = idProvincia;
+        this.desde = desde;
+        this.hasta = hasta;
+        this.estaciones = estaciones;
+    }
+
+    public String getIdProvincia() {
+        return idProvincia;
+    }
+
+    public void setIdProvincia(String idProvincia) {
+        this.idProvincia = idProvincia;
+    }
+
+    public String getDesde() {
+        return desde;
+    }
+
+    public void setDesde(String desde) {
+        this.desde = desde;
+    }
+
+    public String getHasta() {
+        return hasta;
+    }
+
+    public void setHasta(String hasta) {
+        this.hasta = hasta;
+    }
+
+    public List<HistoricoEstacionDTO> getEstaciones() {
+        return estaciones;
+    }
+
+    public void setEstaciones(List<HistoricoEstacionDTO> estaciones) {
+        this.estaciones = estaciones;
+    }
+}
@@ -0,0 +1,91 @@
+package es.kuiko.api_comunidades.dto.gasolineras;
+
+/**
+ * Utilidades para trabajar con precios en coma fija.
+ *
+ * <p>Los precios se representan como enteros en décimas de céntimo (milésimas de euro), la misma
+ * precisión con la que los publica la API: "1,459" €/l se guarda como {@code 1459}. De esta forma
+ * ordenar, filtrar y agregar precios se reduce a aritmética sobre primitivos.</p>
+ */
+public final class PrecioCombustible {
+
+    /**
+     * Valor que indica que la estación no publica precio para un combustible.
+     */
+    public static final int SIN_PRECIO = -1;
+
+    private PrecioCombustible() {
+    }
+
+    /**
+     * Convierte un precio en formato español ("1,459") a décimas de céntimo.
+     * Acepta también el punto como separador decimal.
+     *
+     * @param precio Precio publicado por la API.
+     * @return El precio en décimas de céntimo, o {@link #SIN_PRECIO} si está vacío o no es válido.
+     */
+    public static int parse(String precio) {
+        if (precio == null) {
+            return SIN_PRECIO;
+        }
+        int entero = 0;
+        int decimales = 0;
+        int digitosDecimales = 0;
+        boolean enDecimales = false;
+        boolean hayDigitos = false;
+        for (int i = 0; i < precio.length(); i++) {
+            char c = precio.charAt(i);
+            if (c >= '0' && c <= '9') {
+                hayDigitos = true;
+                if (!enDecimales) {
+                    entero = entero * 10 + (c - '0');
+                } else if (digitosDecimales < 3) {
+                    decimales = decimales * 10 + (c - '0');
+                    digitosDecimales++;
+                }
+            } else if ((c == ',' || c == '.') && !enDecimales) {
+                enDecimales = true;
+            } else if (c != ' ') {
+                return SIN_PRECIO;
+            }
+        }
+        if (!hayDigitos) {
+            return SIN_PRECIO;
+        }
+        for (int i = digitosDecimales; i < 3; i++) {
+            decimales *= 10;
+        }
+        return entero * 1000 + decimales;
+    }
+
+    /**
+     * Formatea un precio en décimas de céntimo con el formato de la API ("1,459").
+     *
+     * @param precio Precio en décimas de céntimo.
+     * @return El precio formateado, o una cadena vacía si no hay precio.
+     */
+    public static String format(int precio) {
+        if (precio == SIN_PRECIO) {
+            return "";
+        }
+        int decimales = precio % 1000;
+        StringBuilder sb = new StringBuilder(8).append(precio / 1000).append(',');
+        if (decimales < 100) {
+            sb.append('0');
+        }
+        if (decimales < 10) {
+            sb.append('0');
+        }
+        return sb.append(decimales).toString();
+    }
+
+    /**
+     * Indica si un valor representa un precio publicado.
+     *
+     * @param precio Precio en décimas de céntimo.
+     * @return true si la estación publica precio.
+     */
+    public static boolean isDisponible(int precio) {
+        return precio != SIN_PRECIO;
+    }
+}
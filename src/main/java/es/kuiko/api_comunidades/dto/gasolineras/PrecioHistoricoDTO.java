@@ -0,0 +1,57 @@
+package es.kuiko.api_comunidades.dto.gasolineras;
+
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+import java.util.Map;
+
+/**
+ * DTO para representar los precios de una gasolinera en un momento del histórico.
+ * Contiene la {@code Fecha} de la instantánea de la que proceden los precios y los precios
+ * disponibles por combustible, con el formato de la API ("1,459").
+ */
+@JsonPropertyOrder({"fecha", "precios"})
+public class PrecioHistoricoDTO {
+
+    /**
+     * Fecha de la instantánea, con el formato de la API ("18/10/2026 9:15:23").
+     */
+    private String fecha;
+
+    /**
+     * Precios disponibles indexados por la descripción del combustible.
+     */
+    private Map<String, String> precios;
+
+    /**
+     * Constructor por defecto.
+     */
+    public PrecioHistoricoDTO() {
+    }
+
+    /**
+     * Constructor para inicializar todos los campos de PrecioHistoricoDTO.
+     *
+     * @param fecha Fecha de la instantánea.
+     * @param precios Precios disponibles por combustible.
+     */
+    public PrecioHistoricoDTO(String fecha, Map<String, String> precios) {
+        this.fecha = fecha;
+        this.precios = precios;
+    }
+
+    public String getFecha() {
+        return fecha;
+    }
+
+    public void setFecha(String fecha) {
+        this.fecha = fecha;
+    }
+
+    public Map<String, String> getPrecios() {
+        return precios;
+    }
+
+    public void setPrecios(Map<String, String> precios) {
+        this.precios = precios;
+    }
+}
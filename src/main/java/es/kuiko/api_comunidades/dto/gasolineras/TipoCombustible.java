@@ -0,0 +1,67 @@
+package es.kuiko.api_comunidades.dto.gasolineras;
+
+/**
+ * Variantes de combustible publicadas por la API de precios de carburantes.
+ * El ordinal de cada variante se utiliza como índice en los arrays de precios de {@link Estacion}.
+ */
+public enum TipoCombustible {
+
+    GASOLINA_95_E5("Gasolina 95 E5"),
+    GASOLINA_95_E10("Gasolina 95 E10"),
+    GASOLINA_98_E5("Gasolina 98 E5"),
+    GASOLINA_98_E10("Gasolina 98 E10"),
+    GASOLEO_A("Gasóleo A"),
+    GNC("Gas Natural Comprimido"),
+    GLP("Gases Licuados del Petróleo");
+
+    private static final TipoCombustible[] VALORES = values();
+
+    private final String descripcion;
+
+    TipoCombustible(String descripcion) {
+        this.descripcion = descripcion;
+    }
+
+    public String getDescripcion() {
+        return descripcion;
+    }
+
+    /**
+     * Número de variantes de combustible, útil para dimensionar arrays indexados por ordinal.
+     *
+     * @return Número de variantes.
+     */
+    public static int count() {
+        return VALORES.length;
+    }
+
+    /**
+     * Obtiene la variante correspondiente a un ordinal sin copiar el array de {@code values()}.
+     *
+     * @param ordinal Ordinal de la variante.
+     * @return La variante de combustible.
+     */
+    public static TipoCombustible of(int ordinal) {
+        return VALORES[ordinal];
+    }
+
+    /**
+     * Resuelve una variante a partir de su nombre, sin distinguir mayúsculas ni separadores
+     * ("gasolina95e5", "GASOLINA_95_E5" y "gasolina-95-e5" son equivalentes).
+     *
+     * @param nombre Nombre de la variante.
+     * @return La variante de combustible.
+     * @throws IllegalArgumentException si el nombre no corresponde a ninguna variante.
+     */
+    public static TipoCombustible parse(String nombre) {
+        if (nombre != null) {
+            String normalizado = nombre.replace("_", "").replace("-", "").trim();
+            for (TipoCombustible tipo : VALORES) {
+                if (tipo.name().replace("_", "").equalsIgnoreCase(normalizado)) {
+                    return tipo;
+                }
+            }
+        }
+        throw new IllegalArgumentException("Tipo de combustible no válido: " + nombre);
+    }
+}
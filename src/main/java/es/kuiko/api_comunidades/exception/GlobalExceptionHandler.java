@@ -89,6 +89,32 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.NOT_FOUND).body(errorResponse);
     }
 
+    /**
+     * Maneja los fallos de la API de terceros al obtener las gasolineras de una provincia.
+     *
+     * @param ex Excepción personalizada de tipo ProvinciaNoDisponibleException.
+     * @return Respuesta con código de estado 502 (BAD GATEWAY) y detalles en JSON.
+     */
+    @ExceptionHandler(ProvinciaNoDisponibleException.class)
+    public ResponseEntity<Map<String, String>> handleProvinciaNoDisponible(ProvinciaNoDisponibleException ex) {
+        return ResponseEntity.status(HttpStatus.BAD_GATEWAY).body(detallesProvinciaNoDisponible(ex));
+    }
+
+    /**
+     * Construye los detalles en JSON de un fallo al obtener una provincia. Se usan tanto en la respuesta 502
+     * como en el último elemento de las respuestas en streaming, que ya se han enviado con 200.
+     *
+     * @param ex Excepción personalizada de tipo ProvinciaNoDisponibleException.
+     * @return Mapa con el error, la provincia y los detalles.
+     */
+    public static Map<String, String> detallesProvinciaNoDisponible(ProvinciaNoDisponibleException ex) {
+        Map<String, String> errorResponse = new HashMap<>();
+        errorResponse.put("error", "Provincia no disponible");
+        errorResponse.put("provincia", ex.getCodigoProvincia());
+        errorResponse.put("detalles", ex.getMessage());
+        return errorResponse;
+    }
+
     /**
      * Maneja excepciones de argumentos no válidos.
      *
@@ -0,0 +1,28 @@
+package es.kuiko.api_comunidades.exception;
+
+/**
+ * Excepción para los casos en los que la API de terceros no ha podido devolver las gasolineras
+ * de una provincia (error HTTP, cortocircuito abierto, tiempo agotado...). Se traduce en un
+ * código de estado HTTP 502 (BAD GATEWAY).
+ */
+public class ProvinciaNoDisponibleException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String codigoProvincia;
+
+    /**
+     * Constructor para crear una instancia de ProvinciaNoDisponibleException.
+     *
+     * @param codigoProvincia Código de la provincia que no se ha podido obtener.
+     * @param detalle Mensaje devuelto por la API de terceros o descripción del fallo.
+     */
+    public ProvinciaNoDisponibleException(String codigoProvincia, String detalle) {
+        super("No se han podido obtener las gasolineras de la provincia " + codigoProvincia + ": " + detalle);
+        this.codigoProvincia = codigoProvincia;
+    }
+
+    public String getCodigoProvincia() {
+        return codigoProvincia;
+    }
+}
@@ -0,0 +1,145 @@
+package es.kuiko.api_comunidades.mapper;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import es.kuiko.api_comunidades.dto.gasolineras.GasolineraDTOout;
+import es.kuiko.api_comunidades.dto.gasolineras.GasolineraWrapperApiResponseOut;
+import es.kuiko.api_comunidades.dto.gasolineras.PrecioCombustible;
+import es.kuiko.api_comunidades.dto.gasolineras.TipoCombustible;
+import es.kuiko.api_comunidades.service.estaciones.AlmacenEstaciones;
+import es.kuiko.api_comunidades.service.estaciones.SnapshotNacional;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Codificador JSON de la respuesta de una provincia escrito directamente desde las filas del
+ * {@link AlmacenEstaciones} de una instantánea, sin construir {@link GasolineraDTOout} intermedios.
+ *
+ * <p>Los nombres de campo y los valores de diccionario (rótulo, horario, localidad, municipio y
+ * provincia) se escriben a partir de sus bytes UTF-8 ya codificados, por lo que cada valor repetido
+ * se escapa y codifica una sola vez por instantánea. El resultado es idéntico byte a byte al que
+ * produciría el ObjectMapper al serializar el {@link GasolineraWrapperApiResponseOut} equivalente.</p>
+ */
+@Component
+public class GasolineraJsonEncoder {
+
+    // Campos en el orden en que los serializa Jackson según los @JsonPropertyOrder de los DTO de salida
+    private static final SerializedString FECHA = new SerializedString("Fecha");
+    private static final SerializedString LISTA = new SerializedString("ListaEESSPrecio");
+    private static final SerializedString NOTA = new SerializedString("Nota");
+    private static final SerializedString RESULTADO = new SerializedString("ResultadoConsulta");
+    private static final SerializedString RESULTADO_OK = new SerializedString("OK");
+
+    private static final SerializedString ROTULO = new SerializedString("Rótulo");
+    private static final SerializedString DIRECCION = new SerializedString("Dirección");
+    private static final SerializedString HORARIO = new SerializedString("Horario");
+    private static final SerializedString LOCALIDAD = new SerializedString("Localidad");
+    private static final SerializedString MUNICIPIO = new SerializedString("Municipio");
+    private static final SerializedString PROVINCIA = new SerializedString("Provincia");
+    private static final SerializedString ID_PROVINCIA = new SerializedString("IDProvincia");
+    private static final SerializedString LATITUD = new SerializedString("Latitud");
+    private static final SerializedString LONGITUD = new SerializedString("Longitud (WGS84)");
+    private static final SerializedString PRECIO_GASOLEO_A = new SerializedString("Precio Gasoleo A");
+    private static final SerializedString PRECIO_GNC = new SerializedString("Precio GNC");
+    private static final SerializedString PRECIO_GLP = new SerializedString("Precio GLP");
+    private static final SerializedString PRECIO_GASOLINA_95 = new SerializedString("Precio Gasolina 95");
+    private static final SerializedString PRECIO_GASOLINA_98 = new SerializedString("Precio Gasolina 98");
+
+    private final JsonFactory jsonFactory;
+
+    /**
+     * Constructor para inyectar el ObjectMapper de la aplicación, de cuya factoría se obtienen los
+     * generadores JSON con la misma configuración que usa Spring MVC.
+     *
+     * @param objectMapper ObjectMapper de la aplicación.
+     */
+    public GasolineraJsonEncoder(ObjectMapper objectMapper) {
+        this.jsonFactory = objectMapper.getFactory();
+    }
+
+    /**
+     * Serializa la respuesta de una provincia a partir de las filas de una instantánea.
+     *
+     * @param snapshot Instantánea de la que se leen las estaciones.
+     * @param codigoProvincia Código de la provincia, que debe estar presente en la instantánea.
+     * @return El JSON de la respuesta en UTF-8.
+     */
+    public byte[] encodeProvincia(SnapshotNacional snapshot, String codigoProvincia) {
+        AlmacenEstaciones almacen = snapshot.getAlmacen();
+        int provincia = AlmacenEstaciones.codigoProvincia(codigoProvincia);
+        int desde = almacen.inicio(provincia);
+        int hasta = almacen.fin(provincia);
+
+        ByteArrayOutputStream salida = new ByteArrayOutputStream(Math.max(256, (hasta - desde) * 400));
+        try (JsonGenerator generador = jsonFactory.createGenerator(salida, JsonEncoding.UTF8)) {
+            generador.writeStartObject();
+            generador.writeFieldName(FECHA);
+            generador.writeString(snapshot.getFecha());
+            generador.writeFieldName(LISTA);
+            generador.writeStartArray();
+            for (int fila = desde; fila < hasta; fila++) {
+                writeEstacion(generador, almacen, fila);
+            }
+            generador.writeEndArray();
+            generador.writeFieldName(NOTA);
+            generador.writeString(snapshot.getNota());
+            generador.writeFieldName(RESULTADO);
+            generador.writeString(RESULTADO_OK);
+            generador.writeEndObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return salida.toByteArray();
+    }
+
+    // Misma información y formato que GasolineraMapper.mapToGasolineraDTOout(Estacion)
+    private static void writeEstacion(JsonGenerator generador, AlmacenEstaciones almacen, int fila) throws IOException {
+        generador.writeStartObject();
+        generador.writeFieldName(ROTULO);
+        writeValor(generador, almacen.rotuloJson(fila));
+        generador.writeFieldName(DIRECCION);
+        generador.writeString(almacen.direccion(fila));
+        generador.writeFieldName(HORARIO);
+        writeValor(generador, almacen.horarioJson(fila));
+        generador.writeFieldName(LOCALIDAD);
+        writeValor(generador, almacen.localidadJson(fila));
+        generador.writeFieldName(MUNICIPIO);
+        writeValor(generador, almacen.municipioJson(fila));
+        generador.writeFieldName(PROVINCIA);
+        writeValor(generador, almacen.nombreProvinciaJson(fila));
+        generador.writeFieldName(ID_PROVINCIA);
+        writeValor(generador, almacen.idProvinciaJson(fila));
+        generador.writeFieldName(LATITUD);
+        generador.writeString(GasolineraMapper.formatCoordenada(almacen.latitudE6(fila)));
+        generador.writeFieldName(LONGITUD);
+        generador.writeString(GasolineraMapper.formatCoordenada(almacen.longitudE6(fila)));
+        generador.writeFieldName(PRECIO_GASOLEO_A);
+        generador.writeString(PrecioCombustible.format(almacen.precio(fila, TipoCombustible.GASOLEO_A)));
+        generador.writeFieldName(PRECIO_GNC);
+        generador.writeString(PrecioCombustible.format(almacen.precio(fila, TipoCombustible.GNC)));
+        generador.writeFieldName(PRECIO_GLP);
+        generador.writeString(PrecioCombustible.format(almacen.precio(fila, TipoCombustible.GLP)));
+        generador.writeFieldName(PRECIO_GASOLINA_95);
+        generador.writeString(GasolineraMapper.selectAvailablePrice(
+                almacen.precio(fila, TipoCombustible.GASOLINA_95_E5), almacen.precio(fila, TipoCombustible.GASOLINA_95_E10)));
+        generador.writeFieldName(PRECIO_GASOLINA_98);
+        generador.writeString(GasolineraMapper.selectAvailablePrice(
+                almacen.precio(fila, TipoCombustible.GASOLINA_98_E5), almacen.precio(fila, TipoCombustible.GASOLINA_98_E10)));
+        generador.writeEndObject();
+    }
+
+    private static void writeValor(JsonGenerator generador, SerializableString valor) throws IOException {
+        if (valor == null) {
+            generador.writeNull();
+        } else {
+            generador.writeString(valor);
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package es.kuiko.api_comunidades.mapper;
 
 import es.kuiko.api_comunidades.dto.gasolineras.*;
+import es.kuiko.api_comunidades.service.estaciones.AlmacenEstaciones;
 import org.springframework.stereotype.Component;
 
 import java.util.List;
@@ -45,6 +46,9 @@ public class GasolineraMapper {
      * Este método mapea cada campo de información de la gasolinera y selecciona el precio
      * disponible para la gasolina 95 y 98, dando preferencia a E5 sobre E10.
      *
+     * <p>Las cadenas publicadas por la API se copian tal cual, sin pasar por {@link Estacion}: en la
+     * consulta por provincia no se necesitan los precios tipados y así se conserva su formato original.</p>
+     *
      * @param gasolineraDTOin Objeto de entrada de tipo GasolineraDTOin.
      * @return Objeto transformado de tipo GasolineraDTOout.
      */
@@ -74,15 +78,110 @@ public class GasolineraMapper {
         return gasolineraDTOout;
     }
 
+    /**
+     * Transforma un objeto de tipo GasolineraDTOin en una {@link Estacion} compacta e inmutable.
+     * Los precios se convierten una única vez a coma fija (décimas de céntimo) y las coordenadas
+     * a millonésimas de grado.
+     *
+     * @param gasolineraDTOin Objeto de entrada de tipo GasolineraDTOin.
+     * @return Estación con los precios ya tipados.
+     */
+    public Estacion mapToEstacion(GasolineraDTOin gasolineraDTOin) {
+        int[] precios = new int[TipoCombustible.count()];
+        precios[TipoCombustible.GASOLINA_95_E5.ordinal()] = PrecioCombustible.parse(gasolineraDTOin.getPrecioGasolina95E5());
+        precios[TipoCombustible.GASOLINA_95_E10.ordinal()] = PrecioCombustible.parse(gasolineraDTOin.getPrecioGasolina95E10());
+        precios[TipoCombustible.GASOLINA_98_E5.ordinal()] = PrecioCombustible.parse(gasolineraDTOin.getPrecioGasolina98E5());
+        precios[TipoCombustible.GASOLINA_98_E10.ordinal()] = PrecioCombustible.parse(gasolineraDTOin.getPrecioGasolina98E10());
+        precios[TipoCombustible.GASOLEO_A.ordinal()] = PrecioCombustible.parse(gasolineraDTOin.getPrecioGasoleoA());
+        precios[TipoCombustible.GNC.ordinal()] = PrecioCombustible.parse(gasolineraDTOin.getPrecioGNC());
+        precios[TipoCombustible.GLP.ordinal()] = PrecioCombustible.parse(gasolineraDTOin.getPrecioGLP());
+
+        return new Estacion(
+                gasolineraDTOin.getRotulo(),
+                gasolineraDTOin.getDireccion(),
+                gasolineraDTOin.getHorario(),
+                gasolineraDTOin.getLocalidad(),
+                gasolineraDTOin.getMunicipio(),
+                gasolineraDTOin.getProvincia(),
+                gasolineraDTOin.getIdProvincia(),
+                parseCoordenada(gasolineraDTOin.getLatitud()),
+                parseCoordenada(gasolineraDTOin.getLongitud()),
+                precios);
+    }
+
+    /**
+     * Transforma una {@link Estacion} en un objeto de tipo GasolineraDTOout, con los precios
+     * formateados como los publica la API y la selección de E5 sobre E10 para la gasolina 95 y 98.
+     *
+     * @param estacion Estación con los precios tipados.
+     * @return Objeto transformado de tipo GasolineraDTOout.
+     */
+    public GasolineraDTOout mapToGasolineraDTOout(Estacion estacion) {
+        GasolineraDTOout gasolineraDTOout = new GasolineraDTOout();
+
+        // Mapear los datos de la gasolinera individual
+        gasolineraDTOout.setRotulo(estacion.rotulo());
+        gasolineraDTOout.setDireccion(estacion.direccion());
+        gasolineraDTOout.setHorario(estacion.horario());
+        gasolineraDTOout.setLocalidad(estacion.localidad());
+        gasolineraDTOout.setMunicipio(estacion.municipio());
+        gasolineraDTOout.setProvincia(estacion.provincia());
+        gasolineraDTOout.setIdProvincia(estacion.idProvincia());
+        gasolineraDTOout.setLatitud(formatCoordenada(estacion.latitudE6()));
+        gasolineraDTOout.setLongitud(formatCoordenada(estacion.longitudE6()));
+        gasolineraDTOout.setPrecioGNC(PrecioCombustible.format(estacion.precio(TipoCombustible.GNC)));
+        gasolineraDTOout.setPrecioGLP(PrecioCombustible.format(estacion.precio(TipoCombustible.GLP)));
+        gasolineraDTOout.setPrecioGasoleoA(PrecioCombustible.format(estacion.precio(TipoCombustible.GASOLEO_A)));
+
+        // Selección de gasolina 95 con preferencia E5
+        gasolineraDTOout.setPrecioGasolina95(selectAvailablePrice(estacion.precio(TipoCombustible.GASOLINA_95_E5), estacion.precio(TipoCombustible.GASOLINA_95_E10)));
+
+        // Selección de gasolina 98 con preferencia E5
+        gasolineraDTOout.setPrecioGasolina98(selectAvailablePrice(estacion.precio(TipoCombustible.GASOLINA_98_E5), estacion.precio(TipoCombustible.GASOLINA_98_E10)));
+
+        return gasolineraDTOout;
+    }
+
+    /**
+     * Construye el GasolineraDTOout de una fila del almacén columnar leyendo directamente sus columnas,
+     * sin reconstruir la {@link Estacion}. Misma información y formato que {@link #mapToGasolineraDTOout(Estacion)}.
+     *
+     * @param almacen Almacén columnar de una instantánea.
+     * @param fila Índice de la fila.
+     * @return Objeto transformado de tipo GasolineraDTOout.
+     */
+    public static GasolineraDTOout mapFilaToGasolineraDTOout(AlmacenEstaciones almacen, int fila) {
+        GasolineraDTOout gasolineraDTOout = new GasolineraDTOout();
+
+        gasolineraDTOout.setRotulo(almacen.rotulo(fila));
+        gasolineraDTOout.setDireccion(almacen.direccion(fila));
+        gasolineraDTOout.setHorario(almacen.horario(fila));
+        gasolineraDTOout.setLocalidad(almacen.localidad(fila));
+        gasolineraDTOout.setMunicipio(almacen.municipio(fila));
+        gasolineraDTOout.setProvincia(almacen.nombreProvincia(fila));
+        gasolineraDTOout.setIdProvincia(almacen.idProvincia(fila));
+        gasolineraDTOout.setLatitud(formatCoordenada(almacen.latitudE6(fila)));
+        gasolineraDTOout.setLongitud(formatCoordenada(almacen.longitudE6(fila)));
+        gasolineraDTOout.setPrecioGNC(PrecioCombustible.format(almacen.precio(fila, TipoCombustible.GNC)));
+        gasolineraDTOout.setPrecioGLP(PrecioCombustible.format(almacen.precio(fila, TipoCombustible.GLP)));
+        gasolineraDTOout.setPrecioGasoleoA(PrecioCombustible.format(almacen.precio(fila, TipoCombustible.GASOLEO_A)));
+        gasolineraDTOout.setPrecioGasolina95(selectAvailablePrice(
+                almacen.precio(fila, TipoCombustible.GASOLINA_95_E5), almacen.precio(fila, TipoCombustible.GASOLINA_95_E10)));
+        gasolineraDTOout.setPrecioGasolina98(selectAvailablePrice(
+                almacen.precio(fila, TipoCombustible.GASOLINA_98_E5), almacen.precio(fila, TipoCombustible.GASOLINA_98_E10)));
+
+        return gasolineraDTOout;
+    }
+
     /**
      * Selecciona el precio disponible para el tipo de gasolina, dando preferencia a E5 sobre E10.
      * Si ambos valores están vacíos, se devuelve "Sin Información".
      *
-     * @param e5 Precio de la gasolina con mezcla E5.
-     * @param e10 Precio de la gasolina con mezcla E10.
+     * @param e5 Precio de la gasolina con mezcla E5, tal como lo publica la API.
+     * @param e10 Precio de la gasolina con mezcla E10, tal como lo publica la API.
      * @return Precio seleccionado, con preferencia a E5 si está disponible.
      */
-    private String selectAvailablePrice(String e5, String e10) {
+    static String selectAvailablePrice(String e5, String e10) {
         if (e5 != null && !e5.isEmpty()) {
             return "E5: " + e5;
         } else if (e10 != null && !e10.isEmpty()) {
@@ -90,4 +189,82 @@ public class GasolineraMapper {
         }
         return "Sin Información";
     }
+
+    /**
+     * Selecciona el precio disponible para el tipo de gasolina, dando preferencia a E5 sobre E10.
+     * Si ninguno de los dos está disponible, se devuelve "Sin Información".
+     *
+     * @param e5 Precio de la gasolina con mezcla E5 en décimas de céntimo.
+     * @param e10 Precio de la gasolina con mezcla E10 en décimas de céntimo.
+     * @return Precio seleccionado, con preferencia a E5 si está disponible.
+     */
+    static String selectAvailablePrice(int e5, int e10) {
+        if (PrecioCombustible.isDisponible(e5)) {
+            return "E5: " + PrecioCombustible.format(e5);
+        } else if (PrecioCombustible.isDisponible(e10)) {
+            return "E10: " + PrecioCombustible.format(e10);
+        }
+        return "Sin Información";
+    }
+
+    /**
+     * Convierte una coordenada en formato español ("40,416775") a millonésimas de grado.
+     *
+     * @param coordenada Coordenada publicada por la API.
+     * @return La coordenada en millonésimas de grado, o {@link Estacion#SIN_COORDENADA} si no es válida.
+     */
+    static int parseCoordenada(String coordenada) {
+        if (coordenada == null || coordenada.isBlank()) {
+            return Estacion.SIN_COORDENADA;
+        }
+        String valor = coordenada.trim();
+        int inicio = 0;
+        boolean negativo = false;
+        if (valor.charAt(0) == '-' || valor.charAt(0) == '+') {
+            negativo = valor.charAt(0) == '-';
+            inicio = 1;
+        }
+        long entero = 0;
+        long decimales = 0;
+        int digitosDecimales = 0;
+        boolean enDecimales = false;
+        for (int i = inicio; i < valor.length(); i++) {
+            char c = valor.charAt(i);
+            if (c >= '0' && c <= '9') {
+                if (!enDecimales) {
+                    entero = entero * 10 + (c - '0');
+                } else if (digitosDecimales < 6) {
+                    decimales = decimales * 10 + (c - '0');
+                    digitosDecimales++;
+                }
+            } else if ((c == ',' || c == '.') && !enDecimales) {
+                enDecimales = true;
+            } else {
+                return Estacion.SIN_COORDENADA;
+            }
+            if (entero > 180) {
+                return Estacion.SIN_COORDENADA;
+            }
+        }
+        for (int i = digitosDecimales; i < 6; i++) {
+            decimales *= 10;
+        }
+        long micro = entero * 1_000_000L + decimales;
+        return (int) (negativo ? -micro : micro);
+    }
+
+    /**
+     * Formatea una coordenada en millonésimas de grado con el formato de la API ("40,416775").
+     *
+     * @param coordenadaE6 Coordenada en millonésimas de grado.
+     * @return La coordenada formateada, o una cadena vacía si no está disponible.
+     */
+    static String formatCoordenada(int coordenadaE6) {
+        if (coordenadaE6 == Estacion.SIN_COORDENADA) {
+            return "";
+        }
+        long valor = Math.abs((long) coordenadaE6);
+        String decimales = Long.toString(1_000_000L + valor % 1_000_000L).substring(1);
+        return (coordenadaE6 < 0 ? "-" : "") + (valor / 1_000_000L) + "," + decimales;
+    }
 }
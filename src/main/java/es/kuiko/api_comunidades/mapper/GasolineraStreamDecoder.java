@@ -0,0 +1,225 @@
+package es.kuiko.api_comunidades.mapper;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteArrayFeeder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import es.kuiko.api_comunidades.dto.gasolineras.GasolineraDTOin;
+import es.kuiko.api_comunidades.dto.gasolineras.GasolineraDTOout;
+import es.kuiko.api_comunidades.dto.gasolineras.GasolineraWrapperApiResponseOut;
+import es.kuiko.api_comunidades.dto.gasolineras.Estacion;
+import org.springframework.core.codec.DecodingException;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Decodificador en streaming de la respuesta de la API de gasolineras.
+ *
+ * <p>En lugar de materializar el documento completo como {@code GasolineraWrapperApiResponseIn},
+ * recorre los tokens JSON a medida que llegan los {@link DataBuffer} de Netty. Cada elemento del
+ * array {@code ListaEESSPrecio} se deserializa de forma aislada a {@link GasolineraDTOin}, se
+ * transforma con {@link GasolineraMapper#mapToGasolineraDTOout(GasolineraDTOin)} y se emite, de modo
+ * que en memoria solo se mantiene una gasolinera de entrada cada vez.</p>
+ */
+@Component
+public class GasolineraStreamDecoder {
+
+    private static final String CAMPO_LISTA = "ListaEESSPrecio";
+
+    private final ObjectMapper objectMapper;
+    private final GasolineraMapper gasolineraMapper;
+
+    /**
+     * Constructor para inyectar el ObjectMapper de la aplicación y el mapper de gasolineras.
+     *
+     * @param objectMapper ObjectMapper utilizado para deserializar cada gasolinera.
+     * @param gasolineraMapper Mapper para transformar cada gasolinera a la estructura de salida.
+     */
+    public GasolineraStreamDecoder(ObjectMapper objectMapper, GasolineraMapper gasolineraMapper) {
+        this.objectMapper = objectMapper;
+        this.gasolineraMapper = gasolineraMapper;
+    }
+
+    /**
+     * Decodifica el cuerpo de la respuesta y emite cada gasolinera ya transformada en cuanto se completa.
+     *
+     * @param body Cuerpo de la respuesta de la API como flujo de buffers.
+     * @return Un Flux con las gasolineras de salida en el orden del documento.
+     */
+    public Flux<GasolineraDTOout> decode(Flux<DataBuffer> body) {
+        return decode(body, new GasolineraWrapperApiResponseOut());
+    }
+
+    /**
+     * Decodifica el cuerpo de la respuesta completo en un {@link GasolineraWrapperApiResponseOut},
+     * incluyendo los campos de cabecera y pie ({@code Fecha}, {@code Nota}, {@code ResultadoConsulta}).
+     *
+     * @param body Cuerpo de la respuesta de la API como flujo de buffers.
+     * @return Un Mono con la respuesta de salida.
+     */
+    public Mono<GasolineraWrapperApiResponseOut> decodeToWrapper(Flux<DataBuffer> body) {
+        return Mono.defer(() -> {
+            GasolineraWrapperApiResponseOut cabecera = new GasolineraWrapperApiResponseOut();
+            return decode(body, cabecera)
+                    .collectList()
+                    .map(lista -> {
+                        cabecera.setListaEESSPrecio(lista);
+                        return cabecera;
+                    });
+        });
+    }
+
+    /**
+     * Decodifica el cuerpo de la respuesta y emite cada gasolinera como {@link Estacion} con los precios
+     * ya tipados, sin construir el {@link GasolineraDTOout}. Los campos de cabecera y pie se asignan
+     * sobre {@code cabecera} a medida que aparecen en el documento.
+     *
+     * @param body Cuerpo de la respuesta de la API como flujo de buffers.
+     * @param cabecera Objeto sobre el que se asignan {@code Fecha}, {@code Nota} y {@code ResultadoConsulta}.
+     * @return Un Flux con las estaciones en el orden del documento.
+     */
+    public Flux<Estacion> decodeEstaciones(Flux<DataBuffer> body, GasolineraWrapperApiResponseOut cabecera) {
+        return decode(body, cabecera, gasolineraMapper::mapToEstacion);
+    }
+
+    private Flux<GasolineraDTOout> decode(Flux<DataBuffer> body, GasolineraWrapperApiResponseOut cabecera) {
+        return decode(body, cabecera, gasolineraMapper::mapToGasolineraDTOout);
+    }
+
+    private <T> Flux<T> decode(Flux<DataBuffer> body, GasolineraWrapperApiResponseOut cabecera,
+                               Function<GasolineraDTOin, T> transformacion) {
+        return Flux.defer(() -> {
+            Tokenizador<T> tokenizador = new Tokenizador<>(cabecera, transformacion);
+            return body
+                    .concatMapIterable(buffer -> {
+                        try {
+                            return tokenizador.alimentar(buffer);
+                        } finally {
+                            DataBufferUtils.release(buffer);
+                        }
+                    })
+                    .concatWith(Flux.defer(() -> Flux.fromIterable(tokenizador.finalizar())))
+                    .doFinally(signal -> tokenizador.cerrar());
+        });
+    }
+
+    /**
+     * Estado del análisis de un documento. Cada suscripción crea su propio tokenizador.
+     */
+    private final class Tokenizador<T> {
+
+        private final GasolineraWrapperApiResponseOut cabecera;
+        private final Function<GasolineraDTOin, T> transformacion;
+        private final JsonParser parser;
+        private final ByteArrayFeeder feeder;
+
+        private int profundidad;
+        private String campoRaiz;
+        private boolean enLista;
+        private TokenBuffer gasolineraActual;
+
+        private Tokenizador(GasolineraWrapperApiResponseOut cabecera, Function<GasolineraDTOin, T> transformacion) {
+            this.cabecera = cabecera;
+            this.transformacion = transformacion;
+            try {
+                this.parser = objectMapper.getFactory().createNonBlockingByteArrayParser();
+            } catch (IOException e) {
+                throw new DecodingException("No se pudo crear el parser JSON no bloqueante", e);
+            }
+            this.feeder = (ByteArrayFeeder) parser.getNonBlockingInputFeeder();
+        }
+
+        private List<T> alimentar(DataBuffer buffer) {
+            byte[] bytes = new byte[buffer.readableByteCount()];
+            buffer.read(bytes);
+            try {
+                feeder.feedInput(bytes, 0, bytes.length);
+                return procesarTokens();
+            } catch (IOException e) {
+                throw new DecodingException("Respuesta JSON de gasolineras no válida", e);
+            }
+        }
+
+        private List<T> finalizar() {
+            feeder.endOfInput();
+            try {
+                return procesarTokens();
+            } catch (IOException e) {
+                throw new DecodingException("Respuesta JSON de gasolineras incompleta", e);
+            }
+        }
+
+        private void cerrar() {
+            try {
+                parser.close();
+            } catch (IOException e) {
+                // El parser no mantiene recursos externos; se ignora el error al cerrarlo.
+            }
+        }
+
+        private List<T> procesarTokens() throws IOException {
+            List<T> emitidas = new ArrayList<>();
+            JsonToken token;
+            while ((token = parser.nextToken()) != null && token != JsonToken.NOT_AVAILABLE) {
+                if (gasolineraActual != null) {
+                    gasolineraActual.copyCurrentEvent(parser);
+                    actualizarProfundidad(token);
+                    if (profundidad == 2) {
+                        emitidas.add(mapearGasolinera());
+                    }
+                    continue;
+                }
+                actualizarProfundidad(token);
+                if (profundidad == 1 && token == JsonToken.FIELD_NAME) {
+                    campoRaiz = parser.currentName();
+                } else if (token == JsonToken.START_ARRAY && profundidad == 2 && CAMPO_LISTA.equals(campoRaiz)) {
+                    enLista = true;
+                } else if (token == JsonToken.END_ARRAY && profundidad == 1) {
+                    enLista = false;
+                } else if (token == JsonToken.START_OBJECT && enLista && profundidad == 3) {
+                    gasolineraActual = new TokenBuffer(parser);
+                    gasolineraActual.copyCurrentEvent(parser);
+                } else if (profundidad == 1 && token.isScalarValue()) {
+                    asignarCampoCabecera(token == JsonToken.VALUE_NULL ? null : parser.getText());
+                }
+            }
+            return emitidas;
+        }
+
+        private void actualizarProfundidad(JsonToken token) {
+            if (token.isStructStart()) {
+                profundidad++;
+            } else if (token.isStructEnd()) {
+                profundidad--;
+            }
+        }
+
+        private T mapearGasolinera() throws IOException {
+            try (JsonParser parserGasolinera = gasolineraActual.asParser(objectMapper)) {
+                GasolineraDTOin gasolineraDTOin = objectMapper.readValue(parserGasolinera, GasolineraDTOin.class);
+                return transformacion.apply(gasolineraDTOin);
+            } finally {
+                gasolineraActual = null;
+            }
+        }
+
+        private void asignarCampoCabecera(String valor) {
+            if ("Fecha".equals(campoRaiz)) {
+                cabecera.setFecha(valor);
+            } else if ("Nota".equals(campoRaiz)) {
+                cabecera.setNota(valor);
+            } else if ("ResultadoConsulta".equals(campoRaiz)) {
+                cabecera.setResultadoConsulta(valor);
+            }
+        }
+    }
+}
@@ -1,14 +1,15 @@
 package es.kuiko.api_comunidades.repository;
 
+import java.util.List;
 import java.util.Optional;
 
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
-import es.kuiko.api_comunidades.dto.ComunidadAutonomaCountProvinciasDTO;
-import es.kuiko.api_comunidades.dto.ComunidadAutonomaCountProvinciasProjection;
 import es.kuiko.api_comunidades.model.ComunidadAutonoma;
 
 
@@ -19,13 +20,19 @@ public interface ComunidadAutonomaRepository extends JpaRepository<ComunidadAuto
 
 	boolean existsByCodigoCa(String codigoCa);
 
-	@Query(value = "SELECT c.codigo_ca AS codigoCa, c.nombre_ca AS nombreCa, CAST(COUNT(p.codigo_provincia) AS INTEGER) AS cantidadProvinciaInComunidad " +
-	        "FROM comunidad_autonoma c " +
-	        "LEFT JOIN provincia p ON c.codigo_ca = p.codigo_ca " +
-	        "WHERE c.codigo_ca = :codigoCa " +
-	        "GROUP BY c.codigo_ca, c.nombre_ca", 
-	nativeQuery = true)
-	Optional<ComunidadAutonomaCountProvinciasProjection> findCantidadProvinciasPorComunidad(@Param("codigoCa") String codigoCa);
+	//Comunidad con sus provincias en una sola consulta (grafo de entidad en lugar de carga perezosa)
+	@EntityGraph(attributePaths = "provincias")
+	Optional<ComunidadAutonoma> findConProvinciasByCodigoCa(String codigoCa);
 
+	//Todas las comunidades con sus provincias en una sola consulta, sin N+1 al recorrer las provincias
+	@EntityGraph(attributePaths = "provincias")
+	@Query("SELECT c FROM ComunidadAutonoma c")
+	List<ComunidadAutonoma> findAllConProvincias();
 
-}
\ No newline at end of file
+	//Borrado en una sola sentencia; devuelve el número de filas borradas (0 si no existe).
+	//Las provincias se borran en cascada en base de datos (@OnDelete en Provincia)
+	@Modifying
+	@Query("DELETE FROM ComunidadAutonoma c WHERE c.codigoCa = :codigoCa")
+	int deleteByCodigoCa(@Param("codigoCa") String codigoCa);
+
+}
@@ -3,6 +3,7 @@ package es.kuiko.api_comunidades.repository;
 import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -18,5 +19,15 @@ public interface ProvinciaRepository  extends JpaRepository<Provincia, Integer>{
     //Query para obtener codProvincia, nombreProvincia, codCA, nombreCa para ProvinciaInfoCjomunidadDTO
     @Query("SELECT p FROM Provincia p JOIN FETCH p.comunidadAutonoma WHERE p.codigoProvincia = :codigoProvincia")
     Optional<Provincia> findProvinciaComunidadInfoById(@Param("codigoProvincia") Integer codigoProvincia);
+
+    //Query para obtener todas las provincias con su comunidad en una sola consulta
+    @Query("SELECT p FROM Provincia p JOIN FETCH p.comunidadAutonoma")
+    List<Provincia> findAllConComunidad();
+
+    //Borrado en una sola sentencia, sin cargar la entidad ni propagar el borrado a su comunidad;
+    //devuelve el número de filas borradas (0 si no existe)
+    @Modifying
+    @Query("DELETE FROM Provincia p WHERE p.codigoProvincia = :codigoProvincia")
+    int deleteByCodigoProvincia(@Param("codigoProvincia") Integer codigoProvincia);
     
 }
\ No newline at end of file
@@ -1,7 +1,9 @@
 package es.kuiko.api_comunidades.service;
 
 import es.kuiko.api_comunidades.dto.ComunidadAutonomaCountProvinciasDTO;
+import es.kuiko.api_comunidades.dto.gasolineras.EstadisticasComunidadDTO;
 import es.kuiko.api_comunidades.model.ComunidadAutonoma;
+import es.kuiko.api_comunidades.service.cache.RespuestaCodificada;
 import java.util.List;
 import java.util.Optional;
 
@@ -12,8 +14,18 @@ public interface ComunidadAutonomaService {
     List<ComunidadAutonoma> getAll();
     
     Optional<ComunidadAutonoma> getById(String codigoCa);
+
+    RespuestaCodificada getAllCodificado();
+
+    Optional<RespuestaCodificada> getByIdCodificado(String codigoCa);
     
 	Optional<ComunidadAutonomaCountProvinciasDTO> getCantidadProvinciasByComunidad(@Param("codigoCa") String codigoCa);
+
+    RespuestaCodificada getCantidadProvinciasCodificado();
+
+    Optional<EstadisticasComunidadDTO> getEstadisticasPrecios(String codigoCa);
+
+    List<EstadisticasComunidadDTO> getEstadisticasPrecios();
     
     ComunidadAutonoma create(ComunidadAutonoma comunidadAutonoma);
     
@@ -1,11 +1,20 @@
 package es.kuiko.api_comunidades.service;
 
+import es.kuiko.api_comunidades.dto.gasolineras.GasolineraCercanaDTO;
 import es.kuiko.api_comunidades.dto.gasolineras.GasolineraDTOin;
 import es.kuiko.api_comunidades.dto.gasolineras.GasolineraDTOout;
+import es.kuiko.api_comunidades.dto.gasolineras.GasolineraPrecioDTO;
 import es.kuiko.api_comunidades.dto.gasolineras.GasolineraWrapperApiResponseOut;
+import es.kuiko.api_comunidades.dto.gasolineras.HistoricoProvinciaDTO;
+import es.kuiko.api_comunidades.service.cache.RespuestaCodificada;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 public interface GasolineraService {
 
@@ -13,12 +22,143 @@ public interface GasolineraService {
      * Obtiene una lista de gasolineras filtradas por provincia, extrayendo solo
      * los campos necesarios y manejando posibles valores vacíos.
      *
-     * @param codigoProvincia Código de la provincia para la cual se requiere la lista de gasolineras.
+     * @param codigoProvincia Código de la provincia para la cual se requiere la lista de gasolineras
+     *                        ("8" y "08" son equivalentes).
      * @return Un Mono que emite una lista de objetos GasolineraDTOin correspondientes
-     *         a las gasolineras de la provincia especificada.
+     *         a las gasolineras de la provincia especificada. Cada llamada recibe objetos propios, que puede
+     *         modificar sin afectar a otras llamadas, tanto si proceden de la instantánea nacional como de la caché.
+     * @throws IllegalArgumentException si el código de provincia no es válido.
      */
     //Mono<List<GasolineraDTOin>> getGasolinerasPorProvincia(String codigoProvincia);
     public Mono<GasolineraWrapperApiResponseOut> getGasolinerasPorProvincia(String codigoProvincia) ;
-}
 
+    /**
+     * Obtiene las gasolineras de una provincia como un flujo, emitiendo cada gasolinera
+     * en cuanto está mapeada en lugar de envolverlas en una única lista.
+     *
+     * @param codigoProvincia Código de la provincia para la cual se requiere la lista de gasolineras.
+     * @return Un Flux que emite cada GasolineraDTOout de la provincia especificada, como objetos propios de
+     *         cada llamada.
+     * @throws IllegalArgumentException si el código de provincia no es válido.
+     */
+    Flux<GasolineraDTOout> streamGasolinerasPorProvincia(String codigoProvincia);
+
+    /**
+     * Obtiene las gasolineras de varias provincias en un único flujo. Las provincias se consultan en paralelo,
+     * con un número máximo de consultas simultáneas configurable, y sus gasolineras se emiten en el orden
+     * en que se pidieron las provincias.
+     *
+     * @param codigosProvincia Códigos de las provincias a consultar.
+     * @return Un Flux que emite las gasolineras de todas las provincias indicadas, o termina con
+     *         ProvinciaNoDisponibleException si la API de terceros falla para alguna de ellas. El error puede
+     *         llegar después de haber emitido gasolineras de las provincias anteriores.
+     * @throws IllegalArgumentException si la lista está vacía o algún código de provincia no es válido.
+     */
+    Flux<GasolineraDTOout> getGasolinerasPorProvincias(List<String> codigosProvincia);
+
+    /**
+     * Obtiene las gasolineras de todas las provincias de una Comunidad Autónoma en un único flujo,
+     * consultando las provincias en paralelo.
+     *
+     * @param codigoCa Código de la Comunidad Autónoma.
+     * @return Un Flux que emite las gasolineras de todas las provincias de la comunidad, o termina con
+     *         ProvinciaNoDisponibleException si la API de terceros falla para alguna de ellas. El error puede
+     *         llegar después de haber emitido gasolineras de las provincias anteriores.
+     */
+    Flux<GasolineraDTOout> getGasolinerasPorComunidad(String codigoCa);
+
+    /**
+     * Obtiene las gasolineras de una provincia ya serializadas a JSON (en claro y con gzip) junto con su ETag.
+     * La serialización se realiza una sola vez por cada versión de los datos.
+     *
+     * @param codigoProvincia Código de la provincia para la cual se requiere la lista de gasolineras.
+     * @return Un Mono que emite la respuesta codificada.
+     * @throws IllegalArgumentException si el código de provincia no es válido.
+     */
+    Mono<RespuestaCodificada> getGasolinerasCodificadas(String codigoProvincia);
 
+    /**
+     * Obtiene el instante de la última verificación de la instantánea nacional, si las gasolineras de todas las
+     * provincias indicadas se sirven desde ella. Permite indicar la antigüedad de las respuestas en streaming,
+     * cuyas cabeceras se envían antes que las gasolineras.
+     *
+     * @param codigosProvincia Códigos de las provincias consultadas.
+     * @return El instante de la última verificación, o vacío si alguna provincia no se sirve desde la instantánea.
+     */
+    Optional<Instant> getVerificadoInstantanea(Collection<String> codigosProvincia);
+
+    /**
+     * Obtiene el instante de la última verificación de la instantánea nacional, si las gasolineras de todas las
+     * provincias de la Comunidad Autónoma se sirven desde ella.
+     *
+     * @param codigoCa Código de la Comunidad Autónoma.
+     * @return El instante de la última verificación, o vacío si la comunidad no existe o alguna de sus provincias
+     *         no se sirve desde la instantánea.
+     */
+    Optional<Instant> getVerificadoInstantaneaComunidad(String codigoCa);
+
+    /**
+     * Obtiene las gasolineras situadas dentro de un radio alrededor de un punto, sin tener en cuenta
+     * los límites provinciales. Se resuelve con el índice espacial de la instantánea nacional.
+     *
+     * @param latitud Latitud del punto de búsqueda (WGS84).
+     * @param longitud Longitud del punto de búsqueda (WGS84).
+     * @param radioKm Radio de búsqueda en kilómetros.
+     * @param combustible Combustible del que debe tener precio la gasolinera (opcional).
+     * @param orden Criterio de ordenación: "distancia" o "precio" (este último requiere combustible).
+     * @param limite Número máximo de gasolineras a devolver.
+     * @return Un Mono que emite las gasolineras encontradas, ordenadas según el criterio indicado.
+     */
+    Mono<List<GasolineraCercanaDTO>> getGasolinerasCercanas(double latitud, double longitud, double radioKm,
+                                                             String combustible, String orden, int limite);
+
+    /**
+     * Busca gasolineras por texto en el rótulo, la dirección, el municipio y la localidad, sin distinguir
+     * mayúsculas ni tildes. Cada palabra de la consulta se trata como prefijo, para servir de autocompletado.
+     *
+     * @param consulta Texto de la búsqueda.
+     * @param codigoProvincia Código de la provincia en la que buscar (opcional; por defecto, toda España).
+     * @param limite Número máximo de gasolineras a devolver.
+     * @return Un Mono que emite las gasolineras que contienen todas las palabras de la consulta.
+     */
+    Mono<List<GasolineraDTOout>> buscarGasolineras(String consulta, String codigoProvincia, int limite);
+
+    /**
+     * Obtiene las gasolineras más baratas de España para un combustible.
+     *
+     * @param combustible Combustible a consultar.
+     * @param limite Número máximo de gasolineras a devolver.
+     * @return Un Mono que emite las gasolineras ordenadas de menor a mayor precio.
+     */
+    Mono<List<GasolineraPrecioDTO>> getMasBaratas(String combustible, int limite);
+
+    /**
+     * Obtiene las gasolineras más baratas de una provincia para un combustible.
+     *
+     * @param codigoProvincia Código de la provincia.
+     * @param combustible Combustible a consultar.
+     * @param limite Número máximo de gasolineras a devolver.
+     * @return Un Mono que emite las gasolineras ordenadas de menor a mayor precio.
+     */
+    Mono<List<GasolineraPrecioDTO>> getMasBaratasPorProvincia(String codigoProvincia, String combustible, int limite);
+
+    /**
+     * Obtiene las gasolineras más baratas de todas las provincias de una Comunidad Autónoma para un combustible.
+     *
+     * @param codigoCa Código de la Comunidad Autónoma.
+     * @param combustible Combustible a consultar.
+     * @param limite Número máximo de gasolineras a devolver.
+     * @return Un Mono que emite las gasolineras ordenadas de menor a mayor precio.
+     */
+    Mono<List<GasolineraPrecioDTO>> getMasBaratasPorComunidad(String codigoCa, String combustible, int limite);
+
+    /**
+     * Obtiene el histórico de precios de las gasolineras de una provincia entre dos días, ambos inclusive.
+     *
+     * @param codigoProvincia Código de la provincia.
+     * @param desde Primer día del rango (por defecto, una semana antes de {@code hasta}).
+     * @param hasta Último día del rango (por defecto, hoy).
+     * @return Un Mono que emite la serie de precios de cada gasolinera de la provincia.
+     */
+    Mono<HistoricoProvinciaDTO> getHistoricoPorProvincia(String codigoProvincia, LocalDate desde, LocalDate hasta);
+}
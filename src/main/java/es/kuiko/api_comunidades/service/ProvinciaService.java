@@ -3,6 +3,7 @@ package es.kuiko.api_comunidades.service;
 import es.kuiko.api_comunidades.dto.ProvinciaDTO;
 import es.kuiko.api_comunidades.dto.ProvinciaInfoComunidadDTO;
 import es.kuiko.api_comunidades.model.Provincia;
+import es.kuiko.api_comunidades.service.cache.RespuestaCodificada;
 import java.util.List;
 import java.util.Optional;
 
@@ -11,6 +12,10 @@ public interface ProvinciaService {
     List<Provincia> getAll();
     
     Optional<Provincia> getById(Integer codigoProvincia);
+
+    RespuestaCodificada getAllCodificado();
+
+    Optional<RespuestaCodificada> getByIdCodificado(Integer codigoProvincia);
     
     Provincia create(ProvinciaDTO provinciaDTO);
     
@@ -0,0 +1,187 @@
+package es.kuiko.api_comunidades.service.cache;
+
+import es.kuiko.api_comunidades.dto.gasolineras.GasolineraWrapperApiResponseOut;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+/**
+ * Caché reactiva de respuestas de gasolineras por código de provincia.
+ *
+ * <p>La API del ministerio solo republica los precios unas pocas veces al día, por lo que
+ * cada entrada caduca en función de la {@code Fecha} publicada por la API más un intervalo
+ * de refresco configurable ({@code gasolineras.cache.refresh-interval}).</p>
+ *
+ * <p>Cuando una entrada ha caducado se sigue sirviendo la copia anterior mientras se lanza
+ * un refresco en segundo plano (stale-while-revalidate). Solo se cachean las respuestas
+ * correctas ({@code ResultadoConsulta = "OK"}).</p>
+ *
+ * <p>Las cargas concurrentes de una misma provincia se agrupan (single-flight): todas las
+ * peticiones en curso se suscriben a un único {@code Mono} compartido hacia la API de terceros.
+ * Cada llamante recibe su propia copia de la respuesta para que ninguna modificación
+ * afecte a la entrada cacheada ni al resto de llamantes.</p>
+ */
+@Component
+public class GasolineraCache {
+
+    private static final Logger log = LoggerFactory.getLogger(GasolineraCache.class);
+
+    /**
+     * Formato de la {@code Fecha} publicada por la API, por ejemplo "18/10/2026 9:15:23".
+     */
+    private static final DateTimeFormatter FORMATO_FECHA = DateTimeFormatter.ofPattern("d/M/yyyy H:mm:ss");
+
+    private static final ZoneId ZONA_API = ZoneId.of("Europe/Madrid");
+
+    private final ConcurrentHashMap<String, Entrada> entradas = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Mono<GasolineraWrapperApiResponseOut>> enVuelo = new ConcurrentHashMap<>();
+    private final Duration refreshInterval;
+    private final Duration minTtl;
+    private final Clock clock;
+
+    /**
+     * Constructor utilizado por Spring con los intervalos leídos de la configuración.
+     *
+     * @param refreshInterval Tiempo tras la {@code Fecha} de la API a partir del cual la entrada se considera caducada.
+     * @param minTtl Tiempo mínimo que una entrada recién obtenida se sirve sin refrescar.
+     */
+    @Autowired
+    public GasolineraCache(@Value("${gasolineras.cache.refresh-interval:30m}") Duration refreshInterval,
+                           @Value("${gasolineras.cache.min-ttl:1m}") Duration minTtl) {
+        this(refreshInterval, minTtl, Clock.systemDefaultZone());
+    }
+
+    GasolineraCache(Duration refreshInterval, Duration minTtl, Clock clock) {
+        this.refreshInterval = refreshInterval;
+        this.minTtl = minTtl;
+        this.clock = clock;
+    }
+
+    /**
+     * Obtiene la respuesta de una provincia desde la caché o, si no existe, mediante el cargador indicado.
+     * Si la entrada existe pero ha caducado se devuelve igualmente y se refresca en segundo plano.
+     *
+     * @param codigoProvincia Código de la provincia.
+     * @param cargador Función que obtiene la respuesta desde la API de terceros.
+     * @return Un Mono con una copia propia de la respuesta de la provincia.
+     */
+    public Mono<GasolineraWrapperApiResponseOut> get(String codigoProvincia,
+                                                     Function<String, Mono<GasolineraWrapperApiResponseOut>> cargador) {
+        return getCompartida(codigoProvincia, cargador).map(GasolineraWrapperApiResponseOut::new);
+    }
+
+    /**
+     * Igual que {@link #get(String, Function)} pero devuelve la instancia compartida de la caché, sin copiarla.
+     * Solo debe usarse para lecturas que no modifiquen la respuesta.
+     *
+     * @param codigoProvincia Código de la provincia.
+     * @param cargador Función que obtiene la respuesta desde la API de terceros.
+     * @return Un Mono con la respuesta compartida de la provincia.
+     */
+    public Mono<GasolineraWrapperApiResponseOut> getCompartida(String codigoProvincia,
+                                                               Function<String, Mono<GasolineraWrapperApiResponseOut>> cargador) {
+        Entrada entrada = entradas.get(codigoProvincia);
+        if (entrada == null) {
+            return cargar(codigoProvincia, cargador);
+        }
+        if (entrada.isCaducada(clock.instant()) && entrada.refrescando.compareAndSet(false, true)) {
+            cargar(codigoProvincia, cargador)
+                    .doFinally(signal -> entrada.refrescando.set(false))
+                    .subscribe(respuesta -> { },
+                            error -> log.warn("No se pudo refrescar la provincia {}: {}", codigoProvincia, error.getMessage()));
+        }
+        return Mono.just(entrada.respuesta);
+    }
+
+    /**
+     * Consulta la respuesta cacheada de una provincia sin lanzar ninguna carga, aunque haya caducado.
+     *
+     * @param codigoProvincia Código de la provincia.
+     * @return La respuesta compartida de la provincia, o vacío si no está en la caché.
+     */
+    public Optional<GasolineraWrapperApiResponseOut> peek(String codigoProvincia) {
+        Entrada entrada = entradas.get(codigoProvincia);
+        return entrada == null ? Optional.empty() : Optional.of(entrada.respuesta);
+    }
+
+    /**
+     * Elimina todas las entradas de la caché.
+     */
+    public void clear() {
+        entradas.clear();
+    }
+
+    /**
+     * Carga la provincia desde la API reutilizando la petición en curso si ya existe una para el mismo código.
+     * La petición compartida se elimina del mapa al terminar, con éxito o con error, para que la
+     * siguiente carga vuelva a consultar la API.
+     */
+    private Mono<GasolineraWrapperApiResponseOut> cargar(String codigoProvincia,
+                                                         Function<String, Mono<GasolineraWrapperApiResponseOut>> cargador) {
+        return Mono.defer(() -> enVuelo.computeIfAbsent(codigoProvincia, codigo -> {
+            AtomicReference<Mono<GasolineraWrapperApiResponseOut>> compartida = new AtomicReference<>();
+            compartida.set(cargador.apply(codigo)
+                    .doOnNext(respuesta -> {
+                        if ("OK".equals(respuesta.getResultadoConsulta())) {
+                            entradas.put(codigo, new Entrada(respuesta, calcularCaducidad(respuesta.getFecha())));
+                        }
+                    })
+                    .doFinally(signal -> enVuelo.remove(codigo, compartida.get()))
+                    .cache());
+            return compartida.get();
+        }));
+    }
+
+    /**
+     * Calcula el instante de caducidad a partir de la {@code Fecha} de la API más el intervalo de refresco,
+     * garantizando siempre el tiempo mínimo de vida configurado.
+     */
+    private Instant calcularCaducidad(String fecha) {
+        Instant ahora = clock.instant();
+        Instant minimo = ahora.plus(minTtl);
+        if (fecha == null || fecha.isBlank()) {
+            return ahora.plus(refreshInterval);
+        }
+        try {
+            Instant publicacion = LocalDateTime.parse(fecha.trim(), FORMATO_FECHA).atZone(ZONA_API).toInstant();
+            Instant caducidad = publicacion.plus(refreshInterval);
+            return caducidad.isAfter(minimo) ? caducidad : minimo;
+        } catch (DateTimeParseException e) {
+            return ahora.plus(refreshInterval);
+        }
+    }
+
+    /**
+     * Entrada de la caché con la respuesta, su caducidad y un indicador de refresco en curso.
+     */
+    private static final class Entrada {
+        private final GasolineraWrapperApiResponseOut respuesta;
+        private final Instant caducidad;
+        private final AtomicBoolean refrescando = new AtomicBoolean(false);
+
+        private Entrada(GasolineraWrapperApiResponseOut respuesta, Instant caducidad) {
+            this.respuesta = respuesta;
+            this.caducidad = caducidad;
+        }
+
+        private boolean isCaducada(Instant ahora) {
+            return !ahora.isBefore(caducidad);
+        }
+    }
+}
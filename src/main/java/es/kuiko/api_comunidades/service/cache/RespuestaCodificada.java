@@ -0,0 +1,113 @@
+package es.kuiko.api_comunidades.service.cache;
+
+import java.time.Instant;
+import java.util.Objects;
+
+/**
+ * Respuesta ya serializada a JSON, lista para escribirse directamente en el socket.
+ *
+ * <p>Contiene los bytes en claro y comprimidos con gzip, junto con un {@code ETag} fuerte
+ * derivado del hash del contenido y, cuando se conoce, el instante en que se obtuvieron los datos de la
+ * API de terceros. Las instancias son inmutables: los arrays no deben modificarse.</p>
+ */
+public final class RespuestaCodificada {
+
+    private final byte[] json;
+    private final byte[] gzip;
+    private final String etag;
+    private final Instant obtenido;
+
+    /**
+     * Crea una nueva respuesta codificada sin instante de obtención conocido.
+     *
+     * @param json Cuerpo JSON codificado en UTF-8.
+     * @param gzip Mismo cuerpo comprimido con gzip.
+     * @param etag ETag fuerte (entre comillas) calculado a partir del contenido.
+     */
+    public RespuestaCodificada(byte[] json, byte[] gzip, String etag) {
+        this(json, gzip, etag, null);
+    }
+
+    /**
+     * Crea una nueva respuesta codificada.
+     *
+     * @param json Cuerpo JSON codificado en UTF-8.
+     * @param gzip Mismo cuerpo comprimido con gzip.
+     * @param etag ETag fuerte (entre comillas) calculado a partir del contenido.
+     * @param obtenido Instante en que se descargaron los datos de la API de terceros, o {@code null}.
+     */
+    public RespuestaCodificada(byte[] json, byte[] gzip, String etag, Instant obtenido) {
+        this.json = json;
+        this.gzip = gzip;
+        this.etag = etag;
+        this.obtenido = obtenido;
+    }
+
+    public byte[] getJson() {
+        return json;
+    }
+
+    public byte[] getGzip() {
+        return gzip;
+    }
+
+    /**
+     * Obtiene el ETag de la representación sin comprimir.
+     *
+     * @return ETag fuerte, por ejemplo {@code "3f2a..."}.
+     */
+    public String getEtag() {
+        return etag;
+    }
+
+    /**
+     * Obtiene el instante en que se descargaron los datos de la respuesta.
+     *
+     * @return El instante de descarga, o {@code null} si no se conoce.
+     */
+    public Instant getObtenido() {
+        return obtenido;
+    }
+
+    /**
+     * Devuelve la misma respuesta con otro instante de obtención, compartiendo los bytes.
+     *
+     * @param obtenido Instante en que se descargaron o verificaron por última vez los datos.
+     * @return Esta misma instancia si el instante no cambia, o una copia con el nuevo instante.
+     */
+    public RespuestaCodificada conObtenido(Instant obtenido) {
+        return Objects.equals(this.obtenido, obtenido) ? this : new RespuestaCodificada(json, gzip, etag, obtenido);
+    }
+
+    /**
+     * Obtiene el ETag de la representación comprimida. Es distinto del de la representación en claro,
+     * como exige HTTP para validadores fuertes de representaciones diferentes.
+     *
+     * @return ETag fuerte de la variante gzip.
+     */
+    public String getEtagGzip() {
+        return etag.substring(0, etag.length() - 1) + "-gzip\"";
+    }
+
+    /**
+     * Comprueba si la cabecera {@code If-None-Match} coincide con alguna de las variantes de esta respuesta.
+     *
+     * @param ifNoneMatch Valor de la cabecera {@code If-None-Match}, puede ser {@code null}.
+     * @return true si el cliente ya dispone de esta versión de la respuesta.
+     */
+    public boolean coincideCon(String ifNoneMatch) {
+        if (ifNoneMatch == null || ifNoneMatch.isBlank()) {
+            return false;
+        }
+        for (String candidato : ifNoneMatch.split(",")) {
+            String valor = candidato.trim();
+            if (valor.startsWith("W/")) {
+                valor = valor.substring(2);
+            }
+            if ("*".equals(valor) || etag.equals(valor) || getEtagGzip().equals(valor)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
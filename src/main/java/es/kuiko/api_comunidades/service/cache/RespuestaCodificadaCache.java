@@ -0,0 +1,176 @@
+package es.kuiko.api_comunidades.service.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Caché de respuestas ya serializadas a JSON, en claro y comprimidas con gzip.
+ *
+ * <p>Cada entrada queda asociada a la instancia de origen a partir de la cual se serializó. Mientras
+ * la instancia compartida de los datos (instantánea nacional o caché por provincia) no cambie, se
+ * reutilizan los mismos bytes; en cuanto se publica una nueva versión de los datos se vuelve a
+ * serializar una única vez.</p>
+ */
+@Component
+public class RespuestaCodificadaCache {
+
+    private final ObjectMapper objectMapper;
+    private final ConcurrentHashMap<String, Entrada> entradas = new ConcurrentHashMap<>();
+
+    /**
+     * Constructor para inyectar el ObjectMapper de la aplicación, de forma que los bytes
+     * generados coincidan con lo que produciría Spring MVC.
+     *
+     * @param objectMapper ObjectMapper utilizado para serializar las respuestas.
+     */
+    public RespuestaCodificadaCache(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Obtiene la respuesta codificada para la clave indicada, serializándola solo si la versión
+     * de los datos de origen ha cambiado desde la última vez.
+     *
+     * @param clave Clave de la respuesta, por ejemplo el código de provincia.
+     * @param origen Instancia compartida de los datos, que no debe modificarse.
+     * @return La respuesta codificada correspondiente a {@code origen}.
+     */
+    public RespuestaCodificada obtener(String clave, Object origen) {
+        return obtener(clave, origen, () -> origen);
+    }
+
+    /**
+     * Obtiene la respuesta codificada para la clave indicada. Si la versión no coincide con la de la
+     * entrada guardada, construye el valor con {@code valor}, lo serializa y lo asocia a esa versión.
+     *
+     * @param clave Clave de la respuesta, por ejemplo el código de provincia.
+     * @param version Instancia que identifica la versión de los datos (se compara por identidad).
+     * @param valor Proveedor del objeto a serializar, invocado solo cuando cambia la versión.
+     * @return La respuesta codificada correspondiente a {@code version}.
+     */
+    public RespuestaCodificada obtener(String clave, Object version, Supplier<?> valor) {
+        return obtenerCodificada(clave, version, () -> codificar(valor.get()));
+    }
+
+    /**
+     * Igual que {@link #obtener(String, Object, Supplier)}, pero para respuestas cuyo JSON ya viene
+     * serializado por un codificador propio.
+     *
+     * @param clave Clave de la respuesta, por ejemplo el código de provincia.
+     * @param version Instancia que identifica la versión de los datos (se compara por identidad).
+     * @param obtenido Instante en que se descargaron los datos de esa versión, o {@code null}.
+     * @param json Proveedor del JSON en UTF-8, invocado solo cuando cambia la versión.
+     * @return La respuesta codificada correspondiente a {@code version}.
+     */
+    public RespuestaCodificada obtenerJson(String clave, Object version, Instant obtenido, Supplier<byte[]> json) {
+        return obtenerCodificada(clave, version, () -> codificarJson(json.get(), obtenido));
+    }
+
+    private RespuestaCodificada obtenerCodificada(String clave, Object version, Supplier<RespuestaCodificada> codificador) {
+        Entrada entrada = entradas.get(clave);
+        if (entrada != null && entrada.origen == version) {
+            return entrada.codificada;
+        }
+        RespuestaCodificada codificada = codificador.get();
+        entradas.put(clave, new Entrada(version, codificada));
+        return codificada;
+    }
+
+    /**
+     * Serializa un objeto a JSON, lo comprime y calcula su ETag, sin guardarlo en la caché.
+     *
+     * @param valor Objeto a serializar.
+     * @return La respuesta codificada.
+     */
+    public RespuestaCodificada codificar(Object valor) {
+        try {
+            return codificarJson(objectMapper.writeValueAsBytes(valor));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("No se pudo serializar la respuesta", e);
+        }
+    }
+
+    /**
+     * Serializa un objeto a JSON y lo comprime con un ETag ya decidido por el llamante (por ejemplo, uno
+     * basado en la versión de los datos), sin guardarlo en la caché.
+     *
+     * @param valor Objeto a serializar.
+     * @param etag ETag entre comillas de esta versión.
+     * @param obtenido Instante en que se obtuvieron o modificaron los datos, o {@code null}.
+     * @return La respuesta codificada.
+     */
+    public RespuestaCodificada codificar(Object valor, String etag, Instant obtenido) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(valor);
+            return new RespuestaCodificada(json, comprimir(json), etag, obtenido);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("No se pudo serializar la respuesta", e);
+        }
+    }
+
+    /**
+     * Comprime un JSON ya serializado y calcula su ETag, sin guardarlo en la caché.
+     *
+     * @param json JSON de la respuesta en UTF-8.
+     * @return La respuesta codificada.
+     */
+    public RespuestaCodificada codificarJson(byte[] json) {
+        return codificarJson(json, null);
+    }
+
+    /**
+     * Igual que {@link #codificarJson(byte[])}, conservando el instante en que se obtuvieron los datos.
+     *
+     * @param json JSON de la respuesta en UTF-8.
+     * @param obtenido Instante en que se descargaron los datos, o {@code null}.
+     * @return La respuesta codificada.
+     */
+    public RespuestaCodificada codificarJson(byte[] json, Instant obtenido) {
+        return new RespuestaCodificada(json, comprimir(json), calcularEtag(json), obtenido);
+    }
+
+    private static byte[] comprimir(byte[] datos) {
+        ByteArrayOutputStream salida = new ByteArrayOutputStream(Math.max(64, datos.length / 6));
+        try (GZIPOutputStream gzip = new GZIPOutputStream(salida)) {
+            gzip.write(datos);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return salida.toByteArray();
+    }
+
+    private static String calcularEtag(byte[] datos) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(datos);
+            // Con 128 bits del hash es suficiente para distinguir versiones y la cabecera es más corta.
+            return "\"" + HexFormat.of().formatHex(hash, 0, 16) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+
+    /**
+     * Entrada de la caché: respuesta codificada y la instancia de origen a partir de la que se generó.
+     */
+    private static final class Entrada {
+        private final Object origen;
+        private final RespuestaCodificada codificada;
+
+        private Entrada(Object origen, RespuestaCodificada codificada) {
+            this.origen = origen;
+            this.codificada = codificada;
+        }
+    }
+}
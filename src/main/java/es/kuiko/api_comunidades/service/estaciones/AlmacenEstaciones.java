@@ -0,0 +1,383 @@
+package es.kuiko.api_comunidades.service.estaciones;
+
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import es.kuiko.api_comunidades.dto.gasolineras.Estacion;
+import es.kuiko.api_comunidades.dto.gasolineras.PrecioCombustible;
+import es.kuiko.api_comunidades.dto.gasolineras.TipoCombustible;
+import es.kuiko.api_comunidades.service.referencia.CodigosTerritoriales;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Almacén columnar e inmutable de todas las estaciones de servicio de una instantánea.
+ *
+ * <p>En lugar de una lista de objetos, cada atributo se guarda en un array primitivo paralelo
+ * (struct-of-arrays): una columna {@code int} de precios por cada {@link TipoCombustible}, columnas
+ * {@code double} de latitud y longitud, y columnas {@code int} con identificadores de diccionario para
+ * rótulo, municipio, localidad y horario. Las filas se ordenan por provincia, de modo que las estaciones
+ * de una provincia ocupan un rango contiguo {@code [inicio(p), fin(p))}.</p>
+ *
+ * <p>Cada entrada de diccionario (y el nombre y el código de cada provincia) se guarda también ya
+ * codificada como cadena JSON en UTF-8, de modo que al serializar una respuesta los valores repetidos
+ * ("REPSOL", "L-D: 24H") se copian como bytes en lugar de volver a escaparse y codificarse en cada fila.</p>
+ *
+ * <p>Las búsquedas del tipo "estaciones de la provincia X por debajo de 1,50 €/l" se reducen a bucles
+ * sobre arrays primitivos, sin saltos de puntero. Las instancias se construyen una vez por refresco con
+ * {@link #construir(List)} y se publican de forma atómica; nunca se modifican.</p>
+ */
+public final class AlmacenEstaciones {
+
+    /**
+     * Código de provincia máximo admitido (las provincias españolas van de 1 a 52).
+     */
+    public static final int MAX_PROVINCIA = CodigosTerritoriales.MAX_PROVINCIA;
+
+    private final int size;
+    private final int[][] precios;
+    private final double[] latitud;
+    private final double[] longitud;
+    private final int[] provincia;
+    private final int[] rotuloId;
+    private final int[] municipioId;
+    private final int[] localidadId;
+    private final int[] horarioId;
+    private final String[] direccion;
+    private final String[] rotulos;
+    private final String[] municipios;
+    private final String[] localidades;
+    private final String[] horarios;
+    private final String[] nombresProvincia;
+    private final String[] idsProvincia;
+    private final int[] inicioProvincia;
+    private final SerializableString[] rotulosJson;
+    private final SerializableString[] municipiosJson;
+    private final SerializableString[] localidadesJson;
+    private final SerializableString[] horariosJson;
+    private final SerializableString[] nombresProvinciaJson;
+    private final SerializableString[] idsProvinciaJson;
+
+    private AlmacenEstaciones(int size, int[][] precios, double[] latitud, double[] longitud, int[] provincia,
+                              int[] rotuloId, int[] municipioId, int[] localidadId, int[] horarioId, String[] direccion,
+                              String[] rotulos, String[] municipios, String[] localidades, String[] horarios,
+                              String[] nombresProvincia, String[] idsProvincia, int[] inicioProvincia) {
+        this.size = size;
+        this.precios = precios;
+        this.latitud = latitud;
+        this.longitud = longitud;
+        this.provincia = provincia;
+        this.rotuloId = rotuloId;
+        this.municipioId = municipioId;
+        this.localidadId = localidadId;
+        this.horarioId = horarioId;
+        this.direccion = direccion;
+        this.rotulos = rotulos;
+        this.municipios = municipios;
+        this.localidades = localidades;
+        this.horarios = horarios;
+        this.nombresProvincia = nombresProvincia;
+        this.idsProvincia = idsProvincia;
+        this.inicioProvincia = inicioProvincia;
+        this.rotulosJson = codificarJson(rotulos);
+        this.municipiosJson = codificarJson(municipios);
+        this.localidadesJson = codificarJson(localidades);
+        this.horariosJson = codificarJson(horarios);
+        this.nombresProvinciaJson = codificarJson(nombresProvincia);
+        this.idsProvinciaJson = codificarJson(idsProvincia);
+    }
+
+    // Codifica una única vez cada valor del diccionario como cadena JSON entrecomillada en UTF-8
+    private static SerializableString[] codificarJson(String[] valores) {
+        SerializableString[] codificados = new SerializableString[valores.length];
+        for (int i = 0; i < valores.length; i++) {
+            if (valores[i] != null) {
+                SerializedString codificado = new SerializedString(valores[i]);
+                codificado.asQuotedUTF8();  // Deja los bytes calculados antes de publicar el almacén
+                codificados[i] = codificado;
+            }
+        }
+        return codificados;
+    }
+
+    /**
+     * Construye el almacén a partir de las estaciones de una instantánea. Las estaciones sin un
+     * {@code IDProvincia} válido se agrupan en la provincia 0.
+     *
+     * @param estaciones Estaciones a almacenar.
+     * @return El almacén columnar construido.
+     */
+    public static AlmacenEstaciones construir(List<Estacion> estaciones) {
+        int n = estaciones.size();
+
+        // Ordenación estable por provincia mediante conteo (counting sort) sobre los códigos 0..52
+        int[] codigos = new int[n];
+        int[] inicio = new int[MAX_PROVINCIA + 2];
+        for (int i = 0; i < n; i++) {
+            codigos[i] = codigoProvincia(estaciones.get(i).idProvincia());
+            inicio[codigos[i] + 1]++;
+        }
+        for (int p = 1; p < inicio.length; p++) {
+            inicio[p] += inicio[p - 1];
+        }
+        int[] siguiente = Arrays.copyOf(inicio, inicio.length);
+        int[] orden = new int[n];
+        for (int i = 0; i < n; i++) {
+            orden[siguiente[codigos[i]]++] = i;
+        }
+
+        int[][] precios = new int[TipoCombustible.count()][n];
+        double[] latitud = new double[n];
+        double[] longitud = new double[n];
+        int[] provincia = new int[n];
+        int[] rotuloId = new int[n];
+        int[] municipioId = new int[n];
+        int[] localidadId = new int[n];
+        int[] horarioId = new int[n];
+        String[] direccion = new String[n];
+        Diccionario rotulos = new Diccionario();
+        Diccionario municipios = new Diccionario();
+        Diccionario localidades = new Diccionario();
+        Diccionario horarios = new Diccionario();
+        String[] nombresProvincia = new String[MAX_PROVINCIA + 1];
+        String[] idsProvincia = new String[MAX_PROVINCIA + 1];
+
+        for (int fila = 0; fila < n; fila++) {
+            Estacion estacion = estaciones.get(orden[fila]);
+            for (int t = 0; t < precios.length; t++) {
+                precios[t][fila] = estacion.precio(TipoCombustible.of(t));
+            }
+            latitud[fila] = estacion.tieneCoordenadas() ? estacion.latitud() : Double.NaN;
+            longitud[fila] = estacion.tieneCoordenadas() ? estacion.longitud() : Double.NaN;
+            provincia[fila] = codigos[orden[fila]];
+            rotuloId[fila] = rotulos.codificar(estacion.rotulo());
+            municipioId[fila] = municipios.codificar(estacion.municipio());
+            localidadId[fila] = localidades.codificar(estacion.localidad());
+            horarioId[fila] = horarios.codificar(estacion.horario());
+            direccion[fila] = estacion.direccion();
+            if (nombresProvincia[provincia[fila]] == null) {
+                nombresProvincia[provincia[fila]] = estacion.provincia();
+                idsProvincia[provincia[fila]] = estacion.idProvincia();
+            }
+        }
+
+        return new AlmacenEstaciones(n, precios, latitud, longitud, provincia, rotuloId, municipioId, localidadId,
+                horarioId, direccion, rotulos.valores(), municipios.valores(), localidades.valores(), horarios.valores(),
+                nombresProvincia, idsProvincia, inicio);
+    }
+
+    /**
+     * Número total de estaciones del almacén.
+     *
+     * @return Número de filas.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Primera fila de la provincia indicada.
+     *
+     * @param codigoProvincia Código de provincia (1..52).
+     * @return Índice de la primera fila de la provincia.
+     */
+    public int inicio(int codigoProvincia) {
+        return inicioProvincia[codigoProvincia];
+    }
+
+    /**
+     * Fila siguiente a la última de la provincia indicada (exclusiva).
+     *
+     * @param codigoProvincia Código de provincia (1..52).
+     * @return Índice de fin de la provincia.
+     */
+    public int fin(int codigoProvincia) {
+        return inicioProvincia[codigoProvincia + 1];
+    }
+
+    /**
+     * Indica si el almacén contiene estaciones de la provincia indicada.
+     *
+     * @param codigoProvincia Código de provincia.
+     * @return true si hay al menos una estación de esa provincia.
+     */
+    public boolean contieneProvincia(int codigoProvincia) {
+        return codigoProvincia >= 1 && codigoProvincia <= MAX_PROVINCIA && fin(codigoProvincia) > inicio(codigoProvincia);
+    }
+
+    /**
+     * Número de provincias con al menos una estación.
+     *
+     * @return Número de provincias presentes.
+     */
+    public int numeroProvincias() {
+        int total = 0;
+        for (int p = 1; p <= MAX_PROVINCIA; p++) {
+            if (contieneProvincia(p)) {
+                total++;
+            }
+        }
+        return total;
+    }
+
+    public int precio(int fila, TipoCombustible tipo) {
+        return precios[tipo.ordinal()][fila];
+    }
+
+    public double latitud(int fila) {
+        return latitud[fila];
+    }
+
+    public double longitud(int fila) {
+        return longitud[fila];
+    }
+
+    public int provincia(int fila) {
+        return provincia[fila];
+    }
+
+    public String rotulo(int fila) {
+        return rotulos[rotuloId[fila]];
+    }
+
+    public String municipio(int fila) {
+        return municipios[municipioId[fila]];
+    }
+
+    public String localidad(int fila) {
+        return localidades[localidadId[fila]];
+    }
+
+    public String horario(int fila) {
+        return horarios[horarioId[fila]];
+    }
+
+    public String direccion(int fila) {
+        return direccion[fila];
+    }
+
+    public String nombreProvincia(int fila) {
+        return nombresProvincia[provincia[fila]];
+    }
+
+    public String idProvincia(int fila) {
+        return idsProvincia[provincia[fila]];
+    }
+
+    public int latitudE6(int fila) {
+        return coordenadaE6(latitud[fila]);
+    }
+
+    public int longitudE6(int fila) {
+        return coordenadaE6(longitud[fila]);
+    }
+
+    // Valores de diccionario ya codificados como cadena JSON en UTF-8 (null si el valor es null)
+
+    public SerializableString rotuloJson(int fila) {
+        return rotulosJson[rotuloId[fila]];
+    }
+
+    public SerializableString municipioJson(int fila) {
+        return municipiosJson[municipioId[fila]];
+    }
+
+    public SerializableString localidadJson(int fila) {
+        return localidadesJson[localidadId[fila]];
+    }
+
+    public SerializableString horarioJson(int fila) {
+        return horariosJson[horarioId[fila]];
+    }
+
+    public SerializableString nombreProvinciaJson(int fila) {
+        return nombresProvinciaJson[provincia[fila]];
+    }
+
+    public SerializableString idProvinciaJson(int fila) {
+        return idsProvinciaJson[provincia[fila]];
+    }
+
+    /**
+     * Devuelve las filas de una provincia cuyo precio para el combustible indicado es menor o igual que el máximo.
+     *
+     * @param codigoProvincia Código de provincia (1..52).
+     * @param tipo Variante de combustible.
+     * @param precioMaximo Precio máximo en décimas de céntimo.
+     * @return Índices de las filas que cumplen el filtro, en orden de fila.
+     */
+    public int[] filtrarPorPrecio(int codigoProvincia, TipoCombustible tipo, int precioMaximo) {
+        if (!contieneProvincia(codigoProvincia)) {
+            return new int[0];
+        }
+        int[] columna = precios[tipo.ordinal()];
+        int desde = inicio(codigoProvincia);
+        int hasta = fin(codigoProvincia);
+        int[] resultado = new int[hasta - desde];
+        int total = 0;
+        for (int fila = desde; fila < hasta; fila++) {
+            int precio = columna[fila];
+            if (precio != PrecioCombustible.SIN_PRECIO && precio <= precioMaximo) {
+                resultado[total++] = fila;
+            }
+        }
+        return Arrays.copyOf(resultado, total);
+    }
+
+    /**
+     * Reconstruye la {@link Estacion} de una fila.
+     *
+     * @param fila Índice de la fila.
+     * @return La estación correspondiente.
+     */
+    public Estacion estacion(int fila) {
+        int[] preciosFila = new int[precios.length];
+        for (int t = 0; t < precios.length; t++) {
+            preciosFila[t] = precios[t][fila];
+        }
+        int p = provincia[fila];
+        return new Estacion(rotulo(fila), direccion[fila], horario(fila), localidad(fila), municipio(fila),
+                nombresProvincia[p], idsProvincia[p], latitudE6(fila), longitudE6(fila),
+                preciosFila);
+    }
+
+    private static int coordenadaE6(double coordenada) {
+        return Double.isNaN(coordenada) ? Estacion.SIN_COORDENADA : (int) Math.round(coordenada * 1_000_000.0);
+    }
+
+    /**
+     * Convierte un código de provincia ({@code "8"}, {@code "08"}) en un entero entre 1 y 52.
+     *
+     * @param idProvincia Código de provincia recibido.
+     * @return El código numérico, o 0 si no es un código de provincia válido.
+     */
+    public static int codigoProvincia(String idProvincia) {
+        return CodigosTerritoriales.codigoProvincia(idProvincia);
+    }
+
+    /**
+     * Diccionario de cadenas para la construcción del almacén: asigna un identificador entero
+     * a cada valor distinto, en orden de aparición.
+     */
+    private static final class Diccionario {
+        private final Map<String, Integer> indices = new HashMap<>();
+        private final List<String> valores = new ArrayList<>();
+
+        private int codificar(String valor) {
+            Integer indice = indices.get(valor);
+            if (indice == null) {
+                indice = valores.size();
+                indices.put(valor, indice);
+                valores.add(valor);
+            }
+            return indice;
+        }
+
+        private String[] valores() {
+            return valores.toArray(new String[0]);
+        }
+    }
+}
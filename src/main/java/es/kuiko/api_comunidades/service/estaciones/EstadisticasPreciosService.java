@@ -0,0 +1,180 @@
+package es.kuiko.api_comunidades.service.estaciones;
+
+import es.kuiko.api_comunidades.dto.gasolineras.EstadisticasCombustibleDTO;
+import es.kuiko.api_comunidades.dto.gasolineras.EstadisticasComunidadDTO;
+import es.kuiko.api_comunidades.dto.gasolineras.EstadisticasProvinciaDTO;
+import es.kuiko.api_comunidades.dto.gasolineras.PrecioCombustible;
+import es.kuiko.api_comunidades.dto.gasolineras.TipoCombustible;
+import es.kuiko.api_comunidades.model.ComunidadAutonoma;
+import es.kuiko.api_comunidades.model.Provincia;
+import es.kuiko.api_comunidades.repository.ProvinciaRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Servicio que precalcula las estadísticas de precio (mínimo, máximo, media y mediana) de cada
+ * combustible por provincia y por Comunidad Autónoma.
+ *
+ * <p>Las estadísticas se recalculan una vez por cada instantánea nacional publicada, a partir de los
+ * índices de precio ya ordenados de {@link IndicePrecios}, y se publican de forma atómica. La
+ * pertenencia de cada provincia a su comunidad se lee de {@link ProvinciaRepository} en una sola
+ * consulta por recálculo. Las peticiones solo leen el resultado ya calculado.</p>
+ *
+ * <p>Los cambios en los datos de referencia (alta, borrado o cambio de nombre de una provincia o comunidad)
+ * también recalculan las estadísticas con la última instantánea, desde la recarga de
+ * {@code ReferenciaTerritorial}. Mientras no haya datos de referencia, por ejemplo si el primer refresco llega
+ * antes que la carga inicial, no se calcula nada: la instantánea se guarda y se usa en cuanto se carguen.</p>
+ */
+@Service
+public class EstadisticasPreciosService {
+
+    private static final Logger log = LoggerFactory.getLogger(EstadisticasPreciosService.class);
+
+    private final ProvinciaRepository provinciaRepository;
+    private final AtomicReference<Map<String, EstadisticasComunidadDTO>> actual = new AtomicReference<>(Map.of());
+
+    // Última instantánea recibida; los recálculos se serializan para no publicar nunca una versión anterior
+    private SnapshotNacional instantanea;
+
+    /**
+     * Constructor para inyectar el repositorio de provincias.
+     *
+     * @param provinciaRepository Repositorio del que se obtiene la comunidad de cada provincia.
+     */
+    public EstadisticasPreciosService(ProvinciaRepository provinciaRepository) {
+        this.provinciaRepository = provinciaRepository;
+    }
+
+    /**
+     * Obtiene las estadísticas de precio de una Comunidad Autónoma.
+     *
+     * @param codigoCa Código de la Comunidad Autónoma.
+     * @return Las estadísticas, o vacío si la comunidad no existe o todavía no hay instantánea.
+     */
+    public Optional<EstadisticasComunidadDTO> getComunidad(String codigoCa) {
+        return Optional.ofNullable(actual.get().get(codigoCa));
+    }
+
+    /**
+     * Obtiene las estadísticas de precio de todas las Comunidades Autónomas, ordenadas por código.
+     *
+     * @return Lista de estadísticas; vacía si todavía no hay instantánea.
+     */
+    public List<EstadisticasComunidadDTO> getComunidades() {
+        return List.copyOf(actual.get().values());
+    }
+
+    /**
+     * Recalcula y publica las estadísticas de una instantánea.
+     *
+     * @param snapshot Instantánea nacional recién publicada.
+     */
+    public synchronized void recalcular(SnapshotNacional snapshot) {
+        instantanea = snapshot;
+        List<Provincia> provincias = provinciaRepository.findAllConComunidad();
+        if (provincias.isEmpty()) {
+            log.debug("Todavía no hay datos de referencia: se aplaza el cálculo de las estadísticas de precio");
+            return;
+        }
+        Map<String, EstadisticasComunidadDTO> estadisticas = calcular(snapshot, provincias);
+        actual.set(estadisticas);
+        log.info("Estadísticas de precio recalculadas para {} comunidades", estadisticas.size());
+    }
+
+    /**
+     * Recalcula las estadísticas de la última instantánea tras un cambio en los datos de referencia.
+     * No hace nada si todavía no se ha recibido ninguna instantánea.
+     */
+    public synchronized void recalcular() {
+        if (instantanea != null) {
+            recalcular(instantanea);
+        }
+    }
+
+    /**
+     * Calcula las estadísticas de todas las comunidades a partir de la instantánea y de la relación
+     * provincia-comunidad.
+     *
+     * @param snapshot Instantánea nacional.
+     * @param provincias Provincias con su comunidad cargada.
+     * @return Mapa inmutable de estadísticas por código de comunidad, en orden de código.
+     */
+    static Map<String, EstadisticasComunidadDTO> calcular(SnapshotNacional snapshot, List<Provincia> provincias) {
+        // Agrupar las provincias por comunidad, en orden de código
+        Map<String, List<Provincia>> porComunidad = new LinkedHashMap<>();
+        Map<String, ComunidadAutonoma> comunidades = new LinkedHashMap<>();
+        provincias.stream()
+                .sorted(Comparator.comparing((Provincia p) -> p.getComunidadAutonoma().getCodigoCa())
+                        .thenComparing(Provincia::getCodigoProvincia))
+                .forEach(p -> {
+                    ComunidadAutonoma ca = p.getComunidadAutonoma();
+                    comunidades.putIfAbsent(ca.getCodigoCa(), ca);
+                    porComunidad.computeIfAbsent(ca.getCodigoCa(), k -> new ArrayList<>()).add(p);
+                });
+
+        IndicePrecios indice = snapshot.getIndicePrecios();
+        Map<String, EstadisticasComunidadDTO> resultado = new LinkedHashMap<>();
+        porComunidad.forEach((codigoCa, miembros) -> {
+            int[] codigos = miembros.stream().mapToInt(Provincia::getCodigoProvincia).toArray();
+            List<EstadisticasProvinciaDTO> estadisticasProvincias = new ArrayList<>(miembros.size());
+            for (Provincia provincia : miembros) {
+                estadisticasProvincias.add(new EstadisticasProvinciaDTO(
+                        provincia.getCodigoProvincia(),
+                        provincia.getNombreProvincia(),
+                        combustibles(indice, new int[]{provincia.getCodigoProvincia()})));
+            }
+            resultado.put(codigoCa, new EstadisticasComunidadDTO(
+                    codigoCa,
+                    comunidades.get(codigoCa).getNombreCa(),
+                    snapshot.getFecha(),
+                    combustibles(indice, codigos),
+                    List.copyOf(estadisticasProvincias)));
+        });
+        return Collections.unmodifiableMap(resultado);
+    }
+
+    /**
+     * Calcula las estadísticas de cada combustible con al menos una gasolinera con precio.
+     *
+     * @param indice Índices de precio de la instantánea.
+     * @param codigosProvincia Provincias del ámbito.
+     * @return Estadísticas por combustible, en el orden de {@link TipoCombustible}.
+     */
+    private static List<EstadisticasCombustibleDTO> combustibles(IndicePrecios indice, int[] codigosProvincia) {
+        List<EstadisticasCombustibleDTO> combustibles = new ArrayList<>();
+        for (int t = 0; t < TipoCombustible.count(); t++) {
+            TipoCombustible tipo = TipoCombustible.of(t);
+            int[] precios = indice.preciosOrdenados(tipo, codigosProvincia);
+            if (precios.length == 0) {
+                continue;
+            }
+            long suma = 0;
+            for (int precio : precios) {
+                suma += precio;
+            }
+            int n = precios.length;
+            int media = (int) Math.round((double) suma / n);
+            int mediana = n % 2 == 1
+                    ? precios[n / 2]
+                    : (int) Math.round((precios[n / 2 - 1] + precios[n / 2]) / 2.0);
+            combustibles.add(new EstadisticasCombustibleDTO(
+                    tipo.getDescripcion(),
+                    n,
+                    PrecioCombustible.format(precios[0]),
+                    PrecioCombustible.format(precios[n - 1]),
+                    PrecioCombustible.format(media),
+                    PrecioCombustible.format(mediana)));
+        }
+        return List.copyOf(combustibles);
+    }
+}
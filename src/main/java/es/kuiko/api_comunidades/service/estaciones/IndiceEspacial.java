@@ -0,0 +1,203 @@
+package es.kuiko.api_comunidades.service.estaciones;
+
+import es.kuiko.api_comunidades.dto.gasolineras.PrecioCombustible;
+import es.kuiko.api_comunidades.dto.gasolineras.TipoCombustible;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Índice espacial de rejilla regular sobre las filas de un {@link AlmacenEstaciones}.
+ *
+ * <p>La superficie que cubren las estaciones se divide en celdas de {@value #GRADOS_CELDA} grados de
+ * latitud por {@value #GRADOS_CELDA} de longitud. Las filas del almacén se guardan agrupadas por celda
+ * en un único array ({@code filas}) y {@code inicioCelda} indica dónde empieza cada celda, de forma que
+ * una búsqueda por radio solo recorre las celdas que intersectan el rectángulo que envuelve el círculo
+ * y calcula la distancia exacta únicamente para esas estaciones. Al no depender del {@code IDProvincia},
+ * las búsquedas cruzan los límites provinciales.</p>
+ *
+ * <p>Se construye una vez por instantánea y no se modifica.</p>
+ */
+public final class IndiceEspacial {
+
+    /**
+     * Tamaño de cada celda de la rejilla, en grados (unos 11 km en latitud).
+     */
+    public static final double GRADOS_CELDA = 0.1;
+
+    private static final double RADIO_TIERRA_KM = 6371.0088;
+    private static final double KM_POR_GRADO = Math.PI * RADIO_TIERRA_KM / 180.0;
+
+    private final AlmacenEstaciones almacen;
+    private final double latitudMinima;
+    private final double longitudMinima;
+    private final int filasRejilla;
+    private final int columnasRejilla;
+    private final int[] inicioCelda;
+    private final int[] filas;
+
+    private IndiceEspacial(AlmacenEstaciones almacen, double latitudMinima, double longitudMinima,
+                           int filasRejilla, int columnasRejilla, int[] inicioCelda, int[] filas) {
+        this.almacen = almacen;
+        this.latitudMinima = latitudMinima;
+        this.longitudMinima = longitudMinima;
+        this.filasRejilla = filasRejilla;
+        this.columnasRejilla = columnasRejilla;
+        this.inicioCelda = inicioCelda;
+        this.filas = filas;
+    }
+
+    /**
+     * Construye el índice para todas las estaciones con coordenadas del almacén.
+     *
+     * @param almacen Almacén de estaciones de la instantánea.
+     * @return El índice espacial construido.
+     */
+    public static IndiceEspacial construir(AlmacenEstaciones almacen) {
+        double latMin = Double.POSITIVE_INFINITY;
+        double latMax = Double.NEGATIVE_INFINITY;
+        double lonMin = Double.POSITIVE_INFINITY;
+        double lonMax = Double.NEGATIVE_INFINITY;
+        int conCoordenadas = 0;
+        for (int fila = 0; fila < almacen.size(); fila++) {
+            double lat = almacen.latitud(fila);
+            double lon = almacen.longitud(fila);
+            if (!Double.isNaN(lat) && !Double.isNaN(lon)) {
+                latMin = Math.min(latMin, lat);
+                latMax = Math.max(latMax, lat);
+                lonMin = Math.min(lonMin, lon);
+                lonMax = Math.max(lonMax, lon);
+                conCoordenadas++;
+            }
+        }
+        if (conCoordenadas == 0) {
+            return new IndiceEspacial(almacen, 0, 0, 0, 0, new int[1], new int[0]);
+        }
+
+        int filasRejilla = (int) ((latMax - latMin) / GRADOS_CELDA) + 1;
+        int columnasRejilla = (int) ((lonMax - lonMin) / GRADOS_CELDA) + 1;
+        int[] celdaDeFila = new int[almacen.size()];
+        int[] inicioCelda = new int[filasRejilla * columnasRejilla + 1];
+        for (int fila = 0; fila < almacen.size(); fila++) {
+            double lat = almacen.latitud(fila);
+            double lon = almacen.longitud(fila);
+            if (Double.isNaN(lat) || Double.isNaN(lon)) {
+                celdaDeFila[fila] = -1;
+                continue;
+            }
+            int celda = (int) ((lat - latMin) / GRADOS_CELDA) * columnasRejilla + (int) ((lon - lonMin) / GRADOS_CELDA);
+            celdaDeFila[fila] = celda;
+            inicioCelda[celda + 1]++;
+        }
+        for (int c = 1; c < inicioCelda.length; c++) {
+            inicioCelda[c] += inicioCelda[c - 1];
+        }
+        int[] siguiente = inicioCelda.clone();
+        int[] filas = new int[conCoordenadas];
+        for (int fila = 0; fila < almacen.size(); fila++) {
+            if (celdaDeFila[fila] >= 0) {
+                filas[siguiente[celdaDeFila[fila]]++] = fila;
+            }
+        }
+        return new IndiceEspacial(almacen, latMin, lonMin, filasRejilla, columnasRejilla, inicioCelda, filas);
+    }
+
+    /**
+     * Busca las estaciones situadas a menos de {@code radioKm} del punto indicado.
+     *
+     * @param latitud Latitud del punto (WGS84).
+     * @param longitud Longitud del punto (WGS84).
+     * @param radioKm Radio de búsqueda en kilómetros.
+     * @param tipo Combustible que debe tener precio la estación, o {@code null} para no filtrar.
+     * @param porPrecio Si es true se ordena por precio de {@code tipo} (y a igualdad, por distancia);
+     *                  si es false, por distancia.
+     * @param limite Número máximo de estaciones a devolver.
+     * @return Las estaciones encontradas, ordenadas según el criterio indicado.
+     */
+    public List<Cercana> buscar(double latitud, double longitud, double radioKm, TipoCombustible tipo,
+                                boolean porPrecio, int limite) {
+        if (porPrecio && tipo == null) {
+            throw new IllegalArgumentException("Para ordenar por precio es necesario indicar el combustible.");
+        }
+        if (filasRejilla == 0 || limite <= 0) {
+            return List.of();
+        }
+
+        // Rectángulo de celdas que envuelve el círculo de búsqueda
+        double gradosLatitud = radioKm / KM_POR_GRADO;
+        double gradosLongitud = radioKm / (KM_POR_GRADO * Math.max(0.01, Math.cos(Math.toRadians(latitud))));
+        int filaDesde = Math.max(0, (int) Math.floor((latitud - gradosLatitud - latitudMinima) / GRADOS_CELDA));
+        int filaHasta = Math.min(filasRejilla - 1, (int) Math.floor((latitud + gradosLatitud - latitudMinima) / GRADOS_CELDA));
+        int columnaDesde = Math.max(0, (int) Math.floor((longitud - gradosLongitud - longitudMinima) / GRADOS_CELDA));
+        int columnaHasta = Math.min(columnasRejilla - 1, (int) Math.floor((longitud + gradosLongitud - longitudMinima) / GRADOS_CELDA));
+
+        // Selección de los k mejores por inserción en arrays acotados (k es pequeño)
+        int[] mejoresFilas = new int[limite];
+        double[] mejoresClaves = new double[limite];
+        double[] mejoresDistancias = new double[limite];
+        int encontradas = 0;
+
+        for (int f = filaDesde; f <= filaHasta; f++) {
+            for (int c = columnaDesde; c <= columnaHasta; c++) {
+                int celda = f * columnasRejilla + c;
+                for (int i = inicioCelda[celda]; i < inicioCelda[celda + 1]; i++) {
+                    int fila = filas[i];
+                    int precio = tipo == null ? 0 : almacen.precio(fila, tipo);
+                    if (precio == PrecioCombustible.SIN_PRECIO) {
+                        continue;
+                    }
+                    double distancia = distanciaKm(latitud, longitud, almacen.latitud(fila), almacen.longitud(fila));
+                    if (distancia > radioKm) {
+                        continue;
+                    }
+                    double clave = porPrecio ? precio : distancia;
+                    int posicion = encontradas;
+                    while (posicion > 0 && esMejor(clave, distancia, mejoresClaves[posicion - 1], mejoresDistancias[posicion - 1])) {
+                        posicion--;
+                    }
+                    if (posicion >= limite) {
+                        continue;
+                    }
+                    int desplazar = Math.min(encontradas, limite - 1) - posicion;
+                    System.arraycopy(mejoresFilas, posicion, mejoresFilas, posicion + 1, desplazar);
+                    System.arraycopy(mejoresClaves, posicion, mejoresClaves, posicion + 1, desplazar);
+                    System.arraycopy(mejoresDistancias, posicion, mejoresDistancias, posicion + 1, desplazar);
+                    mejoresFilas[posicion] = fila;
+                    mejoresClaves[posicion] = clave;
+                    mejoresDistancias[posicion] = distancia;
+                    encontradas = Math.min(encontradas + 1, limite);
+                }
+            }
+        }
+
+        List<Cercana> resultado = new ArrayList<>(encontradas);
+        for (int i = 0; i < encontradas; i++) {
+            resultado.add(new Cercana(mejoresFilas[i], mejoresDistancias[i]));
+        }
+        return resultado;
+    }
+
+    private static boolean esMejor(double clave, double distancia, double otraClave, double otraDistancia) {
+        return clave < otraClave || (clave == otraClave && distancia < otraDistancia);
+    }
+
+    /**
+     * Distancia de círculo máximo (fórmula del haversine) entre dos puntos, en kilómetros.
+     */
+    static double distanciaKm(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * RADIO_TIERRA_KM * Math.asin(Math.min(1.0, Math.sqrt(a)));
+    }
+
+    /**
+     * Resultado de una búsqueda: fila del almacén y distancia al punto de búsqueda.
+     *
+     * @param fila Índice de la fila en el {@link AlmacenEstaciones}.
+     * @param distanciaKm Distancia en kilómetros al punto de búsqueda.
+     */
+    public record Cercana(int fila, double distanciaKm) {
+    }
+}
@@ -0,0 +1,177 @@
+package es.kuiko.api_comunidades.service.estaciones;
+
+import es.kuiko.api_comunidades.dto.gasolineras.PrecioCombustible;
+import es.kuiko.api_comunidades.dto.gasolineras.TipoCombustible;
+
+import java.util.Arrays;
+
+/**
+ * Índices ordenados por precio sobre las filas de un {@link AlmacenEstaciones}, uno por cada
+ * {@link TipoCombustible}.
+ *
+ * <p>Para cada combustible se guardan las filas con precio ordenadas de menor a mayor, tanto a nivel
+ * nacional como dentro de cada provincia. Obtener las N estaciones más baratas de una provincia o de
+ * España es leer los N primeros elementos; para un conjunto de provincias (por ejemplo, una Comunidad
+ * Autónoma) se mezclan los tramos ya ordenados de cada una, sin volver a ordenar.</p>
+ *
+ * <p>Se construye una vez por instantánea y no se modifica.</p>
+ */
+public final class IndicePrecios {
+
+    private final AlmacenEstaciones almacen;
+    private final int[][] nacional;
+    private final int[][] porProvincia;
+    private final int[][] inicioProvincia;
+
+    private IndicePrecios(AlmacenEstaciones almacen, int[][] nacional, int[][] porProvincia, int[][] inicioProvincia) {
+        this.almacen = almacen;
+        this.nacional = nacional;
+        this.porProvincia = porProvincia;
+        this.inicioProvincia = inicioProvincia;
+    }
+
+    /**
+     * Construye los índices de precio de todos los combustibles del almacén.
+     *
+     * @param almacen Almacén de estaciones de la instantánea.
+     * @return Los índices construidos.
+     */
+    public static IndicePrecios construir(AlmacenEstaciones almacen) {
+        int tipos = TipoCombustible.count();
+        int[][] nacional = new int[tipos][];
+        int[][] porProvincia = new int[tipos][];
+        int[][] inicioProvincia = new int[tipos][];
+
+        for (int t = 0; t < tipos; t++) {
+            TipoCombustible tipo = TipoCombustible.of(t);
+
+            // Precio y fila empaquetados en un long: ordenar los long ordena por precio y, a igualdad, por fila
+            long[] claves = new long[almacen.size()];
+            int[] inicio = new int[AlmacenEstaciones.MAX_PROVINCIA + 2];
+            int total = 0;
+            for (int p = 0; p <= AlmacenEstaciones.MAX_PROVINCIA; p++) {
+                inicio[p] = total;
+                for (int fila = almacen.inicio(p); fila < almacen.fin(p); fila++) {
+                    int precio = almacen.precio(fila, tipo);
+                    if (precio != PrecioCombustible.SIN_PRECIO) {
+                        claves[total++] = ((long) precio << 32) | fila;
+                    }
+                }
+                // Las filas del almacén están agrupadas por provincia: basta ordenar el tramo de cada una
+                Arrays.sort(claves, inicio[p], total);
+            }
+            inicio[AlmacenEstaciones.MAX_PROVINCIA + 1] = total;
+
+            int[] provincia = new int[total];
+            for (int i = 0; i < total; i++) {
+                provincia[i] = (int) claves[i];
+            }
+            long[] todas = Arrays.copyOf(claves, total);
+            Arrays.sort(todas);
+            int[] orden = new int[total];
+            for (int i = 0; i < total; i++) {
+                orden[i] = (int) todas[i];
+            }
+
+            nacional[t] = orden;
+            porProvincia[t] = provincia;
+            inicioProvincia[t] = inicio;
+        }
+        return new IndicePrecios(almacen, nacional, porProvincia, inicioProvincia);
+    }
+
+    /**
+     * Devuelve las N estaciones más baratas de España para un combustible.
+     *
+     * @param tipo Variante de combustible.
+     * @param limite Número máximo de estaciones.
+     * @return Filas del almacén ordenadas de menor a mayor precio.
+     */
+    public int[] masBaratas(TipoCombustible tipo, int limite) {
+        int[] orden = nacional[tipo.ordinal()];
+        return Arrays.copyOf(orden, Math.min(limite, orden.length));
+    }
+
+    /**
+     * Devuelve las N estaciones más baratas de una provincia para un combustible.
+     *
+     * @param tipo Variante de combustible.
+     * @param codigoProvincia Código de provincia (1..52).
+     * @param limite Número máximo de estaciones.
+     * @return Filas del almacén ordenadas de menor a mayor precio.
+     */
+    public int[] masBaratasProvincia(TipoCombustible tipo, int codigoProvincia, int limite) {
+        return masBaratasProvincias(tipo, new int[]{codigoProvincia}, limite);
+    }
+
+    /**
+     * Devuelve las N estaciones más baratas de un conjunto de provincias para un combustible, mezclando
+     * los tramos ya ordenados de cada provincia.
+     *
+     * @param tipo Variante de combustible.
+     * @param codigosProvincia Códigos de provincia (1..52); los que no existan en el almacén se ignoran.
+     * @param limite Número máximo de estaciones.
+     * @return Filas del almacén ordenadas de menor a mayor precio.
+     */
+    public int[] masBaratasProvincias(TipoCombustible tipo, int[] codigosProvincia, int limite) {
+        int[] orden = porProvincia[tipo.ordinal()];
+        int[] inicio = inicioProvincia[tipo.ordinal()];
+
+        // Cursor y fin de cada tramo provincial
+        int[] cursor = new int[codigosProvincia.length];
+        int[] fin = new int[codigosProvincia.length];
+        for (int i = 0; i < codigosProvincia.length; i++) {
+            int p = codigosProvincia[i];
+            if (p >= 1 && p <= AlmacenEstaciones.MAX_PROVINCIA) {
+                cursor[i] = inicio[p];
+                fin[i] = inicio[p + 1];
+            }
+        }
+
+        // Mezcla de k tramos: k es el número de provincias de una comunidad (como mucho nueve)
+        int[] resultado = new int[limite];
+        int total = 0;
+        while (total < limite) {
+            int mejor = -1;
+            long claveMejor = Long.MAX_VALUE;
+            for (int i = 0; i < cursor.length; i++) {
+                if (cursor[i] < fin[i]) {
+                    int fila = orden[cursor[i]];
+                    long clave = ((long) almacen.precio(fila, tipo) << 32) | fila;
+                    if (clave < claveMejor) {
+                        claveMejor = clave;
+                        mejor = i;
+                    }
+                }
+            }
+            if (mejor < 0) {
+                break;
+            }
+            resultado[total++] = orden[cursor[mejor]++];
+        }
+        return Arrays.copyOf(resultado, total);
+    }
+
+    /**
+     * Devuelve los precios de un combustible en un conjunto de provincias, ordenados de menor a mayor.
+     *
+     * @param tipo Variante de combustible.
+     * @param codigosProvincia Códigos de provincia (1..52); los que no existan en el almacén se ignoran.
+     * @return Precios en décimas de céntimo, en orden ascendente.
+     */
+    public int[] preciosOrdenados(TipoCombustible tipo, int[] codigosProvincia) {
+        int[] inicio = inicioProvincia[tipo.ordinal()];
+        int total = 0;
+        for (int p : codigosProvincia) {
+            if (p >= 1 && p <= AlmacenEstaciones.MAX_PROVINCIA) {
+                total += inicio[p + 1] - inicio[p];
+            }
+        }
+        int[] filas = masBaratasProvincias(tipo, codigosProvincia, total);
+        int[] precios = new int[filas.length];
+        for (int i = 0; i < filas.length; i++) {
+            precios[i] = almacen.precio(filas[i], tipo);
+        }
+        return precios;
+    }
+}
@@ -0,0 +1,218 @@
+package es.kuiko.api_comunidades.service.estaciones;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Índice invertido de texto sobre el rótulo, la dirección, el municipio y la localidad de las filas de un
+ * {@link AlmacenEstaciones}, para búsquedas de texto completo y autocompletado.
+ *
+ * <p>Cada campo se divide en términos en minúsculas y sin tildes ("Peñíscola" → "peniscola"). Los términos
+ * se guardan ordenados, de modo que todos los que empiezan por un prefijo ocupan un tramo contiguo que se
+ * localiza con dos búsquedas binarias (un trie aplanado en un array). Cada término apunta a la lista
+ * ordenada de filas en las que aparece.</p>
+ *
+ * <p>Se construye una vez por instantánea y no se modifica. La división en términos de cada valor se
+ * reutiliza del índice de la instantánea anterior, ya que rótulos, direcciones y municipios apenas cambian
+ * entre dos ingestas.</p>
+ */
+public final class IndiceTexto {
+
+    private static final String[] SIN_TERMINOS = new String[0];
+
+    private final int size;
+    private final String[] terminos;
+    private final int[][] filas;
+    private final Map<String, String[]> terminosPorValor;
+
+    private IndiceTexto(int size, String[] terminos, int[][] filas, Map<String, String[]> terminosPorValor) {
+        this.size = size;
+        this.terminos = terminos;
+        this.filas = filas;
+        this.terminosPorValor = terminosPorValor;
+    }
+
+    /**
+     * Construye el índice de texto de un almacén.
+     *
+     * @param almacen Almacén de estaciones de la instantánea.
+     * @param anterior Índice de la instantánea anterior, cuya división en términos se reutiliza; puede ser null.
+     * @return El índice construido.
+     */
+    public static IndiceTexto construir(AlmacenEstaciones almacen, IndiceTexto anterior) {
+        Map<String, String[]> previos = anterior != null ? anterior.terminosPorValor : Map.of();
+        Map<String, String[]> terminosPorValor = new HashMap<>();
+        Map<String, Filas> porTermino = new HashMap<>();
+
+        for (int fila = 0; fila < almacen.size(); fila++) {
+            String[] campos = {almacen.rotulo(fila), almacen.direccion(fila), almacen.municipio(fila), almacen.localidad(fila)};
+            for (String campo : campos) {
+                if (campo == null || campo.isEmpty()) {
+                    continue;
+                }
+                String[] terminosCampo = terminosPorValor.get(campo);
+                if (terminosCampo == null) {
+                    terminosCampo = previos.get(campo);
+                    if (terminosCampo == null) {
+                        terminosCampo = terminos(campo);
+                    }
+                    terminosPorValor.put(campo, terminosCampo);
+                }
+                for (String termino : terminosCampo) {
+                    porTermino.computeIfAbsent(termino, t -> new Filas()).add(fila);
+                }
+            }
+        }
+
+        String[] terminos = porTermino.keySet().toArray(SIN_TERMINOS);
+        Arrays.sort(terminos);
+        int[][] filas = new int[terminos.length][];
+        for (int i = 0; i < terminos.length; i++) {
+            filas[i] = porTermino.get(terminos[i]).toArray();
+        }
+        return new IndiceTexto(almacen.size(), terminos, filas, terminosPorValor);
+    }
+
+    /**
+     * Busca las filas que contienen todos los términos de la consulta. Cada término de la consulta se trata
+     * como prefijo, de modo que "rep mad" encuentra "REPSOL" en "MADRID".
+     *
+     * @param consulta Texto de la búsqueda.
+     * @param desde Primera fila del rango en el que buscar (inclusive).
+     * @param hasta Última fila del rango en el que buscar (exclusive).
+     * @param limite Número máximo de filas a devolver.
+     * @return Filas encontradas, en orden ascendente.
+     */
+    public int[] buscar(String consulta, int desde, int hasta, int limite) {
+        String[] prefijos = terminos(consulta);
+        if (prefijos.length == 0 || desde >= hasta) {
+            return new int[0];
+        }
+
+        // Un conjunto de bits por rango de filas: la intersección de los prefijos es un AND palabra a palabra
+        long[] coincidencias = null;
+        for (String prefijo : prefijos) {
+            int inicio = primerTermino(prefijo);
+            int fin = primerTermino(prefijo + Character.MAX_VALUE);
+            if (inicio == fin) {
+                return new int[0];
+            }
+            long[] bits = new long[(hasta - desde + 63) >>> 6];
+            for (int t = inicio; t < fin; t++) {
+                for (int fila : filas[t]) {
+                    if (fila >= desde && fila < hasta) {
+                        int bit = fila - desde;
+                        bits[bit >>> 6] |= 1L << bit;
+                    }
+                }
+            }
+            if (coincidencias == null) {
+                coincidencias = bits;
+            } else {
+                for (int i = 0; i < bits.length; i++) {
+                    coincidencias[i] &= bits[i];
+                }
+            }
+        }
+
+        int[] resultado = new int[Math.min(limite, hasta - desde)];
+        int total = 0;
+        for (int i = 0; i < coincidencias.length && total < resultado.length; i++) {
+            long palabra = coincidencias[i];
+            while (palabra != 0 && total < resultado.length) {
+                resultado[total++] = desde + (i << 6) + Long.numberOfTrailingZeros(palabra);
+                palabra &= palabra - 1;
+            }
+        }
+        return Arrays.copyOf(resultado, total);
+    }
+
+    /**
+     * Número de términos distintos del índice.
+     *
+     * @return Número de términos.
+     */
+    public int numeroTerminos() {
+        return terminos.length;
+    }
+
+    /**
+     * Número de filas del almacén indexado.
+     *
+     * @return Número de filas.
+     */
+    public int size() {
+        return size;
+    }
+
+    // Posición del primer término mayor o igual que la clave
+    private int primerTermino(String clave) {
+        int bajo = 0;
+        int alto = terminos.length;
+        while (bajo < alto) {
+            int medio = (bajo + alto) >>> 1;
+            if (terminos[medio].compareTo(clave) < 0) {
+                bajo = medio + 1;
+            } else {
+                alto = medio;
+            }
+        }
+        return bajo;
+    }
+
+    /**
+     * Divide un texto en términos en minúsculas y sin tildes ni diéresis, separando por cualquier carácter
+     * que no sea letra o dígito.
+     *
+     * @param texto Texto a dividir.
+     * @return Términos del texto, sin repetidos.
+     */
+    static String[] terminos(String texto) {
+        if (texto == null || texto.isBlank()) {
+            return SIN_TERMINOS;
+        }
+        String descompuesto = Normalizer.normalize(texto, Normalizer.Form.NFD);
+        List<String> terminos = new ArrayList<>();
+        StringBuilder actual = new StringBuilder();
+        for (int i = 0; i <= descompuesto.length(); i++) {
+            char c = i < descompuesto.length() ? descompuesto.charAt(i) : ' ';
+            if (Character.getType(c) == Character.NON_SPACING_MARK) {
+                continue;  // Tilde, diéresis o virgulilla separada de su letra por la descomposición NFD
+            }
+            if (Character.isLetterOrDigit(c)) {
+                actual.append(Character.toLowerCase(c));
+            } else if (!actual.isEmpty()) {
+                String termino = actual.toString();
+                if (!terminos.contains(termino)) {
+                    terminos.add(termino);
+                }
+                actual.setLength(0);
+            }
+        }
+        return terminos.toArray(SIN_TERMINOS);
+    }
+
+    // Lista creciente de filas de un término; las filas llegan en orden, así que basta descartar la repetida
+    private static final class Filas {
+        private int[] filas = new int[4];
+        private int total;
+
+        void add(int fila) {
+            if (total > 0 && filas[total - 1] == fila) {
+                return;
+            }
+            if (total == filas.length) {
+                filas = Arrays.copyOf(filas, total * 2);
+            }
+            filas[total++] = fila;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(filas, total);
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package es.kuiko.api_comunidades.service.estaciones;
+
+import es.kuiko.api_comunidades.service.referencia.CodigosTerritoriales;
+
+import java.time.Instant;
+
+/**
+ * Instantánea inmutable de todas las estaciones de servicio de España, obtenida de una única
+ * llamada al endpoint nacional de la API de carburantes.
+ *
+ * <p>Las estaciones se guardan en un {@link AlmacenEstaciones} columnar, ordenado por provincia,
+ * que se construye una vez por ingesta y se publica junto con la {@code Fecha} y la {@code Nota}
+ * del documento y con los índices derivados de él ({@link IndiceEspacial}, {@link IndicePrecios} e
+ * {@link IndiceTexto}). Las instancias
+ * no deben modificarse una vez publicadas.</p>
+ */
+public final class SnapshotNacional {
+
+    private final String fecha;
+    private final String nota;
+    private final Instant obtenido;
+    private final AlmacenEstaciones almacen;
+    private final IndiceEspacial indiceEspacial;
+    private final IndicePrecios indicePrecios;
+    private final IndiceTexto indiceTexto;
+
+    /**
+     * Crea una nueva instantánea nacional.
+     *
+     * @param fecha Fecha de publicación de los datos según la API.
+     * @param nota Nota del documento de la API.
+     * @param obtenido Instante en el que se descargó la instantánea.
+     * @param almacen Almacén columnar con todas las estaciones de la instantánea, a partir del cual
+     *                se construyen los índices.
+     */
+    public SnapshotNacional(String fecha, String nota, Instant obtenido, AlmacenEstaciones almacen) {
+        this(fecha, nota, obtenido, almacen, null);
+    }
+
+    /**
+     * Crea una nueva instantánea nacional reutilizando lo que se pueda de la instantánea anterior
+     * al construir los índices.
+     *
+     * @param fecha Fecha de publicación de los datos según la API.
+     * @param nota Nota del documento de la API.
+     * @param obtenido Instante en el que se descargó la instantánea.
+     * @param almacen Almacén columnar con todas las estaciones de la instantánea.
+     * @param anterior Instantánea publicada hasta ahora; puede ser null.
+     */
+    public SnapshotNacional(String fecha, String nota, Instant obtenido, AlmacenEstaciones almacen, SnapshotNacional anterior) {
+        this.fecha = fecha;
+        this.nota = nota;
+        this.obtenido = obtenido;
+        this.almacen = almacen;
+        this.indiceEspacial = IndiceEspacial.construir(almacen);
+        this.indicePrecios = IndicePrecios.construir(almacen);
+        this.indiceTexto = IndiceTexto.construir(almacen, anterior != null ? anterior.indiceTexto : null);
+    }
+
+    /**
+     * Indica si la instantánea contiene estaciones de la provincia indicada.
+     *
+     * @param codigoProvincia Código de la provincia, con o sin cero a la izquierda.
+     * @return true si hay al menos una estación de esa provincia.
+     */
+    public boolean contieneProvincia(String codigoProvincia) {
+        return almacen.contieneProvincia(AlmacenEstaciones.codigoProvincia(codigoProvincia));
+    }
+
+    public String getFecha() {
+        return fecha;
+    }
+
+    public String getNota() {
+        return nota;
+    }
+
+    public Instant getObtenido() {
+        return obtenido;
+    }
+
+    public AlmacenEstaciones getAlmacen() {
+        return almacen;
+    }
+
+    public IndiceEspacial getIndiceEspacial() {
+        return indiceEspacial;
+    }
+
+    public IndicePrecios getIndicePrecios() {
+        return indicePrecios;
+    }
+
+    public IndiceTexto getIndiceTexto() {
+        return indiceTexto;
+    }
+
+    public int getTotalEstaciones() {
+        return almacen.size();
+    }
+
+    /**
+     * Normaliza un código de provincia al formato de dos dígitos usado por la API ("8" → "08").
+     *
+     * @param codigoProvincia Código de provincia recibido.
+     * @return El código normalizado, o {@code null} si no es un número de provincia válido.
+     */
+    public static String normalizarCodigo(String codigoProvincia) {
+        return CodigosTerritoriales.normalizarCodigo(CodigosTerritoriales.parsearCodigo(codigoProvincia));
+    }
+}
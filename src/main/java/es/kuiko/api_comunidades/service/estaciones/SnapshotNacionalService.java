@@ -0,0 +1,270 @@
+package es.kuiko.api_comunidades.service.estaciones;
+
+import es.kuiko.api_comunidades.dto.gasolineras.Estacion;
+import es.kuiko.api_comunidades.dto.gasolineras.GasolineraDTOout;
+import es.kuiko.api_comunidades.dto.gasolineras.GasolineraWrapperApiResponseOut;
+import es.kuiko.api_comunidades.mapper.GasolineraMapper;
+import es.kuiko.api_comunidades.mapper.GasolineraStreamDecoder;
+import es.kuiko.api_comunidades.service.historico.HistoricoPrecios;
+import es.kuiko.api_comunidades.service.upstream.DescargaCondicional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Servicio de ingesta periódica de la instantánea nacional de estaciones de servicio.
+ *
+ * <p>En lugar de realizar una llamada a la API de terceros por cada provincia, descarga una vez
+ * por ciclo de refresco el documento completo de {@code EstacionesTerrestres/}, lo vuelca en un
+ * {@link AlmacenEstaciones} columnar y publica el resultado de forma atómica. Las peticiones a
+ * {@code /api-kuiko/gasolineras/{provinceCode}} se sirven desde la última instantánea publicada.</p>
+ *
+ * <p>Si una ingesta falla se conserva la instantánea anterior. Cada instantánea descargada se guarda
+ * además en disco ({@link SnapshotPersistido}) para poder restaurarla al arrancar.</p>
+ *
+ * <p>Las descargas son condicionales ({@link DescargaCondicional}): si la API responde 304 el documento nacional
+ * no se vuelve a decodificar; si responde con un cuerpo idéntico, este se decodifica en streaming pero no se vuelve
+ * a publicar. En ambos casos solo se actualiza el instante de la última verificación.</p>
+ */
+@Service
+public class SnapshotNacionalService {
+
+    private static final Logger log = LoggerFactory.getLogger(SnapshotNacionalService.class);
+
+    private final WebClient webClient;
+    private final GasolineraStreamDecoder gasolineraStreamDecoder;
+    private final HistoricoPrecios historicoPrecios;
+    private final EstadisticasPreciosService estadisticasPreciosService;
+    private final SnapshotPersistido snapshotPersistido;
+    private final DescargaCondicional descargaCondicional;
+    private final AtomicReference<SnapshotNacional> actual = new AtomicReference<>();
+    private volatile Instant verificado;
+
+    @Value("${api.snapshot-url}")
+    private String snapshotUrl;
+
+    @Value("${gasolineras.snapshot.enabled:true}")
+    private boolean enabled;
+
+    @Value("${gasolineras.snapshot.timeout:60s}")
+    private Duration timeout;
+
+    /**
+     * Constructor para inyectar el WebClient configurado y el decodificador de gasolineras.
+     *
+     * @param webClient WebClient configurado en {@code WebClientConfig}.
+     * @param gasolineraStreamDecoder Decodificador en streaming que convierte cada gasolinera en {@link Estacion}.
+     * @param historicoPrecios Histórico en disco al que se añade cada instantánea descargada.
+     * @param estadisticasPreciosService Servicio que recalcula las estadísticas de precio de cada instantánea.
+     * @param snapshotPersistido Copia en disco de la última instantánea descargada.
+     * @param descargaCondicional Descargas condicionales que evitan decodificar un documento sin cambios.
+     */
+    public SnapshotNacionalService(WebClient webClient, GasolineraStreamDecoder gasolineraStreamDecoder,
+                                   HistoricoPrecios historicoPrecios,
+                                   EstadisticasPreciosService estadisticasPreciosService,
+                                   SnapshotPersistido snapshotPersistido, DescargaCondicional descargaCondicional) {
+        this.webClient = webClient;
+        this.gasolineraStreamDecoder = gasolineraStreamDecoder;
+        this.historicoPrecios = historicoPrecios;
+        this.estadisticasPreciosService = estadisticasPreciosService;
+        this.snapshotPersistido = snapshotPersistido;
+        this.descargaCondicional = descargaCondicional;
+    }
+
+    /**
+     * Obtiene la última instantánea nacional publicada.
+     *
+     * @return La instantánea actual, o vacío si todavía no se ha completado ninguna ingesta.
+     */
+    public Optional<SnapshotNacional> getSnapshot() {
+        return Optional.ofNullable(actual.get());
+    }
+
+    /**
+     * Obtiene el instante en que se comprobó por última vez que los datos de una instantánea están al día:
+     * el de su descarga o, si descargas posteriores no trajeron cambios, el de la última de ellas.
+     *
+     * @param snapshot Instantánea consultada.
+     * @return Instante de la última verificación de la instantánea.
+     */
+    public Instant getVerificado(SnapshotNacional snapshot) {
+        Instant instante = verificado;
+        return actual.get() == snapshot && instante != null && instante.isAfter(snapshot.getObtenido())
+                ? instante : snapshot.getObtenido();
+    }
+
+    /**
+     * Construye la respuesta de una provincia a partir de las filas del almacén de la última instantánea.
+     * Cada llamada devuelve objetos nuevos, que el llamante puede modificar libremente.
+     *
+     * @param codigoProvincia Código de la provincia.
+     * @return La respuesta de la provincia, o vacío si no hay datos para ella.
+     */
+    public Optional<GasolineraWrapperApiResponseOut> getProvincia(String codigoProvincia) {
+        SnapshotNacional snapshot = actual.get();
+        if (snapshot == null || !snapshot.contieneProvincia(codigoProvincia)) {
+            return Optional.empty();
+        }
+        return Optional.of(construirProvincia(snapshot, codigoProvincia));
+    }
+
+    /**
+     * Construye la respuesta de una provincia a partir de las filas del almacén de una instantánea concreta.
+     *
+     * @param snapshot Instantánea de la que se leen las estaciones.
+     * @param codigoProvincia Código de la provincia, que debe estar presente en la instantánea.
+     * @return La respuesta de la provincia.
+     */
+    public GasolineraWrapperApiResponseOut construirProvincia(SnapshotNacional snapshot, String codigoProvincia) {
+        AlmacenEstaciones almacen = snapshot.getAlmacen();
+        int provincia = AlmacenEstaciones.codigoProvincia(codigoProvincia);
+        List<GasolineraDTOout> gasolineras = new ArrayList<>(almacen.fin(provincia) - almacen.inicio(provincia));
+        for (int fila = almacen.inicio(provincia); fila < almacen.fin(provincia); fila++) {
+            gasolineras.add(GasolineraMapper.mapFilaToGasolineraDTOout(almacen, fila));
+        }
+        return new GasolineraWrapperApiResponseOut(snapshot.getFecha(), gasolineras, snapshot.getNota(), "OK");
+    }
+
+    /**
+     * Emite las gasolineras de una provincia directamente desde las columnas del almacén, construyendo
+     * cada {@link GasolineraDTOout} solo en el momento de emitirlo.
+     *
+     * @param codigoProvincia Código de la provincia.
+     * @return Un Flux con las gasolineras de la provincia, o vacío si no hay datos para ella.
+     */
+    public Optional<Flux<GasolineraDTOout>> streamProvincia(String codigoProvincia) {
+        SnapshotNacional snapshot = actual.get();
+        if (snapshot == null || !snapshot.contieneProvincia(codigoProvincia)) {
+            return Optional.empty();
+        }
+        AlmacenEstaciones almacen = snapshot.getAlmacen();
+        int provincia = AlmacenEstaciones.codigoProvincia(codigoProvincia);
+        return Optional.of(Flux.range(almacen.inicio(provincia), almacen.fin(provincia) - almacen.inicio(provincia))
+                .map(fila -> GasolineraMapper.mapFilaToGasolineraDTOout(almacen, fila)));
+    }
+
+    /**
+     * Tarea programada que descarga la instantánea nacional y la publica si la descarga tiene éxito.
+     */
+    @Scheduled(initialDelayString = "${gasolineras.snapshot.initial-delay:PT0S}",
+               fixedDelayString = "${gasolineras.snapshot.refresh-interval:PT30M}")
+    public void refrescar() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            SnapshotNacional snapshot = descargar().block(timeout);
+            if (snapshot != null && snapshot == actual.get()) {
+                // Documento sin cambios: la instantánea publicada sigue vigente
+                verificado = Instant.now();
+                log.debug("Instantánea nacional sin cambios (Fecha {})", snapshot.getFecha());
+            } else if (snapshot != null) {
+                publicar(snapshot);
+                persistir(snapshot);
+                registrarHistorico(snapshot);
+                recalcularEstadisticas(snapshot);
+            }
+        } catch (RuntimeException e) {
+            log.warn("No se pudo descargar la instantánea nacional de gasolineras: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Descarga el documento nacional de la API de terceros y lo transforma en una instantánea.
+     *
+     * @return Un Mono con la instantánea construida, o con la misma instancia de la instantánea publicada
+     *         si el documento no ha cambiado.
+     */
+    public Mono<SnapshotNacional> descargar() {
+        return Mono.defer(() -> descargaCondicional.descargarEnStreaming("snapshot-nacional",
+                webClient.get().uri(snapshotUrl),
+                actual::get,
+                response -> response.createException().flatMap(Mono::error),
+                body -> {
+                    GasolineraWrapperApiResponseOut cabecera = new GasolineraWrapperApiResponseOut();
+                    return gasolineraStreamDecoder.decodeEstaciones(body, cabecera)
+                            .collectList()
+                            .map(estaciones -> construir(cabecera, estaciones));
+                }));
+    }
+
+    /**
+     * Publica atómicamente una nueva instantánea.
+     *
+     * @param snapshot Instantánea a publicar.
+     */
+    public void publicar(SnapshotNacional snapshot) {
+        actual.set(snapshot);
+        verificado = snapshot.getObtenido();
+        log.info("Instantánea nacional publicada: {} estaciones en {} provincias (Fecha {})",
+                snapshot.getTotalEstaciones(), snapshot.getAlmacen().numeroProvincias(), snapshot.getFecha());
+    }
+
+    /**
+     * Publica una instantánea restaurada desde disco, solo si todavía no se ha publicado ninguna: si la
+     * primera ingesta termina antes que la restauración, prevalece la instantánea descargada.
+     *
+     * @param snapshot Instantánea restaurada.
+     * @return true si se ha publicado.
+     */
+    public boolean restaurar(SnapshotNacional snapshot) {
+        if (!actual.compareAndSet(null, snapshot)) {
+            return false;
+        }
+        log.info("Instantánea nacional restaurada desde disco: {} estaciones en {} provincias (Fecha {}, descargada {})",
+                snapshot.getTotalEstaciones(), snapshot.getAlmacen().numeroProvincias(), snapshot.getFecha(), snapshot.getObtenido());
+        recalcularEstadisticas(snapshot);
+        return true;
+    }
+
+    private void persistir(SnapshotNacional snapshot) {
+        try {
+            snapshotPersistido.guardar(snapshot);
+        } catch (IOException e) {
+            log.warn("No se pudo guardar la instantánea nacional en disco: {}", e.getMessage());
+        }
+    }
+
+    // Un fallo al escribir el histórico no debe impedir servir la instantánea recién publicada
+    private void registrarHistorico(SnapshotNacional snapshot) {
+        try {
+            historicoPrecios.registrar(snapshot);
+        } catch (IOException e) {
+            log.warn("No se pudo registrar la instantánea en el histórico de precios: {}", e.getMessage());
+        }
+    }
+
+    private void recalcularEstadisticas(SnapshotNacional snapshot) {
+        try {
+            estadisticasPreciosService.recalcular(snapshot);
+        } catch (RuntimeException e) {
+            log.warn("No se pudieron recalcular las estadísticas de precio: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Construye la instantánea a partir de las estaciones del documento nacional, volcándolas en un
+     * {@link AlmacenEstaciones} columnar ordenado por provincia.
+     *
+     * @param cabecera Cabecera del documento con la {@code Fecha} y la {@code Nota}.
+     * @param estaciones Estaciones del documento nacional.
+     * @return La instantánea construida.
+     */
+    public SnapshotNacional construir(GasolineraWrapperApiResponseOut cabecera, List<Estacion> estaciones) {
+        return new SnapshotNacional(cabecera.getFecha(), cabecera.getNota(), Instant.now(),
+                AlmacenEstaciones.construir(estaciones), actual.get());
+    }
+}
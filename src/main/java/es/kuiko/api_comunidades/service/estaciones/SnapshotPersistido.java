@@ -0,0 +1,211 @@
+package es.kuiko.api_comunidades.service.estaciones;
+
+import es.kuiko.api_comunidades.dto.gasolineras.Estacion;
+import es.kuiko.api_comunidades.dto.gasolineras.TipoCombustible;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Copia en disco de la última instantánea nacional descargada correctamente ("última versión buena").
+ *
+ * <p>Se reescribe tras cada ingesta y se carga al arrancar, de modo que la aplicación puede servir
+ * datos desde el primer momento, aunque la API de terceros no responda, sin esperar a la primera
+ * descarga.</p>
+ *
+ * <p>Formato binario compacto: cabecera ({@code MAGIC}, versión, {@code Fecha}, {@code Nota}, instante
+ * de descarga y número de filas) seguida de las filas del almacén en su orden. Las cadenas se escriben
+ * contra una tabla que se construye sobre la marcha: la primera aparición de un valor se escribe
+ * completa y las siguientes solo con su índice, por lo que rótulos, horarios o municipios repetidos
+ * ocupan uno o dos bytes. El fichero se escribe en uno temporal y se sustituye de forma atómica.</p>
+ */
+@Component
+public class SnapshotPersistido {
+
+    private static final int MAGIC = 0x4B534E31;  // "KSN1"
+    private static final int VERSION = 1;
+
+    private final boolean enabled;
+    private final Path fichero;
+
+    /**
+     * Constructor con la configuración {@code gasolineras.snapshot.persistencia.*}.
+     *
+     * @param enabled Si es false no se guarda ni se carga nada.
+     * @param fichero Ruta del fichero de la instantánea.
+     */
+    public SnapshotPersistido(@Value("${gasolineras.snapshot.persistencia.enabled:true}") boolean enabled,
+                              @Value("${gasolineras.snapshot.persistencia.fichero:data/snapshot/ultima-instantanea.bin}") String fichero) {
+        this.enabled = enabled;
+        this.fichero = Path.of(fichero);
+    }
+
+    /**
+     * Guarda una instantánea, sustituyendo a la anterior.
+     *
+     * @param snapshot Instantánea a guardar.
+     * @throws IOException Si no se puede escribir el fichero.
+     */
+    public void guardar(SnapshotNacional snapshot) throws IOException {
+        if (!enabled) {
+            return;
+        }
+        Path directorio = fichero.toAbsolutePath().getParent();
+        Files.createDirectories(directorio);
+        Path temporal = Files.createTempFile(directorio, "instantanea", ".tmp");
+        try {
+            try (DataOutputStream salida = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporal), 1 << 16))) {
+                escribir(snapshot, salida);
+            }
+            Files.move(temporal, fichero, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporal);
+        }
+    }
+
+    /**
+     * Carga la última instantánea guardada.
+     *
+     * @return La instantánea, o vacío si no hay fichero o la persistencia está desactivada.
+     * @throws IOException Si el fichero existe pero no se puede leer o no tiene un formato válido.
+     */
+    public Optional<SnapshotNacional> cargar() throws IOException {
+        if (!enabled || !Files.isRegularFile(fichero)) {
+            return Optional.empty();
+        }
+        try (DataInputStream entrada = new DataInputStream(new BufferedInputStream(Files.newInputStream(fichero), 1 << 16))) {
+            return Optional.of(leer(entrada));
+        }
+    }
+
+    static void escribir(SnapshotNacional snapshot, DataOutputStream salida) throws IOException {
+        AlmacenEstaciones almacen = snapshot.getAlmacen();
+        Map<String, Integer> tabla = new HashMap<>();
+
+        salida.writeInt(MAGIC);
+        salida.writeInt(VERSION);
+        escribirCadena(salida, tabla, snapshot.getFecha());
+        escribirCadena(salida, tabla, snapshot.getNota());
+        salida.writeLong(snapshot.getObtenido().toEpochMilli());
+        salida.writeInt(almacen.size());
+        for (int fila = 0; fila < almacen.size(); fila++) {
+            Estacion estacion = almacen.estacion(fila);
+            escribirCadena(salida, tabla, estacion.rotulo());
+            escribirCadena(salida, tabla, estacion.direccion());
+            escribirCadena(salida, tabla, estacion.horario());
+            escribirCadena(salida, tabla, estacion.localidad());
+            escribirCadena(salida, tabla, estacion.municipio());
+            escribirCadena(salida, tabla, estacion.provincia());
+            escribirCadena(salida, tabla, estacion.idProvincia());
+            salida.writeInt(estacion.latitudE6());
+            salida.writeInt(estacion.longitudE6());
+            for (int t = 0; t < TipoCombustible.count(); t++) {
+                salida.writeInt(estacion.precio(TipoCombustible.of(t)));
+            }
+        }
+    }
+
+    static SnapshotNacional leer(DataInputStream entrada) throws IOException {
+        if (entrada.readInt() != MAGIC) {
+            throw new IOException("El fichero no es una instantánea de gasolineras");
+        }
+        int version = entrada.readInt();
+        if (version != VERSION) {
+            throw new IOException("Versión de instantánea no soportada: " + version);
+        }
+        List<String> tabla = new ArrayList<>();
+        String fecha = leerCadena(entrada, tabla);
+        String nota = leerCadena(entrada, tabla);
+        Instant obtenido = Instant.ofEpochMilli(entrada.readLong());
+        int filas = entrada.readInt();
+        if (filas < 0) {
+            throw new IOException("Número de filas no válido: " + filas);
+        }
+        List<Estacion> estaciones = new ArrayList<>(filas);
+        for (int fila = 0; fila < filas; fila++) {
+            String rotulo = leerCadena(entrada, tabla);
+            String direccion = leerCadena(entrada, tabla);
+            String horario = leerCadena(entrada, tabla);
+            String localidad = leerCadena(entrada, tabla);
+            String municipio = leerCadena(entrada, tabla);
+            String provincia = leerCadena(entrada, tabla);
+            String idProvincia = leerCadena(entrada, tabla);
+            int latitudE6 = entrada.readInt();
+            int longitudE6 = entrada.readInt();
+            int[] precios = new int[TipoCombustible.count()];
+            for (int t = 0; t < precios.length; t++) {
+                precios[t] = entrada.readInt();
+            }
+            estaciones.add(new Estacion(rotulo, direccion, horario, localidad, municipio, provincia, idProvincia,
+                    latitudE6, longitudE6, precios));
+        }
+        return new SnapshotNacional(fecha, nota, obtenido, AlmacenEstaciones.construir(estaciones));
+    }
+
+    // Índice 0: null; índice igual al tamaño de la tabla: valor nuevo que se escribe a continuación
+    private static void escribirCadena(DataOutputStream salida, Map<String, Integer> tabla, String valor) throws IOException {
+        if (valor == null) {
+            escribirVarint(salida, 0);
+            return;
+        }
+        Integer indice = tabla.get(valor);
+        if (indice != null) {
+            escribirVarint(salida, indice);
+            return;
+        }
+        int nuevo = tabla.size() + 1;
+        tabla.put(valor, nuevo);
+        escribirVarint(salida, nuevo);
+        salida.writeUTF(valor);
+    }
+
+    private static String leerCadena(DataInputStream entrada, List<String> tabla) throws IOException {
+        int indice = leerVarint(entrada);
+        if (indice == 0) {
+            return null;
+        }
+        if (indice == tabla.size() + 1) {
+            String valor = entrada.readUTF();
+            tabla.add(valor);
+            return valor;
+        }
+        if (indice > tabla.size()) {
+            throw new IOException("Referencia de cadena no válida: " + indice);
+        }
+        return tabla.get(indice - 1);
+    }
+
+    private static void escribirVarint(DataOutputStream salida, int valor) throws IOException {
+        while ((valor & ~0x7F) != 0) {
+            salida.writeByte((valor & 0x7F) | 0x80);
+            valor >>>= 7;
+        }
+        salida.writeByte(valor);
+    }
+
+    private static int leerVarint(DataInputStream entrada) throws IOException {
+        int valor = 0;
+        for (int desplazamiento = 0; desplazamiento < 32; desplazamiento += 7) {
+            int b = entrada.readUnsignedByte();
+            valor |= (b & 0x7F) << desplazamiento;
+            if ((b & 0x80) == 0) {
+                return valor;
+            }
+        }
+        throw new IOException("Entero variable demasiado largo");
+    }
+}
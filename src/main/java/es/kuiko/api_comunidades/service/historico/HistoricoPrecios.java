@@ -0,0 +1,641 @@
+package es.kuiko.api_comunidades.service.historico;
+
+import es.kuiko.api_comunidades.dto.gasolineras.HistoricoEstacionDTO;
+import es.kuiko.api_comunidades.dto.gasolineras.PrecioCombustible;
+import es.kuiko.api_comunidades.dto.gasolineras.PrecioHistoricoDTO;
+import es.kuiko.api_comunidades.dto.gasolineras.TipoCombustible;
+import es.kuiko.api_comunidades.service.estaciones.AlmacenEstaciones;
+import es.kuiko.api_comunidades.service.estaciones.SnapshotNacional;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Histórico de precios en disco, de solo anexado y accedido mediante un fichero mapeado en memoria.
+ *
+ * <p>Se compone de dos ficheros en {@code gasolineras.historico.directorio}:</p>
+ * <ul>
+ *     <li>{@code estaciones.txt}: catálogo de estaciones, una por línea
+ *     ({@code provincia, rótulo, dirección, municipio} separados por tabuladores). El identificador de
+ *     una estación es su número de línea.</li>
+ *     <li>{@code precios.dat}: cabecera de 16 bytes ({@code MAGIC}, versión y bytes de datos ocupados)
+ *     seguida de un bloque por instantánea. Cada bloque guarda su {@code Fecha} en segundos, su tipo,
+ *     el número de registros y la longitud de la carga; cada registro contiene el incremento del
+ *     identificador de estación, una máscara con los combustibles que cambian y, para cada uno, la
+ *     diferencia de precio respecto al estado anterior codificada como varint zigzag.</li>
+ * </ul>
+ *
+ * <p>Los bloques delta solo incluyen las estaciones cuyo precio ha cambiado y las que han dejado de aparecer
+ * en la instantánea, cuyos precios pasan a "sin precio" (de lo contrario conservarían los últimos hasta el
+ * siguiente bloque clave). Cada
+ * {@code gasolineras.historico.intervalo-clave} bloques se escribe un bloque clave con todos los precios
+ * (diferencia respecto a "sin precio"), de modo que una lectura por rango de fechas empieza en el último
+ * bloque clave anterior a {@code desde} en lugar de al principio del fichero. Las lecturas recorren el
+ * fichero mapeado directamente, sin copiarlo al heap.</p>
+ */
+@Component
+public class HistoricoPrecios {
+
+    private static final Logger log = LoggerFactory.getLogger(HistoricoPrecios.class);
+
+    private static final int MAGIC = 0x4B485031;  // "KHP1"
+    private static final int VERSION = 1;
+    private static final int TAMANO_CABECERA = 16;
+    private static final int TAMANO_CABECERA_BLOQUE = 17;
+    private static final byte BLOQUE_CLAVE = 0;
+    private static final byte BLOQUE_DELTA = 1;
+    private static final int TIPOS = TipoCombustible.count();
+    private static final int[] SIN_PRECIOS = vacio();
+
+    /**
+     * Formato de la {@code Fecha} publicada por la API, por ejemplo "18/10/2026 9:15:23".
+     */
+    private static final DateTimeFormatter FORMATO_FECHA = DateTimeFormatter.ofPattern("d/M/yyyy H:mm:ss");
+
+    private static final ZoneId ZONA_API = ZoneId.of("Europe/Madrid");
+
+    private final boolean enabled;
+    private final Path directorio;
+    private final int intervaloClave;
+    private final long tamanoSegmento;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Catálogo de estaciones
+    private final Map<String, Integer> idsEstacion = new HashMap<>();
+    private final List<String[]> estaciones = new ArrayList<>();
+    private BufferedWriter catalogo;
+
+    // Índice de bloques por fecha
+    private long[] fechas = new long[256];
+    private int[] offsets = new int[256];
+    private boolean[] claves = new boolean[256];
+    private int numeroBloques;
+
+    // Fichero de precios y estado actual de cada estación, para calcular los deltas del siguiente bloque
+    private FileChannel canal;
+    private MappedByteBuffer mapa;
+    private int longitud;
+    private int[][] estado = new int[0][];
+    private int bloquesDesdeClave;
+    private boolean abierto;
+
+    /**
+     * Constructor con la configuración del histórico.
+     *
+     * @param enabled Indica si se registra y consulta el histórico.
+     * @param directorio Directorio donde se guardan los ficheros del histórico.
+     * @param intervaloClave Número de bloques entre dos bloques clave consecutivos.
+     * @param tamanoSegmento Tamaño en que crece el fichero mapeado cuando se llena.
+     */
+    public HistoricoPrecios(@Value("${gasolineras.historico.enabled:true}") boolean enabled,
+                            @Value("${gasolineras.historico.directorio:data/historico}") String directorio,
+                            @Value("${gasolineras.historico.intervalo-clave:48}") int intervaloClave,
+                            @Value("${gasolineras.historico.tamano-segmento:64MB}") DataSize tamanoSegmento) {
+        this.enabled = enabled;
+        this.directorio = Path.of(directorio);
+        this.intervaloClave = Math.max(1, intervaloClave);
+        this.tamanoSegmento = Math.max(TAMANO_CABECERA, tamanoSegmento.toBytes());
+    }
+
+    /**
+     * Añade al histórico los precios de una instantánea. Si su {@code Fecha} no es posterior a la del
+     * último bloque registrado (por ejemplo, al volver a descargar los mismos datos) no se escribe nada.
+     *
+     * @param snapshot Instantánea a registrar.
+     * @throws IOException Si no se puede escribir en los ficheros del histórico.
+     */
+    public void registrar(SnapshotNacional snapshot) throws IOException {
+        if (!enabled) {
+            return;
+        }
+        long fecha = segundos(snapshot);
+        lock.writeLock().lock();
+        try {
+            abrir();
+            if (numeroBloques > 0 && fecha <= fechas[numeroBloques - 1]) {
+                return;
+            }
+            try {
+                escribirBloque(fecha, snapshot.getAlmacen());
+            } catch (IOException | RuntimeException e) {
+                // El estado en memoria puede no coincidir con el fichero: se recarga en el siguiente uso
+                cerrar();
+                throw e;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Lee el histórico de precios de las estaciones de una provincia en un rango de fechas.
+     *
+     * <p>La serie de cada estación empieza con los precios vigentes en {@code desde} (fechados con la
+     * {@code Fecha} de la instantánea de la que proceden) y contiene después un punto por cada cambio
+     * de precio hasta {@code hasta}, inclusive.</p>
+     *
+     * @param codigoProvincia Código de provincia (1..52).
+     * @param desde Inicio del rango.
+     * @param hasta Fin del rango.
+     * @return Las series de precios de las estaciones de la provincia con algún precio en el rango.
+     * @throws IOException Si no se pueden leer los ficheros del histórico.
+     */
+    public List<HistoricoEstacionDTO> leer(int codigoProvincia, Instant desde, Instant hasta) throws IOException {
+        if (!enabled) {
+            return List.of();
+        }
+        lock.writeLock().lock();
+        try {
+            abrir();
+            lock.readLock().lock();  // Se degrada a bloqueo de lectura para no bloquear otras consultas
+        } finally {
+            lock.writeLock().unlock();
+        }
+        try {
+            return leerProvincia(codigoProvincia, desde.getEpochSecond(), hasta.getEpochSecond());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Cierra los ficheros del histórico al detener la aplicación.
+     */
+    @PreDestroy
+    public void detener() {
+        lock.writeLock().lock();
+        try {
+            cerrar();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private List<HistoricoEstacionDTO> leerProvincia(int codigoProvincia, long desde, long hasta) {
+        // Estaciones de la provincia: identificador del catálogo -> índice local
+        String provincia = Integer.toString(codigoProvincia);
+        int[] local = new int[estaciones.size()];
+        List<Integer> ids = new ArrayList<>();
+        for (int id = 0; id < estaciones.size(); id++) {
+            local[id] = provincia.equals(estaciones.get(id)[0]) ? ids.size() : -1;
+            if (local[id] >= 0) {
+                ids.add(id);
+            }
+        }
+        int n = ids.size();
+        int[][] precios = new int[n][TIPOS];
+        for (int[] fila : precios) {
+            Arrays.fill(fila, PrecioCombustible.SIN_PRECIO);
+        }
+        int[][] emitidos = new int[n][];
+        boolean[] tocadas = new boolean[n];
+        List<List<PrecioHistoricoDTO>> series = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            series.add(new ArrayList<>());
+        }
+
+        ByteBuffer lectura = mapa.duplicate();
+        boolean inicialEmitido = false;
+        long fechaAplicada = Long.MIN_VALUE;
+        for (int b = primerBloque(desde); b < numeroBloques && fechas[b] <= hasta; b++) {
+            if (fechas[b] > desde && !inicialEmitido) {
+                // Precios vigentes en "desde": los del último bloque aplicado
+                emitir(precios, emitidos, null, series, fechaAplicada);
+                inicialEmitido = true;
+            }
+            Arrays.fill(tocadas, false);
+            aplicarBloque(lectura, b, precios, local, tocadas);
+            if (inicialEmitido) {
+                emitir(precios, emitidos, tocadas, series, fechas[b]);
+            }
+            fechaAplicada = fechas[b];
+        }
+        if (!inicialEmitido && fechaAplicada != Long.MIN_VALUE) {
+            emitir(precios, emitidos, null, series, fechaAplicada);
+        }
+
+        List<HistoricoEstacionDTO> resultado = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            if (!series.get(i).isEmpty()) {
+                String[] estacion = estaciones.get(ids.get(i));
+                resultado.add(new HistoricoEstacionDTO(estacion[1], estacion[2], estacion[3], series.get(i)));
+            }
+        }
+        return resultado;
+    }
+
+    // Añade un punto a la serie de cada estación (todas, o solo las tocadas) cuyos precios difieren de los últimos emitidos
+    private static void emitir(int[][] precios, int[][] emitidos, boolean[] tocadas,
+                               List<List<PrecioHistoricoDTO>> series, long fecha) {
+        for (int i = 0; i < precios.length; i++) {
+            if (tocadas != null && !tocadas[i]) {
+                continue;
+            }
+            boolean cambia = emitidos[i] == null ? tienePrecio(precios[i]) : !Arrays.equals(emitidos[i], precios[i]);
+            if (cambia) {
+                emitidos[i] = precios[i].clone();
+                series.get(i).add(new PrecioHistoricoDTO(formatearFecha(fecha), formatearPrecios(precios[i])));
+            }
+        }
+    }
+
+    private static boolean tienePrecio(int[] precios) {
+        for (int precio : precios) {
+            if (precio != PrecioCombustible.SIN_PRECIO) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Map<String, String> formatearPrecios(int[] precios) {
+        Map<String, String> resultado = new LinkedHashMap<>();
+        for (int t = 0; t < precios.length; t++) {
+            if (precios[t] != PrecioCombustible.SIN_PRECIO) {
+                resultado.put(TipoCombustible.of(t).getDescripcion(), PrecioCombustible.format(precios[t]));
+            }
+        }
+        return resultado;
+    }
+
+    // Último bloque clave con fecha menor o igual que "desde", o el primer bloque si no hay ninguno
+    private int primerBloque(long desde) {
+        int bajo = 0;
+        int alto = numeroBloques - 1;
+        int encontrado = -1;
+        while (bajo <= alto) {
+            int medio = (bajo + alto) >>> 1;
+            if (fechas[medio] <= desde) {
+                encontrado = medio;
+                bajo = medio + 1;
+            } else {
+                alto = medio - 1;
+            }
+        }
+        while (encontrado > 0 && !claves[encontrado]) {
+            encontrado--;
+        }
+        return Math.max(encontrado, 0);
+    }
+
+    /**
+     * Aplica los registros de un bloque sobre {@code precios}. Con {@code local == null} el índice de
+     * cada estación es su identificador en el catálogo.
+     */
+    private void aplicarBloque(ByteBuffer lectura, int bloque, int[][] precios, int[] local, boolean[] tocadas) {
+        int posicion = TAMANO_CABECERA + offsets[bloque];
+        int registros = lectura.getInt(posicion + 9);
+        if (claves[bloque]) {
+            for (int[] fila : precios) {
+                Arrays.fill(fila, PrecioCombustible.SIN_PRECIO);
+            }
+            if (tocadas != null) {
+                Arrays.fill(tocadas, true);
+            }
+        }
+        lectura.position(posicion + TAMANO_CABECERA_BLOQUE);
+        int id = -1;
+        for (int r = 0; r < registros; r++) {
+            id += leerVarint(lectura);
+            int mascara = lectura.get() & 0xFF;
+            int indice = local == null ? id : (id < local.length ? local[id] : -1);
+            for (int t = 0; t < TIPOS; t++) {
+                if ((mascara & (1 << t)) != 0) {
+                    int delta = zigzagDecodificar(leerVarint(lectura));
+                    if (indice >= 0) {
+                        precios[indice][t] += delta;
+                        if (tocadas != null) {
+                            tocadas[indice] = true;
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private void escribirBloque(long fecha, AlmacenEstaciones almacen) throws IOException {
+        boolean clave = numeroBloques == 0 || bloquesDesdeClave + 1 >= intervaloClave;
+
+        // Identificador de catálogo de cada fila, ordenando los registros por identificador
+        long[] pares = new long[almacen.size()];
+        for (int fila = 0; fila < almacen.size(); fila++) {
+            pares[fila] = ((long) idEstacion(almacen, fila) << 32) | fila;
+        }
+        catalogo.flush();
+        Arrays.sort(pares);
+        asegurarEstado(estaciones.size());
+
+        int[][] nuevoEstado = new int[estado.length][];
+        for (int id = 0; id < estado.length; id++) {
+            nuevoEstado[id] = clave ? vacio() : estado[id].clone();
+        }
+
+        Salida salida = new Salida(Math.max(64, almacen.size() * 4));
+        int registros = 0;
+        int idEscrito = -1;
+        int pendiente = 0;  // Primer identificador del catálogo todavía no revisado
+        int[] objetivo = new int[TIPOS];
+        for (long par : pares) {
+            int id = (int) (par >>> 32);
+            int fila = (int) par;
+            if (id < pendiente) {
+                continue;  // Dos estaciones con la misma clave en la misma instantánea: se conserva la primera
+            }
+            // Las estaciones que ya no aparecen en la instantánea pasan a "sin precio"
+            for (; pendiente < id; pendiente++) {
+                if (escribirRegistro(salida, pendiente, idEscrito, nuevoEstado[pendiente], SIN_PRECIOS)) {
+                    idEscrito = pendiente;
+                    registros++;
+                }
+            }
+            pendiente = id + 1;
+            for (int t = 0; t < TIPOS; t++) {
+                objetivo[t] = almacen.precio(fila, TipoCombustible.of(t));
+            }
+            if (escribirRegistro(salida, id, idEscrito, nuevoEstado[id], objetivo)) {
+                idEscrito = id;
+                registros++;
+            }
+        }
+        for (; pendiente < nuevoEstado.length; pendiente++) {
+            if (escribirRegistro(salida, pendiente, idEscrito, nuevoEstado[pendiente], SIN_PRECIOS)) {
+                idEscrito = pendiente;
+                registros++;
+            }
+        }
+
+        int offset = longitud;
+        int total = TAMANO_CABECERA_BLOQUE + salida.longitud;
+        asegurarCapacidad((long) TAMANO_CABECERA + offset + total);
+        int posicion = TAMANO_CABECERA + offset;
+        mapa.putLong(posicion, fecha);
+        mapa.put(posicion + 8, clave ? BLOQUE_CLAVE : BLOQUE_DELTA);
+        mapa.putInt(posicion + 9, registros);
+        mapa.putInt(posicion + 13, salida.longitud);
+        mapa.put(posicion + TAMANO_CABECERA_BLOQUE, salida.datos, 0, salida.longitud);
+        longitud = offset + total;
+        mapa.putLong(8, longitud);
+        mapa.force();
+
+        estado = nuevoEstado;
+        bloquesDesdeClave = clave ? 0 : bloquesDesdeClave + 1;
+        agregarAlIndice(fecha, offset, clave);
+        log.debug("Histórico: bloque {} con {} registros ({} bytes)", clave ? "clave" : "delta", registros, total);
+    }
+
+    /**
+     * Escribe el registro de una estación con los combustibles cuyo precio pasa de {@code actual} a
+     * {@code objetivo}, y actualiza {@code actual}. No escribe nada si no cambia ningún precio.
+     *
+     * @return true si se ha escrito el registro.
+     */
+    private static boolean escribirRegistro(Salida salida, int id, int idEscrito, int[] actual, int[] objetivo) {
+        int mascara = 0;
+        for (int t = 0; t < TIPOS; t++) {
+            if (objetivo[t] != actual[t]) {
+                mascara |= 1 << t;
+            }
+        }
+        if (mascara == 0) {
+            return false;
+        }
+        salida.escribirVarint(id - idEscrito);
+        salida.escribirByte(mascara);
+        for (int t = 0; t < TIPOS; t++) {
+            if ((mascara & (1 << t)) != 0) {
+                salida.escribirVarint(zigzagCodificar(objetivo[t] - actual[t]));
+                actual[t] = objetivo[t];
+            }
+        }
+        return true;
+    }
+
+    private int idEstacion(AlmacenEstaciones almacen, int fila) throws IOException {
+        String[] campos = {
+                Integer.toString(almacen.provincia(fila)),
+                limpiar(almacen.rotulo(fila)),
+                limpiar(almacen.direccion(fila)),
+                limpiar(almacen.municipio(fila))
+        };
+        String linea = String.join("\t", campos);
+        Integer id = idsEstacion.get(linea);
+        if (id == null) {
+            id = estaciones.size();
+            idsEstacion.put(linea, id);
+            estaciones.add(campos);
+            catalogo.write(linea);
+            catalogo.newLine();
+        }
+        return id;
+    }
+
+    private static String limpiar(String valor) {
+        return valor == null ? "" : valor.replace('\t', ' ').replace('\n', ' ').replace('\r', ' ');
+    }
+
+    private void abrir() throws IOException {
+        if (abierto) {
+            return;
+        }
+        Files.createDirectories(directorio);
+        idsEstacion.clear();
+        estaciones.clear();
+        Path ficheroCatalogo = directorio.resolve("estaciones.txt");
+        if (Files.exists(ficheroCatalogo)) {
+            for (String linea : Files.readAllLines(ficheroCatalogo, StandardCharsets.UTF_8)) {
+                String[] campos = linea.split("\t", -1);
+                if (campos.length == 4) {
+                    idsEstacion.put(linea, estaciones.size());
+                    estaciones.add(campos);
+                }
+            }
+        }
+        catalogo = Files.newBufferedWriter(ficheroCatalogo, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+
+        canal = FileChannel.open(directorio.resolve("precios.dat"),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        mapa = null;
+        numeroBloques = 0;
+        if (canal.size() < TAMANO_CABECERA) {
+            asegurarCapacidad(TAMANO_CABECERA);
+            mapa.putInt(0, MAGIC);
+            mapa.putInt(4, VERSION);
+            mapa.putLong(8, 0);
+            longitud = 0;
+        } else {
+            mapa = canal.map(FileChannel.MapMode.READ_WRITE, 0, canal.size());
+            if (mapa.getInt(0) != MAGIC || mapa.getInt(4) != VERSION) {
+                throw new IOException("El fichero de histórico de precios no tiene un formato reconocido");
+            }
+            longitud = (int) mapa.getLong(8);
+        }
+
+        // Reconstruye el índice de bloques recorriendo solo las cabeceras
+        int posicion = 0;
+        while (posicion < longitud) {
+            int absoluta = TAMANO_CABECERA + posicion;
+            agregarAlIndice(mapa.getLong(absoluta), posicion, mapa.get(absoluta + 8) == BLOQUE_CLAVE);
+            posicion += TAMANO_CABECERA_BLOQUE + mapa.getInt(absoluta + 13);
+        }
+
+        // Estado actual: se aplican los bloques desde el último bloque clave
+        estado = new int[0][];
+        asegurarEstado(estaciones.size());
+        int ultimaClave = numeroBloques - 1;
+        while (ultimaClave > 0 && !claves[ultimaClave]) {
+            ultimaClave--;
+        }
+        ByteBuffer lectura = mapa.duplicate();
+        for (int b = Math.max(0, ultimaClave); b < numeroBloques; b++) {
+            aplicarBloque(lectura, b, estado, null, null);
+        }
+        bloquesDesdeClave = numeroBloques == 0 ? 0 : numeroBloques - 1 - ultimaClave;
+        abierto = true;
+        log.info("Histórico de precios abierto: {} bloques, {} estaciones, {} bytes", numeroBloques, estaciones.size(), longitud);
+    }
+
+    private void cerrar() {
+        abierto = false;
+        try {
+            if (catalogo != null) {
+                catalogo.close();
+            }
+            if (canal != null) {
+                canal.close();
+            }
+        } catch (IOException e) {
+            log.warn("Error al cerrar los ficheros del histórico de precios: {}", e.getMessage());
+        }
+        mapa = null;
+    }
+
+    private void asegurarCapacidad(long necesario) throws IOException {
+        if (mapa != null && necesario <= mapa.capacity()) {
+            return;
+        }
+        long capacidad = ((necesario + tamanoSegmento - 1) / tamanoSegmento) * tamanoSegmento;
+        if (capacidad > Integer.MAX_VALUE) {
+            throw new IOException("El histórico de precios ha alcanzado el tamaño máximo de un fichero mapeado");
+        }
+        // Mapear más allá del final del fichero lo amplía hasta la nueva capacidad
+        mapa = canal.map(FileChannel.MapMode.READ_WRITE, 0, capacidad);
+    }
+
+    private void asegurarEstado(int estacionesCatalogo) {
+        if (estado.length >= estacionesCatalogo) {
+            return;
+        }
+        int anterior = estado.length;
+        estado = Arrays.copyOf(estado, estacionesCatalogo);
+        for (int id = anterior; id < estacionesCatalogo; id++) {
+            estado[id] = vacio();
+        }
+    }
+
+    private void agregarAlIndice(long fecha, int offset, boolean clave) {
+        if (numeroBloques == fechas.length) {
+            fechas = Arrays.copyOf(fechas, numeroBloques * 2);
+            offsets = Arrays.copyOf(offsets, numeroBloques * 2);
+            claves = Arrays.copyOf(claves, numeroBloques * 2);
+        }
+        fechas[numeroBloques] = fecha;
+        offsets[numeroBloques] = offset;
+        claves[numeroBloques] = clave;
+        numeroBloques++;
+    }
+
+    private static int[] vacio() {
+        int[] precios = new int[TIPOS];
+        Arrays.fill(precios, PrecioCombustible.SIN_PRECIO);
+        return precios;
+    }
+
+    private static long segundos(SnapshotNacional snapshot) {
+        String fecha = snapshot.getFecha();
+        if (fecha != null && !fecha.isBlank()) {
+            try {
+                return LocalDateTime.parse(fecha.trim(), FORMATO_FECHA).atZone(ZONA_API).toEpochSecond();
+            } catch (DateTimeParseException e) {
+                // Se usa el instante de descarga
+            }
+        }
+        return snapshot.getObtenido().getEpochSecond();
+    }
+
+    private static String formatearFecha(long segundos) {
+        return FORMATO_FECHA.format(Instant.ofEpochSecond(segundos).atZone(ZONA_API));
+    }
+
+    private static int zigzagCodificar(int valor) {
+        return (valor << 1) ^ (valor >> 31);
+    }
+
+    private static int zigzagDecodificar(int valor) {
+        return (valor >>> 1) ^ -(valor & 1);
+    }
+
+    private static int leerVarint(ByteBuffer lectura) {
+        int valor = 0;
+        int desplazamiento = 0;
+        byte b;
+        do {
+            b = lectura.get();
+            valor |= (b & 0x7F) << desplazamiento;
+            desplazamiento += 7;
+        } while (b < 0);
+        return valor;
+    }
+
+    /**
+     * Buffer de bytes ampliable para componer la carga de un bloque antes de copiarla al fichero mapeado.
+     */
+    private static final class Salida {
+        private byte[] datos;
+        private int longitud;
+
+        private Salida(int capacidad) {
+            this.datos = new byte[capacidad];
+        }
+
+        private void escribirByte(int valor) {
+            if (longitud == datos.length) {
+                datos = Arrays.copyOf(datos, datos.length * 2);
+            }
+            datos[longitud++] = (byte) valor;
+        }
+
+        private void escribirVarint(int valor) {
+            while ((valor & ~0x7F) != 0) {
+                escribirByte((valor & 0x7F) | 0x80);
+                valor >>>= 7;
+            }
+            escribirByte(valor);
+        }
+    }
+}
@@ -1,12 +1,17 @@
 package es.kuiko.api_comunidades.service.impl;
 
 import es.kuiko.api_comunidades.dto.ComunidadAutonomaCountProvinciasDTO;
+import es.kuiko.api_comunidades.dto.gasolineras.EstadisticasComunidadDTO;
 import es.kuiko.api_comunidades.exception.CustomNotFoundException;
 import es.kuiko.api_comunidades.model.ComunidadAutonoma;
 import es.kuiko.api_comunidades.repository.ComunidadAutonomaRepository;
-import es.kuiko.api_comunidades.repository.ProvinciaRepository;
 import es.kuiko.api_comunidades.service.ComunidadAutonomaService;
+import es.kuiko.api_comunidades.service.cache.RespuestaCodificada;
+import es.kuiko.api_comunidades.service.estaciones.EstadisticasPreciosService;
+import es.kuiko.api_comunidades.service.referencia.CodigosTerritoriales;
+import es.kuiko.api_comunidades.service.referencia.ReferenciaTerritorial;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.validation.annotation.Validated;
 
 import java.util.List;
@@ -22,20 +27,35 @@ import java.util.Optional;
  * 
  * <p>Incluye validaciones internas para asegurar que los códigos de comunidad
  * sean válidos y que las entidades existan antes de realizar las operaciones pertinentes.
+ *
+ * <p>Las lecturas se sirven desde la instantánea en memoria de {@link ReferenciaTerritorial}, sin
+ * consultar la base de datos; cada escritura la invalida para que se reconstruya tras el commit.
+ *
+ * <p>Las escrituras se ejecutan en una transacción y con el mínimo de sentencias SQL: la modificación
+ * carga la comunidad una vez y se guarda por comprobación de cambios, y el borrado es una única
+ * sentencia {@code DELETE} cuyo número de filas indica si la comunidad existía.
  */
 @Service
 @Validated
 public class ComunidadAutonomaServiceImpl implements ComunidadAutonomaService {
 
     private final ComunidadAutonomaRepository comunidadAutonomaRepository;
+    private final EstadisticasPreciosService estadisticasPreciosService;
+    private final ReferenciaTerritorial referenciaTerritorial;
 
     /**
      * Constructor para inyectar dependencias de repositorios.
      *
      * @param comunidadAutonomaRepository Repositorio de Comunidad Autónoma para realizar operaciones en la base de datos.
+     * @param estadisticasPreciosService Servicio con las estadísticas de precio precalculadas por comunidad.
+     * @param referenciaTerritorial Instantánea en memoria de comunidades y provincias de la que se sirven las lecturas.
      */
-    public ComunidadAutonomaServiceImpl(ComunidadAutonomaRepository comunidadAutonomaRepository) {
+    public ComunidadAutonomaServiceImpl(ComunidadAutonomaRepository comunidadAutonomaRepository,
+                                        EstadisticasPreciosService estadisticasPreciosService,
+                                        ReferenciaTerritorial referenciaTerritorial) {
         this.comunidadAutonomaRepository = comunidadAutonomaRepository;
+        this.estadisticasPreciosService = estadisticasPreciosService;
+        this.referenciaTerritorial = referenciaTerritorial;
     }
 
     /**
@@ -45,7 +65,7 @@ public class ComunidadAutonomaServiceImpl implements ComunidadAutonomaService {
      */
     @Override
     public List<ComunidadAutonoma> getAll() {
-        return comunidadAutonomaRepository.findAll();
+        return referenciaTerritorial.getComunidades();
     }
 
     /**
@@ -57,9 +77,31 @@ public class ComunidadAutonomaServiceImpl implements ComunidadAutonomaService {
     @Override
     public Optional<ComunidadAutonoma> getById(String codigoCa) {
         validateCodigoCa(codigoCa);  
-        return comunidadAutonomaRepository.findById(codigoCa);
+        return referenciaTerritorial.getComunidad(codigoCa);
     }
     
+    /**
+     * Recupera el JSON ya serializado de todas las Comunidades Autónomas, regenerado solo tras una escritura.
+     *
+     * @return La respuesta codificada, con su ETag de versión e instante de modificación.
+     */
+    @Override
+    public RespuestaCodificada getAllCodificado() {
+        return referenciaTerritorial.getComunidadesCodificadas();
+    }
+
+    /**
+     * Recupera el JSON ya serializado de una Comunidad Autónoma.
+     *
+     * @param codigoCa Código de la Comunidad Autónoma.
+     * @return Un {@link Optional} con la respuesta codificada si la comunidad existe.
+     */
+    @Override
+    public Optional<RespuestaCodificada> getByIdCodificado(String codigoCa) {
+        validateCodigoCa(codigoCa);
+        return referenciaTerritorial.getComunidadCodificada(codigoCa);
+    }
+
     /**
      * Cuenta el número de provincias en una Comunidad Autónoma específica.
      *
@@ -69,14 +111,42 @@ public class ComunidadAutonomaServiceImpl implements ComunidadAutonomaService {
      */
     public Optional<ComunidadAutonomaCountProvinciasDTO> getCantidadProvinciasByComunidad(String codigoCa) {
         validateCodigoCa(codigoCa);
-        ensureComunidadExists(codigoCa);
-
-        return comunidadAutonomaRepository.findCantidadProvinciasPorComunidad(codigoCa)
-            .map(projection -> new ComunidadAutonomaCountProvinciasDTO(
-                projection.getCodigoCa(),
-                projection.getNombreCa(),
-                projection.getCantidadProvinciaInComunidad()
-            ));
+        return Optional.of(referenciaTerritorial.getCantidadProvincias(codigoCa)
+            .orElseThrow(() -> new CustomNotFoundException("Comunidad Autónoma no encontrada")));
+    }
+
+    /**
+     * Recupera el JSON ya serializado con el número de provincias de todas las Comunidades Autónomas,
+     * leído de la tabla de contadores en memoria en una sola operación.
+     *
+     * @return La respuesta codificada, ordenada por código de comunidad, con su ETag de versión.
+     */
+    @Override
+    public RespuestaCodificada getCantidadProvinciasCodificado() {
+        return referenciaTerritorial.getCantidadesProvinciasCodificadas();
+    }
+
+    /**
+     * Obtiene las estadísticas de precio por combustible de una Comunidad Autónoma y de sus provincias,
+     * precalculadas a partir de la última instantánea nacional de gasolineras.
+     *
+     * @param codigoCa Código de la Comunidad Autónoma.
+     * @return Un {@link Optional} con las estadísticas, vacío si la comunidad no existe o aún no hay instantánea.
+     */
+    @Override
+    public Optional<EstadisticasComunidadDTO> getEstadisticasPrecios(String codigoCa) {
+        validateCodigoCa(codigoCa);
+        return estadisticasPreciosService.getComunidad(codigoCa);
+    }
+
+    /**
+     * Obtiene las estadísticas de precio de todas las Comunidades Autónomas en una sola lectura.
+     *
+     * @return Lista de estadísticas ordenada por código de comunidad; vacía si aún no hay instantánea.
+     */
+    @Override
+    public List<EstadisticasComunidadDTO> getEstadisticasPrecios() {
+        return estadisticasPreciosService.getComunidades();
     }
 
     /**
@@ -87,12 +157,15 @@ public class ComunidadAutonomaServiceImpl implements ComunidadAutonomaService {
      * @throws IllegalArgumentException si ya existe una Comunidad Autónoma con el mismo código.
      */
     @Override
+    @Transactional
     public ComunidadAutonoma create(ComunidadAutonoma comunidadAutonoma) {
         validateCodigoCa(comunidadAutonoma);
         if (doesComunidadExist(comunidadAutonoma.getCodigoCa())) {
             throw new IllegalArgumentException("Ya existe una Comunidad Autónoma con el código " + comunidadAutonoma.getCodigoCa());
         }
-        return comunidadAutonomaRepository.save(comunidadAutonoma);
+        ComunidadAutonoma creada = comunidadAutonomaRepository.save(comunidadAutonoma);
+        referenciaTerritorial.invalidar();
+        return creada;
     }
 
     /**
@@ -104,11 +177,16 @@ public class ComunidadAutonomaServiceImpl implements ComunidadAutonomaService {
      * @throws CustomNotFoundException si la Comunidad Autónoma no existe.
      */
     @Override
+    @Transactional
     public ComunidadAutonoma update(String codigoCa, ComunidadAutonoma comunidadAutonoma) {
         validateCodigoCa(codigoCa);
-        ensureComunidadExists(codigoCa);
-        comunidadAutonoma.setCodigoCa(codigoCa);
-        return comunidadAutonomaRepository.save(comunidadAutonoma);
+        // Con sus provincias, que se serializan en la respuesta, en la misma consulta
+        ComunidadAutonoma existente = comunidadAutonomaRepository.findConProvinciasByCodigoCa(codigoCa)
+            .orElseThrow(() -> new CustomNotFoundException("Comunidad Autónoma no encontrada"));
+        existente.setNombreCa(comunidadAutonoma.getNombreCa());
+        ComunidadAutonoma actualizada = comunidadAutonomaRepository.save(existente);
+        referenciaTerritorial.invalidar();
+        return actualizada;
     }
 
     /**
@@ -118,10 +196,13 @@ public class ComunidadAutonomaServiceImpl implements ComunidadAutonomaService {
      * @throws CustomNotFoundException si la Comunidad Autónoma no existe.
      */
     @Override
+    @Transactional
     public void delete(String codigoCa) {
         validateCodigoCa(codigoCa);
-        ensureComunidadExists(codigoCa);
-        comunidadAutonomaRepository.deleteById(codigoCa);
+        if (comunidadAutonomaRepository.deleteByCodigoCa(codigoCa) == 0) {
+            throw new CustomNotFoundException("Comunidad Autónoma no encontrada");
+        }
+        referenciaTerritorial.invalidar();
     }
 
     // Métodos internos de validación para evitar duplicación (DRY)
@@ -146,23 +227,11 @@ public class ComunidadAutonomaServiceImpl implements ComunidadAutonomaService {
         if (codigoCa == null || codigoCa.isBlank()) {
             throw new IllegalArgumentException("El código de la Comunidad no puede ser nulo ni estar vacío");
         }
-        if (!codigoCa.matches("[A-Za-z0-9]+")) {
+        if (!CodigosTerritoriales.esAlfanumerico(codigoCa)) {
             throw new IllegalArgumentException("El código de la Comunidad contiene caracteres no válidos");
         }
     }
     
-    /**
-     * Verifica que una Comunidad Autónoma exista por su código. Lanza una excepción si no existe.
-     *
-     * @param codigoCa El código de la Comunidad Autónoma a verificar.
-     * @throws CustomNotFoundException si la Comunidad Autónoma no existe.
-     */
-    private void ensureComunidadExists(String codigoCa) {
-        if (!doesComunidadExist(codigoCa)) {
-            throw new CustomNotFoundException("Comunidad Autónoma no encontrada");
-        }
-    }
-
     /**
      * Verifica la existencia de una Comunidad Autónoma en la base de datos.
      *
@@ -2,54 +2,387 @@ package es.kuiko.api_comunidades.service.impl;
 
 import es.kuiko.api_comunidades.dto.gasolineras.*;
 import es.kuiko.api_comunidades.exception.CustomNotFoundException;
+import es.kuiko.api_comunidades.exception.ProvinciaNoDisponibleException;
+import es.kuiko.api_comunidades.mapper.GasolineraJsonEncoder;
 import es.kuiko.api_comunidades.mapper.GasolineraMapper;
+import es.kuiko.api_comunidades.mapper.GasolineraStreamDecoder;
+import es.kuiko.api_comunidades.model.ComunidadAutonoma;
+import es.kuiko.api_comunidades.model.Provincia;
 import es.kuiko.api_comunidades.service.GasolineraService;
-import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
-import io.github.resilience4j.ratelimiter.annotation.RateLimiter;
-import io.github.resilience4j.retry.annotation.Retry;
-import io.github.resilience4j.timelimiter.annotation.TimeLimiter;
+import es.kuiko.api_comunidades.service.cache.GasolineraCache;
+import es.kuiko.api_comunidades.service.cache.RespuestaCodificada;
+import es.kuiko.api_comunidades.service.cache.RespuestaCodificadaCache;
+import es.kuiko.api_comunidades.service.estaciones.AlmacenEstaciones;
+import es.kuiko.api_comunidades.service.estaciones.IndiceEspacial;
+import es.kuiko.api_comunidades.service.estaciones.IndicePrecios;
+import es.kuiko.api_comunidades.service.estaciones.SnapshotNacional;
+import es.kuiko.api_comunidades.service.estaciones.SnapshotNacionalService;
+import es.kuiko.api_comunidades.service.historico.HistoricoPrecios;
+import es.kuiko.api_comunidades.service.referencia.CodigosTerritoriales;
+import es.kuiko.api_comunidades.service.referencia.ReferenciaTerritorial;
+import es.kuiko.api_comunidades.service.upstream.DescargaCondicional;
+import es.kuiko.api_comunidades.service.upstream.ResilienciaUpstream;
 
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.HttpStatusCode;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
 @Service
 public class GasolineraServiceImpl implements GasolineraService {
 
+    private static final ZoneId ZONA_HISTORICO = ZoneId.of("Europe/Madrid");
+    private static final int LONGITUD_MAXIMA_BUSQUEDA = 100;
+
     private final WebClient webClient;
-    private final GasolineraMapper gasolineraMapper;
+    private final GasolineraStreamDecoder gasolineraStreamDecoder;
+    private final GasolineraCache gasolineraCache;
+    private final SnapshotNacionalService snapshotNacionalService;
+    private final RespuestaCodificadaCache respuestaCodificadaCache;
+    private final ReferenciaTerritorial referenciaTerritorial;
+    private final HistoricoPrecios historicoPrecios;
+    private final GasolineraJsonEncoder gasolineraJsonEncoder;
+    private final ResilienciaUpstream resilienciaUpstream;
+    private final DescargaCondicional descargaCondicional;
+
+    @Value("${gasolineras.cercanas.radio-maximo-km:50}")
+    private double radioMaximoKm;
+
+    @Value("${gasolineras.historico.max-dias:366}")
+    private int historicoMaximoDias;
 
-    public GasolineraServiceImpl(WebClient webClient, GasolineraMapper gasolineraMapper) {
+    @Value("${gasolineras.limite-maximo:100}")
+    private int limiteMaximo;
+
+    @Value("${gasolineras.lote.concurrencia:4}")
+    private int concurrenciaLote;
+
+    public GasolineraServiceImpl(WebClient webClient, GasolineraStreamDecoder gasolineraStreamDecoder, GasolineraCache gasolineraCache,
+                                 SnapshotNacionalService snapshotNacionalService, RespuestaCodificadaCache respuestaCodificadaCache,
+                                 ReferenciaTerritorial referenciaTerritorial,
+                                 HistoricoPrecios historicoPrecios, GasolineraJsonEncoder gasolineraJsonEncoder,
+                                 ResilienciaUpstream resilienciaUpstream, DescargaCondicional descargaCondicional) {
         this.webClient = webClient;
-        this.gasolineraMapper = gasolineraMapper;
+        this.gasolineraStreamDecoder = gasolineraStreamDecoder;
+        this.gasolineraCache = gasolineraCache;
+        this.snapshotNacionalService = snapshotNacionalService;
+        this.respuestaCodificadaCache = respuestaCodificadaCache;
+        this.referenciaTerritorial = referenciaTerritorial;
+        this.historicoPrecios = historicoPrecios;
+        this.gasolineraJsonEncoder = gasolineraJsonEncoder;
+        this.resilienciaUpstream = resilienciaUpstream;
+        this.descargaCondicional = descargaCondicional;
     }
 
     @Override
-    @CircuitBreaker(name = "thirdPartyApiCircuitBreaker", fallbackMethod = "fallbackResponse")
-    @Retry(name = "thirdPartyApiRetry")
-    @TimeLimiter(name = "thirdPartyApiTimeout")
-    @RateLimiter(name = "apiLimiter", fallbackMethod = "rateLimitFallback")
-
     public Mono<GasolineraWrapperApiResponseOut> getGasolinerasPorProvincia(String codigoProvincia) {
-        return webClient.get()
-                .uri(uriBuilder -> uriBuilder.path(codigoProvincia).build())  // Construye la URI con el código de provincia
-                .exchangeToMono(response -> {
-                    if (response.statusCode().isError()) {
-                        // Si el estado de la respuesta indica un error, procesa esta respuesta como un mensaje de error.
-                        return response.bodyToMono(String.class)
-                                .map(errorMessage -> createErrorResponse(errorMessage));  // Crea una respuesta de error personalizada a partir del mensaje de error.
-                    } else {
-                        // Si el estado de la respuesta es exitoso, procesa la respuesta normalmente.
-                        return response.bodyToMono(GasolineraWrapperApiResponseIn.class)
-                                .map(this::mapToResponseOut);  // Mapea la respuesta exitosa a la clase de salida.
-                    }
-                });
+        String codigo = normalizarProvincia(codigoProvincia);
+        // Sirve desde el almacén de la instantánea nacional si ya se ha ingerido; si no, desde la caché por
+        // provincia, que solo consulta la API de terceros si no hay entrada o ha caducado.
+        return snapshotNacionalService.getProvincia(codigo)
+                .map(Mono::just)
+                .orElseGet(() -> gasolineraCache.get(codigo, this::fetchGasolinerasPorProvincia));
+    }
+
+    @Override
+    public Flux<GasolineraDTOout> streamGasolinerasPorProvincia(String codigoProvincia) {
+        String codigo = normalizarProvincia(codigoProvincia);
+        // Si los datos ya están en memoria se emiten desde ahí; si no, se obtienen por el mismo camino que la
+        // respuesta completa (caché con una sola petición en vuelo por provincia, descarga condicional y canal de
+        // resiliencia), de modo que los clientes del flujo no multiplican las peticiones a la API de terceros.
+        return snapshotNacionalService.streamProvincia(codigo)
+                .or(() -> gasolineraCache.peek(codigo)
+                        .map(respuesta -> Flux.fromIterable(respuesta.getListaEESSPrecio()).map(GasolineraDTOout::new)))
+                .orElseGet(() -> gasolineraCache.get(codigo, this::fetchGasolinerasPorProvincia)
+                        .flatMapMany(respuesta -> gasolinerasOError(codigo, respuesta)));
+    }
+
+    @Override
+    public Flux<GasolineraDTOout> getGasolinerasPorProvincias(List<String> codigosProvincia) {
+        if (codigosProvincia == null || codigosProvincia.isEmpty()) {
+            throw new IllegalArgumentException("Debe indicarse al menos un código de provincia.");
+        }
+        // Se validan y normalizan todos los códigos antes de lanzar ninguna consulta; los repetidos se consultan una vez
+        Set<String> codigos = new LinkedHashSet<>();
+        for (String codigo : codigosProvincia) {
+            codigos.add(normalizarProvincia(codigo));
+        }
+        return fanOut(Flux.fromIterable(codigos));
+    }
+
+    @Override
+    public Flux<GasolineraDTOout> getGasolinerasPorComunidad(String codigoCa) {
+        // Las provincias de la comunidad salen de la instantánea en memoria, sin consultar la base de datos
+        return Mono.fromCallable(() -> fetchComunidad(codigoCa))
+                .flatMapMany(comunidad -> fanOut(Flux.fromIterable(comunidad.getProvincias())
+                        .map(provincia -> CodigosTerritoriales.normalizarCodigo(provincia.getCodigoProvincia()))));
+    }
+
+    @Override
+    public Mono<RespuestaCodificada> getGasolinerasCodificadas(String codigoProvincia) {
+        String codigo = normalizarProvincia(codigoProvincia);
+        String clave = "provincia:" + codigo;
+        // Con la instantánea nacional, la respuesta se escribe directamente desde el almacén (con los valores de
+        // diccionario ya codificados) una sola vez por instantánea publicada: la propia instantánea identifica la
+        // versión de los bytes. Tras un reinicio es la última instantánea guardada en disco, que se sirve aunque la API
+        // no responda (cortocircuito abierto); el instante de descarga permite al controlador indicar su antigüedad.
+        Optional<SnapshotNacional> snapshot = snapshotNacionalService.getSnapshot()
+                .filter(s -> s.contieneProvincia(codigo));
+        if (snapshot.isPresent()) {
+            // Si la última descarga no trajo cambios, la instantánea sigue siendo la misma pero está verificada más tarde
+            return Mono.fromSupplier(() -> respuestaCodificadaCache.obtenerJson(clave, snapshot.get(), snapshot.get().getObtenido(),
+                            () -> gasolineraJsonEncoder.encodeProvincia(snapshot.get(), codigo))
+                    .conObtenido(snapshotNacionalService.getVerificado(snapshot.get())));
+        }
+        // Se trabaja con la instancia compartida de la caché (sin copiar): solo se serializa y nunca se modifica.
+        return gasolineraCache.getCompartida(codigo, this::fetchGasolinerasPorProvincia)
+                .map(respuesta -> "OK".equals(respuesta.getResultadoConsulta())
+                        ? respuestaCodificadaCache.obtener(clave, respuesta)
+                        : respuestaCodificadaCache.codificar(respuesta));  // Las respuestas de error no se guardan
+    }
+
+    @Override
+    public Optional<Instant> getVerificadoInstantanea(Collection<String> codigosProvincia) {
+        // Mismo criterio que los métodos de consulta: una provincia ausente de la instantánea se sirve desde la caché
+        return snapshotNacionalService.getSnapshot()
+                .filter(snapshot -> codigosProvincia.stream().allMatch(snapshot::contieneProvincia))
+                .map(snapshotNacionalService::getVerificado);
+    }
+
+    @Override
+    public Optional<Instant> getVerificadoInstantaneaComunidad(String codigoCa) {
+        return referenciaTerritorial.getComunidad(codigoCa)
+                .flatMap(comunidad -> getVerificadoInstantanea(comunidad.getProvincias().stream()
+                        .map(provincia -> CodigosTerritoriales.normalizarCodigo(provincia.getCodigoProvincia()))
+                        .toList()));
+    }
+
+    @Override
+    public Mono<List<GasolineraCercanaDTO>> getGasolinerasCercanas(double latitud, double longitud, double radioKm,
+                                                                    String combustible, String orden, int limite) {
+        validateCoordenadas(latitud, longitud);
+        if (!(radioKm > 0) || radioKm > radioMaximoKm) {
+            throw new IllegalArgumentException("El radio debe ser mayor que 0 y no superar " + radioMaximoKm + " km.");
+        }
+        validateLimite(limite);
+        boolean porPrecio = parseOrden(orden);
+        TipoCombustible tipo = combustible == null || combustible.isBlank() ? null : TipoCombustible.parse(combustible);
+
+        return Mono.fromSupplier(() -> {
+            SnapshotNacional snapshot = getSnapshotDisponible();
+            AlmacenEstaciones almacen = snapshot.getAlmacen();
+            List<GasolineraCercanaDTO> resultado = new ArrayList<>();
+            for (IndiceEspacial.Cercana cercana : snapshot.getIndiceEspacial().buscar(latitud, longitud, radioKm, tipo, porPrecio, limite)) {
+                int fila = cercana.fila();
+                resultado.add(new GasolineraCercanaDTO(
+                        Math.round(cercana.distanciaKm() * 1000.0) / 1000.0,  // Redondeo a metros
+                        tipo == null ? null : tipo.getDescripcion(),
+                        tipo == null ? null : PrecioCombustible.format(almacen.precio(fila, tipo)),
+                        GasolineraMapper.mapFilaToGasolineraDTOout(almacen, fila)));
+            }
+            return resultado;
+        });
+    }
+
+    @Override
+    public Mono<List<GasolineraDTOout>> buscarGasolineras(String consulta, String codigoProvincia, int limite) {
+        if (consulta == null || consulta.isBlank()) {
+            throw new IllegalArgumentException("El texto de búsqueda no puede estar vacío.");
+        }
+        if (consulta.length() > LONGITUD_MAXIMA_BUSQUEDA) {
+            throw new IllegalArgumentException("El texto de búsqueda no puede superar " + LONGITUD_MAXIMA_BUSQUEDA + " caracteres.");
+        }
+        int provincia = 0;
+        if (codigoProvincia != null && !codigoProvincia.isBlank()) {
+            provincia = AlmacenEstaciones.codigoProvincia(codigoProvincia);
+            if (provincia == 0) {
+                throw new IllegalArgumentException("Código de provincia no válido: " + codigoProvincia);
+            }
+        }
+        validateLimite(limite);
+        int provinciaBusqueda = provincia;
+
+        return Mono.fromSupplier(() -> {
+            SnapshotNacional snapshot = getSnapshotDisponible();
+            AlmacenEstaciones almacen = snapshot.getAlmacen();
+            // Las filas del almacén están agrupadas por provincia: acotar a una provincia es acotar el rango de filas
+            int desde = provinciaBusqueda == 0 ? 0 : almacen.inicio(provinciaBusqueda);
+            int hasta = provinciaBusqueda == 0 ? almacen.size() : almacen.fin(provinciaBusqueda);
+            int[] filas = snapshot.getIndiceTexto().buscar(consulta, desde, hasta, limite);
+            List<GasolineraDTOout> resultado = new ArrayList<>(filas.length);
+            for (int fila : filas) {
+                resultado.add(GasolineraMapper.mapFilaToGasolineraDTOout(almacen, fila));
+            }
+            return resultado;
+        });
+    }
+
+    @Override
+    public Mono<List<GasolineraPrecioDTO>> getMasBaratas(String combustible, int limite) {
+        TipoCombustible tipo = TipoCombustible.parse(combustible);
+        validateLimite(limite);
+        return ranking(tipo, indice -> indice.masBaratas(tipo, limite));
+    }
+
+    @Override
+    public Mono<List<GasolineraPrecioDTO>> getMasBaratasPorProvincia(String codigoProvincia, String combustible, int limite) {
+        int provincia = AlmacenEstaciones.codigoProvincia(codigoProvincia);
+        if (provincia == 0) {
+            throw new IllegalArgumentException("Código de provincia no válido: " + codigoProvincia);
+        }
+        TipoCombustible tipo = TipoCombustible.parse(combustible);
+        validateLimite(limite);
+        return ranking(tipo, indice -> indice.masBaratasProvincia(tipo, provincia, limite));
+    }
+
+    @Override
+    public Mono<List<GasolineraPrecioDTO>> getMasBaratasPorComunidad(String codigoCa, String combustible, int limite) {
+        TipoCombustible tipo = TipoCombustible.parse(combustible);
+        validateLimite(limite);
+        return Mono.fromCallable(() -> fetchComunidad(codigoCa))
+                .map(comunidad -> comunidad.getProvincias().stream().mapToInt(Provincia::getCodigoProvincia).toArray())
+                .flatMap(provincias -> ranking(tipo, indice -> indice.masBaratasProvincias(tipo, provincias, limite)));
+    }
+
+    @Override
+    public Mono<HistoricoProvinciaDTO> getHistoricoPorProvincia(String codigoProvincia, LocalDate desde, LocalDate hasta) {
+        int provincia = AlmacenEstaciones.codigoProvincia(codigoProvincia);
+        if (provincia == 0) {
+            throw new IllegalArgumentException("Código de provincia no válido: " + codigoProvincia);
+        }
+        LocalDate fin = hasta != null ? hasta : LocalDate.now(ZONA_HISTORICO);
+        LocalDate inicio = desde != null ? desde : fin.minusDays(7);
+        if (inicio.isAfter(fin)) {
+            throw new IllegalArgumentException("La fecha 'desde' no puede ser posterior a 'hasta'.");
+        }
+        if (ChronoUnit.DAYS.between(inicio, fin) >= historicoMaximoDias) {
+            throw new IllegalArgumentException("El rango del histórico no puede superar " + historicoMaximoDias + " días.");
+        }
+        Instant instanteDesde = inicio.atStartOfDay(ZONA_HISTORICO).toInstant();
+        Instant instanteHasta = fin.plusDays(1).atStartOfDay(ZONA_HISTORICO).toInstant().minusSeconds(1);
+        // La lectura recorre el fichero mapeado en disco, por lo que se ejecuta fuera de los hilos de la petición
+        return Mono.fromCallable(() -> historicoPrecios.leer(provincia, instanteDesde, instanteHasta))
+                .subscribeOn(Schedulers.boundedElastic())
+                .map(estaciones -> new HistoricoProvinciaDTO(SnapshotNacional.normalizarCodigo(codigoProvincia),
+                        inicio.toString(), fin.toString(), estaciones));
+    }
+
+    // Consulta cada provincia con getGasolinerasPorProvincia, como mucho concurrenciaLote a la vez, y concatena
+    // sus gasolineras en el orden de entrada: la latencia total es la de la provincia más lenta de cada tanda.
+    // Si la API devuelve un error para alguna provincia, el flujo termina con ProvinciaNoDisponibleException
+    // en lugar de omitir esa provincia en silencio: con application/json se responde 502, pero en streaming la
+    // respuesta ya se ha enviado con 200 y el controlador añade el error como último elemento del flujo.
+    private Flux<GasolineraDTOout> fanOut(Flux<String> codigos) {
+        return codigos.flatMapSequential(codigo -> getGasolinerasPorProvincia(codigo)
+                        .flatMapMany(respuesta -> gasolinerasOError(codigo, respuesta)),
+                concurrenciaLote);
+    }
+
+    // Construye la respuesta de un ranking de precios a partir de las filas devueltas por el índice de precios
+    private Mono<List<GasolineraPrecioDTO>> ranking(TipoCombustible tipo, Function<IndicePrecios, int[]> consulta) {
+        return Mono.fromSupplier(() -> {
+            SnapshotNacional snapshot = getSnapshotDisponible();
+            AlmacenEstaciones almacen = snapshot.getAlmacen();
+            int[] filas = consulta.apply(snapshot.getIndicePrecios());
+            List<GasolineraPrecioDTO> resultado = new ArrayList<>(filas.length);
+            for (int fila : filas) {
+                resultado.add(new GasolineraPrecioDTO(tipo.getDescripcion(),
+                        PrecioCombustible.format(almacen.precio(fila, tipo)),
+                        GasolineraMapper.mapFilaToGasolineraDTOout(almacen, fila)));
+            }
+            return resultado;
+        });
+    }
+
+    private SnapshotNacional getSnapshotDisponible() {
+        return snapshotNacionalService.getSnapshot()
+                .orElseThrow(() -> new CustomNotFoundException("La instantánea nacional de gasolineras todavía no está disponible."));
+    }
+
+    private ComunidadAutonoma fetchComunidad(String codigoCa) {
+        return referenciaTerritorial.getComunidad(codigoCa)
+                .orElseThrow(() -> new CustomNotFoundException("ComunidadAutonoma con código " + codigoCa + " no encontrada"));
+    }
+
+    private void validateLimite(int limite) {
+        if (limite < 1 || limite > limiteMaximo) {
+            throw new IllegalArgumentException("El límite debe estar entre 1 y " + limiteMaximo + ".");
+        }
+    }
+
+    private void validateCoordenadas(double latitud, double longitud) {
+        if (!(latitud >= -90 && latitud <= 90) || !(longitud >= -180 && longitud <= 180)) {
+            throw new IllegalArgumentException("Coordenadas no válidas: la latitud debe estar entre -90 y 90 y la longitud entre -180 y 180.");
+        }
+    }
+
+    private boolean parseOrden(String orden) {
+        if (orden == null || orden.isBlank() || "distancia".equalsIgnoreCase(orden)) {
+            return false;
+        }
+        if ("precio".equalsIgnoreCase(orden)) {
+            return true;
+        }
+        throw new IllegalArgumentException("Orden no válido: " + orden + ". Valores admitidos: distancia, precio.");
+    }
+
+    // Gasolineras de la respuesta de una provincia; si la API de terceros devolvió un error, se propaga como error
+    private static Flux<GasolineraDTOout> gasolinerasOError(String codigoProvincia, GasolineraWrapperApiResponseOut respuesta) {
+        if (respuesta.getListaEESSPrecio() == null) {
+            return Flux.error(new ProvinciaNoDisponibleException(codigoProvincia, respuesta.getResultadoConsulta()));
+        }
+        return Flux.fromIterable(respuesta.getListaEESSPrecio());
+    }
+
+    /**
+     * Valida un código de provincia y lo devuelve en su forma canónica de dos dígitos ("8" y "08" son la
+     * misma provincia), que es la que se usa en todas las claves de caché y en la URL de la API de terceros.
+     */
+    private static String normalizarProvincia(String codigoProvincia) {
+        if (AlmacenEstaciones.codigoProvincia(codigoProvincia) == 0) {
+            throw new IllegalArgumentException("Código de provincia no válido: " + codigoProvincia);
+        }
+        return SnapshotNacional.normalizarCodigo(codigoProvincia);
+    }
+
+    private Mono<GasolineraWrapperApiResponseOut> fetchGasolinerasPorProvincia(String codigoProvincia) {
+        // Cortocircuito, petición duplicada ante latencias altas, reintentos con presupuesto y limitador de tasa.
+        // Los errores HTTP atraviesan el canal como errores (el cortocircuito los registra y los 5xx se
+        // reintentan) y solo al salir de él se convierten en la respuesta de error.
+        return resilienciaUpstream.ejecutar(() -> requestGasolinerasPorProvincia(codigoProvincia))
+                .onErrorResume(WebClientResponseException.class, error -> Mono.just(createErrorResponse(
+                        error.getResponseBodyAsString().isEmpty() ? error.getStatusText() : error.getResponseBodyAsString())));
+    }
+
+    private Mono<GasolineraWrapperApiResponseOut> requestGasolinerasPorProvincia(String codigoProvincia) {
+        // Petición condicional frente a la entrada de la caché: si la provincia no ha cambiado desde la última
+        // descarga (304 o cuerpo idéntico) se devuelve la misma instancia cacheada.
+        return descargaCondicional.descargar("provincia:" + codigoProvincia,
+                webClient.get().uri(uriBuilder -> uriBuilder.path(codigoProvincia).build()),  // Construye la URI con el código de provincia
+                () -> gasolineraCache.peek(codigoProvincia).orElse(null),
+                // Si el estado de la respuesta indica un error, se propaga como WebClientResponseException con el cuerpo.
+                response -> response.createException().flatMap(Mono::error),
+                // Si el estado de la respuesta es exitoso, decodifica el cuerpo en streaming gasolinera a gasolinera.
+                body -> gasolineraStreamDecoder.decodeToWrapper(body)
+                        .map(this::completarRespuesta));  // Completa el resultado de la consulta.
     }
 
     private GasolineraWrapperApiResponseOut createErrorResponse(String errorMessage) {
@@ -59,20 +392,13 @@ public class GasolineraServiceImpl implements GasolineraService {
         return response;
     }
 
-    private GasolineraWrapperApiResponseOut mapToResponseOut(GasolineraWrapperApiResponseIn response) {
-        // Prepara la respuesta de salida mapeando desde la respuesta de la API de terceros.
-        GasolineraWrapperApiResponseOut responseOut = new GasolineraWrapperApiResponseOut();
-        responseOut.setFecha(response.getFecha());  // Asigna la fecha de la respuesta original.
-        responseOut.setNota(response.getNota());  // Asigna la nota de la respuesta original.
-        if (response.getListaEESSPrecio() == null || response.getListaEESSPrecio().isEmpty()) {
+    private GasolineraWrapperApiResponseOut completarRespuesta(GasolineraWrapperApiResponseOut responseOut) {
+        // La fecha, la nota y las gasolineras ya vienen mapeadas por el decodificador en streaming.
+        if (responseOut.getListaEESSPrecio() == null || responseOut.getListaEESSPrecio().isEmpty()) {
             // Si no hay datos, configura el mensaje de resultado de consulta.
             responseOut.setResultadoConsulta("No se encontraron datos para el código de provincia proporcionado.");
             responseOut.setListaEESSPrecio(Collections.emptyList());  // Retorna una lista vacía.
         } else {
-            // Si hay datos, los transforma y mapea a la estructura de salida deseada.
-            responseOut.setListaEESSPrecio(response.getListaEESSPrecio().stream()
-                    .map(gasolineraMapper::mapToGasolineraDTOout)
-                    .collect(Collectors.toList()));
             responseOut.setResultadoConsulta("OK");  // Establece el resultado de la consulta como "OK".
         }
         return responseOut;
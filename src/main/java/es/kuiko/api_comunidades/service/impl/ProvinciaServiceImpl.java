@@ -4,6 +4,7 @@ import java.util.List;
 import java.util.Optional;
 
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.validation.annotation.Validated;
 
 import es.kuiko.api_comunidades.dto.ProvinciaDTO;
@@ -15,6 +16,9 @@ import es.kuiko.api_comunidades.model.ComunidadAutonoma;
 import es.kuiko.api_comunidades.repository.ComunidadAutonomaRepository;
 import es.kuiko.api_comunidades.repository.ProvinciaRepository;
 import es.kuiko.api_comunidades.service.ProvinciaService;
+import es.kuiko.api_comunidades.service.cache.RespuestaCodificada;
+import es.kuiko.api_comunidades.service.referencia.CodigosTerritoriales;
+import es.kuiko.api_comunidades.service.referencia.ReferenciaTerritorial;
 
 @Service
 @Validated
@@ -22,28 +26,47 @@ public class ProvinciaServiceImpl implements ProvinciaService {
 
     private final ProvinciaRepository provinciaRepository;
     private final ComunidadAutonomaRepository comunidadAutonomaRepository;
+    private final ReferenciaTerritorial referenciaTerritorial;
 
-    public ProvinciaServiceImpl(ProvinciaRepository provinciaRepository, ComunidadAutonomaRepository comunidadAutonomaRepository) {
+    public ProvinciaServiceImpl(ProvinciaRepository provinciaRepository, ComunidadAutonomaRepository comunidadAutonomaRepository,
+                                ReferenciaTerritorial referenciaTerritorial) {
         this.provinciaRepository = provinciaRepository;
         this.comunidadAutonomaRepository = comunidadAutonomaRepository;
+        this.referenciaTerritorial = referenciaTerritorial;
     }
 
+    // Las lecturas se sirven desde la instantánea en memoria; las escrituras, transaccionales y con el
+    // mínimo de sentencias SQL, la invalidan para que se reconstruya tras el commit
+
     @Override
     public List<Provincia> getAll() {
-        return provinciaRepository.findAll();
+        return referenciaTerritorial.getProvincias();
     }
 
     @Override
     public Optional<Provincia> getById(Integer codigoProvincia) {
-        validateCodigoProvincia(codigoProvincia);
-        return provinciaRepository.findById(codigoProvincia);
+        CodigosTerritoriales.validarCodigoProvincia(codigoProvincia);
+        return referenciaTerritorial.getProvincia(codigoProvincia);
+    }
+
+    @Override
+    public RespuestaCodificada getAllCodificado() {
+        return referenciaTerritorial.getProvinciasCodificadas();
+    }
+
+    @Override
+    public Optional<RespuestaCodificada> getByIdCodificado(Integer codigoProvincia) {
+        CodigosTerritoriales.validarCodigoProvincia(codigoProvincia);
+        return referenciaTerritorial.getProvinciaCodificada(codigoProvincia);
     }
     
 	@Override
 	public Optional<ProvinciaInfoComunidadDTO> getProvinciaComunidadInfoById(Integer codigoProvincia) {
-		 validateCodigoProvincia(codigoProvincia);
-		 ensureProvinciaExists(codigoProvincia);
-		 Optional<Provincia> optionalProvincia = provinciaRepository.findProvinciaComunidadInfoById(codigoProvincia);
+		 CodigosTerritoriales.validarCodigoProvincia(codigoProvincia);
+		 Optional<Provincia> optionalProvincia = referenciaTerritorial.getProvincia(codigoProvincia);
+		 if (optionalProvincia.isEmpty()) {
+		     throw new CustomNotFoundException("Provincia con código " + codigoProvincia + " no encontrada");
+		 }
 	        return optionalProvincia.filter(provincia -> provincia.getComunidadAutonoma() != null)
 	        		.map(provincia -> new ProvinciaInfoComunidadDTO(
 	                provincia.getCodigoProvincia(),
@@ -54,8 +77,9 @@ public class ProvinciaServiceImpl implements ProvinciaService {
 	}
     
 	@Override
+    @Transactional
     public Provincia create(ProvinciaDTO provinciaDTO) {
-        validateCodigoProvincia(provinciaDTO.getCodigoProvincia());
+        CodigosTerritoriales.validarCodigoProvincia(provinciaDTO.getCodigoProvincia());
         ComunidadAutonoma comunidadAutonoma = fetchComunidadByCodigoCa(provinciaDTO.getCodigoCa());
         checkProvinciaDoesNotExist(provinciaDTO.getCodigoProvincia());
 
@@ -64,14 +88,18 @@ public class ProvinciaServiceImpl implements ProvinciaService {
         provincia.setNombreProvincia(provinciaDTO.getNombreProvincia());
         provincia.setComunidadAutonoma(comunidadAutonoma);
 
-        return provinciaRepository.save(provincia);
+        Provincia creada = provinciaRepository.save(provincia);
+        referenciaTerritorial.invalidar();
+        return creada;
     }
 
+    @Transactional
     public Provincia update(Integer codigoProvincia, ProvinciaDTO provinciaModificadaDTO) {
-        validateCodigoProvincia(codigoProvincia);
-        validateCodigoProvincia(provinciaModificadaDTO.getCodigoProvincia());
+        CodigosTerritoriales.validarCodigoProvincia(codigoProvincia);
+        CodigosTerritoriales.validarCodigoProvincia(provinciaModificadaDTO.getCodigoProvincia());
 
-        Provincia existingProvincia = provinciaRepository.findById(codigoProvincia)
+        // Con su comunidad en la misma consulta, para comprobar que no cambia
+        Provincia existingProvincia = provinciaRepository.findProvinciaComunidadInfoById(codigoProvincia)
             .orElseThrow(() -> new CustomNotFoundException("Provincia con código " + codigoProvincia + " no encontrada"));
 
         checkComunidadNotChanged(existingProvincia, provinciaModificadaDTO);
@@ -79,29 +107,22 @@ public class ProvinciaServiceImpl implements ProvinciaService {
         // Actualiza solo el nombre; la Comunidad Autónoma no se cambia
         existingProvincia.setNombreProvincia(provinciaModificadaDTO.getNombreProvincia());
 
-        return provinciaRepository.save(existingProvincia);
+        Provincia actualizada = provinciaRepository.save(existingProvincia);
+        referenciaTerritorial.invalidar();
+        return actualizada;
     }
 
+    @Transactional
     public void delete(Integer codigoProvincia) {
-        validateCodigoProvincia(codigoProvincia);
-        ensureProvinciaExists(codigoProvincia);
-        provinciaRepository.deleteById(codigoProvincia);
+        CodigosTerritoriales.validarCodigoProvincia(codigoProvincia);
+        if (provinciaRepository.deleteByCodigoProvincia(codigoProvincia) == 0) {
+            throw new CustomNotFoundException("Provincia con código " + codigoProvincia + " no encontrada");
+        }
+        referenciaTerritorial.invalidar();
     }
     
     // Métodos internos de validación para evitar duplicación (DRY)
     
-    private void validateCodigoProvincia(Integer codigoProvincia) {
-        if (codigoProvincia == null || codigoProvincia < 1) {
-            throw new IllegalArgumentException("El código de la Provincia no puede ser nulo y debe ser un número positivo");
-        }
-    }
-
-    private void ensureProvinciaExists(Integer codigoProvincia) {
-        if (!provinciaRepository.existsById(codigoProvincia)) {
-            throw new CustomNotFoundException("Provincia con código " + codigoProvincia + " no encontrada");
-        }
-    }
-
     private ComunidadAutonoma fetchComunidadByCodigoCa(String codigoCa) {
         if (codigoCa == null || codigoCa.isBlank()) {
             throw new IllegalArgumentException("El código de la Comunidad Autónoma no puede ser nulo ni estar vacío");
@@ -4,8 +4,11 @@ import es.kuiko.api_comunidades.model.ComunidadAutonoma;
 import es.kuiko.api_comunidades.model.Provincia;
 import es.kuiko.api_comunidades.service.data.DataLoaderService;
 import es.kuiko.api_comunidades.service.database.PersistenceService;
+import es.kuiko.api_comunidades.service.referencia.ReferenciaTerritorial;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.CommandLineRunner;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
@@ -28,10 +31,12 @@ import java.util.List;
  * </p>
  */
 @Service
+@Order(Ordered.HIGHEST_PRECEDENCE)  // Antes que el resto de inicializadores, que pueden consultar provincias
 public class DataInitializer implements CommandLineRunner {
 
     private final DataLoaderService dataLoaderService;
     private final PersistenceService persistenceService;
+    private final ReferenciaTerritorial referenciaTerritorial;
 
     @Value("${csv.comunidades.path}")
     private String comunidadesCsvPath;
@@ -44,10 +49,13 @@ public class DataInitializer implements CommandLineRunner {
      *
      * @param dataLoaderService Servicio encargado de cargar datos desde archivos CSV.
      * @param persistenceService Servicio encargado de persistir datos en la base de datos.
+     * @param referenciaTerritorial Instantánea en memoria que se construye con los datos ya cargados.
      */
-    public DataInitializer(DataLoaderService dataLoaderService, PersistenceService persistenceService) {
+    public DataInitializer(DataLoaderService dataLoaderService, PersistenceService persistenceService,
+                           ReferenciaTerritorial referenciaTerritorial) {
         this.dataLoaderService = dataLoaderService;
         this.persistenceService = persistenceService;
+        this.referenciaTerritorial = referenciaTerritorial;
     }
 
     /**
@@ -59,7 +67,8 @@ public class DataInitializer implements CommandLineRunner {
      * Este método utiliza el {@link DataLoaderService} para cargar los datos desde
      * los archivos CSV ubicados en las rutas especificadas por las propiedades
      * {@code csv.comunidades.path} y {@code csv.provincias.path}.
-     * A continuación, los datos son guardados en la base de datos usando el {@link PersistenceService}.
+     * A continuación, los datos son guardados en la base de datos usando el {@link PersistenceService}
+     * y se publica la instantánea en memoria de {@link ReferenciaTerritorial} de la que se sirven las lecturas.
      * </p>
      *
      * @param args Argumentos de línea de comandos (no utilizados).
@@ -73,5 +82,8 @@ public class DataInitializer implements CommandLineRunner {
         // Cargar y persistir provincias
         List<Provincia> provincias = dataLoaderService.loadProvincias(provinciasCsvPath);
         persistenceService.saveProvincias(provincias);
+
+        // Publicar la instantánea en memoria con los datos cargados
+        referenciaTerritorial.recargar();
     }
 }
@@ -0,0 +1,58 @@
+package es.kuiko.api_comunidades.service.init;
+
+import es.kuiko.api_comunidades.service.estaciones.SnapshotNacionalService;
+import es.kuiko.api_comunidades.service.estaciones.SnapshotPersistido;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+
+/**
+ * Restaura al arrancar la última instantánea nacional guardada en disco.
+ *
+ * <p>
+ * Se ejecuta como {@link CommandLineRunner}, después de {@link DataInitializer} (las estadísticas de
+ * precio necesitan las provincias en la base de datos) y antes de que la aplicación se declare lista,
+ * de modo que desde la primera petición hay datos que servir aunque la API de terceros no responda.
+ * Si la primera ingesta ya ha publicado una instantánea, la guardada se descarta.
+ * </p>
+ */
+@Service
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)  // Justo después de DataInitializer
+public class SnapshotInitializer implements CommandLineRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(SnapshotInitializer.class);
+
+    private final SnapshotPersistido snapshotPersistido;
+    private final SnapshotNacionalService snapshotNacionalService;
+
+    /**
+     * Constructor para inyectar la copia en disco de la instantánea y el servicio que la publica.
+     *
+     * @param snapshotPersistido Copia en disco de la última instantánea descargada.
+     * @param snapshotNacionalService Servicio que publica la instantánea restaurada.
+     */
+    public SnapshotInitializer(SnapshotPersistido snapshotPersistido, SnapshotNacionalService snapshotNacionalService) {
+        this.snapshotPersistido = snapshotPersistido;
+        this.snapshotNacionalService = snapshotNacionalService;
+    }
+
+    /**
+     * Carga la instantánea guardada y la publica si todavía no hay ninguna.
+     *
+     * @param args Argumentos de línea de comandos (no utilizados).
+     */
+    @Override
+    public void run(String... args) {
+        try {
+            snapshotPersistido.cargar().ifPresent(snapshotNacionalService::restaurar);
+        } catch (IOException e) {
+            // Un fichero dañado no impide arrancar: se espera a la primera ingesta
+            log.warn("No se pudo restaurar la instantánea nacional guardada en disco: {}", e.getMessage());
+        }
+    }
+}
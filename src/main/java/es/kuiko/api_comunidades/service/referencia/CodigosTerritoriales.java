@@ -0,0 +1,132 @@
+package es.kuiko.api_comunidades.service.referencia;
+
+/**
+ * Validación y normalización de los códigos de provincia y de Comunidad Autónoma.
+ *
+ * <p>Las comprobaciones recorren los caracteres del código contra tablas precalculadas, sin expresiones
+ * regulares, sin crear cadenas intermedias y sin convertir a {@code Integer}: se ejecutan en cada
+ * petición de los controladores y servicios de provincias, comunidades y gasolineras.</p>
+ */
+public final class CodigosTerritoriales {
+
+    /**
+     * Mayor código de provincia (Melilla).
+     */
+    public static final int MAX_PROVINCIA = 52;
+
+    // Códigos de dos cifras ya construidos ("01".."99"), para normalizar sin crear cadenas
+    private static final String[] CODIGOS_NORMALIZADOS = new String[100];
+    private static final boolean[] ALFANUMERICO = new boolean[128];
+
+    static {
+        for (int valor = 1; valor < CODIGOS_NORMALIZADOS.length; valor++) {
+            CODIGOS_NORMALIZADOS[valor] = valor < 10 ? "0" + valor : Integer.toString(valor);
+        }
+        for (char c = '0'; c <= '9'; c++) {
+            ALFANUMERICO[c] = true;
+        }
+        for (char c = 'A'; c <= 'Z'; c++) {
+            ALFANUMERICO[c] = true;
+            ALFANUMERICO[c + ('a' - 'A')] = true;
+        }
+    }
+
+    private CodigosTerritoriales() {
+    }
+
+    /**
+     * Interpreta un código numérico de una o dos cifras ({@code "8"}, {@code "08"}, {@code " 28 "}),
+     * ignorando los espacios de los extremos.
+     *
+     * @param codigo Código recibido.
+     * @return Su valor entre 1 y 99, o 0 si es nulo, está vacío o no es un código de una o dos cifras.
+     */
+    public static int parsearCodigo(CharSequence codigo) {
+        if (codigo == null) {
+            return 0;
+        }
+        int inicio = 0;
+        int fin = codigo.length();
+        while (inicio < fin && codigo.charAt(inicio) <= ' ') {
+            inicio++;
+        }
+        while (fin > inicio && codigo.charAt(fin - 1) <= ' ') {
+            fin--;
+        }
+        int longitud = fin - inicio;
+        if (longitud < 1 || longitud > 2) {
+            return 0;
+        }
+        int valor = 0;
+        for (int i = inicio; i < fin; i++) {
+            int cifra = codigo.charAt(i) - '0';
+            if (cifra < 0 || cifra > 9) {
+                return 0;
+            }
+            valor = valor * 10 + cifra;
+        }
+        return valor;
+    }
+
+    /**
+     * Convierte un código de provincia recibido como texto en un entero entre 1 y {@link #MAX_PROVINCIA}.
+     *
+     * @param codigo Código recibido.
+     * @return El código numérico, o 0 si no es un código de provincia válido.
+     */
+    public static int codigoProvincia(CharSequence codigo) {
+        int valor = parsearCodigo(codigo);
+        return valor <= MAX_PROVINCIA ? valor : 0;
+    }
+
+    /**
+     * Indica si un entero es un código de provincia existente (entre 1 y {@link #MAX_PROVINCIA}).
+     *
+     * @param codigo Código de provincia.
+     * @return true si está en el rango.
+     */
+    public static boolean esCodigoProvincia(int codigo) {
+        return codigo >= 1 && codigo <= MAX_PROVINCIA;
+    }
+
+    /**
+     * Formato de dos cifras de un código numérico ({@code 8} → {@code "08"}).
+     *
+     * @param valor Código entre 1 y 99.
+     * @return El código normalizado (siempre la misma instancia), o null si está fuera de rango.
+     */
+    public static String normalizarCodigo(int valor) {
+        return valor >= 1 && valor < CODIGOS_NORMALIZADOS.length ? CODIGOS_NORMALIZADOS[valor] : null;
+    }
+
+    /**
+     * Valida un código de provincia recibido en una petición de altas, consultas o modificaciones.
+     *
+     * @param codigoProvincia Código de la provincia.
+     * @throws IllegalArgumentException si el código es nulo o no es positivo.
+     */
+    public static void validarCodigoProvincia(Integer codigoProvincia) {
+        if (codigoProvincia == null || codigoProvincia < 1) {
+            throw new IllegalArgumentException("El código de la Provincia no puede ser nulo y debe ser un número positivo");
+        }
+    }
+
+    /**
+     * Indica si un código está formado solo por letras ASCII y cifras (como el antiguo {@code [A-Za-z0-9]+}).
+     *
+     * @param codigo Código a comprobar.
+     * @return true si no está vacío y todos sus caracteres son alfanuméricos ASCII.
+     */
+    public static boolean esAlfanumerico(CharSequence codigo) {
+        if (codigo == null || codigo.length() == 0) {
+            return false;
+        }
+        for (int i = 0; i < codigo.length(); i++) {
+            char c = codigo.charAt(i);
+            if (c >= ALFANUMERICO.length || !ALFANUMERICO[c]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
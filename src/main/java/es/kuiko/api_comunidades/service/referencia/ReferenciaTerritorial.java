@@ -0,0 +1,328 @@
+package es.kuiko.api_comunidades.service.referencia;
+
+import es.kuiko.api_comunidades.dto.ComunidadAutonomaCountProvinciasDTO;
+import es.kuiko.api_comunidades.model.ComunidadAutonoma;
+import es.kuiko.api_comunidades.model.Provincia;
+import es.kuiko.api_comunidades.repository.ComunidadAutonomaRepository;
+import es.kuiko.api_comunidades.service.cache.RespuestaCodificada;
+import es.kuiko.api_comunidades.service.cache.RespuestaCodificadaCache;
+import es.kuiko.api_comunidades.service.estaciones.EstadisticasPreciosService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Instantánea inmutable en memoria de las Comunidades Autónomas y Provincias.
+ *
+ * <p>Los datos de referencia (19 comunidades y 52 provincias) casi nunca cambian, por lo que las
+ * lecturas se sirven desde una copia en memoria en lugar de consultar JPA en cada petición: listas y
+ * tablas inmutables publicadas tras una referencia {@code volatile}. Las lecturas no toman ningún
+ * bloqueo ni ocupan una conexión del pool.</p>
+ *
+ * <p>La instantánea se reconstruye completa (copia en escritura) después de cada alta, modificación o
+ * borrado confirmado en base de datos; si la escritura forma parte de una transacción, la reconstrucción
+ * espera a su {@code commit}. Cada reconstrucción es una única consulta que trae las comunidades con sus
+ * provincias mediante un grafo de entidad. Las entidades de la instantánea son copias desligadas de la sesión de
+ * Hibernate, con las relaciones entre comunidad y provincias ya resueltas, y no deben modificarse.</p>
+ *
+ * <p>Las búsquedas por código usan {@link TablaProvincias} (array indexado por el código de provincia) y
+ * {@link TablaComunidades} (hash perfecto sobre los códigos de comunidad).</p>
+ *
+ * <p>Cada instantánea incluye además el JSON ya serializado (en claro y con gzip) de las colecciones de
+ * comunidades y provincias y de cada elemento, con un ETag basado en la versión de la instantánea y su
+ * instante de publicación como {@code Last-Modified}. Las lecturas de los endpoints de referencia no
+ * serializan nada.</p>
+ *
+ * <p>El número de provincias de cada comunidad se guarda en una tabla de contadores paralela a
+ * {@link TablaComunidades}. Como el alta, modificación y borrado de provincias invalidan la instantánea, los
+ * contadores se actualizan junto con el resto de datos y solo cuando la transacción se confirma. Por el mismo
+ * motivo, cada recarga recalcula también las estadísticas de precio ({@link EstadisticasPreciosService}), que
+ * agrupan las provincias por comunidad.</p>
+ */
+@Component
+public class ReferenciaTerritorial {
+
+    private static final Logger log = LoggerFactory.getLogger(ReferenciaTerritorial.class);
+
+    private final ComunidadAutonomaRepository comunidadAutonomaRepository;
+    private final RespuestaCodificadaCache respuestaCodificadaCache;
+    private final EstadisticasPreciosService estadisticasPreciosService;
+
+    // Distingue las versiones de distintos arranques, que empiezan todas en 1
+    private final String arranque = Long.toString(System.currentTimeMillis(), 36);
+    private long version;
+
+    private volatile Instantanea actual;
+
+    /**
+     * Constructor para inyectar el repositorio del que se construye la instantánea.
+     *
+     * @param comunidadAutonomaRepository Repositorio de Comunidades Autónomas, con sus provincias.
+     * @param respuestaCodificadaCache Codificador de las respuestas JSON precalculadas.
+     * @param estadisticasPreciosService Servicio de estadísticas de precio, que depende de la relación provincia-comunidad.
+     */
+    public ReferenciaTerritorial(ComunidadAutonomaRepository comunidadAutonomaRepository,
+                                 RespuestaCodificadaCache respuestaCodificadaCache,
+                                 EstadisticasPreciosService estadisticasPreciosService) {
+        this.comunidadAutonomaRepository = comunidadAutonomaRepository;
+        this.respuestaCodificadaCache = respuestaCodificadaCache;
+        this.estadisticasPreciosService = estadisticasPreciosService;
+    }
+
+    /**
+     * Todas las Comunidades Autónomas, con sus provincias, ordenadas por código.
+     *
+     * @return Lista inmutable de comunidades.
+     */
+    public List<ComunidadAutonoma> getComunidades() {
+        return instantanea().comunidades;
+    }
+
+    /**
+     * Busca una Comunidad Autónoma, con sus provincias, por su código.
+     *
+     * @param codigoCa Código de la Comunidad Autónoma.
+     * @return La comunidad, o vacío si no existe.
+     */
+    public Optional<ComunidadAutonoma> getComunidad(String codigoCa) {
+        return Optional.ofNullable(instantanea().comunidadesPorCodigo.get(codigoCa));
+    }
+
+    /**
+     * Número de provincias de una Comunidad Autónoma, leído de la tabla de contadores.
+     *
+     * @param codigoCa Código de la Comunidad Autónoma.
+     * @return El contador, o vacío si la comunidad no existe.
+     */
+    public Optional<ComunidadAutonomaCountProvinciasDTO> getCantidadProvincias(String codigoCa) {
+        Instantanea instantanea = instantanea();
+        int posicion = instantanea.comunidadesPorCodigo.posicion(codigoCa);
+        return posicion < 0 ? Optional.empty() : Optional.of(instantanea.cantidadProvincias[posicion]);
+    }
+
+    /**
+     * Número de provincias de todas las Comunidades Autónomas, ordenado por código de comunidad.
+     *
+     * @return Lista inmutable de contadores.
+     */
+    public List<ComunidadAutonomaCountProvinciasDTO> getCantidadesProvincias() {
+        return instantanea().cantidadesProvincias;
+    }
+
+    /**
+     * Todas las Provincias, con su comunidad, ordenadas por código.
+     *
+     * @return Lista inmutable de provincias.
+     */
+    public List<Provincia> getProvincias() {
+        return instantanea().provincias;
+    }
+
+    /**
+     * Busca una Provincia, con su comunidad, por su código.
+     *
+     * @param codigoProvincia Código de la Provincia.
+     * @return La provincia, o vacío si no existe.
+     */
+    public Optional<Provincia> getProvincia(int codigoProvincia) {
+        return Optional.ofNullable(instantanea().provinciasPorCodigo.get(codigoProvincia));
+    }
+
+    /**
+     * JSON precalculado de la lista de comunidades, con sus provincias.
+     *
+     * @return Respuesta codificada; {@link RespuestaCodificada#getObtenido()} es el instante de publicación.
+     */
+    public RespuestaCodificada getComunidadesCodificadas() {
+        return instantanea().comunidadesCodificadas;
+    }
+
+    /**
+     * JSON precalculado de una comunidad, con sus provincias.
+     *
+     * @param codigoCa Código de la Comunidad Autónoma.
+     * @return Respuesta codificada, o vacío si la comunidad no existe.
+     */
+    public Optional<RespuestaCodificada> getComunidadCodificada(String codigoCa) {
+        Instantanea instantanea = instantanea();
+        int posicion = instantanea.comunidadesPorCodigo.posicion(codigoCa);
+        return posicion < 0 ? Optional.empty() : Optional.of(instantanea.comunidadCodificada[posicion]);
+    }
+
+    /**
+     * JSON precalculado del número de provincias de todas las comunidades.
+     *
+     * @return Respuesta codificada; {@link RespuestaCodificada#getObtenido()} es el instante de publicación.
+     */
+    public RespuestaCodificada getCantidadesProvinciasCodificadas() {
+        return instantanea().cantidadesProvinciasCodificadas;
+    }
+
+    /**
+     * JSON precalculado de la lista de provincias.
+     *
+     * @return Respuesta codificada; {@link RespuestaCodificada#getObtenido()} es el instante de publicación.
+     */
+    public RespuestaCodificada getProvinciasCodificadas() {
+        return instantanea().provinciasCodificadas;
+    }
+
+    /**
+     * JSON precalculado de una provincia.
+     *
+     * @param codigoProvincia Código de la Provincia.
+     * @return Respuesta codificada, o vacío si la provincia no existe.
+     */
+    public Optional<RespuestaCodificada> getProvinciaCodificada(int codigoProvincia) {
+        Instantanea instantanea = instantanea();
+        return codigoProvincia > 0 && codigoProvincia < instantanea.provinciaCodificada.length
+                ? Optional.ofNullable(instantanea.provinciaCodificada[codigoProvincia])
+                : Optional.empty();
+    }
+
+    /**
+     * Marca la instantánea como desactualizada tras una escritura. Si hay una transacción en curso se
+     * reconstruye al confirmarse (y no se toca si se deshace); si no, se reconstruye en el momento.
+     */
+    public void invalidar() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    recargar();
+                }
+            });
+        } else {
+            recargar();
+        }
+    }
+
+    /**
+     * Reconstruye la instantánea desde la base de datos y la publica de forma atómica.
+     *
+     * <p>Las reconstrucciones se serializan: una recarga que empieza después de un {@code commit} siempre
+     * publica después de las anteriores, por lo que nunca se sustituye una instantánea por otra más antigua.
+     * Después se recalculan las estadísticas de precio con la última instantánea nacional.</p>
+     */
+    public synchronized void recargar() {
+        List<ComunidadAutonoma> comunidades = comunidadAutonomaRepository.findAllConProvincias();
+        version++;
+        Instantanea instantanea = construir(comunidades, arranque + "-" + version, Instant.now().truncatedTo(ChronoUnit.SECONDS));
+        actual = instantanea;
+        log.debug("Instantánea de referencia {}: {} comunidades y {} provincias", version,
+                instantanea.comunidades.size(), instantanea.provincias.size());
+        estadisticasPreciosService.recalcular();
+    }
+
+    private Instantanea instantanea() {
+        Instantanea instantanea = actual;
+        if (instantanea == null) {
+            // Primera lectura antes de la carga inicial de datos
+            recargar();
+            instantanea = actual;
+        }
+        return instantanea;
+    }
+
+    /**
+     * Copia las entidades gestionadas en entidades desligadas e inmutables en la práctica y serializa
+     * las respuestas de esta versión.
+     */
+    private Instantanea construir(List<ComunidadAutonoma> comunidades, String version, Instant modificado) {
+        Comparator<Provincia> porCodigoProvincia = Comparator.comparing(Provincia::getCodigoProvincia);
+        List<ComunidadAutonoma> copiasComunidades = new ArrayList<>(comunidades.size());
+        List<Provincia> copiasProvincias = new ArrayList<>();
+        for (ComunidadAutonoma comunidad : comunidades) {
+            ComunidadAutonoma copia = new ComunidadAutonoma(comunidad.getCodigoCa(), comunidad.getNombreCa());
+            List<Provincia> suyas = new ArrayList<>();
+            if (comunidad.getProvincias() != null) {
+                for (Provincia provincia : comunidad.getProvincias()) {
+                    suyas.add(new Provincia(provincia.getCodigoProvincia(), provincia.getNombreProvincia(), copia));
+                }
+            }
+            suyas.sort(porCodigoProvincia);
+            copia.setProvincias(List.copyOf(suyas));
+            copiasComunidades.add(copia);
+            copiasProvincias.addAll(suyas);
+        }
+
+        copiasComunidades.sort(Comparator.comparing(ComunidadAutonoma::getCodigoCa));
+        copiasProvincias.sort(porCodigoProvincia);
+        List<ComunidadAutonoma> listaComunidades = List.copyOf(copiasComunidades);
+        List<Provincia> listaProvincias = List.copyOf(copiasProvincias);
+        TablaComunidades tablaComunidades = TablaComunidades.construir(listaComunidades);
+        TablaProvincias tablaProvincias = TablaProvincias.construir(listaProvincias);
+
+        RespuestaCodificada[] comunidadCodificada = new RespuestaCodificada[tablaComunidades.capacidad()];
+        ComunidadAutonomaCountProvinciasDTO[] cantidadProvincias = new ComunidadAutonomaCountProvinciasDTO[tablaComunidades.capacidad()];
+        List<ComunidadAutonomaCountProvinciasDTO> cantidadesProvincias = new ArrayList<>(listaComunidades.size());
+        for (ComunidadAutonoma comunidad : listaComunidades) {
+            int posicion = tablaComunidades.posicion(comunidad.getCodigoCa());
+            comunidadCodificada[posicion] = codificar(comunidad, version + "-ca-" + comunidad.getCodigoCa(), modificado);
+            cantidadProvincias[posicion] = new ComunidadAutonomaCountProvinciasDTO(
+                    comunidad.getCodigoCa(), comunidad.getNombreCa(), comunidad.getProvincias().size());
+            cantidadesProvincias.add(cantidadProvincias[posicion]);
+        }
+        RespuestaCodificada[] provinciaCodificada = new RespuestaCodificada[tablaProvincias.capacidad()];
+        for (Provincia provincia : listaProvincias) {
+            provinciaCodificada[provincia.getCodigoProvincia()] =
+                    codificar(provincia, version + "-p-" + provincia.getCodigoProvincia(), modificado);
+        }
+
+        return new Instantanea(listaComunidades, tablaComunidades, listaProvincias, tablaProvincias,
+                codificar(listaComunidades, version + "-ca", modificado), comunidadCodificada,
+                codificar(listaProvincias, version + "-p", modificado), provinciaCodificada,
+                cantidadProvincias, List.copyOf(cantidadesProvincias),
+                codificar(cantidadesProvincias, version + "-cantidades", modificado));
+    }
+
+    private RespuestaCodificada codificar(Object valor, String etag, Instant modificado) {
+        return respuestaCodificadaCache.codificar(valor, "\"" + etag + "\"", modificado);
+    }
+
+    /**
+     * Versión publicada de los datos de referencia.
+     */
+    private static final class Instantanea {
+        private final List<ComunidadAutonoma> comunidades;
+        private final TablaComunidades comunidadesPorCodigo;
+        private final List<Provincia> provincias;
+        private final TablaProvincias provinciasPorCodigo;
+        private final RespuestaCodificada comunidadesCodificadas;
+        private final RespuestaCodificada[] comunidadCodificada;  // Por posición en comunidadesPorCodigo
+        private final RespuestaCodificada provinciasCodificadas;
+        private final RespuestaCodificada[] provinciaCodificada;  // Por código de provincia
+        private final ComunidadAutonomaCountProvinciasDTO[] cantidadProvincias;  // Por posición en comunidadesPorCodigo
+        private final List<ComunidadAutonomaCountProvinciasDTO> cantidadesProvincias;
+        private final RespuestaCodificada cantidadesProvinciasCodificadas;
+
+        private Instantanea(List<ComunidadAutonoma> comunidades, TablaComunidades comunidadesPorCodigo,
+                            List<Provincia> provincias, TablaProvincias provinciasPorCodigo,
+                            RespuestaCodificada comunidadesCodificadas, RespuestaCodificada[] comunidadCodificada,
+                            RespuestaCodificada provinciasCodificadas, RespuestaCodificada[] provinciaCodificada,
+                            ComunidadAutonomaCountProvinciasDTO[] cantidadProvincias,
+                            List<ComunidadAutonomaCountProvinciasDTO> cantidadesProvincias,
+                            RespuestaCodificada cantidadesProvinciasCodificadas) {
+            this.comunidades = comunidades;
+            this.comunidadesPorCodigo = comunidadesPorCodigo;
+            this.provincias = provincias;
+            this.provinciasPorCodigo = provinciasPorCodigo;
+            this.comunidadesCodificadas = comunidadesCodificadas;
+            this.comunidadCodificada = comunidadCodificada;
+            this.provinciasCodificadas = provinciasCodificadas;
+            this.provinciaCodificada = provinciaCodificada;
+            this.cantidadProvincias = cantidadProvincias;
+            this.cantidadesProvincias = cantidadesProvincias;
+            this.cantidadesProvinciasCodificadas = cantidadesProvinciasCodificadas;
+        }
+    }
+}
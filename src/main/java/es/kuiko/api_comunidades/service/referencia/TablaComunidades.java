@@ -0,0 +1,114 @@
+package es.kuiko.api_comunidades.service.referencia;
+
+import es.kuiko.api_comunidades.model.ComunidadAutonoma;
+
+import java.util.Collection;
+
+/**
+ * Comunidades Autónomas indexadas por su código con un hash perfecto.
+ *
+ * <p>Al construir la tabla se busca una semilla del hash con la que los códigos existentes (19
+ * comunidades) caen en posiciones distintas de una tabla de tamaño potencia de dos, al menos el doble
+ * del número de comunidades. Una búsqueda calcula el hash recorriendo los caracteres del código, lee una
+ * única posición y compara la clave: sin colisiones que recorrer, sin {@code HashMap} y sin asignar
+ * memoria.</p>
+ */
+public final class TablaComunidades {
+
+    private static final int INTENTOS_POR_TAMANO = 10_000;
+
+    private final String[] claves;
+    private final ComunidadAutonoma[] valores;
+    private final int semilla;
+    private final int mascara;
+
+    private TablaComunidades(String[] claves, ComunidadAutonoma[] valores, int semilla) {
+        this.claves = claves;
+        this.valores = valores;
+        this.semilla = semilla;
+        this.mascara = claves.length - 1;
+    }
+
+    /**
+     * Construye la tabla a partir de las comunidades indicadas.
+     *
+     * @param comunidades Comunidades con código no nulo y sin repetir.
+     * @return La tabla.
+     */
+    public static TablaComunidades construir(Collection<ComunidadAutonoma> comunidades) {
+        int n = Math.max(1, comunidades.size());
+        for (int tamano = Integer.highestOneBit(n * 2 - 1) << 1; ; tamano <<= 1) {
+            for (int semilla = 1; semilla <= INTENTOS_POR_TAMANO; semilla++) {
+                TablaComunidades tabla = intentar(comunidades, tamano, semilla);
+                if (tabla != null) {
+                    return tabla;
+                }
+            }
+        }
+    }
+
+    // Devuelve null si dos códigos caen en la misma posición con esta semilla
+    private static TablaComunidades intentar(Collection<ComunidadAutonoma> comunidades, int tamano, int semilla) {
+        String[] claves = new String[tamano];
+        ComunidadAutonoma[] valores = new ComunidadAutonoma[tamano];
+        for (ComunidadAutonoma comunidad : comunidades) {
+            int posicion = hash(comunidad.getCodigoCa(), semilla) & (tamano - 1);
+            if (claves[posicion] != null) {
+                if (claves[posicion].equals(comunidad.getCodigoCa())) {
+                    throw new IllegalArgumentException("Código de comunidad repetido: " + comunidad.getCodigoCa());
+                }
+                return null;
+            }
+            claves[posicion] = comunidad.getCodigoCa();
+            valores[posicion] = comunidad;
+        }
+        return new TablaComunidades(claves, valores, semilla);
+    }
+
+    /**
+     * Busca una comunidad por su código.
+     *
+     * @param codigoCa Código de la Comunidad Autónoma.
+     * @return La comunidad, o null si no existe.
+     */
+    public ComunidadAutonoma get(String codigoCa) {
+        int posicion = posicion(codigoCa);
+        return posicion < 0 ? null : valores[posicion];
+    }
+
+    /**
+     * Posición de una comunidad en la tabla, para indexar datos asociados en arrays paralelos de
+     * tamaño {@link #capacidad()}.
+     *
+     * @param codigoCa Código de la Comunidad Autónoma.
+     * @return La posición, o -1 si la comunidad no existe.
+     */
+    public int posicion(String codigoCa) {
+        if (codigoCa == null) {
+            return -1;
+        }
+        int posicion = hash(codigoCa, semilla) & mascara;
+        return codigoCa.equals(claves[posicion]) ? posicion : -1;
+    }
+
+    /**
+     * Número de posiciones de la tabla (mayor que el número de comunidades).
+     *
+     * @return Tamaño de los arrays paralelos indexados por {@link #posicion(String)}.
+     */
+    public int capacidad() {
+        return claves.length;
+    }
+
+    // FNV-1a con la semilla como base, seguido de una mezcla final para repartir los bits bajos
+    private static int hash(String codigo, int semilla) {
+        int h = semilla * 0x9E3779B9;
+        for (int i = 0; i < codigo.length(); i++) {
+            h = (h ^ codigo.charAt(i)) * 0x01000193;
+        }
+        h ^= h >>> 16;
+        h *= 0x85EBCA6B;
+        h ^= h >>> 13;
+        return h;
+    }
+}
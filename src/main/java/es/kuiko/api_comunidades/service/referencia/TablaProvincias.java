@@ -0,0 +1,58 @@
+package es.kuiko.api_comunidades.service.referencia;
+
+import es.kuiko.api_comunidades.model.Provincia;
+
+import java.util.Collection;
+
+/**
+ * Provincias indexadas directamente por su código en un array denso.
+ *
+ * <p>Los códigos de provincia son los enteros 1..52, así que la búsqueda es un acceso a un array con
+ * el código como índice: sin {@code Integer}, sin hash y sin asignar memoria. Si se da de alta una
+ * provincia con un código mayor, el array crece hasta ese código.</p>
+ */
+public final class TablaProvincias {
+
+    private final Provincia[] porCodigo;
+
+    private TablaProvincias(Provincia[] porCodigo) {
+        this.porCodigo = porCodigo;
+    }
+
+    /**
+     * Construye la tabla a partir de las provincias indicadas.
+     *
+     * @param provincias Provincias con código positivo y sin repetir.
+     * @return La tabla.
+     */
+    public static TablaProvincias construir(Collection<Provincia> provincias) {
+        int maximo = CodigosTerritoriales.MAX_PROVINCIA;
+        for (Provincia provincia : provincias) {
+            maximo = Math.max(maximo, provincia.getCodigoProvincia());
+        }
+        Provincia[] porCodigo = new Provincia[maximo + 1];
+        for (Provincia provincia : provincias) {
+            porCodigo[provincia.getCodigoProvincia()] = provincia;
+        }
+        return new TablaProvincias(porCodigo);
+    }
+
+    /**
+     * Busca una provincia por su código.
+     *
+     * @param codigoProvincia Código de la provincia.
+     * @return La provincia, o null si no existe.
+     */
+    public Provincia get(int codigoProvincia) {
+        return codigoProvincia > 0 && codigoProvincia < porCodigo.length ? porCodigo[codigoProvincia] : null;
+    }
+
+    /**
+     * Tamaño del array (mayor código + 1), para indexar datos asociados por código en arrays paralelos.
+     *
+     * @return Número de posiciones del array.
+     */
+    public int capacidad() {
+        return porCodigo.length;
+    }
+}
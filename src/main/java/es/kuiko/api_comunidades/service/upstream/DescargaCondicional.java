@@ -0,0 +1,206 @@
+package es.kuiko.api_comunidades.service.upstream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Descargas condicionales de la API de terceros que evitan volver a procesar un documento sin cambios.
+ *
+ * <p>Para cada clave (una provincia o la instantánea nacional) se guardan los validadores de la última
+ * respuesta correcta ({@code ETag} y {@code Last-Modified}) y el hash SHA-256 de su cuerpo. El resultado
+ * no se guarda aquí: el llamante indica cuál es el vigente (la entrada de su caché o la instantánea
+ * publicada). Si hay resultado vigente, la siguiente descarga envía {@code If-None-Match} /
+ * {@code If-Modified-Since}; si la API responde 304, o si el cuerpo recibido es idéntico byte a byte al
+ * anterior, se devuelve la misma instancia del resultado vigente. Los llamantes pueden reconocer así un
+ * documento sin cambios comparando por identidad y no volver a publicarlo.</p>
+ *
+ * <p>Los documentos de una provincia son pequeños: {@link #descargar} los acumula, calcula el hash y, si el cuerpo
+ * no ha cambiado, no llega a decodificarlo. La excepción es el documento nacional, de varios MB, que se descarga con
+ * {@link #descargarEnStreaming}: el hash se calcula a medida que los buffers llegan al decodificador, sin acumular
+ * el cuerpo en memoria, así que un cuerpo idéntico sin 304 sí se decodifica y lo que se evita es la publicación y
+ * todo el trabajo posterior. La compresión gzip se negocia en el {@code HttpClient} de {@code WebClientConfig}.</p>
+ */
+@Component
+public class DescargaCondicional {
+
+    private static final Logger log = LoggerFactory.getLogger(DescargaCondicional.class);
+
+    private final ConcurrentHashMap<String, Estado> estados = new ConcurrentHashMap<>();
+    private final AtomicLong descargas = new AtomicLong();
+    private final AtomicLong noModificadas = new AtomicLong();
+    private final AtomicLong sinCambios = new AtomicLong();
+
+    /**
+     * Lanza una petición condicional y, si la respuesta es correcta, acumula el cuerpo y compara su hash con
+     * el del anterior antes de decodificarlo: un cuerpo idéntico no se decodifica. Pensado para documentos
+     * pequeños, como el de una provincia.
+     *
+     * @param clave Clave del documento, por ejemplo {@code "provincia:28"}.
+     * @param peticion Petición ya preparada (URI y cabeceras propias); se le añaden las cabeceras condicionales.
+     * @param vigente Proveedor del resultado vigente del llamante, o null si no tiene ninguno; sin resultado
+     *                vigente la petición no es condicional.
+     * @param siError Tratamiento de las respuestas con estado de error.
+     * @param decodificador Decodificador del cuerpo de una respuesta correcta.
+     * @param <T> Tipo del resultado decodificado.
+     * @return Un Mono con el resultado: el vigente (la misma instancia) si el documento no ha cambiado.
+     */
+    public <T> Mono<T> descargar(String clave, WebClient.RequestHeadersSpec<?> peticion, Supplier<T> vigente,
+                                 Function<ClientResponse, Mono<T>> siError,
+                                 Function<Flux<DataBuffer>, Mono<T>> decodificador) {
+        return intercambiar(clave, peticion, vigente, siError, (response, estado, anterior) ->
+                DataBufferUtils.join(response.bodyToFlux(DataBuffer.class))
+                        .flatMap(cuerpo -> {
+                            MessageDigest digest = nuevoDigest();
+                            actualizar(digest, cuerpo);
+                            byte[] hash = digest.digest();
+                            Estado nuevo = new Estado(validador(response, HttpHeaders.ETAG), validador(response, HttpHeaders.LAST_MODIFIED), hash);
+                            if (estado != null && Arrays.equals(estado.hash, hash)) {
+                                DataBufferUtils.release(cuerpo);
+                                estados.put(clave, nuevo);
+                                return Mono.just(sinCambios(clave, anterior));
+                            }
+                            return decodificador.apply(Flux.just(cuerpo))
+                                    .doOnNext(resultado -> estados.put(clave, nuevo));
+                        }));
+    }
+
+    /**
+     * Igual que {@link #descargar}, pero decodifica el cuerpo en streaming mientras calcula su hash, sin acumularlo
+     * en memoria. Es la variante para documentos grandes, como el nacional: como el hash solo se conoce al terminar,
+     * un cuerpo idéntico sin 304 sí se decodifica, y lo que se evita es el trabajo posterior a la descarga.
+     *
+     * @param clave Clave del documento, por ejemplo {@code "snapshot-nacional"}.
+     * @param peticion Petición ya preparada (URI y cabeceras propias); se le añaden las cabeceras condicionales.
+     * @param vigente Proveedor del resultado vigente del llamante, o null si no tiene ninguno.
+     * @param siError Tratamiento de las respuestas con estado de error.
+     * @param decodificador Decodificador en streaming del cuerpo de una respuesta correcta.
+     * @param <T> Tipo del resultado decodificado.
+     * @return Un Mono con el resultado: el vigente (la misma instancia) si el documento no ha cambiado.
+     */
+    public <T> Mono<T> descargarEnStreaming(String clave, WebClient.RequestHeadersSpec<?> peticion, Supplier<T> vigente,
+                                            Function<ClientResponse, Mono<T>> siError,
+                                            Function<Flux<DataBuffer>, Mono<T>> decodificador) {
+        return intercambiar(clave, peticion, vigente, siError, (response, estado, anterior) -> {
+            MessageDigest digest = nuevoDigest();
+            // Cada buffer se añade al hash antes de pasar al decodificador, que lo libera al consumirlo
+            return decodificador.apply(response.bodyToFlux(DataBuffer.class).doOnNext(buffer -> actualizar(digest, buffer)))
+                    .map(resultado -> {
+                        byte[] hash = digest.digest();
+                        estados.put(clave, new Estado(validador(response, HttpHeaders.ETAG), validador(response, HttpHeaders.LAST_MODIFIED), hash));
+                        return estado != null && Arrays.equals(estado.hash, hash) ? sinCambios(clave, anterior) : resultado;
+                    });
+        });
+    }
+
+    // Cabeceras condicionales, 304 y errores: comunes a las dos variantes, que solo difieren en cómo tratan el cuerpo
+    private <T> Mono<T> intercambiar(String clave, WebClient.RequestHeadersSpec<?> peticion, Supplier<T> vigente,
+                                     Function<ClientResponse, Mono<T>> siError, TratamientoCuerpo<T> tratamiento) {
+        return Mono.defer(() -> {
+            T anterior = vigente.get();
+            Estado estado = anterior != null ? estados.get(clave) : null;
+            if (estado != null) {
+                peticion.headers(cabeceras -> {
+                    if (estado.etag != null) {
+                        cabeceras.set(HttpHeaders.IF_NONE_MATCH, estado.etag);
+                    }
+                    if (estado.lastModified != null) {
+                        cabeceras.set(HttpHeaders.IF_MODIFIED_SINCE, estado.lastModified);
+                    }
+                });
+            }
+            return peticion.exchangeToMono(response -> {
+                descargas.incrementAndGet();
+                if (response.statusCode().isSameCodeAs(HttpStatus.NOT_MODIFIED) && estado != null) {
+                    noModificadas.incrementAndGet();
+                    log.debug("{}: la API responde 304, se reutiliza el resultado vigente", clave);
+                    return response.releaseBody().thenReturn(anterior);
+                }
+                if (!response.statusCode().is2xxSuccessful()) {
+                    return siError.apply(response);
+                }
+                return tratamiento.aplicar(response, estado, anterior);
+            });
+        });
+    }
+
+    private <T> T sinCambios(String clave, T anterior) {
+        sinCambios.incrementAndGet();
+        log.debug("{}: cuerpo idéntico al anterior, se reutiliza el resultado vigente", clave);
+        return anterior;
+    }
+
+    private static String validador(ClientResponse response, String cabecera) {
+        return response.headers().asHttpHeaders().getFirst(cabecera);
+    }
+
+    private static MessageDigest nuevoDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+
+    // Vistas de los bytes legibles: no se mueve la posición de lectura del buffer
+    private static void actualizar(MessageDigest digest, DataBuffer buffer) {
+        try (DataBuffer.ByteBufferIterator iterador = buffer.readableByteBuffers()) {
+            while (iterador.hasNext()) {
+                ByteBuffer bytes = iterador.next();
+                digest.update(bytes);
+            }
+        }
+    }
+
+    public long getDescargas() {
+        return descargas.get();
+    }
+
+    public long getNoModificadas() {
+        return noModificadas.get();
+    }
+
+    public long getSinCambios() {
+        return sinCambios.get();
+    }
+
+    /**
+     * Tratamiento del cuerpo de una respuesta correcta, con el estado y el resultado vigentes al lanzar la petición.
+     */
+    @FunctionalInterface
+    private interface TratamientoCuerpo<T> {
+        Mono<T> aplicar(ClientResponse response, Estado estado, T anterior);
+    }
+
+    /**
+     * Validadores y hash del cuerpo de la última respuesta correcta de una clave.
+     */
+    private static final class Estado {
+        private final String etag;
+        private final String lastModified;
+        private final byte[] hash;
+
+        private Estado(String etag, String lastModified, byte[] hash) {
+            this.etag = etag;
+            this.lastModified = lastModified;
+            this.hash = hash;
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package es.kuiko.api_comunidades.service.upstream;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+/**
+ * Ventana deslizante con las latencias de las últimas peticiones correctas a la API de terceros,
+ * a partir de la cual se estima un percentil (por ejemplo, el p95).
+ *
+ * <p>Las muestras se guardan en un buffer circular de tamaño fijo. El percentil se recalcula cada
+ * cierto número de muestras y se publica en un campo volátil, de modo que consultarlo en cada
+ * petición no requiere ordenar ni bloquear.</p>
+ */
+public final class LatenciasObservadas {
+
+    private static final int RECALCULAR_CADA = 16;
+
+    private final long[] muestras;
+    private final double percentil;
+    private final int muestrasMinimas;
+    private int siguiente;
+    private int total;
+    private volatile long percentilNanos = -1;
+
+    /**
+     * Crea una ventana de latencias.
+     *
+     * @param capacidad Número de muestras que se conservan.
+     * @param percentil Percentil a estimar, entre 0 y 1 (0,95 para el p95).
+     * @param muestrasMinimas Muestras necesarias antes de publicar una estimación.
+     */
+    public LatenciasObservadas(int capacidad, double percentil, int muestrasMinimas) {
+        if (capacidad < 1 || !(percentil > 0 && percentil < 1)) {
+            throw new IllegalArgumentException("Capacidad o percentil no válidos para la ventana de latencias");
+        }
+        this.muestras = new long[capacidad];
+        this.percentil = percentil;
+        this.muestrasMinimas = Math.max(1, Math.min(muestrasMinimas, capacidad));
+    }
+
+    /**
+     * Registra la latencia de una petición correcta.
+     *
+     * @param nanos Latencia en nanosegundos.
+     */
+    public void registrar(long nanos) {
+        long[] copia = null;
+        synchronized (this) {
+            muestras[siguiente] = nanos;
+            siguiente = (siguiente + 1) % muestras.length;
+            total++;
+            if (total >= muestrasMinimas && (total - muestrasMinimas) % RECALCULAR_CADA == 0) {
+                copia = Arrays.copyOf(muestras, Math.min(total, muestras.length));
+            }
+        }
+        if (copia != null) {
+            // La ordenación se hace fuera del bloqueo, sobre una copia
+            Arrays.sort(copia);
+            percentilNanos = copia[Math.min(copia.length - 1, (int) Math.ceil(percentil * copia.length) - 1)];
+        }
+    }
+
+    /**
+     * Latencia estimada para el percentil configurado.
+     *
+     * @return La estimación, o null si todavía no hay suficientes muestras.
+     */
+    public Duration estimacion() {
+        long nanos = percentilNanos;
+        return nanos < 0 ? null : Duration.ofNanos(nanos);
+    }
+}
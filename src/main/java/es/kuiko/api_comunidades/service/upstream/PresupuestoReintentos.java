@@ -0,0 +1,68 @@
+package es.kuiko.api_comunidades.service.upstream;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Presupuesto de peticiones adicionales (reintentos y peticiones duplicadas) expresado como una
+ * fracción del tráfico normal hacia la API de terceros.
+ *
+ * <p>Cada petición original deposita {@code ratio} créditos, hasta un saldo máximo; cada petición
+ * adicional consume un crédito entero. Con un ratio de 0,1 las peticiones adicionales nunca superan,
+ * de forma sostenida, el 10 % de las originales, por muchos fallos que se encadenen. Los créditos se
+ * guardan en milésimas para poder actualizarlos de forma atómica sin bloqueos.</p>
+ */
+public final class PresupuestoReintentos {
+
+    private static final long UNIDAD = 1000;
+
+    private final long deposito;
+    private final long saldoMaximo;
+    private final AtomicLong saldo;
+
+    /**
+     * Crea un presupuesto con el saldo máximo disponible desde el principio.
+     *
+     * @param ratio Fracción de las peticiones originales que se puede gastar en peticiones adicionales.
+     * @param saldoMaximo Número máximo de peticiones adicionales acumulables.
+     */
+    public PresupuestoReintentos(double ratio, int saldoMaximo) {
+        if (ratio < 0 || saldoMaximo < 0) {
+            throw new IllegalArgumentException("El ratio y el saldo máximo del presupuesto de reintentos no pueden ser negativos");
+        }
+        this.deposito = Math.round(ratio * UNIDAD);
+        this.saldoMaximo = saldoMaximo * UNIDAD;
+        this.saldo = new AtomicLong(this.saldoMaximo);
+    }
+
+    /**
+     * Registra una petición original, que aumenta el saldo disponible.
+     */
+    public void depositar() {
+        saldo.accumulateAndGet(deposito, (actual, incremento) -> Math.min(saldoMaximo, actual + incremento));
+    }
+
+    /**
+     * Intenta consumir una petición adicional del presupuesto.
+     *
+     * @return true si había saldo y se ha consumido; false si el presupuesto está agotado.
+     */
+    public boolean retirar() {
+        long actual;
+        do {
+            actual = saldo.get();
+            if (actual < UNIDAD) {
+                return false;
+            }
+        } while (!saldo.compareAndSet(actual, actual - UNIDAD));
+        return true;
+    }
+
+    /**
+     * Peticiones adicionales disponibles en este momento.
+     *
+     * @return Saldo entero disponible.
+     */
+    public long disponibles() {
+        return saldo.get() / UNIDAD;
+    }
+}
@@ -0,0 +1,246 @@
+package es.kuiko.api_comunidades.service.upstream;
+
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.ratelimiter.RateLimiter;
+import io.github.resilience4j.ratelimiter.RateLimiterConfig;
+import io.github.resilience4j.ratelimiter.RequestNotPermitted;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.NoSuchElementException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Canal de resiliencia para las peticiones a la API de terceros, construido con operadores de Reactor.
+ *
+ * <p>Sustituye a las anotaciones de resilience4j sobre métodos que devuelven {@code Mono}. Cada
+ * petición lógica pasa por:</p>
+ * <ul>
+ *   <li>un cortocircuito (circuit breaker) que deja de llamar a la API mientras falla de forma sostenida;</li>
+ *   <li>una petición duplicada (hedging): si la primera tarda más que el percentil observado (p95 por
+ *       defecto), se lanza una segunda y se queda la respuesta que llegue antes, cancelando la otra;</li>
+ *   <li>un tiempo máximo por intento;</li>
+ *   <li>reintentos con espera exponencial solo ante errores transitorios;</li>
+ *   <li>un limitador de tasa sobre cada petición que realmente sale hacia la API.</li>
+ * </ul>
+ *
+ * <p>Las peticiones duplicadas y los reintentos se pagan con un {@link PresupuestoReintentos} común,
+ * proporcional al tráfico, de modo que la amplificación de peticiones hacia la API queda acotada.
+ * Los contadores de peticiones originales, duplicadas y reintentos se registran periódicamente.</p>
+ */
+@Component
+public class ResilienciaUpstream {
+
+    private static final Logger log = LoggerFactory.getLogger(ResilienciaUpstream.class);
+
+    private final CircuitBreaker circuitBreaker;
+    private final RateLimiter rateLimiter;
+    private final LatenciasObservadas latencias;
+    private final PresupuestoReintentos presupuesto;
+    private final Duration timeout;
+    private final boolean hedgeEnabled;
+    private final Duration hedgeRetardoMinimo;
+    private final int reintentosMaximos;
+    private final Duration reintentosEspera;
+
+    private final AtomicLong originales = new AtomicLong();
+    private final AtomicLong enviadas = new AtomicLong();
+    private final AtomicLong duplicadas = new AtomicLong();
+    private final AtomicLong duplicadasGanadoras = new AtomicLong();
+    private final AtomicLong reintentos = new AtomicLong();
+    private final AtomicLong sinPresupuesto = new AtomicLong();
+
+    /**
+     * Constructor que crea el cortocircuito, el limitador, la ventana de latencias y el presupuesto
+     * de reintentos a partir de la configuración {@code gasolineras.upstream.*}.
+     */
+    public ResilienciaUpstream(
+            @Value("${gasolineras.upstream.timeout:2s}") Duration timeout,
+            @Value("${gasolineras.upstream.hedge.enabled:true}") boolean hedgeEnabled,
+            @Value("${gasolineras.upstream.hedge.percentil:0.95}") double hedgePercentil,
+            @Value("${gasolineras.upstream.hedge.retardo-minimo:50ms}") Duration hedgeRetardoMinimo,
+            @Value("${gasolineras.upstream.hedge.muestras-minimas:20}") int hedgeMuestrasMinimas,
+            @Value("${gasolineras.upstream.reintentos.maximo:2}") int reintentosMaximos,
+            @Value("${gasolineras.upstream.reintentos.espera:100ms}") Duration reintentosEspera,
+            @Value("${gasolineras.upstream.reintentos.ratio:0.1}") double reintentosRatio,
+            @Value("${gasolineras.upstream.reintentos.saldo-maximo:10}") int reintentosSaldoMaximo,
+            @Value("${gasolineras.upstream.circuit-breaker.ventana:10}") int cbVentana,
+            @Value("${gasolineras.upstream.circuit-breaker.llamadas-minimas:5}") int cbLlamadasMinimas,
+            @Value("${gasolineras.upstream.circuit-breaker.umbral-fallos:50}") float cbUmbralFallos,
+            @Value("${gasolineras.upstream.circuit-breaker.espera-abierto:30s}") Duration cbEsperaAbierto,
+            @Value("${gasolineras.upstream.circuit-breaker.llamadas-semiabierto:3}") int cbLlamadasSemiabierto,
+            @Value("${gasolineras.upstream.rate-limit.peticiones:500}") int rlPeticiones,
+            @Value("${gasolineras.upstream.rate-limit.periodo:1m}") Duration rlPeriodo) {
+        this.timeout = timeout;
+        this.hedgeEnabled = hedgeEnabled;
+        this.hedgeRetardoMinimo = hedgeRetardoMinimo;
+        this.reintentosMaximos = reintentosMaximos;
+        this.reintentosEspera = reintentosEspera;
+        this.latencias = new LatenciasObservadas(512, hedgePercentil, hedgeMuestrasMinimas);
+        this.presupuesto = new PresupuestoReintentos(reintentosRatio, reintentosSaldoMaximo);
+        this.circuitBreaker = CircuitBreaker.of("thirdPartyApiCircuitBreaker", CircuitBreakerConfig.custom()
+                .slidingWindowSize(cbVentana)
+                .minimumNumberOfCalls(cbLlamadasMinimas)
+                .failureRateThreshold(cbUmbralFallos)
+                .waitDurationInOpenState(cbEsperaAbierto)
+                .permittedNumberOfCallsInHalfOpenState(cbLlamadasSemiabierto)
+                .automaticTransitionFromOpenToHalfOpenEnabled(true)
+                // Un 4xx es un fallo de la petición, no de la API: no cuenta para abrir el cortocircuito
+                .ignoreException(ResilienciaUpstream::esErrorCliente)
+                .build());
+        this.rateLimiter = RateLimiter.of("apiLimiter", RateLimiterConfig.custom()
+                .limitForPeriod(rlPeticiones)
+                .limitRefreshPeriod(rlPeriodo)
+                .timeoutDuration(Duration.ZERO)  // Se rechaza en lugar de esperar
+                .build());
+    }
+
+    /**
+     * Ejecuta una petición lógica a la API de terceros a través del canal de resiliencia.
+     *
+     * @param peticion Proveedor de la petición; se invoca una vez por cada envío real (original,
+     *                 duplicada o reintento), por lo que debe devolver un Mono frío e idempotente.
+     * @param <T> Tipo de la respuesta.
+     * @return Un Mono con la respuesta de la petición que termine antes.
+     */
+    public <T> Mono<T> ejecutar(Supplier<Mono<T>> peticion) {
+        return Mono.defer(() -> {
+            if (!circuitBreaker.tryAcquirePermission()) {
+                return Mono.error(CallNotPermittedException.createCallNotPermittedException(circuitBreaker));
+            }
+            originales.incrementAndGet();
+            presupuesto.depositar();
+            long inicio = System.nanoTime();
+            return Mono.defer(() -> intento(peticion))
+                    .retryWhen(Retry.backoff(reintentosMaximos, reintentosEspera)
+                            // Un único predicado: en RetryBackoffSpec un segundo filter sustituye al primero.
+                            // Solo los errores transitorios llegan a consumir presupuesto
+                            .filter(error -> {
+                                if (!esTransitorio(error)) {
+                                    return false;
+                                }
+                                if (presupuesto.retirar()) {
+                                    reintentos.incrementAndGet();
+                                    return true;
+                                }
+                                sinPresupuesto.incrementAndGet();
+                                return false;
+                            })
+                            .onRetryExhaustedThrow((spec, senal) -> senal.failure()))
+                    .doOnSuccess(valor -> circuitBreaker.onSuccess(System.nanoTime() - inicio, TimeUnit.NANOSECONDS))
+                    .doOnError(error -> circuitBreaker.onError(System.nanoTime() - inicio, TimeUnit.NANOSECONDS, error))
+                    .doOnCancel(circuitBreaker::releasePermission);
+        });
+    }
+
+    // Un intento: la petición original y, si tarda más que el percentil observado, una duplicada
+    private <T> Mono<T> intento(Supplier<Mono<T>> peticion) {
+        Duration estimacion = latencias.estimacion();
+        if (!hedgeEnabled || estimacion == null) {
+            return enviar(peticion).timeout(timeout);
+        }
+        Duration retardo = estimacion.compareTo(hedgeRetardoMinimo) < 0 ? hedgeRetardoMinimo : estimacion;
+
+        AtomicReference<Throwable> primerError = new AtomicReference<>();
+        Sinks.Empty<Void> originalFallida = Sinks.empty();
+        Mono<T> original = enviar(peticion)
+                .doOnError(error -> {
+                    primerError.compareAndSet(null, error);
+                    originalFallida.tryEmitEmpty();
+                });
+        // La duplicada solo sale si la original sigue en curso al cumplirse el retardo y queda presupuesto
+        Mono<T> duplicada = Mono.delay(retardo)
+                .takeUntilOther(originalFallida.asMono())
+                .filter(tick -> {
+                    if (presupuesto.retirar()) {
+                        return true;
+                    }
+                    sinPresupuesto.incrementAndGet();
+                    return false;
+                })
+                .flatMap(tick -> {
+                    duplicadas.incrementAndGet();
+                    return enviar(peticion)
+                            .doOnSuccess(valor -> duplicadasGanadoras.incrementAndGet())
+                            .doOnError(error -> primerError.compareAndSet(null, error));
+                });
+
+        // Gana el primer valor; la petición perdedora se cancela
+        return Mono.firstWithValue(original, duplicada)
+                .onErrorMap(NoSuchElementException.class, error -> primerError.get() != null ? primerError.get() : error)
+                .timeout(timeout);
+    }
+
+    // Envío real hacia la API: pasa por el limitador de tasa y alimenta la ventana de latencias
+    private <T> Mono<T> enviar(Supplier<Mono<T>> peticion) {
+        return Mono.defer(() -> {
+            if (!rateLimiter.acquirePermission()) {
+                return Mono.error(RequestNotPermitted.createRequestNotPermitted(rateLimiter));
+            }
+            enviadas.incrementAndGet();
+            long inicio = System.nanoTime();
+            return peticion.get()
+                    .doOnSuccess(valor -> latencias.registrar(System.nanoTime() - inicio));
+        });
+    }
+
+    private static boolean esErrorCliente(Throwable error) {
+        return error instanceof WebClientResponseException respuesta && respuesta.getStatusCode().is4xxClientError();
+    }
+
+    private static boolean esTransitorio(Throwable error) {
+        if (error instanceof TimeoutException || error instanceof WebClientRequestException) {
+            return true;
+        }
+        return error instanceof WebClientResponseException respuesta && respuesta.getStatusCode().is5xxServerError();
+    }
+
+    /**
+     * Registra periódicamente los contadores del canal: peticiones lógicas, envíos reales, duplicadas,
+     * reintentos y peticiones adicionales descartadas por falta de presupuesto.
+     */
+    @Scheduled(fixedRateString = "${gasolineras.upstream.metricas-intervalo:PT5M}",
+               initialDelayString = "${gasolineras.upstream.metricas-intervalo:PT5M}")
+    public void registrarMetricas() {
+        long total = originales.get();
+        if (total == 0) {
+            return;
+        }
+        long envios = enviadas.get();
+        log.info("API de terceros: {} peticiones, {} envíos (amplificación {}), {} duplicadas ({} ganadoras), "
+                        + "{} reintentos, {} descartadas sin presupuesto, p95 {}, cortocircuito {}",
+                total, envios, String.format("%.3f", (double) envios / total), duplicadas.get(), duplicadasGanadoras.get(),
+                reintentos.get(), sinPresupuesto.get(), latencias.estimacion(), circuitBreaker.getState());
+    }
+
+    public long getPeticionesOriginales() {
+        return originales.get();
+    }
+
+    public long getPeticionesEnviadas() {
+        return enviadas.get();
+    }
+
+    public long getPeticionesDuplicadas() {
+        return duplicadas.get();
+    }
+
+    public long getReintentos() {
+        return reintentos.get();
+    }
+}
@@ -0,0 +1,59 @@
+package es.kuiko.api_comunidades.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.source.MapConfigurationPropertySource;
+
+import java.time.Duration;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ClienteHttpPropertiesTest {
+
+    private static ClienteHttpProperties enlazar(Map<String, String> propiedades) {
+        return new Binder(new MapConfigurationPropertySource(propiedades))
+                .bindOrCreate("api.cliente-http", ClienteHttpProperties.class);
+    }
+
+    @Test
+    void testValoresPorDefecto() {
+        ClienteHttpProperties propiedades = enlazar(Map.of());
+
+        assertTrue(propiedades.isPrecalentar());
+        assertEquals(2, propiedades.getConexionesIniciales());
+        assertFalse(propiedades.isHttp2());
+        assertEquals(Duration.ofSeconds(5), propiedades.getTimeoutConexion());
+        assertEquals(50, propiedades.getPool().getMaxConexiones());
+        assertEquals(Duration.ofSeconds(20), propiedades.getPool().getMaxInactividad());
+        assertEquals(1024, propiedades.getTls().getSesionesCache());
+    }
+
+    @Test
+    void testEnlazaPropiedadesAnidadasConNombresEnKebabCase() {
+        ClienteHttpProperties propiedades = enlazar(Map.of(
+                "api.cliente-http.precalentar", "false",
+                "api.cliente-http.conexiones-iniciales", "4",
+                "api.cliente-http.http2", "true",
+                "api.cliente-http.timeout-conexion", "3s",
+                "api.cliente-http.pool.max-conexiones", "10",
+                "api.cliente-http.pool.timeout-adquisicion", "500ms",
+                "api.cliente-http.pool.max-vida", "2m",
+                "api.cliente-http.pool.metricas", "false",
+                "api.cliente-http.tls.sesion-timeout", "30m",
+                "api.cliente-http.tls.timeout-handshake", "2s"));
+
+        assertFalse(propiedades.isPrecalentar());
+        assertEquals(4, propiedades.getConexionesIniciales());
+        assertTrue(propiedades.isHttp2());
+        assertEquals(Duration.ofSeconds(3), propiedades.getTimeoutConexion());
+        assertEquals(10, propiedades.getPool().getMaxConexiones());
+        assertEquals(Duration.ofMillis(500), propiedades.getPool().getTimeoutAdquisicion());
+        assertEquals(Duration.ofMinutes(2), propiedades.getPool().getMaxVida());
+        assertFalse(propiedades.getPool().isMetricas());
+        assertEquals(Duration.ofMinutes(30), propiedades.getTls().getSesionTimeout());
+        assertEquals(Duration.ofSeconds(2), propiedades.getTls().getTimeoutHandshake());
+        // Las propiedades no indicadas conservan su valor por defecto
+        assertEquals(200, propiedades.getPool().getMaxPendientes());
+    }
+}
@@ -0,0 +1,105 @@
+package es.kuiko.api_comunidades.config;
+
+import io.netty.handler.ssl.SslContext;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.netty.http.Http11SslContextSpec;
+import reactor.netty.http.Http2SslContextSpec;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+import reactor.netty.tcp.SslProvider;
+
+import javax.net.ssl.SSLException;
+import javax.net.ssl.TrustManagerFactory;
+import java.io.IOException;
+import java.security.KeyStore;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WebClientConfigTest {
+
+    private MockWebServer servidor;
+    private ConnectionProvider pool;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        servidor = new MockWebServer();
+        servidor.start();
+        pool = ConnectionProvider.builder("test").maxConnections(10).build();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        pool.dispose();
+        servidor.shutdown();
+    }
+
+    private static TrustManagerFactory confianzaPorDefecto() throws Exception {
+        TrustManagerFactory tmf = TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
+        tmf.init((KeyStore) null);
+        return tmf;
+    }
+
+    @SuppressWarnings("deprecation")
+    private static List<String> protocolosAlpn(SslProvider.ProtocolSslContextSpec spec) throws SSLException {
+        SslContext contexto = spec.sslContext();
+        return contexto.applicationProtocolNegotiator().protocols();
+    }
+
+    @Test
+    void testContextoSslHttp11PorDefecto() throws Exception {
+        SslProvider.ProtocolSslContextSpec spec = WebClientConfig.contextoSsl(new ClienteHttpProperties(), confianzaPorDefecto());
+
+        assertInstanceOf(Http11SslContextSpec.class, spec);
+        assertFalse(protocolosAlpn(spec).contains("h2"));
+    }
+
+    @Test
+    void testContextoSslHttp2AnunciaH2PorAlpn() throws Exception {
+        ClienteHttpProperties propiedades = new ClienteHttpProperties();
+        propiedades.setHttp2(true);
+
+        SslProvider.ProtocolSslContextSpec spec = WebClientConfig.contextoSsl(propiedades, confianzaPorDefecto());
+
+        assertInstanceOf(Http2SslContextSpec.class, spec);
+        assertTrue(protocolosAlpn(spec).contains("h2"));
+    }
+
+    @Test
+    void testAbrirConexionesLasDejaEnElPool() throws Exception {
+        for (int i = 0; i < 4; i++) {
+            servidor.enqueue(new MockResponse().setResponseCode(404));
+        }
+        HttpClient httpClient = HttpClient.create(pool);
+        String url = servidor.url("/api/").toString();
+
+        assertEquals(3, WebClientConfig.abrirConexiones(httpClient, url, 3, Duration.ofSeconds(5)).block());
+
+        List<RecordedRequest> peticiones = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            peticiones.add(servidor.takeRequest());
+        }
+        assertTrue(peticiones.stream().allMatch(peticion -> "HEAD".equals(peticion.getMethod())));
+        // Cada petición de precalentamiento es la primera de su conexión: se han abierto tres conexiones
+        assertTrue(peticiones.stream().allMatch(peticion -> peticion.getSequenceNumber() == 0));
+
+        // La siguiente petición reutiliza una de las conexiones abiertas
+        httpClient.get().uri(url).response().block();
+        assertTrue(servidor.takeRequest().getSequenceNumber() > 0);
+    }
+
+    @Test
+    void testAbrirConexionesSinServidorNoFalla() throws IOException {
+        String url = servidor.url("/api/").toString();
+        servidor.shutdown();
+
+        assertEquals(0, WebClientConfig.abrirConexiones(HttpClient.create(pool), url, 2, Duration.ofSeconds(5)).block());
+    }
+}
@@ -10,6 +10,8 @@ import es.kuiko.api_comunidades.dto.ComunidadAutonomaCountProvinciasDTO;
 import es.kuiko.api_comunidades.exception.CustomNotFoundException;
 import es.kuiko.api_comunidades.model.ComunidadAutonoma;
 import es.kuiko.api_comunidades.service.ComunidadAutonomaService;
+import es.kuiko.api_comunidades.service.cache.RespuestaCodificada;
+import es.kuiko.api_comunidades.service.cache.RespuestaCodificadaCache;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -21,14 +23,19 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import es.kuiko.api_comunidades.config.SecurityConfig;
 
+import java.time.Instant;
 import java.util.List;
 import java.util.Optional;
 
 @WebMvcTest(ComunidadAutonomaController.class)
+@Import(SecurityConfig.class)  // Sin ella se aplica la seguridad por defecto (401/403)
 @ExtendWith(MockitoExtension.class)
 class ComunidadAutonomaControllerTest {
 
@@ -44,26 +51,76 @@ class ComunidadAutonomaControllerTest {
     private ComunidadAutonoma comunidadAutonoma;
     private ComunidadAutonomaCountProvinciasDTO countProvinciasDTO;
 
+    private static final Instant PUBLICADO = Instant.parse("2024-05-01T10:00:00Z");
+
     @BeforeEach
     void setUp() {
         comunidadAutonoma = new ComunidadAutonoma("CA1", "Comunidad Autónoma 1");
         countProvinciasDTO = new ComunidadAutonomaCountProvinciasDTO("CA1", "Comunidad Autónoma 1", 5);
     }
 
+    private RespuestaCodificada codificar(Object valor, String etag) {
+        return new RespuestaCodificadaCache(objectMapper).codificar(valor, etag, PUBLICADO);
+    }
+
     @Test
     void testGetAll() throws Exception {
-        when(comunidadAutonomaService.getAll()).thenReturn(List.of(comunidadAutonoma));
+        when(comunidadAutonomaService.getAllCodificado()).thenReturn(codificar(List.of(comunidadAutonoma), "\"v1-ca\""));
 
         mockMvc.perform(get("/api-kuiko/comunidades-autonomas/")
                 .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"v1-ca\""))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache, public"))
+                .andExpect(header().exists(HttpHeaders.LAST_MODIFIED))
                 .andExpect(jsonPath("$[0].codigoCa").value("CA1"))
                 .andExpect(jsonPath("$[0].nombreCa").value("Comunidad Autónoma 1"));
     }
 
+    @Test
+    void testGetAll_Gzip() throws Exception {
+        RespuestaCodificada respuesta = codificar(List.of(comunidadAutonoma), "\"v1-ca\"");
+        when(comunidadAutonomaService.getAllCodificado()).thenReturn(respuesta);
+
+        mockMvc.perform(get("/api-kuiko/comunidades-autonomas/")
+                .header(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+                .andExpect(header().string(HttpHeaders.ETAG, "\"v1-ca-gzip\""))
+                .andExpect(content().bytes(respuesta.getGzip()));
+    }
+
+    @Test
+    void testGetAll_NotModifiedPorEtag() throws Exception {
+        when(comunidadAutonomaService.getAllCodificado()).thenReturn(codificar(List.of(comunidadAutonoma), "\"v1-ca\""));
+
+        mockMvc.perform(get("/api-kuiko/comunidades-autonomas/")
+                .header(HttpHeaders.IF_NONE_MATCH, "\"v1-ca\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"v1-ca\""))
+                .andExpect(content().bytes(new byte[0]));
+
+        mockMvc.perform(get("/api-kuiko/comunidades-autonomas/")
+                .header(HttpHeaders.IF_NONE_MATCH, "\"v0-ca\""))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void testGetAll_NotModifiedPorFecha() throws Exception {
+        when(comunidadAutonomaService.getAllCodificado()).thenReturn(codificar(List.of(comunidadAutonoma), "\"v1-ca\""));
+
+        mockMvc.perform(get("/api-kuiko/comunidades-autonomas/")
+                .header(HttpHeaders.IF_MODIFIED_SINCE, "Wed, 01 May 2024 10:00:00 GMT"))
+                .andExpect(status().isNotModified());
+
+        mockMvc.perform(get("/api-kuiko/comunidades-autonomas/")
+                .header(HttpHeaders.IF_MODIFIED_SINCE, "Wed, 01 May 2024 09:59:59 GMT"))
+                .andExpect(status().isOk());
+    }
+
     @Test
     void testGetByCode_Success() throws Exception {
-        when(comunidadAutonomaService.getById("CA1")).thenReturn(Optional.of(comunidadAutonoma));
+        when(comunidadAutonomaService.getByIdCodificado("CA1")).thenReturn(Optional.of(codificar(comunidadAutonoma, "\"v1-ca-CA1\"")));
 
         mockMvc.perform(get("/api-kuiko/comunidades-autonomas/CA1")
                 .contentType(MediaType.APPLICATION_JSON))
@@ -74,7 +131,7 @@ class ComunidadAutonomaControllerTest {
 
     @Test
     void testGetByCode_NotFound() throws Exception {
-        when(comunidadAutonomaService.getById("CA2")).thenReturn(Optional.empty());
+        when(comunidadAutonomaService.getByIdCodificado("CA2")).thenReturn(Optional.empty());
 
         mockMvc.perform(get("/api-kuiko/comunidades-autonomas/CA2")
                 .contentType(MediaType.APPLICATION_JSON))
@@ -82,6 +139,23 @@ class ComunidadAutonomaControllerTest {
                 .andExpect(content().string("Comunidad Autónoma no encontrada"));
     }
 
+    @Test
+    void testGetCantidadProvinciasTodas() throws Exception {
+        when(comunidadAutonomaService.getCantidadProvinciasCodificado())
+                .thenReturn(codificar(List.of(countProvinciasDTO), "\"v1-cantidades\""));
+
+        mockMvc.perform(get("/api-kuiko/comunidades-autonomas/cantidad-provincias")
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"v1-cantidades\""))
+                .andExpect(jsonPath("$[0].codigoCa").value("CA1"))
+                .andExpect(jsonPath("$[0].cantidadProvinciaInComunidad").value(5));
+
+        mockMvc.perform(get("/api-kuiko/comunidades-autonomas/cantidad-provincias")
+                .header(HttpHeaders.IF_NONE_MATCH, "\"v1-cantidades\""))
+                .andExpect(status().isNotModified());
+    }
+
     @Test
     void testGetCantidadProvincias_Success() throws Exception {
         when(comunidadAutonomaService.getCantidadProvinciasByComunidad("CA1")).thenReturn(Optional.of(countProvinciasDTO));
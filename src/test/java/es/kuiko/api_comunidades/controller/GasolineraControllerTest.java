@@ -0,0 +1,222 @@
+package es.kuiko.api_comunidades.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import es.kuiko.api_comunidades.config.SecurityConfig;
+import es.kuiko.api_comunidades.dto.gasolineras.GasolineraDTOout;
+import es.kuiko.api_comunidades.dto.gasolineras.GasolineraWrapperApiResponseOut;
+import es.kuiko.api_comunidades.exception.ProvinciaNoDisponibleException;
+import es.kuiko.api_comunidades.service.GasolineraService;
+import es.kuiko.api_comunidades.service.cache.RespuestaCodificada;
+import es.kuiko.api_comunidades.service.cache.RespuestaCodificadaCache;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.ResultActions;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.zip.GZIPInputStream;
+
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.stringContainsInOrder;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(GasolineraController.class)
+@Import(SecurityConfig.class)  // Sin ella se aplica la seguridad por defecto (401/403)
+class GasolineraControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private GasolineraService gasolineraService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private static Flux<GasolineraDTOout> gasolineras(String... rotulos) {
+        return Flux.fromArray(rotulos).map(rotulo -> {
+            GasolineraDTOout gasolinera = new GasolineraDTOout();
+            gasolinera.setRotulo(rotulo);
+            return gasolinera;
+        });
+    }
+
+    private RespuestaCodificada codificar(String... rotulos) {
+        GasolineraWrapperApiResponseOut respuesta = new GasolineraWrapperApiResponseOut();
+        respuesta.setListaEESSPrecio(gasolineras(rotulos).collectList().block());
+        return new RespuestaCodificadaCache(objectMapper).codificar(respuesta, "\"v1-28\"", Instant.now());
+    }
+
+    private static String descomprimir(byte[] gzip) throws IOException {
+        try (GZIPInputStream entrada = new GZIPInputStream(new ByteArrayInputStream(gzip))) {
+            return new String(entrada.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    // Los flujos se escriben de forma asíncrona: se espera a que termine la petición antes de comprobarla
+    private ResultActions realizar(RequestBuilder peticion) throws Exception {
+        MvcResult resultado = mockMvc.perform(peticion).andExpect(request().asyncStarted()).andReturn();
+        return mockMvc.perform(asyncDispatch(resultado));
+    }
+
+    @Test
+    void testStreamConInstantaneaObsoletaIndicaAntiguedadYAviso() throws Exception {
+        when(gasolineraService.streamGasolinerasPorProvincia("28")).thenReturn(gasolineras("REPSOL", "CEPSA"));
+        when(gasolineraService.getVerificadoInstantanea(List.of("28")))
+                .thenReturn(Optional.of(Instant.now().minus(Duration.ofHours(3))));
+
+        realizar(get("/api-kuiko/gasolineras/28").accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.AGE))
+                .andExpect(header().string(HttpHeaders.WARNING, "110 - \"Response is Stale\""))
+                .andExpect(content().string(stringContainsInOrder("\"REPSOL\"", "\n", "\"CEPSA\"")));
+    }
+
+    @Test
+    void testLoteDesdeInstantaneaRecienteSoloIndicaAntiguedad() throws Exception {
+        when(gasolineraService.getGasolinerasPorProvincias(List.of("28", "08"))).thenReturn(gasolineras("REPSOL", "BP"));
+        when(gasolineraService.getVerificadoInstantanea(List.of("28", "08")))
+                .thenReturn(Optional.of(Instant.now().minus(Duration.ofMinutes(5))));
+
+        realizar(get("/api-kuiko/gasolineras").param("provincias", "28", "08").accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.AGE))
+                .andExpect(header().doesNotExist(HttpHeaders.WARNING))
+                .andExpect(jsonPath("$[1].['Rótulo']").value("BP"));
+    }
+
+    @Test
+    void testComunidadSinInstantaneaNoIndicaAntiguedad() throws Exception {
+        when(gasolineraService.getGasolinerasPorComunidad("MD")).thenReturn(gasolineras("REPSOL"));
+        when(gasolineraService.getVerificadoInstantaneaComunidad("MD")).thenReturn(Optional.empty());
+
+        realizar(get("/api-kuiko/comunidades-autonomas/MD/gasolineras").accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.AGE))
+                .andExpect(header().doesNotExist(HttpHeaders.WARNING));
+    }
+
+    @Test
+    void testLoteConProvinciaCaidaResponde502EnJson() throws Exception {
+        when(gasolineraService.getGasolinerasPorProvincias(List.of("28", "08")))
+                .thenReturn(gasolineras("REPSOL").concatWith(Flux.error(new ProvinciaNoDisponibleException("08", "503"))));
+        when(gasolineraService.getVerificadoInstantanea(any())).thenReturn(Optional.empty());
+
+        realizar(get("/api-kuiko/gasolineras").param("provincias", "28", "08").accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadGateway())
+                .andExpect(jsonPath("$.provincia").value("08"));
+    }
+
+    @Test
+    void testLoteEnStreamingConProvinciaCaidaTerminaConElError() throws Exception {
+        when(gasolineraService.getGasolinerasPorProvincias(List.of("28", "08")))
+                .thenReturn(gasolineras("REPSOL").concatWith(Flux.error(new ProvinciaNoDisponibleException("08", "503"))));
+        when(gasolineraService.getVerificadoInstantanea(any())).thenReturn(Optional.empty());
+
+        realizar(get("/api-kuiko/gasolineras").param("provincias", "28", "08").accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(status().isOk())
+                .andExpect(content().string(stringContainsInOrder(
+                        "\"REPSOL\"", "\n", "\"error\":\"Provincia no disponible\"", "\"provincia\":\"08\"")));
+    }
+
+    @Test
+    void testComunidadEnSseConProvinciaCaidaTerminaConEventoDeError() throws Exception {
+        when(gasolineraService.getGasolinerasPorComunidad("09"))
+                .thenReturn(gasolineras("CEPSA").concatWith(Flux.error(new ProvinciaNoDisponibleException("17", "timeout"))));
+        when(gasolineraService.getVerificadoInstantaneaComunidad("09")).thenReturn(Optional.empty());
+
+        realizar(get("/api-kuiko/comunidades-autonomas/09/gasolineras").accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(status().isOk())
+                .andExpect(content().string(stringContainsInOrder("data:", "\"CEPSA\"", "data:", "\"provincia\":\"17\"")));
+    }
+
+    @Test
+    void testLoteConCodigoNoValidoNoConsultaLaAntiguedad() throws Exception {
+        when(gasolineraService.getGasolinerasPorProvincias(any()))
+                .thenThrow(new IllegalArgumentException("Código de provincia no válido: 99"));
+
+        mockMvc.perform(get("/api-kuiko/gasolineras").param("provincias", "99"))
+                .andExpect(status().isBadRequest());
+        verify(gasolineraService, never()).getVerificadoInstantanea(any());
+    }
+
+    @Test
+    void testProvinciaIncluyeETagFuerte() throws Exception {
+        when(gasolineraService.getGasolinerasCodificadas("28")).thenReturn(Mono.just(codificar("REPSOL")));
+
+        realizar(get("/api-kuiko/gasolineras/28"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(header().string(HttpHeaders.ETAG, "\"v1-28\""))
+                .andExpect(header().stringValues(HttpHeaders.VARY, hasItem(HttpHeaders.ACCEPT_ENCODING)))
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING))
+                .andExpect(jsonPath("$.ListaEESSPrecio[0].['Rótulo']").value("REPSOL"));
+    }
+
+    @Test
+    void testProvinciaConETagVigenteResponde304SinCuerpo() throws Exception {
+        when(gasolineraService.getGasolinerasCodificadas("28")).thenReturn(Mono.just(codificar("REPSOL")));
+
+        realizar(get("/api-kuiko/gasolineras/28").header(HttpHeaders.IF_NONE_MATCH, "\"v1-28\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"v1-28\""))
+                .andExpect(content().bytes(new byte[0]));
+    }
+
+    @Test
+    void testProvinciaAceptaETagDebilYListas() throws Exception {
+        when(gasolineraService.getGasolinerasCodificadas("28")).thenReturn(Mono.just(codificar("REPSOL")));
+
+        realizar(get("/api-kuiko/gasolineras/28").header(HttpHeaders.IF_NONE_MATCH, "W/\"v1-28\""))
+                .andExpect(status().isNotModified());
+        realizar(get("/api-kuiko/gasolineras/28").header(HttpHeaders.IF_NONE_MATCH, "\"v0-28\", \"v1-28-gzip\""))
+                .andExpect(status().isNotModified());
+        realizar(get("/api-kuiko/gasolineras/28").header(HttpHeaders.IF_NONE_MATCH, "\"v0-28\", W/\"v0-28-gzip\""))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void testProvinciaConGzipEnviaElCuerpoComprimido() throws Exception {
+        when(gasolineraService.getGasolinerasCodificadas("28")).thenReturn(Mono.just(codificar("REPSOL")));
+
+        MvcResult resultado = realizar(get("/api-kuiko/gasolineras/28").header(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+                .andExpect(header().string(HttpHeaders.ETAG, "\"v1-28-gzip\""))
+                .andExpect(header().stringValues(HttpHeaders.VARY, hasItem(HttpHeaders.ACCEPT_ENCODING)))
+                .andReturn();
+
+        assertTrue(descomprimir(resultado.getResponse().getContentAsByteArray()).contains("\"REPSOL\""));
+    }
+
+    @Test
+    void testAcceptPorDefectoUsaLaRespuestaCodificada() throws Exception {
+        when(gasolineraService.getGasolinerasCodificadas("28")).thenReturn(Mono.just(codificar("REPSOL")));
+
+        realizar(get("/api-kuiko/gasolineras/28").accept(MediaType.ALL))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"v1-28\""));
+
+        verify(gasolineraService).getGasolinerasCodificadas("28");
+        verify(gasolineraService, never()).streamGasolinerasPorProvincia(any());
+    }
+}
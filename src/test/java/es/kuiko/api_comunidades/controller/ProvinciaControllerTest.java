@@ -1,21 +1,27 @@
 package es.kuiko.api_comunidades.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import es.kuiko.api_comunidades.config.SecurityConfig;
 import es.kuiko.api_comunidades.dto.ProvinciaDTO;
 import es.kuiko.api_comunidades.dto.ProvinciaInfoComunidadDTO;
 import es.kuiko.api_comunidades.exception.CustomNotFoundException;
 import es.kuiko.api_comunidades.model.ComunidadAutonoma;
 import es.kuiko.api_comunidades.model.Provincia;
 import es.kuiko.api_comunidades.service.ProvinciaService;
+import es.kuiko.api_comunidades.service.cache.RespuestaCodificada;
+import es.kuiko.api_comunidades.service.cache.RespuestaCodificadaCache;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mock;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.time.Instant;
 import java.util.List;
 import java.util.Optional;
 
@@ -26,6 +32,7 @@ import static org.springframework.test.web.servlet.request.MockMvcRequestBuilder
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @WebMvcTest(ProvinciaController.class)
+@Import(SecurityConfig.class)  // Sin ella se aplica la seguridad por defecto (401/403)
 class ProvinciaControllerTest {
 
     @Autowired
@@ -48,42 +55,58 @@ class ProvinciaControllerTest {
         provinciaDTO = new ProvinciaDTO(1, "Provincia Test", "CA1");
     }
 
+    private RespuestaCodificada codificar(Object valor, String etag) {
+        return new RespuestaCodificadaCache(objectMapper).codificar(valor, etag, Instant.parse("2024-05-01T10:00:00Z"));
+    }
+
     @Test
     void testGetAllProvincias() throws Exception {
-        when(provinciaService.getAll()).thenReturn(List.of(provincia));
+        when(provinciaService.getAllCodificado()).thenReturn(codificar(List.of(provincia), "\"v1-p\""));
 
         mockMvc.perform(get("/api-kuiko/provincias/")
                         .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"v1-p\""))
                 .andExpect(jsonPath("$[0].nombreProvincia").value("Provincia Test"))
                 .andExpect(jsonPath("$[0].codigoProvincia").value(1));
 
-        verify(provinciaService, times(1)).getAll();
+        verify(provinciaService, times(1)).getAllCodificado();
+    }
+
+    @Test
+    void testGetAllProvincias_NotModified() throws Exception {
+        when(provinciaService.getAllCodificado()).thenReturn(codificar(List.of(provincia), "\"v1-p\""));
+
+        mockMvc.perform(get("/api-kuiko/provincias/")
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"v1-p-gzip\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.LAST_MODIFIED, "Wed, 01 May 2024 10:00:00 GMT"));
     }
 
     @Test
     void testGetProvinciaById_Success() throws Exception {
-        when(provinciaService.getById(1)).thenReturn(Optional.of(provincia));
+        when(provinciaService.getByIdCodificado(1)).thenReturn(Optional.of(codificar(provincia, "\"v1-p-1\"")));
 
         mockMvc.perform(get("/api-kuiko/provincias/1")
                         .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"v1-p-1\""))
                 .andExpect(jsonPath("$.nombreProvincia").value("Provincia Test"))
                 .andExpect(jsonPath("$.codigoProvincia").value(1));
 
-        verify(provinciaService, times(1)).getById(1);
+        verify(provinciaService, times(1)).getByIdCodificado(1);
     }
 
     @Test
     void testGetProvinciaById_NotFound() throws Exception {
-        when(provinciaService.getById(1)).thenReturn(Optional.empty());
+        when(provinciaService.getByIdCodificado(1)).thenReturn(Optional.empty());
 
         mockMvc.perform(get("/api-kuiko/provincias/1")
                         .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isNotFound())
                 .andExpect(content().string("Provincia no encontrada"));
 
-        verify(provinciaService, times(1)).getById(1);
+        verify(provinciaService, times(1)).getByIdCodificado(1);
     }
 
     @Test
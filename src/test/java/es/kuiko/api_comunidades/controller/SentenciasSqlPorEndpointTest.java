@@ -0,0 +1,111 @@
+package es.kuiko.api_comunidades.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import es.kuiko.api_comunidades.dto.ProvinciaDTO;
+import es.kuiko.api_comunidades.model.ComunidadAutonoma;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.ResultMatcher;
+
+/**
+ * Número exacto de sentencias SQL que ejecuta cada endpoint de Comunidades Autónomas y Provincias,
+ * medido con las estadísticas de Hibernate sobre la base de datos H2 cargada desde los CSV.
+ *
+ * <p>Las escrituras incluyen la consulta con la que se reconstruye la instantánea en memoria tras el
+ * commit. Si un cambio añade una consulta a alguno de estos caminos, el test falla.</p>
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.jpa.show-sql=false"
+})
+@AutoConfigureMockMvc
+class SentenciasSqlPorEndpointTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics estadisticas;
+
+    @BeforeEach
+    void setUp() {
+        estadisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    private long sentencias(RequestBuilder peticion, ResultMatcher estado) throws Exception {
+        estadisticas.clear();
+        mockMvc.perform(peticion).andExpect(estado);
+        return estadisticas.getPrepareStatementCount();
+    }
+
+    @Test
+    void testLecturasSinConsultas() throws Exception {
+        assertEquals(0, sentencias(get("/api-kuiko/comunidades-autonomas/"), status().isOk()));
+        assertEquals(0, sentencias(get("/api-kuiko/comunidades-autonomas/MD"), status().isOk()));
+        assertEquals(0, sentencias(get("/api-kuiko/comunidades-autonomas/MD/cantidad-provincias"), status().isOk()));
+        assertEquals(0, sentencias(get("/api-kuiko/comunidades-autonomas/cantidad-provincias"), status().isOk()));
+        assertEquals(0, sentencias(get("/api-kuiko/provincias/"), status().isOk()));
+        assertEquals(0, sentencias(get("/api-kuiko/provincias/28"), status().isOk()));
+        assertEquals(0, sentencias(get("/api-kuiko/provincias/28/detalles-comunidad"), status().isOk()));
+    }
+
+    @Test
+    void testEscriturasDeProvincia() throws Exception {
+        // Comunidad, existencia, carga del merge, INSERT y recarga de la instantánea
+        assertEquals(5, sentencias(post("/api-kuiko/provincias/")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new ProvinciaDTO(60, "Provincia de prueba", "MD"))),
+                status().isCreated()));
+
+        // Provincia con su comunidad en una consulta, UPDATE y recarga
+        assertEquals(3, sentencias(put("/api-kuiko/provincias/60")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new ProvinciaDTO(60, "Provincia renombrada", "MD"))),
+                status().isOk()));
+
+        // DELETE y recarga
+        assertEquals(2, sentencias(delete("/api-kuiko/provincias/60"), status().isNoContent()));
+
+        // Solo el DELETE, que no borra ninguna fila
+        assertEquals(1, sentencias(delete("/api-kuiko/provincias/60"), status().isNotFound()));
+    }
+
+    @Test
+    void testEscriturasDeComunidad() throws Exception {
+        // Existencia, carga del merge, INSERT y recarga de la instantánea
+        assertEquals(4, sentencias(post("/api-kuiko/comunidades-autonomas/")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new ComunidadAutonoma("ZZ", "Comunidad de prueba"))),
+                status().isCreated()));
+
+        // Comunidad con sus provincias en una consulta, UPDATE y recarga
+        assertEquals(3, sentencias(put("/api-kuiko/comunidades-autonomas/ZZ")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new ComunidadAutonoma("ZZ", "Comunidad renombrada"))),
+                status().isOk()));
+
+        // DELETE y recarga
+        assertEquals(2, sentencias(delete("/api-kuiko/comunidades-autonomas/ZZ"), status().isNoContent()));
+
+        // Solo el DELETE, que no borra ninguna fila
+        assertEquals(1, sentencias(delete("/api-kuiko/comunidades-autonomas/ZZ"), status().isNotFound()));
+    }
+}
@@ -0,0 +1,72 @@
+package es.kuiko.api_comunidades.mapper;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import es.kuiko.api_comunidades.dto.gasolineras.Estacion;
+import es.kuiko.api_comunidades.dto.gasolineras.GasolineraDTOout;
+import es.kuiko.api_comunidades.dto.gasolineras.GasolineraWrapperApiResponseOut;
+import es.kuiko.api_comunidades.dto.gasolineras.PrecioCombustible;
+import es.kuiko.api_comunidades.service.estaciones.AlmacenEstaciones;
+import es.kuiko.api_comunidades.service.estaciones.SnapshotNacional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GasolineraJsonEncoderTest {
+
+    private static final int SP = PrecioCombustible.SIN_PRECIO;
+
+    private ObjectMapper objectMapper;
+    private GasolineraMapper gasolineraMapper;
+    private GasolineraJsonEncoder encoder;
+    private SnapshotNacional snapshot;
+
+    @BeforeEach
+    void setUp() {
+        objectMapper = new ObjectMapper();
+        gasolineraMapper = new GasolineraMapper();
+        encoder = new GasolineraJsonEncoder(objectMapper);
+        snapshot = new SnapshotNacional("18/10/2026 8:00:00", "Archivo de todas las estaciones", Instant.now(),
+                AlmacenEstaciones.construir(List.of(
+                        new Estacion("REPSOL", "CALLE \"MAYOR\", 1", "L-D: 24H", "MADRID", "MADRID", "MADRID", "28",
+                                40416775, -3703790, new int[]{1559, SP, 1699, SP, 1459, SP, 899}),
+                        new Estacion("REPSOL", "AVENIDA DE ANDALUCÍA, 12", "L-D: 24H", "MADRID", "MADRID", "MADRID", "28",
+                                Estacion.SIN_COORDENADA, Estacion.SIN_COORDENADA, new int[]{SP, 1529, SP, SP, 1439, SP, SP}),
+                        new Estacion(null, null, null, null, null, "MADRID", "28",
+                                40000000, -3500000, new int[]{SP, SP, SP, SP, SP, SP, SP}),
+                        new Estacion("CEPSA", "AV. DIAGONAL, 1", "L-V: 07:00-22:00", "BARCELONA", "BARCELONA", "BARCELONA", "08",
+                                41390205, 2154007, new int[]{1579, SP, SP, SP, 1419, 1100, SP}))));
+    }
+
+    // Respuesta equivalente construida con DTO y serializada con el ObjectMapper
+    private String serializarConDto(String codigoProvincia) throws Exception {
+        AlmacenEstaciones almacen = snapshot.getAlmacen();
+        int provincia = AlmacenEstaciones.codigoProvincia(codigoProvincia);
+        List<GasolineraDTOout> gasolineras = new ArrayList<>();
+        for (int fila = almacen.inicio(provincia); fila < almacen.fin(provincia); fila++) {
+            gasolineras.add(gasolineraMapper.mapToGasolineraDTOout(almacen.estacion(fila)));
+        }
+        return objectMapper.writeValueAsString(
+                new GasolineraWrapperApiResponseOut(snapshot.getFecha(), gasolineras, snapshot.getNota(), "OK"));
+    }
+
+    @Test
+    void testEncodeProvinciaIgualQueObjectMapper() throws Exception {
+        assertEquals(serializarConDto("28"), new String(encoder.encodeProvincia(snapshot, "28"), StandardCharsets.UTF_8));
+        assertEquals(serializarConDto("8"), new String(encoder.encodeProvincia(snapshot, "8"), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testValoresDeDiccionarioCompartidos() {
+        AlmacenEstaciones almacen = snapshot.getAlmacen();
+        int desde = almacen.inicio(28);
+        assertSame(almacen.rotuloJson(desde), almacen.rotuloJson(desde + 1), "Un valor repetido debería codificarse una sola vez.");
+        assertSame(almacen.horarioJson(desde), almacen.horarioJson(desde + 1));
+        assertNull(almacen.rotuloJson(desde + 2));
+    }
+}
@@ -1,9 +1,12 @@
 package es.kuiko.api_comunidades.mapper;
 
+import es.kuiko.api_comunidades.dto.gasolineras.Estacion;
 import es.kuiko.api_comunidades.dto.gasolineras.GasolineraDTOin;
 import es.kuiko.api_comunidades.dto.gasolineras.GasolineraDTOout;
 import es.kuiko.api_comunidades.dto.gasolineras.GasolineraWrapperApiResponseIn;
 import es.kuiko.api_comunidades.dto.gasolineras.GasolineraWrapperApiResponseOut;
+import es.kuiko.api_comunidades.dto.gasolineras.PrecioCombustible;
+import es.kuiko.api_comunidades.dto.gasolineras.TipoCombustible;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
@@ -59,5 +62,56 @@ class GasolineraMapperTest {
         assertEquals("Localidad Test", gasolineraDTOout.getLocalidad(), "La localidad debería coincidir.");
         assertEquals("Provincia Test", gasolineraDTOout.getProvincia(), "La provincia debería coincidir.");
     }
-}
 
+    @Test
+    void testMapToGasolineraDTOoutConservaElFormatoDeLaApi() {
+        GasolineraDTOin gasolineraDTOin = new GasolineraDTOin();
+        gasolineraDTOin.setLatitud("40,416775");
+        gasolineraDTOin.setPrecioGasolina95E10("1,459");
+        gasolineraDTOin.setPrecioGasolina98E10("1,6");
+        gasolineraDTOin.setPrecioGasoleoA("1,40");
+
+        GasolineraDTOout gasolineraDTOout = gasolineraMapper.mapToGasolineraDTOout(gasolineraDTOin);
+
+        assertEquals("E10: 1,459", gasolineraDTOout.getPrecioGasolina95());
+        assertEquals("E10: 1,6", gasolineraDTOout.getPrecioGasolina98(), "El precio debería mantenerse como lo publica la API.");
+        assertEquals("1,40", gasolineraDTOout.getPrecioGasoleoA());
+        assertEquals("40,416775", gasolineraDTOout.getLatitud());
+    }
+
+    @Test
+    void testMapToEstacionParseaPreciosYCoordenadas() {
+        GasolineraDTOin gasolineraDTOin = new GasolineraDTOin();
+        gasolineraDTOin.setRotulo("REPSOL");
+        gasolineraDTOin.setLatitud("40,416775");
+        gasolineraDTOin.setLongitud("-3,703790");
+        gasolineraDTOin.setPrecioGasolina95E5("1,459");
+        gasolineraDTOin.setPrecioGasolina98E10("1,6");
+        gasolineraDTOin.setPrecioGasoleoA("");
+
+        Estacion estacion = gasolineraMapper.mapToEstacion(gasolineraDTOin);
+
+        assertEquals(1459, estacion.precio(TipoCombustible.GASOLINA_95_E5), "El precio debería estar en décimas de céntimo.");
+        assertEquals(1600, estacion.precio(TipoCombustible.GASOLINA_98_E10));
+        assertEquals(PrecioCombustible.SIN_PRECIO, estacion.precio(TipoCombustible.GASOLEO_A));
+        assertEquals(40_416_775, estacion.latitudE6());
+        assertEquals(-3_703_790, estacion.longitudE6());
+
+        GasolineraDTOout gasolineraDTOout = gasolineraMapper.mapToGasolineraDTOout(estacion);
+        assertEquals("E5: 1,459", gasolineraDTOout.getPrecioGasolina95());
+        assertEquals("E10: 1,600", gasolineraDTOout.getPrecioGasolina98());
+        assertEquals("40,416775", gasolineraDTOout.getLatitud());
+        assertEquals("-3,703790", gasolineraDTOout.getLongitud());
+        assertEquals("", gasolineraDTOout.getPrecioGasoleoA());
+    }
+
+    @Test
+    void testPrecioCombustibleParseYFormat() {
+        assertEquals(1459, PrecioCombustible.parse("1,459"));
+        assertEquals(980, PrecioCombustible.parse("0.98"));
+        assertEquals(PrecioCombustible.SIN_PRECIO, PrecioCombustible.parse(""));
+        assertEquals(PrecioCombustible.SIN_PRECIO, PrecioCombustible.parse("n/d"));
+        assertEquals("1,059", PrecioCombustible.format(1059));
+        assertEquals("0,005", PrecioCombustible.format(5));
+    }
+}
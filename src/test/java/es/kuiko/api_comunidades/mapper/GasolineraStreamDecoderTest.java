@@ -0,0 +1,86 @@
+package es.kuiko.api_comunidades.mapper;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GasolineraStreamDecoderTest {
+
+    private static final String RESPUESTA = "{"
+            + "\"Fecha\":\"18/10/2026 9:15:23\","
+            + "\"ListaEESSPrecio\":["
+            + "{\"C.P.\":\"28001\",\"Rótulo\":\"REPSOL\",\"Provincia\":\"MADRID\",\"IDProvincia\":\"28\","
+            + "\"Precio Gasolina 95 E5\":\"1,459\",\"Precio Gasolina 98 E5\":\"\",\"Precio Gasolina 98 E10\":\"1,659\"},"
+            + "{\"Rótulo\":\"CEPSA\",\"Provincia\":\"MADRID\",\"IDProvincia\":\"28\",\"Horario\":\"L-D: 24H\"}"
+            + "],"
+            + "\"Nota\":\"Archivo de todos los productos\","
+            + "\"ResultadoConsulta\":\"OK\"}";
+
+    private GasolineraStreamDecoder decoder;
+
+    @BeforeEach
+    void setUp() {
+        ObjectMapper objectMapper = new ObjectMapper().disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        decoder = new GasolineraStreamDecoder(objectMapper, new GasolineraMapper());
+    }
+
+    /**
+     * Divide el documento en trozos pequeños para simular la llegada de varios buffers de red.
+     */
+    private Flux<DataBuffer> trocear(String json, int tamano) {
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        List<DataBuffer> buffers = new ArrayList<>();
+        for (int i = 0; i < bytes.length; i += tamano) {
+            int longitud = Math.min(tamano, bytes.length - i);
+            buffers.add(DefaultDataBufferFactory.sharedInstance.wrap(Arrays.copyOfRange(bytes, i, i + longitud)));
+        }
+        return Flux.fromIterable(buffers);
+    }
+
+    @Test
+    void testDecodeEmiteCadaGasolineraMapeada() {
+        StepVerifier.create(decoder.decode(trocear(RESPUESTA, 7)))
+                .assertNext(gasolinera -> {
+                    assertEquals("REPSOL", gasolinera.getRotulo());
+                    assertEquals("E5: 1,459", gasolinera.getPrecioGasolina95());
+                    assertEquals("E10: 1,659", gasolinera.getPrecioGasolina98());
+                })
+                .assertNext(gasolinera -> {
+                    assertEquals("CEPSA", gasolinera.getRotulo());
+                    assertEquals("L-D: 24H", gasolinera.getHorario());
+                    assertEquals("Sin Información", gasolinera.getPrecioGasolina95());
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void testDecodeToWrapperIncluyeCabeceraYPie() {
+        StepVerifier.create(decoder.decodeToWrapper(trocear(RESPUESTA, 13)))
+                .assertNext(respuesta -> {
+                    assertEquals("18/10/2026 9:15:23", respuesta.getFecha());
+                    assertEquals("Archivo de todos los productos", respuesta.getNota());
+                    assertEquals("OK", respuesta.getResultadoConsulta());
+                    assertEquals(2, respuesta.getListaEESSPrecio().size());
+                    assertEquals("28", respuesta.getListaEESSPrecio().get(1).getIdProvincia());
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void testDecodeJsonIncompletoFalla() {
+        StepVerifier.create(decoder.decode(trocear("{\"ListaEESSPrecio\":[{\"Rótulo\":\"RE", 5)))
+                .verifyError();
+    }
+}
@@ -0,0 +1,146 @@
+package es.kuiko.api_comunidades.service.cache;
+
+import es.kuiko.api_comunidades.dto.gasolineras.GasolineraDTOout;
+import es.kuiko.api_comunidades.dto.gasolineras.GasolineraWrapperApiResponseOut;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GasolineraCacheTest {
+
+    private MutableClock clock;
+    private GasolineraCache gasolineraCache;
+    private AtomicInteger llamadas;
+
+    @BeforeEach
+    void setUp() {
+        // 18/10/2026 10:00:00 en Madrid (UTC+2 en horario de verano)
+        clock = new MutableClock(Instant.parse("2026-10-18T08:00:00Z"));
+        gasolineraCache = new GasolineraCache(Duration.ofMinutes(30), Duration.ofMinutes(1), clock);
+        llamadas = new AtomicInteger();
+    }
+
+    private Function<String, Mono<GasolineraWrapperApiResponseOut>> cargador(String fecha) {
+        return codigo -> Mono.fromCallable(() -> {
+            GasolineraWrapperApiResponseOut respuesta = new GasolineraWrapperApiResponseOut();
+            respuesta.setFecha(fecha);
+            respuesta.setResultadoConsulta("OK");
+            respuesta.setNota("llamada " + llamadas.incrementAndGet());
+            return respuesta;
+        });
+    }
+
+    @Test
+    void testSirveDesdeCacheMientrasNoCaduca() {
+        StepVerifier.create(gasolineraCache.get("28", cargador("18/10/2026 10:00:00")))
+                .assertNext(r -> assertEquals("llamada 1", r.getNota()))
+                .verifyComplete();
+
+        clock.avanzar(Duration.ofMinutes(10));
+
+        StepVerifier.create(gasolineraCache.get("28", cargador("18/10/2026 10:00:00")))
+                .assertNext(r -> assertEquals("llamada 1", r.getNota()))
+                .verifyComplete();
+        assertEquals(1, llamadas.get(), "Solo debería haberse consultado la API una vez.");
+    }
+
+    @Test
+    void testSirveEntradaCaducadaYRefrescaEnSegundoPlano() {
+        gasolineraCache.get("28", cargador("18/10/2026 10:00:00")).block();
+
+        clock.avanzar(Duration.ofMinutes(31));
+
+        // Se devuelve la copia anterior y el refresco actualiza la entrada
+        StepVerifier.create(gasolineraCache.get("28", cargador("18/10/2026 10:30:00")))
+                .assertNext(r -> assertEquals("llamada 1", r.getNota()))
+                .verifyComplete();
+        assertEquals(2, llamadas.get());
+
+        StepVerifier.create(gasolineraCache.get("28", cargador("18/10/2026 10:30:00")))
+                .assertNext(r -> assertEquals("llamada 2", r.getNota()))
+                .verifyComplete();
+    }
+
+    @Test
+    void testNoCacheaRespuestasDeError() {
+        Function<String, Mono<GasolineraWrapperApiResponseOut>> error = codigo -> Mono.fromCallable(() -> {
+            llamadas.incrementAndGet();
+            GasolineraWrapperApiResponseOut respuesta = new GasolineraWrapperApiResponseOut();
+            respuesta.setResultadoConsulta("Error");
+            return respuesta;
+        });
+
+        gasolineraCache.get("99", error).block();
+        gasolineraCache.get("99", error).block();
+
+        assertEquals(2, llamadas.get(), "Las respuestas de error no deberían cachearse.");
+    }
+
+    @Test
+    void testAgrupaCargasConcurrentesDeLaMismaProvincia() {
+        Sinks.One<GasolineraWrapperApiResponseOut> upstream = Sinks.one();
+        Function<String, Mono<GasolineraWrapperApiResponseOut>> lento = codigo -> {
+            llamadas.incrementAndGet();
+            return upstream.asMono();
+        };
+
+        Mono<GasolineraWrapperApiResponseOut> primera = gasolineraCache.get("08", lento);
+        Mono<GasolineraWrapperApiResponseOut> segunda = gasolineraCache.get("08", lento);
+
+        GasolineraWrapperApiResponseOut respuesta = new GasolineraWrapperApiResponseOut();
+        respuesta.setResultadoConsulta("OK");
+        respuesta.setListaEESSPrecio(List.of(new GasolineraDTOout()));
+
+        StepVerifier.create(Mono.zip(primera, segunda))
+                .then(() -> upstream.tryEmitValue(respuesta))
+                .assertNext(par -> {
+                    assertNotSame(par.getT1(), par.getT2(), "Cada llamante debería recibir su propia copia.");
+                    assertNotSame(par.getT1().getListaEESSPrecio().get(0), par.getT2().getListaEESSPrecio().get(0));
+                })
+                .verifyComplete();
+        assertEquals(1, llamadas.get(), "Las cargas concurrentes deberían compartir una única llamada a la API.");
+    }
+
+    /**
+     * Reloj manipulable para simular el paso del tiempo en los tests.
+     */
+    private static final class MutableClock extends Clock {
+        private Instant instante;
+
+        private MutableClock(Instant instante) {
+            this.instante = instante;
+        }
+
+        private void avanzar(Duration duracion) {
+            instante = instante.plus(duracion);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return instante;
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package es.kuiko.api_comunidades.service.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import es.kuiko.api_comunidades.dto.gasolineras.GasolineraWrapperApiResponseOut;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RespuestaCodificadaCacheTest {
+
+    private RespuestaCodificadaCache respuestaCodificadaCache;
+
+    @BeforeEach
+    void setUp() {
+        respuestaCodificadaCache = new RespuestaCodificadaCache(new ObjectMapper());
+    }
+
+    private GasolineraWrapperApiResponseOut respuesta(String fecha) {
+        return new GasolineraWrapperApiResponseOut(fecha, List.of(), "Nota", "OK");
+    }
+
+    @Test
+    void testReutilizaLosBytesMientrasNoCambiaElOrigen() {
+        GasolineraWrapperApiResponseOut origen = respuesta("18/10/2026 9:15:23");
+
+        RespuestaCodificada primera = respuestaCodificadaCache.obtener("provincia:28", origen);
+        RespuestaCodificada segunda = respuestaCodificadaCache.obtener("provincia:28", origen);
+
+        assertSame(primera, segunda, "Con el mismo origen no debería volver a serializarse.");
+    }
+
+    @Test
+    void testNuevaVersionGeneraNuevoEtag() {
+        RespuestaCodificada primera = respuestaCodificadaCache.obtener("provincia:28", respuesta("18/10/2026 9:15:23"));
+        RespuestaCodificada segunda = respuestaCodificadaCache.obtener("provincia:28", respuesta("18/10/2026 12:00:00"));
+
+        assertNotEquals(primera.getEtag(), segunda.getEtag());
+        assertFalse(segunda.coincideCon(primera.getEtag()));
+    }
+
+    @Test
+    void testCoincideConAmbasVariantesDelEtag() {
+        RespuestaCodificada codificada = respuestaCodificadaCache.codificar(respuesta("18/10/2026 9:15:23"));
+
+        assertTrue(codificada.coincideCon(codificada.getEtag()));
+        assertTrue(codificada.coincideCon("\"otro\", " + codificada.getEtagGzip()));
+        assertTrue(codificada.coincideCon("W/" + codificada.getEtag()));
+        assertFalse(codificada.coincideCon(null));
+    }
+
+    @Test
+    void testGzipContieneElMismoJson() throws IOException {
+        RespuestaCodificada codificada = respuestaCodificadaCache.codificar(respuesta("18/10/2026 9:15:23"));
+
+        try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(codificada.getGzip()))) {
+            assertArrayEquals(codificada.getJson(), gzip.readAllBytes());
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package es.kuiko.api_comunidades.service.estaciones;
+
+import es.kuiko.api_comunidades.dto.gasolineras.Estacion;
+import es.kuiko.api_comunidades.dto.gasolineras.GasolineraDTOout;
+import es.kuiko.api_comunidades.dto.gasolineras.PrecioCombustible;
+import es.kuiko.api_comunidades.dto.gasolineras.TipoCombustible;
+import es.kuiko.api_comunidades.mapper.GasolineraMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AlmacenEstacionesTest {
+
+    private static final int SP = PrecioCombustible.SIN_PRECIO;
+
+    private AlmacenEstaciones almacen;
+
+    private static Estacion estacion(String rotulo, String municipio, String idProvincia, int gasolina95, int gasoleo) {
+        return new Estacion(rotulo, "CALLE MAYOR, 1", "L-D: 24H", municipio, municipio, "PROVINCIA " + idProvincia,
+                idProvincia, 40_416_775, -3_703_790, new int[]{gasolina95, SP, SP, SP, gasoleo, SP, SP});
+    }
+
+    @BeforeEach
+    void setUp() {
+        almacen = AlmacenEstaciones.construir(List.of(
+                estacion("REPSOL", "MADRID", "28", 1459, 1389),
+                estacion("CEPSA", "VALENCIA", "46", 1479, 1399),
+                estacion("REPSOL", "ALCALÁ", "28", 1529, SP),
+                estacion("BP", "BARCELONA", "08", 1499, 1419),
+                estacion("SIN PROVINCIA", "?", "", 1000, 1000)));
+    }
+
+    @Test
+    void testFilasAgrupadasPorProvincia() {
+        assertEquals(5, almacen.size());
+        assertEquals(3, almacen.numeroProvincias(), "Las estaciones sin provincia válida no cuentan como provincia.");
+        assertEquals(2, almacen.fin(28) - almacen.inicio(28));
+        for (int fila = almacen.inicio(28); fila < almacen.fin(28); fila++) {
+            assertEquals(28, almacen.provincia(fila));
+            assertEquals("REPSOL", almacen.rotulo(fila));
+        }
+        assertFalse(almacen.contieneProvincia(1));
+        assertFalse(almacen.contieneProvincia(0));
+    }
+
+    @Test
+    void testFiltrarPorPrecioDentroDeUnaProvincia() {
+        int[] filas = almacen.filtrarPorPrecio(28, TipoCombustible.GASOLINA_95_E5, 1500);
+        assertEquals(1, filas.length);
+        assertEquals("MADRID", almacen.municipio(filas[0]));
+
+        int[] sinPrecio = almacen.filtrarPorPrecio(28, TipoCombustible.GASOLEO_A, 9999);
+        assertEquals(1, sinPrecio.length, "Las estaciones sin precio no deberían pasar el filtro.");
+
+        assertEquals(0, almacen.filtrarPorPrecio(33, TipoCombustible.GASOLEO_A, 9999).length);
+    }
+
+    @Test
+    void testReconstruyeLaEstacionDeUnaFila() {
+        int fila = almacen.inicio(8);
+        Estacion estacion = almacen.estacion(fila);
+
+        assertEquals("BP", estacion.rotulo());
+        assertEquals("08", estacion.idProvincia());
+        assertEquals(40_416_775, estacion.latitudE6());
+        assertEquals(-3_703_790, estacion.longitudE6());
+        assertEquals(40.416775, almacen.latitud(fila), 1e-9);
+        assertEquals(1419, estacion.precio(TipoCombustible.GASOLEO_A));
+        assertTrue(Arrays.stream(estacion.precios()).anyMatch(p -> p == SP));
+    }
+
+    @Test
+    void testFilaMapeadaDesdeLasColumnasIgualQueLaEstacion() {
+        GasolineraMapper gasolineraMapper = new GasolineraMapper();
+
+        for (int fila = 0; fila < almacen.size(); fila++) {
+            GasolineraDTOout esperada = gasolineraMapper.mapToGasolineraDTOout(almacen.estacion(fila));
+            GasolineraDTOout mapeada = GasolineraMapper.mapFilaToGasolineraDTOout(almacen, fila);
+            assertEquals(esperada.getRotulo(), mapeada.getRotulo());
+            assertEquals(esperada.getProvincia(), mapeada.getProvincia());
+            assertEquals(esperada.getIdProvincia(), mapeada.getIdProvincia());
+            assertEquals(esperada.getLatitud(), mapeada.getLatitud());
+            assertEquals(esperada.getPrecioGasoleoA(), mapeada.getPrecioGasoleoA());
+            assertEquals(esperada.getPrecioGasolina95(), mapeada.getPrecioGasolina95());
+            assertEquals(esperada.getPrecioGasolina98(), mapeada.getPrecioGasolina98());
+        }
+        assertNotSame(GasolineraMapper.mapFilaToGasolineraDTOout(almacen, 0), GasolineraMapper.mapFilaToGasolineraDTOout(almacen, 0),
+                "Cada petición debería recibir sus propias instancias.");
+    }
+}
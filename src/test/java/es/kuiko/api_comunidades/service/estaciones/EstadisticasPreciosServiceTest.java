@@ -0,0 +1,111 @@
+package es.kuiko.api_comunidades.service.estaciones;
+
+import es.kuiko.api_comunidades.dto.gasolineras.EstadisticasCombustibleDTO;
+import es.kuiko.api_comunidades.dto.gasolineras.EstadisticasComunidadDTO;
+import es.kuiko.api_comunidades.dto.gasolineras.Estacion;
+import es.kuiko.api_comunidades.dto.gasolineras.PrecioCombustible;
+import es.kuiko.api_comunidades.model.ComunidadAutonoma;
+import es.kuiko.api_comunidades.model.Provincia;
+import es.kuiko.api_comunidades.repository.ProvinciaRepository;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class EstadisticasPreciosServiceTest {
+
+    private static final int SP = PrecioCombustible.SIN_PRECIO;
+
+    private static Estacion estacion(String idProvincia, int gasoleo) {
+        return new Estacion("", "", "", "", "", "", idProvincia, Estacion.SIN_COORDENADA, Estacion.SIN_COORDENADA,
+                new int[]{SP, SP, SP, SP, gasoleo, SP, SP});
+    }
+
+    private static SnapshotNacional instantanea() {
+        return new SnapshotNacional("18/10/2026 8:00:00", "", Instant.now(),
+                AlmacenEstaciones.construir(List.of(
+                        estacion("08", 1419),
+                        estacion("08", 1499),
+                        estacion("17", 1389),
+                        estacion("25", 1410),
+                        estacion("25", SP),
+                        estacion("28", 1459))));
+    }
+
+    private static List<Provincia> provincias() {
+        ComunidadAutonoma cataluna = new ComunidadAutonoma("09", "Cataluña");
+        ComunidadAutonoma madrid = new ComunidadAutonoma("13", "Madrid, Comunidad de");
+        return List.of(
+                new Provincia(28, "Madrid", madrid),
+                new Provincia(25, "Lleida", cataluna),
+                new Provincia(8, "Barcelona", cataluna),
+                new Provincia(17, "Girona", cataluna),
+                new Provincia(43, "Tarragona", cataluna));
+    }
+
+    private static Map<String, EstadisticasComunidadDTO> calcular() {
+        return EstadisticasPreciosService.calcular(instantanea(), provincias());
+    }
+
+    @Test
+    void testEstadisticasDeLaComunidad() {
+        EstadisticasComunidadDTO cataluna = calcular().get("09");
+
+        assertEquals("Cataluña", cataluna.getNombreCa());
+        assertEquals("18/10/2026 8:00:00", cataluna.getFecha());
+        assertEquals(1, cataluna.getCombustibles().size(), "Solo deberían aparecer los combustibles con precio.");
+        EstadisticasCombustibleDTO gasoleo = cataluna.getCombustibles().get(0);
+        assertEquals("Gasóleo A", gasoleo.getCombustible());
+        assertEquals(4, gasoleo.getEstaciones());
+        assertEquals("1,389", gasoleo.getMinimo());
+        assertEquals("1,499", gasoleo.getMaximo());
+        assertEquals("1,429", gasoleo.getMedia());
+        assertEquals("1,415", gasoleo.getMediana());
+    }
+
+    @Test
+    void testEstadisticasPorProvinciaEnOrdenDeCodigo() {
+        EstadisticasComunidadDTO cataluna = calcular().get("09");
+
+        assertEquals(List.of(8, 17, 25, 43),
+                cataluna.getProvincias().stream().map(p -> p.getCodigoProvincia()).toList());
+        assertEquals("1,459", cataluna.getProvincias().get(0).getCombustibles().get(0).getMedia());
+        assertEquals(1, cataluna.getProvincias().get(2).getCombustibles().get(0).getEstaciones());
+        assertTrue(cataluna.getProvincias().get(3).getCombustibles().isEmpty(),
+                "Una provincia sin gasolineras no tiene estadísticas.");
+    }
+
+    @Test
+    void testComunidadesOrdenadasPorCodigo() {
+        assertEquals(List.of("09", "13"), List.copyOf(calcular().keySet()));
+    }
+
+    @Test
+    void testSinDatosDeReferenciaSeAplazaHastaLaRecarga() {
+        ProvinciaRepository provinciaRepository = mock(ProvinciaRepository.class);
+        when(provinciaRepository.findAllConComunidad()).thenReturn(List.of()).thenReturn(provincias());
+        EstadisticasPreciosService service = new EstadisticasPreciosService(provinciaRepository);
+
+        service.recalcular(instantanea());
+        assertTrue(service.getComunidades().isEmpty(), "Sin provincias no debería publicarse nada.");
+
+        // La recarga de los datos de referencia usa la instantánea que se recibió antes
+        service.recalcular();
+        assertEquals("1,429", service.getComunidad("09").orElseThrow().getCombustibles().get(0).getMedia());
+    }
+
+    @Test
+    void testRecargaSinInstantaneaNoCalculaNada() {
+        ProvinciaRepository provinciaRepository = mock(ProvinciaRepository.class);
+        EstadisticasPreciosService service = new EstadisticasPreciosService(provinciaRepository);
+
+        service.recalcular();
+
+        verifyNoInteractions(provinciaRepository);
+        assertTrue(service.getComunidades().isEmpty());
+    }
+}
@@ -0,0 +1,81 @@
+package es.kuiko.api_comunidades.service.estaciones;
+
+import es.kuiko.api_comunidades.dto.gasolineras.Estacion;
+import es.kuiko.api_comunidades.dto.gasolineras.PrecioCombustible;
+import es.kuiko.api_comunidades.dto.gasolineras.TipoCombustible;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IndiceEspacialTest {
+
+    private static final int SP = PrecioCombustible.SIN_PRECIO;
+
+    private AlmacenEstaciones almacen;
+    private IndiceEspacial indice;
+
+    private static Estacion estacion(String rotulo, String idProvincia, int latitudE6, int longitudE6, int gasoleo) {
+        return new Estacion(rotulo, "", "", "", "", "", idProvincia, latitudE6, longitudE6,
+                new int[]{SP, SP, SP, SP, gasoleo, SP, SP});
+    }
+
+    @BeforeEach
+    void setUp() {
+        almacen = AlmacenEstaciones.construir(List.of(
+                // Puerta del Sol (Madrid) y alrededores
+                estacion("SOL", "28", 40_416_775, -3_703_790, 1459),
+                estacion("ATOCHA", "28", 40_406_500, -3_690_800, 1399),
+                estacion("SIN GASOLEO", "28", 40_417_000, -3_704_000, SP),
+                // Guadalajara, a unos 2,5 km del centro en este ejemplo
+                estacion("LIMITE", "19", 40_430_000, -3_680_000, 1349),
+                // Barcelona, muy lejos
+                estacion("BARCELONA", "08", 41_387_000, 2_170_000, 1199),
+                estacion("SIN COORDENADAS", "28", Estacion.SIN_COORDENADA, Estacion.SIN_COORDENADA, 1000)));
+        indice = IndiceEspacial.construir(almacen);
+    }
+
+    @Test
+    void testBuscaLasMasCercanasCruzandoProvincias() {
+        List<IndiceEspacial.Cercana> cercanas = indice.buscar(40.416775, -3.703790, 5, null, false, 10);
+
+        assertEquals(4, cercanas.size());
+        assertEquals("SOL", almacen.rotulo(cercanas.get(0).fila()));
+        assertEquals("SIN GASOLEO", almacen.rotulo(cercanas.get(1).fila()));
+        assertTrue(cercanas.stream().anyMatch(c -> "LIMITE".equals(almacen.rotulo(c.fila()))),
+                "La búsqueda debería incluir estaciones de otra provincia dentro del radio.");
+        for (int i = 1; i < cercanas.size(); i++) {
+            assertTrue(cercanas.get(i - 1).distanciaKm() <= cercanas.get(i).distanciaKm());
+        }
+    }
+
+    @Test
+    void testOrdenaPorPrecioYExcluyeSinPrecio() {
+        List<IndiceEspacial.Cercana> baratas = indice.buscar(40.416775, -3.703790, 5, TipoCombustible.GASOLEO_A, true, 2);
+
+        assertEquals(2, baratas.size());
+        assertEquals("LIMITE", almacen.rotulo(baratas.get(0).fila()));
+        assertEquals("ATOCHA", almacen.rotulo(baratas.get(1).fila()));
+    }
+
+    @Test
+    void testRespetaRadioYLimite() {
+        assertEquals(1, indice.buscar(40.416775, -3.703790, 0.1, TipoCombustible.GASOLEO_A, false, 10).size());
+        assertEquals(1, indice.buscar(40.416775, -3.703790, 5, null, false, 1).size());
+        assertTrue(indice.buscar(28.0, -15.0, 10, null, false, 10).isEmpty(), "Fuera de la rejilla no debería haber resultados.");
+    }
+
+    @Test
+    void testOrdenarPorPrecioSinCombustibleFalla() {
+        assertThrows(IllegalArgumentException.class, () -> indice.buscar(40.4, -3.7, 5, null, true, 10));
+    }
+
+    @Test
+    void testDistanciaHaversine() {
+        // Madrid - Barcelona: unos 505 km en línea recta
+        double distancia = IndiceEspacial.distanciaKm(40.416775, -3.703790, 41.387, 2.17);
+        assertEquals(505, distancia, 5);
+    }
+}
@@ -0,0 +1,68 @@
+package es.kuiko.api_comunidades.service.estaciones;
+
+import es.kuiko.api_comunidades.dto.gasolineras.Estacion;
+import es.kuiko.api_comunidades.dto.gasolineras.PrecioCombustible;
+import es.kuiko.api_comunidades.dto.gasolineras.TipoCombustible;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IndicePreciosTest {
+
+    private static final int SP = PrecioCombustible.SIN_PRECIO;
+
+    private AlmacenEstaciones almacen;
+    private IndicePrecios indice;
+
+    private static Estacion estacion(String rotulo, String idProvincia, int gasoleo) {
+        return new Estacion(rotulo, "", "", "", "", "", idProvincia, Estacion.SIN_COORDENADA, Estacion.SIN_COORDENADA,
+                new int[]{SP, SP, SP, SP, gasoleo, SP, SP});
+    }
+
+    @BeforeEach
+    void setUp() {
+        almacen = AlmacenEstaciones.construir(List.of(
+                estacion("MADRID-1", "28", 1459),
+                estacion("BARCELONA-1", "08", 1419),
+                estacion("MADRID-2", "28", 1399),
+                estacion("GIRONA-1", "17", 1389),
+                estacion("BARCELONA-2", "08", 1499),
+                estacion("MADRID-SIN", "28", SP),
+                estacion("LLEIDA-1", "25", 1409)));
+        indice = IndicePrecios.construir(almacen);
+    }
+
+    private String[] rotulos(int[] filas) {
+        String[] rotulos = new String[filas.length];
+        for (int i = 0; i < filas.length; i++) {
+            rotulos[i] = almacen.rotulo(filas[i]);
+        }
+        return rotulos;
+    }
+
+    @Test
+    void testMasBaratasDeEspana() {
+        assertArrayEquals(new String[]{"GIRONA-1", "MADRID-2", "LLEIDA-1"},
+                rotulos(indice.masBaratas(TipoCombustible.GASOLEO_A, 3)));
+        assertEquals(6, indice.masBaratas(TipoCombustible.GASOLEO_A, 100).length,
+                "Las estaciones sin precio no deberían aparecer en el ranking.");
+        assertEquals(0, indice.masBaratas(TipoCombustible.GLP, 10).length);
+    }
+
+    @Test
+    void testMasBaratasDeUnaProvincia() {
+        assertArrayEquals(new String[]{"MADRID-2", "MADRID-1"},
+                rotulos(indice.masBaratasProvincia(TipoCombustible.GASOLEO_A, 28, 10)));
+        assertEquals(0, indice.masBaratasProvincia(TipoCombustible.GASOLEO_A, 33, 10).length);
+    }
+
+    @Test
+    void testMasBaratasDeVariasProvinciasMezclaLosTramos() {
+        // Cataluña: Barcelona (8), Girona (17), Lleida (25) y Tarragona (43), que no tiene estaciones
+        int[] filas = indice.masBaratasProvincias(TipoCombustible.GASOLEO_A, new int[]{8, 17, 25, 43}, 3);
+        assertArrayEquals(new String[]{"GIRONA-1", "LLEIDA-1", "BARCELONA-1"}, rotulos(filas));
+    }
+}
@@ -0,0 +1,75 @@
+package es.kuiko.api_comunidades.service.estaciones;
+
+import es.kuiko.api_comunidades.dto.gasolineras.Estacion;
+import es.kuiko.api_comunidades.dto.gasolineras.PrecioCombustible;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IndiceTextoTest {
+
+    private static final int SP = PrecioCombustible.SIN_PRECIO;
+
+    private AlmacenEstaciones almacen;
+    private IndiceTexto indice;
+
+    private static Estacion estacion(String rotulo, String direccion, String municipio, String localidad, String idProvincia) {
+        return new Estacion(rotulo, direccion, "", localidad, municipio, "", idProvincia,
+                Estacion.SIN_COORDENADA, Estacion.SIN_COORDENADA, new int[]{SP, SP, SP, SP, SP, SP, SP});
+    }
+
+    @BeforeEach
+    void setUp() {
+        almacen = AlmacenEstaciones.construir(List.of(
+                estacion("REPSOL", "CALLE MAYOR, 1", "Madrid", "MADRID", "28"),
+                estacion("CEPSA", "AVENIDA DE ANDALUCÍA, 12", "Madrid", "MADRID", "28"),
+                estacion("REPSOL", "CARRETERA N-340 KM 1040", "Peñíscola", "PEÑÍSCOLA", "12"),
+                estacion("GALP", "CALLE ÁVILA, 3", "Ávila", "ÁVILA", "05")));
+        indice = IndiceTexto.construir(almacen, null);
+    }
+
+    private String[] rotulos(int[] filas) {
+        String[] rotulos = new String[filas.length];
+        for (int i = 0; i < filas.length; i++) {
+            rotulos[i] = almacen.rotulo(filas[i]) + "/" + almacen.municipio(filas[i]);
+        }
+        return rotulos;
+    }
+
+    @Test
+    void testTerminosSinTildesNiMayusculas() {
+        assertArrayEquals(new String[]{"avenida", "de", "andalucia", "12"}, IndiceTexto.terminos("AVENIDA DE ANDALUCÍA, 12"));
+        assertArrayEquals(new String[]{"peniscola"}, IndiceTexto.terminos("Peñíscola"));
+        assertEquals(0, IndiceTexto.terminos("  , ").length);
+    }
+
+    @Test
+    void testBuscaPorPrefijoSinTildes() {
+        assertArrayEquals(new String[]{"REPSOL/Peñíscola"}, rotulos(indice.buscar("penis", 0, almacen.size(), 10)));
+        assertArrayEquals(new String[]{"GALP/Ávila"}, rotulos(indice.buscar("avil", 0, almacen.size(), 10)));
+    }
+
+    @Test
+    void testTodasLasPalabrasDebenCoincidir() {
+        assertArrayEquals(new String[]{"REPSOL/Madrid"}, rotulos(indice.buscar("rep mad", 0, almacen.size(), 10)));
+        assertEquals(0, indice.buscar("repsol avila", 0, almacen.size(), 10).length);
+        assertEquals(0, indice.buscar("shell", 0, almacen.size(), 10).length);
+    }
+
+    @Test
+    void testBuscaEnElRangoDeUnaProvincia() {
+        assertArrayEquals(new String[]{"REPSOL/Madrid"},
+                rotulos(indice.buscar("repsol", almacen.inicio(28), almacen.fin(28), 10)));
+        assertEquals(1, indice.buscar("madrid", 0, almacen.size(), 1).length, "Debería respetar el límite.");
+    }
+
+    @Test
+    void testReutilizaElIndiceAnterior() {
+        IndiceTexto siguiente = IndiceTexto.construir(almacen, indice);
+        assertEquals(indice.numeroTerminos(), siguiente.numeroTerminos());
+        assertArrayEquals(indice.buscar("calle", 0, almacen.size(), 10), siguiente.buscar("calle", 0, almacen.size(), 10));
+    }
+}
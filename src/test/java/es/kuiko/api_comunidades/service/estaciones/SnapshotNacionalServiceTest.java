@@ -0,0 +1,160 @@
+package es.kuiko.api_comunidades.service.estaciones;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import es.kuiko.api_comunidades.dto.gasolineras.GasolineraDTOout;
+import es.kuiko.api_comunidades.dto.gasolineras.GasolineraWrapperApiResponseOut;
+import es.kuiko.api_comunidades.mapper.GasolineraMapper;
+import es.kuiko.api_comunidades.mapper.GasolineraStreamDecoder;
+import es.kuiko.api_comunidades.service.historico.HistoricoPrecios;
+import es.kuiko.api_comunidades.service.upstream.DescargaCondicional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Ingesta de la instantánea nacional contra un WebClient cuyas respuestas se preparan en cada test,
+ * sin salir a la API de terceros ni escribir en disco.
+ */
+class SnapshotNacionalServiceTest {
+
+    private static final String DOCUMENTO = "{"
+            + "\"Fecha\":\"18/10/2026 9:15:23\","
+            + "\"ListaEESSPrecio\":["
+            + "{\"Rótulo\":\"REPSOL\",\"Provincia\":\"MADRID\",\"IDProvincia\":\"28\","
+            + "\"Latitud\":\"40,416\",\"Longitud (WGS84)\":\"-3,703\",\"Precio Gasolina 95 E5\":\"1,459\"},"
+            + "{\"Rótulo\":\"CEPSA\",\"Provincia\":\"BARCELONA\",\"IDProvincia\":\"08\","
+            + "\"Latitud\":\"41,387\",\"Longitud (WGS84)\":\"2,168\",\"Precio Gasolina 95 E5\":\"1,499\"},"
+            + "{\"Rótulo\":\"GALP\",\"Provincia\":\"BARCELONA\",\"IDProvincia\":\"08\","
+            + "\"Latitud\":\"41,401\",\"Longitud (WGS84)\":\"2,174\",\"Precio Gasolina 95 E10\":\"1,479\"}"
+            + "],"
+            + "\"Nota\":\"Archivo de todos los productos\","
+            + "\"ResultadoConsulta\":\"OK\"}";
+
+    // Cada petición consume la siguiente respuesta (o error de conexión) preparada por el test
+    private final Deque<Supplier<Mono<ClientResponse>>> respuestas = new ArrayDeque<>();
+    private HistoricoPrecios historicoPrecios;
+    private SnapshotPersistido snapshotPersistido;
+    private SnapshotNacionalService service;
+
+    @BeforeEach
+    void setUp() {
+        WebClient webClient = WebClient.builder()
+                .exchangeFunction(peticion -> respuestas.removeFirst().get())
+                .build();
+        ObjectMapper objectMapper = new ObjectMapper().disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        historicoPrecios = mock(HistoricoPrecios.class);
+        snapshotPersistido = mock(SnapshotPersistido.class);
+        service = new SnapshotNacionalService(webClient, new GasolineraStreamDecoder(objectMapper, new GasolineraMapper()),
+                historicoPrecios, mock(EstadisticasPreciosService.class), snapshotPersistido, new DescargaCondicional());
+        ReflectionTestUtils.setField(service, "snapshotUrl", "http://api/EstacionesTerrestres/");
+        ReflectionTestUtils.setField(service, "enabled", true);
+        ReflectionTestUtils.setField(service, "timeout", Duration.ofSeconds(5));
+    }
+
+    private void responder(String cuerpo) {
+        respuestas.add(() -> Mono.just(ClientResponse.create(HttpStatus.OK).body(cuerpo).build()));
+    }
+
+    private void responder(HttpStatus estado) {
+        respuestas.add(() -> Mono.just(ClientResponse.create(estado).body("error").build()));
+    }
+
+    private static List<String> rotulos(GasolineraWrapperApiResponseOut respuesta) {
+        return respuesta.getListaEESSPrecio().stream().map(GasolineraDTOout::getRotulo).toList();
+    }
+
+    @Test
+    void testRefrescarPublicaLaInstantanea() throws IOException {
+        assertTrue(service.getSnapshot().isEmpty());
+        responder(DOCUMENTO);
+
+        service.refrescar();
+
+        SnapshotNacional snapshot = service.getSnapshot().orElseThrow();
+        assertEquals(3, snapshot.getTotalEstaciones());
+        assertEquals("18/10/2026 9:15:23", snapshot.getFecha());
+        verify(snapshotPersistido).guardar(snapshot);
+        verify(historicoPrecios).registrar(snapshot);
+    }
+
+    @Test
+    void testDocumentoSinCambiosNoSeVuelveAPublicar() throws IOException {
+        responder(DOCUMENTO);
+        responder(DOCUMENTO);
+
+        service.refrescar();
+        SnapshotNacional primera = service.getSnapshot().orElseThrow();
+        service.refrescar();
+
+        assertSame(primera, service.getSnapshot().orElseThrow());
+        verify(historicoPrecios, times(1)).registrar(any());
+    }
+
+    @Test
+    void testFalloDelRefrescoConservaLaInstantaneaAnterior() throws IOException {
+        responder(DOCUMENTO);
+        responder(HttpStatus.SERVICE_UNAVAILABLE);
+        respuestas.add(() -> Mono.error(new ConnectException("Connection refused")));
+        responder("{\"Fecha\":\"18/10/2026 9:45:00\",\"ListaEESSPrecio\":[");
+
+        service.refrescar();
+        SnapshotNacional publicada = service.getSnapshot().orElseThrow();
+        service.refrescar();
+        service.refrescar();
+        service.refrescar();
+
+        assertTrue(respuestas.isEmpty());
+        assertSame(publicada, service.getSnapshot().orElseThrow());
+        assertEquals(List.of("CEPSA", "GALP"), rotulos(service.getProvincia("08").orElseThrow()));
+        verify(snapshotPersistido, times(1)).guardar(any());
+    }
+
+    @Test
+    void testGetProvinciaNormalizaElCodigo() {
+        responder(DOCUMENTO);
+        service.refrescar();
+
+        assertEquals(List.of("CEPSA", "GALP"), rotulos(service.getProvincia("8").orElseThrow()));
+        assertEquals(List.of("CEPSA", "GALP"), rotulos(service.getProvincia("08").orElseThrow()));
+        assertEquals(List.of("REPSOL"), rotulos(service.getProvincia("28").orElseThrow()));
+        assertTrue(service.getProvincia("46").isEmpty(), "Una provincia sin estaciones no tiene respuesta.");
+        assertTrue(service.streamProvincia("46").isEmpty());
+    }
+
+    @Test
+    void testSinInstantaneaNoHayProvincias() {
+        assertTrue(service.getProvincia("28").isEmpty());
+        assertTrue(service.streamProvincia("28").isEmpty());
+    }
+
+    @Test
+    void testCadaLlamadaRecibeSusPropiasGasolineras() {
+        responder(DOCUMENTO);
+        service.refrescar();
+
+        GasolineraWrapperApiResponseOut primera = service.getProvincia("08").orElseThrow();
+        primera.getListaEESSPrecio().get(0).setRotulo("MODIFICADA");
+        primera.getListaEESSPrecio().clear();
+        service.streamProvincia("08").orElseThrow().blockFirst().setRotulo("MODIFICADA");
+
+        // Lo que haga un llamante con su copia no afecta a la instantánea publicada
+        assertEquals(List.of("CEPSA", "GALP"), rotulos(service.getProvincia("08").orElseThrow()));
+        assertEquals("CEPSA", service.streamProvincia("08").orElseThrow().blockFirst().getRotulo());
+    }
+}
@@ -0,0 +1,92 @@
+package es.kuiko.api_comunidades.service.estaciones;
+
+import es.kuiko.api_comunidades.dto.gasolineras.Estacion;
+import es.kuiko.api_comunidades.dto.gasolineras.PrecioCombustible;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SnapshotPersistidoTest {
+
+    private static final int SP = PrecioCombustible.SIN_PRECIO;
+
+    @TempDir
+    Path directorio;
+
+    private SnapshotNacional crearSnapshot() {
+        return new SnapshotNacional("18/10/2026 8:00:00", "Archivo de todas las estaciones", Instant.ofEpochMilli(1_792_300_000_000L),
+                AlmacenEstaciones.construir(List.of(
+                        new Estacion("CEPSA", "AV. DIAGONAL, 1", "L-V: 07:00-22:00", "BARCELONA", "BARCELONA", "BARCELONA", "08",
+                                41390205, 2154007, new int[]{1579, SP, SP, SP, 1419, 1100, SP}),
+                        new Estacion("REPSOL", "CALLE MAYOR, 1", "L-D: 24H", "MADRID", "MADRID", "MADRID", "28",
+                                40416775, -3703790, new int[]{1559, SP, 1699, SP, 1459, SP, 899}),
+                        new Estacion("REPSOL", "AVENIDA DE ANDALUCÍA, 12", "L-D: 24H", "MADRID", "MADRID", "MADRID", "28",
+                                Estacion.SIN_COORDENADA, Estacion.SIN_COORDENADA, new int[]{SP, 1529, SP, SP, 1439, SP, SP}),
+                        new Estacion(null, null, null, null, null, "MADRID", "28",
+                                40000000, -3500000, new int[]{SP, SP, SP, SP, SP, SP, SP}))));
+    }
+
+    @Test
+    void testGuardarYCargar() throws IOException {
+        SnapshotPersistido persistido = new SnapshotPersistido(true, directorio.resolve("snapshot/ultima.bin").toString());
+        SnapshotNacional original = crearSnapshot();
+
+        persistido.guardar(original);
+        SnapshotNacional cargado = persistido.cargar().orElseThrow();
+
+        assertEquals(original.getFecha(), cargado.getFecha());
+        assertEquals(original.getNota(), cargado.getNota());
+        assertEquals(original.getObtenido(), cargado.getObtenido());
+        AlmacenEstaciones esperado = original.getAlmacen();
+        AlmacenEstaciones almacen = cargado.getAlmacen();
+        assertEquals(esperado.size(), almacen.size());
+        for (int fila = 0; fila < esperado.size(); fila++) {
+            assertEquals(esperado.estacion(fila), almacen.estacion(fila), "Fila " + fila);
+        }
+        assertEquals(esperado.inicio(28), almacen.inicio(28));
+        assertEquals(esperado.fin(28), almacen.fin(28));
+    }
+
+    @Test
+    void testGuardarSustituyeAnterior() throws IOException {
+        Path fichero = directorio.resolve("ultima.bin");
+        SnapshotPersistido persistido = new SnapshotPersistido(true, fichero.toString());
+        persistido.guardar(crearSnapshot());
+        SnapshotNacional vacio = new SnapshotNacional("18/10/2026 8:30:00", null, Instant.now(), AlmacenEstaciones.construir(List.of()));
+
+        persistido.guardar(vacio);
+
+        SnapshotNacional cargado = persistido.cargar().orElseThrow();
+        assertEquals("18/10/2026 8:30:00", cargado.getFecha());
+        assertNull(cargado.getNota());
+        assertEquals(0, cargado.getAlmacen().size());
+        try (var ficheros = Files.list(directorio)) {
+            assertEquals(List.of(fichero), ficheros.toList(), "No deberían quedar ficheros temporales.");
+        }
+    }
+
+    @Test
+    void testSinFicheroODesactivado() throws IOException {
+        assertTrue(new SnapshotPersistido(true, directorio.resolve("no-existe.bin").toString()).cargar().isEmpty());
+
+        SnapshotPersistido desactivado = new SnapshotPersistido(false, directorio.resolve("ultima.bin").toString());
+        desactivado.guardar(crearSnapshot());
+        assertFalse(Files.exists(directorio.resolve("ultima.bin")));
+        assertTrue(desactivado.cargar().isEmpty());
+    }
+
+    @Test
+    void testFicheroNoValido() throws IOException {
+        Path fichero = directorio.resolve("ultima.bin");
+        Files.write(fichero, new byte[]{1, 2, 3, 4, 5, 6, 7, 8});
+
+        assertThrows(IOException.class, () -> new SnapshotPersistido(true, fichero.toString()).cargar());
+    }
+}
@@ -0,0 +1,149 @@
+package es.kuiko.api_comunidades.service.historico;
+
+import es.kuiko.api_comunidades.dto.gasolineras.Estacion;
+import es.kuiko.api_comunidades.dto.gasolineras.HistoricoEstacionDTO;
+import es.kuiko.api_comunidades.dto.gasolineras.PrecioCombustible;
+import es.kuiko.api_comunidades.service.estaciones.AlmacenEstaciones;
+import es.kuiko.api_comunidades.service.estaciones.SnapshotNacional;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HistoricoPreciosTest {
+
+    private static final int SP = PrecioCombustible.SIN_PRECIO;
+
+    // 18/10/2026 en Madrid (UTC+2)
+    private static final Instant INICIO_DIA = Instant.parse("2026-10-17T22:00:00Z");
+    private static final Instant FIN_DIA = Instant.parse("2026-10-18T21:59:59Z");
+
+    @TempDir
+    Path directorio;
+
+    private HistoricoPrecios historico;
+
+    @BeforeEach
+    void setUp() {
+        historico = nuevoHistorico();
+    }
+
+    @AfterEach
+    void tearDown() {
+        historico.detener();
+    }
+
+    private HistoricoPrecios nuevoHistorico() {
+        // Segmentos pequeños para forzar que el fichero mapeado crezca; bloque clave cada dos bloques
+        return new HistoricoPrecios(true, directorio.toString(), 2, DataSize.ofBytes(64));
+    }
+
+    private static SnapshotNacional snapshot(String fecha, int gasoleoSol, int gasolinaSol, int gasoleoBcn) {
+        return snapshot(fecha, gasoleoSol, gasolinaSol, gasoleoBcn, true);
+    }
+
+    private static SnapshotNacional snapshot(String fecha, int gasoleoSol, int gasolinaSol, int gasoleoBcn, boolean conRetiro) {
+        List<Estacion> estaciones = new ArrayList<>();
+        estaciones.add(new Estacion("SOL", "CALLE MAYOR, 1", "", "MADRID", "MADRID", "MADRID", "28",
+                Estacion.SIN_COORDENADA, Estacion.SIN_COORDENADA, new int[]{gasolinaSol, SP, SP, SP, gasoleoSol, SP, SP}));
+        if (conRetiro) {
+            estaciones.add(new Estacion("RETIRO", "CALLE ALCALÁ, 100", "", "MADRID", "MADRID", "MADRID", "28",
+                    Estacion.SIN_COORDENADA, Estacion.SIN_COORDENADA, new int[]{1500, SP, SP, SP, 1400, SP, SP}));
+        }
+        estaciones.add(new Estacion("DIAGONAL", "AV. DIAGONAL, 1", "", "BARCELONA", "BARCELONA", "BARCELONA", "08",
+                Estacion.SIN_COORDENADA, Estacion.SIN_COORDENADA, new int[]{SP, SP, SP, SP, gasoleoBcn, SP, SP}));
+        return new SnapshotNacional(fecha, "", Instant.now(), AlmacenEstaciones.construir(estaciones));
+    }
+
+    private void registrarDia() throws IOException {
+        historico.registrar(snapshot("18/10/2026 8:00:00", 1459, 1559, 1419));
+        historico.registrar(snapshot("18/10/2026 8:30:00", 1459, 1559, 1409));  // Solo cambia Barcelona
+        historico.registrar(snapshot("18/10/2026 9:00:00", 1439, SP, 1409));    // Sol baja el gasóleo y deja la gasolina
+        historico.registrar(snapshot("18/10/2026 9:00:00", 1000, 1000, 1000)); // Misma Fecha: se ignora
+    }
+
+    @Test
+    void testLeeSoloLosCambiosDeLaProvincia() throws IOException {
+        registrarDia();
+
+        List<HistoricoEstacionDTO> madrid = historico.leer(28, INICIO_DIA, FIN_DIA);
+
+        assertEquals(2, madrid.size());
+        HistoricoEstacionDTO sol = madrid.get(0);
+        assertEquals("SOL", sol.getRotulo());
+        assertEquals(2, sol.getPrecios().size(), "Solo debería haber un punto inicial y un cambio.");
+        assertEquals("18/10/2026 8:00:00", sol.getPrecios().get(0).getFecha());
+        assertEquals("1,459", sol.getPrecios().get(0).getPrecios().get("Gasóleo A"));
+        assertEquals("1,559", sol.getPrecios().get(0).getPrecios().get("Gasolina 95 E5"));
+        assertEquals("18/10/2026 9:00:00", sol.getPrecios().get(1).getFecha());
+        assertEquals("1,439", sol.getPrecios().get(1).getPrecios().get("Gasóleo A"));
+        assertFalse(sol.getPrecios().get(1).getPrecios().containsKey("Gasolina 95 E5"));
+
+        assertEquals(1, madrid.get(1).getPrecios().size(), "Una estación sin cambios solo tiene el punto inicial.");
+    }
+
+    @Test
+    void testRangoPosteriorEmpiezaConLosPreciosVigentes() throws IOException {
+        registrarDia();
+
+        // Desde las 8:45 (hora de Madrid): el precio vigente es el de las 8:30
+        List<HistoricoEstacionDTO> barcelona = historico.leer(8, Instant.parse("2026-10-18T06:45:00Z"), FIN_DIA);
+
+        assertEquals(1, barcelona.size());
+        assertEquals(1, barcelona.get(0).getPrecios().size());
+        assertEquals("18/10/2026 8:30:00", barcelona.get(0).getPrecios().get(0).getFecha());
+        assertEquals("1,409", barcelona.get(0).getPrecios().get(0).getPrecios().get("Gasóleo A"));
+    }
+
+    @Test
+    void testReabreElHistoricoDesdeDisco() throws IOException {
+        registrarDia();
+        historico.detener();
+
+        historico = nuevoHistorico();
+        historico.registrar(snapshot("18/10/2026 9:30:00", 1429, SP, 1409));
+
+        HistoricoEstacionDTO sol = historico.leer(28, INICIO_DIA, FIN_DIA).get(0);
+        assertEquals(3, sol.getPrecios().size());
+        assertEquals("1,429", sol.getPrecios().get(2).getPrecios().get("Gasóleo A"));
+        assertTrue(historico.leer(28, Instant.parse("2026-10-19T00:00:00Z"), Instant.parse("2026-10-20T00:00:00Z"))
+                .stream().allMatch(estacion -> estacion.getPrecios().size() == 1),
+                "Tras el último bloque solo deberían quedar los precios vigentes.");
+    }
+
+    @Test
+    void testEstacionQueDesapareceEntreBloquesDeltaQuedaSinPrecio() throws IOException {
+        historico.detener();
+        historico = new HistoricoPrecios(true, directorio.toString(), 48, DataSize.ofBytes(64));
+        historico.registrar(snapshot("18/10/2026 8:00:00", 1459, 1559, 1419));  // Bloque clave
+        historico.registrar(snapshot("18/10/2026 8:30:00", 1459, 1559, 1419));
+        // Retiro deja de publicarse en dos bloques delta consecutivos
+        historico.registrar(snapshot("18/10/2026 9:00:00", 1459, 1559, 1419, false));
+        historico.registrar(snapshot("18/10/2026 9:30:00", 1459, 1559, 1419, false));
+
+        HistoricoEstacionDTO retiro = historico.leer(28, INICIO_DIA, FIN_DIA).stream()
+                .filter(estacion -> "RETIRO".equals(estacion.getRotulo())).findFirst().orElseThrow();
+        assertEquals(2, retiro.getPrecios().size());
+        assertEquals("18/10/2026 9:00:00", retiro.getPrecios().get(1).getFecha());
+        assertTrue(retiro.getPrecios().get(1).getPrecios().isEmpty(), "Una estación que no se publica no tiene precios.");
+
+        // Tras reabrir, el estado reconstruido tampoco conserva sus precios: si vuelve, se registra de nuevo
+        historico.detener();
+        historico = new HistoricoPrecios(true, directorio.toString(), 48, DataSize.ofBytes(64));
+        historico.registrar(snapshot("18/10/2026 10:00:00", 1459, 1559, 1419));
+        retiro = historico.leer(28, Instant.parse("2026-10-18T07:45:00Z"), FIN_DIA).stream()
+                .filter(estacion -> "RETIRO".equals(estacion.getRotulo())).findFirst().orElseThrow();
+        assertEquals(1, retiro.getPrecios().size());
+        assertEquals("18/10/2026 10:00:00", retiro.getPrecios().get(0).getFecha());
+        assertEquals("1,400", retiro.getPrecios().get(0).getPrecios().get("Gasóleo A"));
+    }
+}
@@ -5,6 +5,7 @@ import static org.mockito.Mockito.*;
 
 import es.kuiko.api_comunidades.model.ComunidadAutonoma;
 import es.kuiko.api_comunidades.repository.ComunidadAutonomaRepository;
+import es.kuiko.api_comunidades.service.referencia.ReferenciaTerritorial;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -22,6 +23,9 @@ class ComunidadAutonomaServiceImplTest {
     @Mock
     private ComunidadAutonomaRepository comunidadAutonomaRepository;
 
+    @Mock
+    private ReferenciaTerritorial referenciaTerritorial;
+
     @InjectMocks
     private ComunidadAutonomaServiceImpl comunidadAutonomaService;
 
@@ -40,20 +44,21 @@ class ComunidadAutonomaServiceImplTest {
         List<ComunidadAutonoma> comunidades = Arrays.asList(ca1, ca2);
 
         /* Configurar que hace el mock */
-        when(comunidadAutonomaRepository.findAll()).thenReturn(comunidades);
+        when(referenciaTerritorial.getComunidades()).thenReturn(comunidades);
 
         // Llamar al método bajo prueba
         List<ComunidadAutonoma> result = comunidadAutonomaService.getAll();
 
         // Paso 4: Verificar el resultado
         assertEquals(2, result.size(), "La cantidad de comunidades no coincide");
-        verify(comunidadAutonomaRepository, times(1)).findAll();
+        verify(referenciaTerritorial, times(1)).getComunidades();
+        verifyNoInteractions(comunidadAutonomaRepository);
     }
     
     @Test
     void testGetByIdWhenExists() {
         ComunidadAutonoma comunidad = new ComunidadAutonoma("CA1", "Comunidad Autónoma 1");
-        when(comunidadAutonomaRepository.findById("CA1")).thenReturn(Optional.of(comunidad));
+        when(referenciaTerritorial.getComunidad("CA1")).thenReturn(Optional.of(comunidad));
 
         Optional<ComunidadAutonoma> result = comunidadAutonomaService.getById("CA1");
 
@@ -63,7 +68,7 @@ class ComunidadAutonomaServiceImplTest {
 
     @Test
     void testGetByIdWhenNotExists() {
-        when(comunidadAutonomaRepository.findById("CA1")).thenReturn(Optional.empty());
+        when(referenciaTerritorial.getComunidad("CA1")).thenReturn(Optional.empty());
 
         Optional<ComunidadAutonoma> result = comunidadAutonomaService.getById("CA1");
 
@@ -92,25 +97,28 @@ class ComunidadAutonomaServiceImplTest {
         assertNotNull(result, "La comunidad no debe ser nula");
         assertEquals("CA1", result.getCodigoCa(), "El código de la comunidad no coincide");
         verify(comunidadAutonomaRepository, times(1)).save(comunidad);
+        verify(referenciaTerritorial, times(1)).invalidar();
     }
     
     @Test
     void testUpdateWhenExists() {
+        ComunidadAutonoma existente = new ComunidadAutonoma("CA1", "Comunidad Autónoma 1");
         ComunidadAutonoma comunidad = new ComunidadAutonoma("CA1", "Comunidad Autónoma Actualizada");
-        when(comunidadAutonomaRepository.existsById("CA1")).thenReturn(true);
-        when(comunidadAutonomaRepository.save(comunidad)).thenReturn(comunidad);
+        when(comunidadAutonomaRepository.findConProvinciasByCodigoCa("CA1")).thenReturn(Optional.of(existente));
+        when(comunidadAutonomaRepository.save(existente)).thenReturn(existente);
 
         ComunidadAutonoma result = comunidadAutonomaService.update("CA1", comunidad);
 
         assertNotNull(result, "La comunidad no debe ser nula");
         assertEquals("Comunidad Autónoma Actualizada", result.getNombreCa(), "El nombre de la comunidad no coincide");
-        verify(comunidadAutonomaRepository, times(1)).save(comunidad);
+        verify(comunidadAutonomaRepository, times(1)).save(existente);
+        verify(comunidadAutonomaRepository, never()).existsById(anyString());
     }
     
     @Test
     void testUpdateWhenNotExists() {
         ComunidadAutonoma comunidad = new ComunidadAutonoma("CA1", "Comunidad Autónoma 1");
-        when(comunidadAutonomaRepository.existsById("CA1")).thenReturn(false);
+        when(comunidadAutonomaRepository.findConProvinciasByCodigoCa("CA1")).thenReturn(Optional.empty());
 
         RuntimeException exception = assertThrows(RuntimeException.class, () -> {
             comunidadAutonomaService.update("CA1", comunidad);
@@ -119,21 +127,24 @@ class ComunidadAutonomaServiceImplTest {
     }
     @Test
     void testDeleteWhenExists() {
-        when(comunidadAutonomaRepository.existsById("CA1")).thenReturn(true);
+        when(comunidadAutonomaRepository.deleteByCodigoCa("CA1")).thenReturn(1);
 
         comunidadAutonomaService.delete("CA1");
 
-        verify(comunidadAutonomaRepository, times(1)).deleteById("CA1");
+        verify(comunidadAutonomaRepository, times(1)).deleteByCodigoCa("CA1");
+        verify(comunidadAutonomaRepository, never()).existsById(anyString());
+        verify(referenciaTerritorial, times(1)).invalidar();
     }
     
     @Test
     void testDeleteWhenNotExists() {
-        when(comunidadAutonomaRepository.existsById("CA1")).thenReturn(false);
+        when(comunidadAutonomaRepository.deleteByCodigoCa("CA1")).thenReturn(0);
 
         RuntimeException exception = assertThrows(RuntimeException.class, () -> {
             comunidadAutonomaService.delete("CA1");
         });
         assertEquals("Comunidad Autónoma no encontrada", exception.getMessage());
+        verify(referenciaTerritorial, never()).invalidar();
     }
 
 
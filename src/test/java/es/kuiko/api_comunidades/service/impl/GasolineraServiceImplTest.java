@@ -0,0 +1,252 @@
+package es.kuiko.api_comunidades.service.impl;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import es.kuiko.api_comunidades.dto.gasolineras.Estacion;
+import es.kuiko.api_comunidades.dto.gasolineras.GasolineraDTOout;
+import es.kuiko.api_comunidades.dto.gasolineras.GasolineraWrapperApiResponseOut;
+import es.kuiko.api_comunidades.dto.gasolineras.PrecioCombustible;
+import es.kuiko.api_comunidades.dto.gasolineras.TipoCombustible;
+import es.kuiko.api_comunidades.exception.ProvinciaNoDisponibleException;
+import es.kuiko.api_comunidades.service.cache.GasolineraCache;
+import es.kuiko.api_comunidades.service.cache.RespuestaCodificada;
+import es.kuiko.api_comunidades.service.cache.RespuestaCodificadaCache;
+import es.kuiko.api_comunidades.service.estaciones.AlmacenEstaciones;
+import es.kuiko.api_comunidades.service.estaciones.SnapshotNacional;
+import es.kuiko.api_comunidades.service.estaciones.SnapshotNacionalService;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+@ExtendWith(MockitoExtension.class)
+class GasolineraServiceImplTest {
+
+    @Mock
+    private GasolineraCache gasolineraCache;
+
+    @Mock
+    private SnapshotNacionalService snapshotNacionalService;
+
+    @Mock
+    private RespuestaCodificadaCache respuestaCodificadaCache;
+
+    @InjectMocks
+    private GasolineraServiceImpl gasolineraService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(gasolineraService, "concurrenciaLote", 4);
+    }
+
+    private static GasolineraWrapperApiResponseOut respuesta(String... nombres) {
+        GasolineraWrapperApiResponseOut respuesta = new GasolineraWrapperApiResponseOut();
+        respuesta.setResultadoConsulta("OK");
+        respuesta.setListaEESSPrecio(Arrays.stream(nombres).map(nombre -> {
+            GasolineraDTOout gasolinera = new GasolineraDTOout();
+            gasolinera.setRotulo(nombre);
+            return gasolinera;
+        }).toList());
+        return respuesta;
+    }
+
+    @Test
+    void testCodigoProvinciaNormalizadoAntesDeConsultar() {
+        GasolineraWrapperApiResponseOut respuesta = respuesta("A");
+        when(snapshotNacionalService.getProvincia("08")).thenReturn(Optional.empty());
+        when(gasolineraCache.get(eq("08"), any())).thenReturn(Mono.just(respuesta));
+
+        assertSame(respuesta, gasolineraService.getGasolinerasPorProvincia("8").block());
+        assertSame(respuesta, gasolineraService.getGasolinerasPorProvincia("08").block());
+        verify(gasolineraCache, times(2)).get(eq("08"), any());
+        verify(gasolineraCache, never()).get(eq("8"), any());
+    }
+
+    @Test
+    void testClaveDeRespuestaCodificadaNormalizada() {
+        GasolineraWrapperApiResponseOut respuesta = respuesta("A");
+        when(snapshotNacionalService.getSnapshot()).thenReturn(Optional.empty());
+        when(gasolineraCache.getCompartida(eq("08"), any())).thenReturn(Mono.just(respuesta));
+        RespuestaCodificada codificada = mock(RespuestaCodificada.class);
+        when(respuestaCodificadaCache.obtener("provincia:08", respuesta)).thenReturn(codificada);
+
+        assertSame(codificada, gasolineraService.getGasolinerasCodificadas("8").block());
+    }
+
+    @Test
+    void testCodigoProvinciaNoValidoRechazadoSinConsultar() {
+        assertThrows(IllegalArgumentException.class, () -> gasolineraService.getGasolinerasPorProvincia("99"));
+        assertThrows(IllegalArgumentException.class, () -> gasolineraService.getGasolinerasPorProvincia("abc"));
+        assertThrows(IllegalArgumentException.class, () -> gasolineraService.streamGasolinerasPorProvincia("0"));
+        assertThrows(IllegalArgumentException.class, () -> gasolineraService.getGasolinerasCodificadas(null));
+
+        verifyNoInteractions(gasolineraCache, snapshotNacionalService, respuestaCodificadaCache);
+    }
+
+    private static List<String> rotulos(Flux<GasolineraDTOout> gasolineras) {
+        return gasolineras.map(GasolineraDTOout::getRotulo).collectList().block();
+    }
+
+    @Test
+    void testStreamDesdeLaInstantaneaNacional() {
+        when(snapshotNacionalService.streamProvincia("28")).thenReturn(Optional.of(Flux.just(respuesta("A").getListaEESSPrecio().get(0))));
+
+        assertEquals(List.of("A"), rotulos(gasolineraService.streamGasolinerasPorProvincia("28")));
+        verifyNoInteractions(gasolineraCache);
+    }
+
+    @Test
+    void testStreamDesdeLaCacheSinConsultarLaApi() {
+        when(snapshotNacionalService.streamProvincia("28")).thenReturn(Optional.empty());
+        when(gasolineraCache.peek("28")).thenReturn(Optional.of(respuesta("A", "B")));
+
+        assertEquals(List.of("A", "B"), rotulos(gasolineraService.streamGasolinerasPorProvincia("28")));
+        verify(gasolineraCache, never()).get(anyString(), any());
+    }
+
+    @Test
+    void testStreamDesdeLaCacheEmiteCopias() {
+        GasolineraWrapperApiResponseOut cacheada = respuesta("A");
+        when(snapshotNacionalService.streamProvincia("28")).thenReturn(Optional.empty());
+        when(gasolineraCache.peek("28")).thenReturn(Optional.of(cacheada));
+
+        GasolineraDTOout emitida = gasolineraService.streamGasolinerasPorProvincia("28").blockFirst();
+        emitida.setRotulo("MODIFICADA");
+
+        assertNotSame(cacheada.getListaEESSPrecio().get(0), emitida);
+        assertEquals("A", cacheada.getListaEESSPrecio().get(0).getRotulo());
+    }
+
+    @Test
+    void testStreamSinDatosEnMemoriaPasaPorLaCache() {
+        when(snapshotNacionalService.streamProvincia("08")).thenReturn(Optional.empty());
+        when(gasolineraCache.peek("08")).thenReturn(Optional.empty());
+        when(gasolineraCache.get(eq("08"), any())).thenReturn(Mono.just(respuesta("A", "B")));
+
+        assertEquals(List.of("A", "B"), rotulos(gasolineraService.streamGasolinerasPorProvincia("8")));
+    }
+
+    @Test
+    void testStreamConRespuestaDeErrorDeLaApi() {
+        GasolineraWrapperApiResponseOut error = new GasolineraWrapperApiResponseOut();
+        error.setResultadoConsulta("Service Unavailable");
+        when(snapshotNacionalService.streamProvincia("08")).thenReturn(Optional.empty());
+        when(gasolineraCache.peek("08")).thenReturn(Optional.empty());
+        when(gasolineraCache.get(eq("08"), any())).thenReturn(Mono.just(error));
+
+        StepVerifier.create(gasolineraService.streamGasolinerasPorProvincia("08"))
+                .expectError(ProvinciaNoDisponibleException.class)
+                .verify();
+    }
+
+    // Cada provincia responde tras el retardo indicado, registrando cuántas consultas hay en curso a la vez
+    private void provinciaConRetardo(String codigo, long retardoMs, AtomicInteger enCurso, AtomicInteger maximoEnCurso) {
+        when(gasolineraCache.get(eq(codigo), any())).thenReturn(Mono.defer(() -> {
+                    maximoEnCurso.accumulateAndGet(enCurso.incrementAndGet(), Math::max);
+                    return Mono.just(respuesta(codigo)).delayElement(Duration.ofMillis(retardoMs));
+                })
+                .doOnTerminate(enCurso::decrementAndGet));
+    }
+
+    @Test
+    void testVariasProvinciasEnOrdenConConcurrenciaAcotada() {
+        ReflectionTestUtils.setField(gasolineraService, "concurrenciaLote", 2);
+        when(snapshotNacionalService.getProvincia(anyString())).thenReturn(Optional.empty());
+        AtomicInteger enCurso = new AtomicInteger();
+        AtomicInteger maximoEnCurso = new AtomicInteger();
+        // La primera provincia es la más lenta: sus gasolineras deben salir igualmente las primeras
+        provinciaConRetardo("28", 150, enCurso, maximoEnCurso);
+        provinciaConRetardo("08", 10, enCurso, maximoEnCurso);
+        provinciaConRetardo("46", 10, enCurso, maximoEnCurso);
+        provinciaConRetardo("41", 10, enCurso, maximoEnCurso);
+
+        List<String> rotulos = rotulos(gasolineraService.getGasolinerasPorProvincias(List.of("28", "08", "46", "41")));
+
+        assertEquals(List.of("28", "08", "46", "41"), rotulos);
+        assertEquals(2, maximoEnCurso.get());
+    }
+
+    @Test
+    void testVariasProvinciasNormalizadasYSinRepetir() {
+        when(snapshotNacionalService.getProvincia(anyString())).thenReturn(Optional.empty());
+        when(gasolineraCache.get(eq("08"), any())).thenReturn(Mono.just(respuesta("A")));
+        when(gasolineraCache.get(eq("28"), any())).thenReturn(Mono.just(respuesta("B")));
+
+        List<String> rotulos = rotulos(gasolineraService.getGasolinerasPorProvincias(List.of("8", "08", " 8", "28", "28")));
+
+        assertEquals(List.of("A", "B"), rotulos);
+        verify(gasolineraCache, times(1)).get(eq("08"), any());
+        verify(gasolineraCache, times(1)).get(eq("28"), any());
+    }
+
+    @Test
+    void testVariasProvinciasConCodigoNoValido() {
+        assertThrows(IllegalArgumentException.class, () -> gasolineraService.getGasolinerasPorProvincias(List.of("28", "99")));
+        assertThrows(IllegalArgumentException.class, () -> gasolineraService.getGasolinerasPorProvincias(List.of("28", "x")));
+        assertThrows(IllegalArgumentException.class, () -> gasolineraService.getGasolinerasPorProvincias(List.of()));
+
+        verifyNoInteractions(gasolineraCache, snapshotNacionalService);
+    }
+
+    @Test
+    void testVariasProvinciasConFalloDeUnaProvincia() {
+        GasolineraWrapperApiResponseOut error = new GasolineraWrapperApiResponseOut();
+        error.setResultadoConsulta("Service Unavailable");
+        when(snapshotNacionalService.getProvincia(anyString())).thenReturn(Optional.empty());
+        when(gasolineraCache.get(eq("28"), any())).thenReturn(Mono.just(respuesta("A")));
+        when(gasolineraCache.get(eq("08"), any())).thenReturn(Mono.just(error));
+
+        StepVerifier.create(gasolineraService.getGasolinerasPorProvincias(List.of("28", "08")))
+                .expectNextCount(1)
+                .expectErrorSatisfies(e -> assertEquals("08", ((ProvinciaNoDisponibleException) e).getCodigoProvincia()))
+                .verify();
+    }
+
+    private static SnapshotNacional instantanea(String... provincias) {
+        int[] sinPrecio = new int[TipoCombustible.count()];
+        Arrays.fill(sinPrecio, PrecioCombustible.SIN_PRECIO);
+        List<Estacion> estaciones = Arrays.stream(provincias)
+                .map(provincia -> new Estacion("REPSOL", "CALLE MAYOR, 1", "L-D: 24H", "LOCALIDAD", "MUNICIPIO",
+                        "PROVINCIA " + provincia, provincia, 40_416_775, -3_703_790, sinPrecio))
+                .toList();
+        return new SnapshotNacional("18/10/2026 9:15:23", null, Instant.parse("2026-10-18T07:15:00Z"),
+                AlmacenEstaciones.construir(estaciones));
+    }
+
+    @Test
+    void testVerificadoInstantaneaSoloSiTodasLasProvinciasEstanEnElla() {
+        SnapshotNacional snapshot = instantanea("28", "08");
+        Instant verificado = Instant.parse("2026-10-18T07:45:00Z");
+        when(snapshotNacionalService.getSnapshot()).thenReturn(Optional.of(snapshot));
+        lenient().when(snapshotNacionalService.getVerificado(snapshot)).thenReturn(verificado);
+
+        assertEquals(Optional.of(verificado), gasolineraService.getVerificadoInstantanea(List.of("28", "8")));
+        // Valencia no está en la instantánea: se serviría desde la caché por provincia, sin antigüedad conocida
+        assertEquals(Optional.empty(), gasolineraService.getVerificadoInstantanea(List.of("28", "46")));
+    }
+
+    @Test
+    void testVerificadoInstantaneaSinInstantanea() {
+        when(snapshotNacionalService.getSnapshot()).thenReturn(Optional.empty());
+
+        assertEquals(Optional.empty(), gasolineraService.getVerificadoInstantanea(List.of("28")));
+    }
+}
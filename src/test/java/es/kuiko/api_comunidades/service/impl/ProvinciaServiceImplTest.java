@@ -22,6 +22,7 @@ import es.kuiko.api_comunidades.model.ComunidadAutonoma;
 import es.kuiko.api_comunidades.model.Provincia;
 import es.kuiko.api_comunidades.repository.ComunidadAutonomaRepository;
 import es.kuiko.api_comunidades.repository.ProvinciaRepository;
+import es.kuiko.api_comunidades.service.referencia.ReferenciaTerritorial;
 
 @ExtendWith(MockitoExtension.class)
 class ProvinciaServiceImplTest {
@@ -32,6 +33,9 @@ class ProvinciaServiceImplTest {
     @Mock
     private ComunidadAutonomaRepository comunidadAutonomaRepository;
 
+    @Mock
+    private ReferenciaTerritorial referenciaTerritorial;
+
     @InjectMocks
     private ProvinciaServiceImpl provinciaServiceImpl;
     
@@ -51,7 +55,7 @@ class ProvinciaServiceImplTest {
         Provincia provincia2 = new Provincia(2, "Provincia 2", ca1);
         List<Provincia> provinciasSimuladas = Arrays.asList(provincia1, provincia2);
 
-        when(provinciaRepository.findAll()).thenReturn(provinciasSimuladas);
+        when(referenciaTerritorial.getProvincias()).thenReturn(provinciasSimuladas);
 
         // Ejecutar el método bajo prueba
         List<Provincia> resultado = provinciaServiceImpl.getAll();
@@ -59,7 +63,8 @@ class ProvinciaServiceImplTest {
         // Verificar el resultado
         assertEquals(2, resultado.size());
         assertEquals("Provincia 1", resultado.get(0).getNombreProvincia());
-        verify(provinciaRepository, times(1)).findAll();
+        verify(referenciaTerritorial, times(1)).getProvincias();
+        verifyNoInteractions(provinciaRepository);
     }
 
     @Test
@@ -67,8 +72,8 @@ class ProvinciaServiceImplTest {
         // Preparar la Provincia simulada
         Provincia provinciaSimulada = new Provincia(1, "Provincia 1", ca1);
 
-        // Mock para que `findById` retorne la Provincia simulada
-        when(provinciaRepository.findById(1)).thenReturn(Optional.of(provinciaSimulada));
+        // Mock para que la instantánea retorne la Provincia simulada
+        when(referenciaTerritorial.getProvincia(1)).thenReturn(Optional.of(provinciaSimulada));
 
         // Llamar al método bajo prueba
         Optional<Provincia> resultado = provinciaServiceImpl.getById(1);
@@ -77,8 +82,9 @@ class ProvinciaServiceImplTest {
         assertTrue(resultado.isPresent(), "La provincia no fue encontrada cuando debería existir.");
         assertEquals("Provincia 1", resultado.get().getNombreProvincia(), "El nombre de la provincia no coincide.");
         
-        // Verificar que se llamó al método `findById` solo una vez
-        verify(provinciaRepository, times(1)).findById(1);
+        // Verificar que se leyó de la instantánea y no de la base de datos
+        verify(referenciaTerritorial, times(1)).getProvincia(1);
+        verifyNoInteractions(provinciaRepository);
     }
 
 
@@ -86,15 +92,14 @@ class ProvinciaServiceImplTest {
     void testGetProvinciaComunidadInfoById() {
         Provincia provinciaSimulada = new Provincia(1, "Provincia 1", ca1);
 
-        when(provinciaRepository.existsById(1)).thenReturn(true);// le dice que existe la provincia simulada, ya que yo tengo validación sobre la BBDD
-        when(provinciaRepository.findProvinciaComunidadInfoById(1)).thenReturn(Optional.of(provinciaSimulada));
+        when(referenciaTerritorial.getProvincia(1)).thenReturn(Optional.of(provinciaSimulada));
 
         Optional<ProvinciaInfoComunidadDTO> resultado = provinciaServiceImpl.getProvinciaComunidadInfoById(1);
 
         assertTrue(resultado.isPresent());
         assertEquals("Provincia 1", resultado.get().getNombreProvincia());
         assertEquals("ca1", resultado.get().getCodigoCa());
-        verify(provinciaRepository, times(1)).findProvinciaComunidadInfoById(1);
+        verifyNoInteractions(provinciaRepository);
     }
 
     @Test
@@ -111,6 +116,7 @@ class ProvinciaServiceImplTest {
         assertEquals("Provincia 1", resultado.getNombreProvincia());
         assertEquals("ca1", resultado.getComunidadAutonoma().getCodigoCa());
         verify(provinciaRepository, times(1)).save(any(Provincia.class));
+        verify(referenciaTerritorial, times(1)).invalidar();
     }
 
     @Test
@@ -118,7 +124,7 @@ class ProvinciaServiceImplTest {
         ProvinciaDTO provinciaModificadaDTO = new ProvinciaDTO(1, "Provincia Modificada", ca1.getCodigoCa());
         Provincia provinciaExistente = new Provincia(1, "Provincia Original", ca1);
 
-        when(provinciaRepository.findById(1)).thenReturn(Optional.of(provinciaExistente));
+        when(provinciaRepository.findProvinciaComunidadInfoById(1)).thenReturn(Optional.of(provinciaExistente));
         when(provinciaRepository.save(any(Provincia.class))).thenAnswer(invocation -> invocation.getArgument(0));
 
         Provincia resultado = provinciaServiceImpl.update(1, provinciaModificadaDTO);
@@ -130,11 +136,25 @@ class ProvinciaServiceImplTest {
 
     @Test
     void testDelete() {
-        when(provinciaRepository.existsById(1)).thenReturn(true);
+        when(provinciaRepository.deleteByCodigoProvincia(1)).thenReturn(1);
 
         provinciaServiceImpl.delete(1);
 
-        verify(provinciaRepository, times(1)).deleteById(1);
+        verify(provinciaRepository, times(1)).deleteByCodigoProvincia(1);
+        verify(provinciaRepository, never()).existsById(anyInt());
+        verify(referenciaTerritorial, times(1)).invalidar();
+    }
+
+    @Test
+    void testDeleteProvinciaNotFound() {
+        when(provinciaRepository.deleteByCodigoProvincia(1)).thenReturn(0);
+
+        CustomNotFoundException exception = assertThrows(CustomNotFoundException.class, () -> {
+            provinciaServiceImpl.delete(1);
+        });
+
+        assertEquals("Provincia con código 1 no encontrada", exception.getMessage());
+        verify(referenciaTerritorial, never()).invalidar();
     }
 
     @Test
@@ -156,7 +176,7 @@ class ProvinciaServiceImplTest {
     void testUpdateProvinciaNotFound() {
         ProvinciaDTO provinciaModificadaDTO = new ProvinciaDTO(1, "Provincia Modificada", ca1.getCodigoCa());
 
-        when(provinciaRepository.findById(1)).thenReturn(Optional.empty());
+        when(provinciaRepository.findProvinciaComunidadInfoById(1)).thenReturn(Optional.empty());
 
         CustomNotFoundException exception = assertThrows(CustomNotFoundException.class, () -> {
             provinciaServiceImpl.update(1, provinciaModificadaDTO);
@@ -0,0 +1,48 @@
+package es.kuiko.api_comunidades.service.referencia;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+class CodigosTerritorialesTest {
+
+    @Test
+    void testCodigoProvincia() {
+        assertEquals(8, CodigosTerritoriales.codigoProvincia("8"));
+        assertEquals(8, CodigosTerritoriales.codigoProvincia("08"));
+        assertEquals(28, CodigosTerritoriales.codigoProvincia(" 28 "));
+        assertEquals(52, CodigosTerritoriales.codigoProvincia("52"));
+        assertEquals(0, CodigosTerritoriales.codigoProvincia("53"));
+        assertEquals(0, CodigosTerritoriales.codigoProvincia("00"));
+        assertEquals(0, CodigosTerritoriales.codigoProvincia("028"));
+        assertEquals(0, CodigosTerritoriales.codigoProvincia("2a"));
+        assertEquals(0, CodigosTerritoriales.codigoProvincia(""));
+        assertEquals(0, CodigosTerritoriales.codigoProvincia(null));
+    }
+
+    @Test
+    void testNormalizarCodigoReutilizaLaMismaInstancia() {
+        assertEquals("08", CodigosTerritoriales.normalizarCodigo(8));
+        assertEquals("99", CodigosTerritoriales.normalizarCodigo(CodigosTerritoriales.parsearCodigo("99")));
+        assertSame(CodigosTerritoriales.normalizarCodigo(8), CodigosTerritoriales.normalizarCodigo(CodigosTerritoriales.parsearCodigo("8")));
+        assertNull(CodigosTerritoriales.normalizarCodigo(0));
+        assertNull(CodigosTerritoriales.normalizarCodigo(100));
+    }
+
+    @Test
+    void testEsAlfanumericoEquivaleALaExpresionRegular() {
+        String[] codigos = {"MD", "ca1", "CA1", "", "C A", "C-A", "Ñ", "ÇA", "AĀ", "9"};
+        for (String codigo : codigos) {
+            assertEquals(codigo.matches("[A-Za-z0-9]+"), CodigosTerritoriales.esAlfanumerico(codigo), codigo);
+        }
+        assertFalse(CodigosTerritoriales.esAlfanumerico(null));
+    }
+
+    @Test
+    void testValidarCodigoProvincia() {
+        CodigosTerritoriales.validarCodigoProvincia(1);
+        CodigosTerritoriales.validarCodigoProvincia(60);
+        assertThrows(IllegalArgumentException.class, () -> CodigosTerritoriales.validarCodigoProvincia(0));
+        assertThrows(IllegalArgumentException.class, () -> CodigosTerritoriales.validarCodigoProvincia(null));
+    }
+}
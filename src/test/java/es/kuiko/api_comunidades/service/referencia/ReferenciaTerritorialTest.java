@@ -0,0 +1,185 @@
+package es.kuiko.api_comunidades.service.referencia;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import es.kuiko.api_comunidades.dto.ComunidadAutonomaCountProvinciasDTO;
+import es.kuiko.api_comunidades.model.ComunidadAutonoma;
+import es.kuiko.api_comunidades.model.Provincia;
+import es.kuiko.api_comunidades.repository.ComunidadAutonomaRepository;
+import es.kuiko.api_comunidades.service.cache.RespuestaCodificada;
+import es.kuiko.api_comunidades.service.cache.RespuestaCodificadaCache;
+import es.kuiko.api_comunidades.service.estaciones.EstadisticasPreciosService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@ExtendWith(MockitoExtension.class)
+class ReferenciaTerritorialTest {
+
+    @Mock
+    private ComunidadAutonomaRepository comunidadAutonomaRepository;
+
+    @Mock
+    private EstadisticasPreciosService estadisticasPreciosService;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private ReferenciaTerritorial referenciaTerritorial;
+
+    private ComunidadAutonoma madrid;
+    private ComunidadAutonoma cataluna;
+
+    @BeforeEach
+    void setUp() {
+        referenciaTerritorial = new ReferenciaTerritorial(comunidadAutonomaRepository,
+                new RespuestaCodificadaCache(objectMapper), estadisticasPreciosService);
+        madrid = new ComunidadAutonoma("13", "Madrid");
+        cataluna = new ComunidadAutonoma("09", "Cataluña");
+        enBaseDeDatos(List.of(madrid, cataluna),
+                new Provincia(28, "Madrid", madrid),
+                new Provincia(8, "Barcelona", cataluna),
+                new Provincia(17, "Girona", cataluna));
+    }
+
+    // Simula la consulta con grafo de entidad: las comunidades llegan con sus provincias ya cargadas
+    private void enBaseDeDatos(List<ComunidadAutonoma> comunidades, Provincia... provincias) {
+        comunidades.forEach(comunidad -> comunidad.setProvincias(new ArrayList<>()));
+        for (Provincia provincia : provincias) {
+            provincia.getComunidadAutonoma().getProvincias().add(provincia);
+        }
+        when(comunidadAutonomaRepository.findAllConProvincias()).thenReturn(comunidades);
+    }
+
+    @Test
+    void testConstruyeCopiasOrdenadasYEnlazadas() {
+        List<ComunidadAutonoma> comunidades = referenciaTerritorial.getComunidades();
+
+        assertEquals(List.of("09", "13"), comunidades.stream().map(ComunidadAutonoma::getCodigoCa).toList());
+        assertEquals(List.of(8, 17, 28), referenciaTerritorial.getProvincias().stream().map(Provincia::getCodigoProvincia).toList());
+
+        ComunidadAutonoma copia = referenciaTerritorial.getComunidad("09").orElseThrow();
+        assertNotSame(cataluna, copia, "La instantánea no debe exponer las entidades gestionadas");
+        assertEquals(List.of(8, 17), copia.getProvincias().stream().map(Provincia::getCodigoProvincia).toList());
+        assertSame(copia, referenciaTerritorial.getProvincia(17).orElseThrow().getComunidadAutonoma());
+        assertTrue(referenciaTerritorial.getProvincia(99).isEmpty());
+        assertTrue(referenciaTerritorial.getComunidad("99").isEmpty());
+    }
+
+    @Test
+    void testLasListasSonInmutables() {
+        List<Provincia> provincias = referenciaTerritorial.getProvincias();
+        List<Provincia> deMadrid = referenciaTerritorial.getComunidad("13").orElseThrow().getProvincias();
+
+        assertThrows(UnsupportedOperationException.class, () -> provincias.remove(0));
+        assertThrows(UnsupportedOperationException.class, () -> deMadrid.add(new Provincia(99, "Otra", madrid)));
+    }
+
+    @Test
+    void testLasLecturasNoConsultanLaBaseDeDatos() {
+        referenciaTerritorial.getComunidades();
+        referenciaTerritorial.getProvincia(28);
+        referenciaTerritorial.getComunidad("13");
+
+        verify(comunidadAutonomaRepository, times(1)).findAllConProvincias();
+        verifyNoMoreInteractions(comunidadAutonomaRepository);
+    }
+
+    @Test
+    void testRespuestasPrecodificadas() throws Exception {
+        RespuestaCodificada comunidades = referenciaTerritorial.getComunidadesCodificadas();
+
+        JsonNode lista = objectMapper.readTree(comunidades.getJson());
+        assertEquals("09", lista.get(0).get("codigoCa").asText());
+        assertEquals(2, lista.get(0).get("provincias").size());
+        assertEquals(17, lista.get(0).get("provincias").get(1).get("codigoProvincia").asInt());
+        assertNotNull(comunidades.getGzip());
+        assertNotNull(comunidades.getObtenido(), "El instante de publicación se usa como Last-Modified");
+
+        JsonNode provincia = objectMapper.readTree(referenciaTerritorial.getProvinciaCodificada(8).orElseThrow().getJson());
+        assertEquals("Barcelona", provincia.get("nombreProvincia").asText());
+        JsonNode comunidad = objectMapper.readTree(referenciaTerritorial.getComunidadCodificada("13").orElseThrow().getJson());
+        assertEquals("Madrid", comunidad.get("nombreCa").asText());
+        assertTrue(referenciaTerritorial.getProvinciaCodificada(99).isEmpty());
+        assertTrue(referenciaTerritorial.getComunidadCodificada("99").isEmpty());
+
+        // Sin escrituras se reutilizan los mismos bytes
+        assertSame(comunidades, referenciaTerritorial.getComunidadesCodificadas());
+    }
+
+    @Test
+    void testElEtagCambiaConCadaVersion() {
+        RespuestaCodificada antes = referenciaTerritorial.getComunidadesCodificadas();
+        String etagProvincia = referenciaTerritorial.getProvinciaCodificada(28).orElseThrow().getEtag();
+
+        referenciaTerritorial.invalidar();
+
+        RespuestaCodificada despues = referenciaTerritorial.getComunidadesCodificadas();
+        assertNotEquals(antes.getEtag(), despues.getEtag());
+        assertNotEquals(etagProvincia, referenciaTerritorial.getProvinciaCodificada(28).orElseThrow().getEtag());
+        assertNotEquals(etagProvincia, referenciaTerritorial.getProvinciaCodificada(8).orElseThrow().getEtag());
+    }
+
+    @Test
+    void testContadoresDeProvincias() throws Exception {
+        assertEquals(2, referenciaTerritorial.getCantidadProvincias("09").orElseThrow().getCantidadProvinciaInComunidad());
+        assertEquals(1, referenciaTerritorial.getCantidadProvincias("13").orElseThrow().getCantidadProvinciaInComunidad());
+        assertTrue(referenciaTerritorial.getCantidadProvincias("99").isEmpty());
+        assertEquals(List.of("09", "13"), referenciaTerritorial.getCantidadesProvincias().stream()
+                .map(ComunidadAutonomaCountProvinciasDTO::getCodigoCa).toList());
+
+        JsonNode cantidades = objectMapper.readTree(referenciaTerritorial.getCantidadesProvinciasCodificadas().getJson());
+        assertEquals("Cataluña", cantidades.get(0).get("nombreCa").asText());
+        assertEquals(2, cantidades.get(0).get("cantidadProvinciaInComunidad").asInt());
+
+        // Alta de una provincia en Madrid: el contador cambia al reconstruir la instantánea
+        enBaseDeDatos(List.of(madrid, cataluna),
+                new Provincia(28, "Madrid", madrid),
+                new Provincia(19, "Guadalajara", madrid),
+                new Provincia(8, "Barcelona", cataluna),
+                new Provincia(17, "Girona", cataluna));
+        referenciaTerritorial.invalidar();
+
+        assertEquals(2, referenciaTerritorial.getCantidadProvincias("13").orElseThrow().getCantidadProvinciaInComunidad());
+    }
+
+    @Test
+    void testInvalidarSinTransaccionRecargaEnElMomento() {
+        List<ComunidadAutonoma> antes = referenciaTerritorial.getComunidades();
+        enBaseDeDatos(List.of(madrid), new Provincia(28, "Madrid", madrid));
+
+        referenciaTerritorial.invalidar();
+
+        assertEquals(2, antes.size(), "La instantánea anterior no debe modificarse");
+        assertEquals(1, referenciaTerritorial.getComunidades().size());
+        assertTrue(referenciaTerritorial.getProvincia(8).isEmpty());
+    }
+
+    @Test
+    void testInvalidarDentroDeTransaccionEsperaAlCommit() {
+        referenciaTerritorial.getComunidades();
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            referenciaTerritorial.invalidar();
+            verify(comunidadAutonomaRepository, times(1)).findAllConProvincias();
+
+            List<TransactionSynchronization> sincronizaciones = TransactionSynchronizationManager.getSynchronizations();
+            assertEquals(1, sincronizaciones.size());
+            verify(estadisticasPreciosService, times(1)).recalcular();
+            sincronizaciones.forEach(TransactionSynchronization::afterCommit);
+            verify(comunidadAutonomaRepository, times(2)).findAllConProvincias();
+            verify(estadisticasPreciosService, times(2)).recalcular();
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+}
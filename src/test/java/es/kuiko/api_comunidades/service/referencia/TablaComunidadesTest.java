@@ -0,0 +1,75 @@
+package es.kuiko.api_comunidades.service.referencia;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import es.kuiko.api_comunidades.model.ComunidadAutonoma;
+import es.kuiko.api_comunidades.model.Provincia;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+class TablaComunidadesTest {
+
+    private static final String[] CODIGOS_CA = {
+            "PV", "CM", "CV", "AN", "CL", "EX", "IB", "CT", "GA", "AR",
+            "LR", "MD", "MU", "NA", "AS", "IC", "CN", "CE", "ME"
+    };
+
+    @Test
+    void testEncuentraTodasLasComunidades() {
+        List<ComunidadAutonoma> comunidades = new ArrayList<>();
+        for (String codigo : CODIGOS_CA) {
+            comunidades.add(new ComunidadAutonoma(codigo, "Comunidad " + codigo));
+        }
+
+        TablaComunidades tabla = TablaComunidades.construir(comunidades);
+
+        for (ComunidadAutonoma comunidad : comunidades) {
+            assertSame(comunidad, tabla.get(comunidad.getCodigoCa()));
+        }
+        assertNull(tabla.get("XX"));
+        assertNull(tabla.get("md"));
+        assertNull(tabla.get(""));
+        assertNull(tabla.get(null));
+    }
+
+    @Test
+    void testAdmiteCodigosDeCualquierLongitud() {
+        List<ComunidadAutonoma> comunidades = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            comunidades.add(new ComunidadAutonoma("CA" + i, "Comunidad " + i));
+        }
+
+        TablaComunidades tabla = TablaComunidades.construir(comunidades);
+
+        for (ComunidadAutonoma comunidad : comunidades) {
+            assertSame(comunidad, tabla.get(comunidad.getCodigoCa()));
+        }
+        assertNull(tabla.get("CA200"));
+        assertNull(TablaComunidades.construir(List.of()).get("MD"));
+    }
+
+    @Test
+    void testRechazaCodigosRepetidos() {
+        List<ComunidadAutonoma> comunidades = List.of(new ComunidadAutonoma("MD", "Madrid"), new ComunidadAutonoma("MD", "Otra"));
+
+        assertThrows(IllegalArgumentException.class, () -> TablaComunidades.construir(comunidades));
+    }
+
+    @Test
+    void testTablaProvinciasIndexadaPorCodigo() {
+        ComunidadAutonoma madrid = new ComunidadAutonoma("MD", "Madrid");
+        Provincia provincia = new Provincia(28, "Madrid", madrid);
+        Provincia nueva = new Provincia(60, "Nueva", madrid);
+
+        TablaProvincias tabla = TablaProvincias.construir(List.of(provincia, nueva));
+
+        assertSame(provincia, tabla.get(28));
+        assertSame(nueva, tabla.get(60));
+        assertNull(tabla.get(8));
+        assertNull(tabla.get(0));
+        assertNull(tabla.get(-1));
+        assertNull(tabla.get(61));
+    }
+}
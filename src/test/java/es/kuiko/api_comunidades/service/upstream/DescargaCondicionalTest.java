@@ -0,0 +1,156 @@
+package es.kuiko.api_comunidades.service.upstream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DescargaCondicionalTest {
+
+    private final Deque<ClientResponse> respuestas = new ArrayDeque<>();
+    private final List<ClientRequest> peticiones = new ArrayList<>();
+    private final AtomicInteger decodificaciones = new AtomicInteger();
+    // Hace de caché del llamante: el último resultado devuelto
+    private String vigente;
+    private DescargaCondicional descargaCondicional;
+    private WebClient webClient;
+
+    @BeforeEach
+    void setUp() {
+        descargaCondicional = new DescargaCondicional();
+        webClient = WebClient.builder()
+                .exchangeFunction(peticion -> {
+                    peticiones.add(peticion);
+                    return Mono.just(respuestas.removeFirst());
+                })
+                .build();
+    }
+
+    private String descargar() {
+        vigente = descargaCondicional.descargar("provincia:28", webClient.get().uri("http://api/28"),
+                        () -> vigente, this::error, this::decodificar)
+                .block();
+        return vigente;
+    }
+
+    private String descargarEnStreaming() {
+        vigente = descargaCondicional.descargarEnStreaming("snapshot-nacional", webClient.get().uri("http://api/"),
+                        () -> vigente, this::error, this::decodificar)
+                .block();
+        return vigente;
+    }
+
+    private Mono<String> error(ClientResponse response) {
+        return Mono.just("error " + response.statusCode().value());
+    }
+
+    private Mono<String> decodificar(Flux<DataBuffer> body) {
+        return DataBufferUtils.join(body).map(buffer -> {
+            decodificaciones.incrementAndGet();
+            String texto = buffer.toString(StandardCharsets.UTF_8);
+            DataBufferUtils.release(buffer);
+            return texto;
+        });
+    }
+
+    private static ClientResponse ok(String cuerpo, String etag) {
+        ClientResponse.Builder builder = ClientResponse.create(HttpStatus.OK).body(cuerpo);
+        if (etag != null) {
+            builder.header(HttpHeaders.ETAG, etag);
+        }
+        return builder.build();
+    }
+
+    @Test
+    void testCuerpoIdenticoDevuelveElResultadoVigente() {
+        respuestas.add(ok("{\"Fecha\":\"1\"}", null));
+        respuestas.add(ok("{\"Fecha\":\"1\"}", null));
+        respuestas.add(ok("{\"Fecha\":\"2\"}", null));
+
+        String primera = descargar();
+        String segunda = descargar();
+        String tercera = descargar();
+
+        assertSame(primera, segunda, "Un cuerpo idéntico debería devolver el resultado vigente.");
+        assertEquals("{\"Fecha\":\"2\"}", tercera);
+        // El hash se compara antes de decodificar: el cuerpo idéntico no llega al decodificador
+        assertEquals(2, decodificaciones.get());
+        assertEquals(1, descargaCondicional.getSinCambios());
+    }
+
+    @Test
+    void testEnStreamingElCuerpoIdenticoSeDecodificaPeroDevuelveElVigente() {
+        respuestas.add(ok("{\"Fecha\":\"1\"}", null));
+        respuestas.add(ok("{\"Fecha\":\"1\"}", null));
+
+        String primera = descargarEnStreaming();
+        String segunda = descargarEnStreaming();
+
+        assertSame(primera, segunda);
+        // El hash solo se conoce al terminar de leer el cuerpo, que ya ha pasado por el decodificador
+        assertEquals(2, decodificaciones.get());
+        assertEquals(1, descargaCondicional.getSinCambios());
+    }
+
+    @Test
+    void testSinResultadoVigenteNoHayPeticionCondicional() {
+        respuestas.add(ok("{\"Fecha\":\"1\"}", "\"v1\""));
+        respuestas.add(ok("{\"Fecha\":\"1\"}", "\"v1\""));
+
+        String primera = descargar();
+        vigente = null;  // La entrada ha salido de la caché del llamante
+        String segunda = descargar();
+
+        assertNull(peticiones.get(1).headers().getFirst(HttpHeaders.IF_NONE_MATCH));
+        assertNotSame(primera, segunda);
+        assertEquals(primera, segunda);
+        assertEquals(0, descargaCondicional.getSinCambios());
+    }
+
+    @Test
+    void testEnviaValidadoresYReutilizaEn304() {
+        respuestas.add(ClientResponse.create(HttpStatus.OK)
+                .header(HttpHeaders.ETAG, "\"v1\"")
+                .header(HttpHeaders.LAST_MODIFIED, "Sun, 18 Oct 2026 08:00:00 GMT")
+                .body("{\"Fecha\":\"1\"}")
+                .build());
+        respuestas.add(ClientResponse.create(HttpStatus.NOT_MODIFIED).build());
+
+        String primera = descargar();
+        String segunda = descargar();
+
+        assertNull(peticiones.get(0).headers().getFirst(HttpHeaders.IF_NONE_MATCH));
+        assertEquals("\"v1\"", peticiones.get(1).headers().getFirst(HttpHeaders.IF_NONE_MATCH));
+        assertEquals("Sun, 18 Oct 2026 08:00:00 GMT", peticiones.get(1).headers().getFirst(HttpHeaders.IF_MODIFIED_SINCE));
+        assertSame(primera, segunda);
+        assertEquals(1, decodificaciones.get());
+        assertEquals(1, descargaCondicional.getNoModificadas());
+    }
+
+    @Test
+    void testErroresNoSeGuardan() {
+        respuestas.add(ClientResponse.create(HttpStatus.SERVICE_UNAVAILABLE).body("caída").build());
+        respuestas.add(ok("{\"Fecha\":\"1\"}", "\"v1\""));
+
+        assertEquals("error 503", descargar());
+        assertEquals("{\"Fecha\":\"1\"}", descargar());
+        assertNull(peticiones.get(1).headers().getFirst(HttpHeaders.IF_NONE_MATCH),
+                "Tras un error no debería haber validadores que enviar.");
+    }
+}
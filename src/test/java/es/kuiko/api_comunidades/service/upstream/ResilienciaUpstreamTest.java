@@ -0,0 +1,162 @@
+package es.kuiko.api_comunidades.service.upstream;
+
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResilienciaUpstreamTest {
+
+    private static ResilienciaUpstream canal(double ratio, int saldoMaximo) {
+        return new ResilienciaUpstream(Duration.ofSeconds(2), true, 0.95, Duration.ofMillis(20), 5,
+                2, Duration.ofMillis(1), ratio, saldoMaximo,
+                10, 5, 50, Duration.ofSeconds(30), 3,
+                1000, Duration.ofMinutes(1));
+    }
+
+    private static void calentar(ResilienciaUpstream canal) {
+        // Latencias observadas casi nulas: el p95 queda por debajo del retardo mínimo de 20 ms
+        for (int i = 0; i < 5; i++) {
+            canal.ejecutar(() -> Mono.just("ok")).block();
+        }
+    }
+
+    @Test
+    void testPeticionDuplicadaGanaALaLenta() {
+        ResilienciaUpstream canal = canal(0.1, 10);
+        calentar(canal);
+        AtomicInteger envios = new AtomicInteger();
+
+        StepVerifier.create(canal.ejecutar(() -> envios.incrementAndGet() == 1
+                        ? Mono.just("lenta").delayElement(Duration.ofSeconds(1))
+                        : Mono.just("rapida")))
+                .expectNext("rapida")
+                .verifyComplete();
+
+        assertEquals(2, envios.get());
+        assertEquals(1, canal.getPeticionesDuplicadas());
+    }
+
+    @Test
+    void testSinPresupuestoNoSeDuplicaNiSeReintenta() {
+        ResilienciaUpstream canal = canal(0, 0);
+        calentar(canal);
+        AtomicInteger envios = new AtomicInteger();
+
+        StepVerifier.create(canal.ejecutar(() -> {
+                    envios.incrementAndGet();
+                    return Mono.<String>error(new TimeoutException("simulado"));
+                }))
+                .expectError(TimeoutException.class)
+                .verify();
+
+        assertEquals(1, envios.get(), "Sin presupuesto solo debería salir la petición original.");
+        assertEquals(0, canal.getReintentos());
+    }
+
+    @Test
+    void testReintentaErroresTransitoriosConPresupuesto() {
+        ResilienciaUpstream canal = canal(0.1, 10);
+        AtomicInteger envios = new AtomicInteger();
+
+        StepVerifier.create(canal.ejecutar(() -> envios.incrementAndGet() < 3
+                        ? Mono.<String>error(new TimeoutException("simulado"))
+                        : Mono.just("ok")))
+                .expectNext("ok")
+                .verifyComplete();
+
+        assertEquals(2, canal.getReintentos());
+        assertEquals(3, canal.getPeticionesEnviadas());
+    }
+
+    @Test
+    void testNoReintentaErroresNoTransitorios() {
+        ResilienciaUpstream canal = canal(0.1, 10);
+        AtomicInteger envios = new AtomicInteger();
+
+        StepVerifier.create(canal.ejecutar(() -> {
+                    envios.incrementAndGet();
+                    return Mono.<String>error(new IllegalStateException("no transitorio"));
+                }))
+                .expectError(IllegalStateException.class)
+                .verify();
+
+        assertEquals(1, envios.get());
+        assertEquals(0, canal.getReintentos(), "Un error no transitorio no debe gastar presupuesto.");
+    }
+
+    @Test
+    void testReintentaSolo5xx() {
+        ResilienciaUpstream canal = canal(0.1, 10);
+        AtomicInteger envios = new AtomicInteger();
+
+        StepVerifier.create(canal.ejecutar(() -> {
+                    envios.incrementAndGet();
+                    return Mono.<String>error(WebClientResponseException.create(404, "Not Found", null, null, null));
+                }))
+                .expectError(WebClientResponseException.class)
+                .verify();
+        assertEquals(1, envios.get());
+
+        envios.set(0);
+        StepVerifier.create(canal.ejecutar(() -> envios.incrementAndGet() < 2
+                        ? Mono.<String>error(WebClientResponseException.create(503, "Service Unavailable", null, null, null))
+                        : Mono.just("ok")))
+                .expectNext("ok")
+                .verifyComplete();
+        assertEquals(2, envios.get());
+        assertEquals(1, canal.getReintentos());
+    }
+
+    @Test
+    void testCortocircuitoAbiertoTrasFallosSostenidos() {
+        ResilienciaUpstream canal = canal(0, 0);
+        for (int i = 0; i < 5; i++) {
+            canal.ejecutar(() -> Mono.error(new IllegalStateException("caída"))).onErrorResume(e -> Mono.empty()).block();
+        }
+
+        StepVerifier.create(canal.ejecutar(() -> Mono.just("ok")))
+                .expectError(CallNotPermittedException.class)
+                .verify();
+    }
+
+    @Test
+    void testCortocircuitoRegistraLos5xxPeroNoLos4xx() {
+        ResilienciaUpstream canal = canal(0, 0);
+        for (int i = 0; i < 5; i++) {
+            canal.ejecutar(() -> Mono.error(WebClientResponseException.create(404, "Not Found", null, null, null)))
+                    .onErrorResume(e -> Mono.empty()).block();
+        }
+        StepVerifier.create(canal.ejecutar(() -> Mono.just("ok")))
+                .expectNext("ok")
+                .verifyComplete();
+
+        for (int i = 0; i < 5; i++) {
+            canal.ejecutar(() -> Mono.error(WebClientResponseException.create(503, "Service Unavailable", null, null, null)))
+                    .onErrorResume(e -> Mono.empty()).block();
+        }
+        StepVerifier.create(canal.ejecutar(() -> Mono.just("ok")))
+                .expectError(CallNotPermittedException.class)
+                .verify();
+    }
+
+    @Test
+    void testPresupuestoProporcionalAlTrafico() {
+        PresupuestoReintentos presupuesto = new PresupuestoReintentos(0.1, 1);
+        assertTrue(presupuesto.retirar());
+        assertFalse(presupuesto.retirar());
+        for (int i = 0; i < 9; i++) {
+            presupuesto.depositar();
+        }
+        assertFalse(presupuesto.retirar(), "Nueve peticiones al 10 % no llegan a una petición adicional.");
+        presupuesto.depositar();
+        assertTrue(presupuesto.retirar());
+    }
+}